@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.core.testers;
+
+import org.pagemodel.core.TestContext;
+import org.pagemodel.core.utils.json.JsonObjectBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A limit on the number of browser commands, or the time spent in them, for a test or a test step.
+ * <p>
+ * Commands are reported with record by a command tracer (see CommandTracer in the tools module), and counted by
+ * every budget started on the same thread.  When the budget is tested, the commands used by each action are
+ * included in the event, so a step that starts using more commands shows where they went.  A warnOnly budget logs
+ * a warning instead of failing.
+ * <p>
+ * A budget is only checked if commands were recorded while it ran.  Otherwise the driver it ran with is not traced,
+ * or the step ran no commands and can not have exceeded the budget, and only a message is logged.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class CommandBudget {
+	private final static ThreadLocal<Deque<CommandBudget>> active = ThreadLocal.withInitial(ArrayDeque::new);
+
+	protected final String name;
+	protected Integer maxCommands;
+	protected Long maxMs;
+	protected boolean warnOnly = false;
+	protected int count;
+	protected long nanos;
+	protected final Map<String, long[]> actions = new LinkedHashMap<>();
+
+	public CommandBudget(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Counts a command against every budget running on this thread.
+	 */
+	public static void record(String action, long nanos) {
+		for (CommandBudget budget : active.get()) {
+			budget.add(action, nanos);
+		}
+	}
+
+	/**
+	 * @return true if a command tracer recorded any command while this budget was running
+	 */
+	public boolean isTraced() {
+		return count > 0;
+	}
+
+	public CommandBudget maxCommands(int maxCommands) {
+		this.maxCommands = maxCommands;
+		return this;
+	}
+
+	public CommandBudget maxTime(long maxMs) {
+		this.maxMs = maxMs;
+		return this;
+	}
+
+	public CommandBudget warnOnly() {
+		this.warnOnly = true;
+		return this;
+	}
+
+	public CommandBudget start() {
+		active.get().push(this);
+		return this;
+	}
+
+	public CommandBudget stop() {
+		active.get().remove(this);
+		return this;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public long getTimeMs() {
+		return nanos / 1_000_000;
+	}
+
+	public boolean isExceeded() {
+		return (maxCommands != null && count > maxCommands) || (maxMs != null && getTimeMs() > maxMs);
+	}
+
+	/**
+	 * Fails, or logs a warning if warnOnly, when the budget was exceeded.
+	 */
+	public <R> R test(R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		if (!isTraced()) {
+			testEvaluator.logEvent(TestEvaluator.TEST_LOG, "command budget", op -> op
+					.addValue("budget", name)
+					.addValue("message", "not checked, no browser commands were traced"));
+			return returnObj;
+		}
+		if (warnOnly) {
+			if (isExceeded()) {
+				testEvaluator.logEvent(TestEvaluator.TEST_LOG, "command budget exceeded", this::addJson);
+			}
+			return returnObj;
+		}
+		return testEvaluator.testCondition("command budget", this::addJson, () -> !isExceeded(), returnObj, testContext);
+	}
+
+	protected void add(String action, long nanos) {
+		count++;
+		this.nanos += nanos;
+		long[] stats = actions.computeIfAbsent(action, a -> new long[2]);
+		stats[0]++;
+		stats[1] += nanos;
+	}
+
+	protected void addJson(JsonObjectBuilder op) {
+		List<Map<String, Object>> breakdown = new ArrayList<>();
+		actions.entrySet().stream()
+				.sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+				.forEach(e -> {
+					Map<String, Object> row = new LinkedHashMap<>();
+					row.put("action", e.getKey());
+					row.put("count", e.getValue()[0]);
+					row.put("time", e.getValue()[1] / 1_000_000);
+					breakdown.add(row);
+				});
+		op.addValue("budget", name)
+				.addValue("commands", count)
+				.addValue("time", getTimeMs());
+		if (maxCommands != null) {
+			op.addValue("maxCommands", maxCommands);
+		}
+		if (maxMs != null) {
+			op.addValue("maxTime", maxMs);
+		}
+		op.addValue("actions", breakdown);
+	}
+}
@@ -61,48 +61,68 @@ public class ComparableTester<C extends Comparable<C>, R> {
 		this.returnObj = returnObj;
 	}
 
+	/**
+	 * Returns the test for an assertion.  Subclasses can override this to test the assertion another way, such as in
+	 * the browser.
+	 * @param action action display of the assertion, such as "greater than"
+	 */
+	protected Callable<Boolean> condition(String action, C value, Callable<Boolean> test) {
+		return test;
+	}
+
+	/**
+	 * @return actual value logged for an assertion using a test returned by condition
+	 */
+	protected Object actual(Callable<Boolean> test) {
+		return callRef();
+	}
+
 	public R equals(C val) {
+		Callable<Boolean> test = condition("equals", val, () -> {
+			C refVal = callRef();
+			return (refVal == null && val == null) || (refVal != null && val != null && refVal.compareTo(val) == 0);
+		});
 		return getEvaluator().testCondition(
-				"equals", op -> op.addValue("value", val).addValue("actual",callRef()),
-				() -> {
-					C refVal = callRef();
-					return (refVal == null && val == null) || (refVal != null && val != null && refVal.compareTo(val) == 0);
-				},
-				returnObj, testContext);
+				"equals", op -> op.addValue("value", val).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notEquals(C val) {
+		Callable<Boolean> test = condition("not equals", val, () -> {
+			C refVal = callRef();
+			return (refVal == null && val != null) || (refVal != null && (val == null || refVal.compareTo(val) != 0));
+		});
 		return getEvaluator().testCondition(
-				"not equals", op -> op.addValue("value", val).addValue("actual",callRef()),
-				() -> {
-					C refVal = callRef();
-					return (refVal == null && val != null) || (refVal != null && (val == null || refVal.compareTo(val) != 0));
-				},
-				returnObj, testContext);
+				"not equals", op -> op.addValue("value", val).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R greaterThan(C val) {
+		Callable<Boolean> test = condition("greater than", val, () -> callRef().compareTo(val) > 0);
 		return getEvaluator().testCondition(
-				"greater than", op -> op.addValue("value", val).addValue("actual",callRef()),
-				() -> callRef().compareTo(val) > 0, returnObj, testContext);
+				"greater than", op -> op.addValue("value", val).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notGreaterThan(C val) {
+		Callable<Boolean> test = condition("not greater than", val, () -> callRef().compareTo(val) <= 0);
 		return getEvaluator().testCondition(
-				"not greater than", op -> op.addValue("value", val).addValue("actual",callRef()),
-				() -> callRef().compareTo(val) <= 0, returnObj, testContext);
+				"not greater than", op -> op.addValue("value", val).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R lessThan(C val) {
+		Callable<Boolean> test = condition("less than", val, () -> callRef().compareTo(val) < 0);
 		return getEvaluator().testCondition(
-				"less than", op -> op.addValue("value", val).addValue("actual",callRef()),
-				() -> callRef().compareTo(val) < 0, returnObj, testContext);
+				"less than", op -> op.addValue("value", val).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notLessThan(C val) {
+		Callable<Boolean> test = condition("not less than", val, () -> callRef().compareTo(val) >= 0);
 		return getEvaluator().testCondition(
-				"not less than", op -> op.addValue("value", val).addValue("actual",callRef()),
-				() -> callRef().compareTo(val) >= 0, returnObj, testContext);
+				"not less than", op -> op.addValue("value", val).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public StringTester<R> asString() {
@@ -65,88 +65,119 @@ public class StringTester<R> {
 		this.returnObj = returnObj;
 	}
 
+	/**
+	 * Returns the test for an assertion.  Subclasses can override this to test the assertion another way, such as in
+	 * the browser.
+	 * @param action action display of the assertion, such as "not contains"
+	 * @param value  expected value, or null for is empty and not empty
+	 */
+	protected Callable<Boolean> condition(String action, String value, Callable<Boolean> test) {
+		return test;
+	}
+
+	/**
+	 * @return actual value logged for an assertion using a test returned by condition
+	 */
+	protected Object actual(Callable<Boolean> test) {
+		return callRef();
+	}
+
 	public R contains(String string) {
+		Callable<Boolean> test = condition("contains", string, () -> callRef().contains(string));
 		return getEvaluator().testCondition(
-				"contains", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> callRef().contains(string), returnObj, testContext);
+				"contains", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notContains(String string) {
+		Callable<Boolean> test = condition("not contains", string, () -> !callRef().contains(string));
 		return getEvaluator().testCondition(
-				"not contains", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> !callRef().contains(string), returnObj, testContext);
+				"not contains", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R containedBy(String string) {
+		Callable<Boolean> test = condition("contained by", string, () -> string.contains(callRef()));
 		return getEvaluator().testCondition(
-				"contained by", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> string.contains(callRef()), returnObj, testContext);
+				"contained by", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notContainedBy(String string) {
+		Callable<Boolean> test = condition("not contained by", string, () -> !string.contains(callRef()));
 		return getEvaluator().testCondition(
-				"not contained by", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> !string.contains(callRef()), returnObj, testContext);
+				"not contained by", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R equals(String string) {
+		Callable<Boolean> test = condition("equals", string, () -> callRef() == null && string == null || callRef().equals(string));
 		return getEvaluator().testCondition(
-				"equals", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> callRef() == null && string == null || callRef().equals(string), returnObj, testContext);
+				"equals", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notEquals(String string) {
+		Callable<Boolean> test = condition("not equals", string, () -> callRef() == null && string != null || !callRef().equals(string));
 		return getEvaluator().testCondition(
-				"not equals", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> callRef() == null && string != null || !callRef().equals(string), returnObj, testContext);
+				"not equals", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R matches(String regex) {
+		Callable<Boolean> test = condition("matches regex", regex, () -> callRef().matches(regex));
 		return getEvaluator().testCondition(
-				"matches regex", op -> op.addValue("value", regex).addValue("actual",callRef()),
-				() -> callRef().matches(regex), returnObj, testContext);
+				"matches regex", op -> op.addValue("value", regex).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notMatches(String regex) {
+		Callable<Boolean> test = condition("not matches regex", regex, () -> !callRef().matches(regex));
 		return getEvaluator().testCondition(
-				"not matches regex", op -> op.addValue("value", regex).addValue("actual",callRef()),
-				() -> !callRef().matches(regex), returnObj, testContext);
+				"not matches regex", op -> op.addValue("value", regex).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R startsWith(String string) {
+		Callable<Boolean> test = condition("starts with", string, () -> callRef().startsWith(string));
 		return getEvaluator().testCondition(
-				"starts with", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> callRef().startsWith(string), returnObj, testContext);
+				"starts with", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notStartsWith(String string) {
+		Callable<Boolean> test = condition("not starts with", string, () -> !callRef().startsWith(string));
 		return getEvaluator().testCondition(
-				"not starts with", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> !callRef().startsWith(string), returnObj, testContext);
+				"not starts with", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R endsWith(String string) {
+		Callable<Boolean> test = condition("ends with", string, () -> callRef().endsWith(string));
 		return getEvaluator().testCondition(
-				"ends with", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> callRef().endsWith(string), returnObj, testContext);
+				"ends with", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notEndsWith(String string) {
+		Callable<Boolean> test = condition("not ends with", string, () -> !callRef().endsWith(string));
 		return getEvaluator().testCondition(
-				"not ends with", op -> op.addValue("value", string).addValue("actual",callRef()),
-				() -> !callRef().endsWith(string), returnObj, testContext);
+				"not ends with", op -> op.addValue("value", string).addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R isEmpty() {
+		Callable<Boolean> test = condition("is empty", null, () -> (callRef() == null || callRef().isEmpty()));
 		return getEvaluator().testCondition(
-				"is empty", op -> op.addValue("actual", callRef()),
-				() -> (callRef() == null || callRef().isEmpty()), returnObj, testContext);
+				"is empty", op -> op.addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R notEmpty() {
+		Callable<Boolean> test = condition("not empty", null, () -> (callRef() != null && !callRef().isEmpty()));
 		return getEvaluator().testCondition(
-				"not empty", op -> op.addValue("actual", callRef()),
-				() -> (callRef() != null && !callRef().isEmpty()), returnObj, testContext);
+				"not empty", op -> op.addValue("actual", actual(test)),
+				test, returnObj, testContext);
 	}
 
 	public R storeValue(String key) {
@@ -17,6 +17,7 @@
 package org.pagemodel.core.testers;
 
 import org.pagemodel.core.TestContext;
+import org.pagemodel.core.utils.TestHooks;
 import org.pagemodel.core.utils.TestRuntimeException;
 import org.pagemodel.core.utils.ThrowingCallable;
 import org.pagemodel.core.utils.ThrowingRunnable;
@@ -53,6 +54,10 @@ public abstract class TestEvaluator {
 	public final static String TEST_ERROR = "Error";
 	public final static String TEST_LOG = "Log";
 
+	private final static ThreadLocal<String> currentAction = new ThreadLocal<>();
+	private final static ThreadLocal<String> currentTest = new ThreadLocal<>();
+	private final static ThreadLocal<Boolean> quietThread = new ThreadLocal<>();
+
 	protected String testType = TEST_ASSERT;
 	protected String label;
 	protected String actionDisplay;
@@ -77,7 +82,9 @@ public abstract class TestEvaluator {
 	}
 
 	protected <T> T doTest(String testType, String actionDisplay, Consumer<JsonObjectBuilder> jsonEvent, Callable<Boolean> test, T returnObj, TestContext testContext) {
+		String outerAction = currentAction.get();
 		try {
+			currentAction.set(actionDisplay);
 			setTestEventRef(testType, actionDisplay, jsonEvent);
 			logEvent(testType, actionDisplay, getEventParams(), getSourceEvents());
 			try {
@@ -93,6 +100,45 @@ public abstract class TestEvaluator {
 			throw testContext.createException(JsonBuilder.toMap(getAssertEvent(actionDisplay, getEventParams(), getSourceEvents())));
 		}finally {
 			setSourceFindEvent(null, null);
+			try {
+				TestHooks.actionEnded();
+			} finally {
+				currentAction.set(outerAction);
+			}
+		}
+	}
+
+	/**
+	 * @return action of the test step running on this thread, or null
+	 */
+	public static String getCurrentAction() {
+		return currentAction.get();
+	}
+
+	/**
+	 * @return name of the test running on this thread, or null if it was not set
+	 */
+	public static String getCurrentTest() {
+		return currentTest.get();
+	}
+
+	public static void setCurrentTest(String test) {
+		currentTest.set(test);
+	}
+
+	/**
+	 * Runs a callable with every evaluator on this thread logging at debug level, like a Quiet evaluator.  Used when
+	 * test code is run a second time only to collect what it needs, so its events are not logged twice.
+	 */
+	public static <T> T callQuietly(Callable<T> callable) throws Exception {
+		Boolean outer = quietThread.get();
+		quietThread.set(Boolean.TRUE);
+		try {
+			return callable.call();
+		} finally {
+			if (outer == null) {
+				quietThread.remove();
+			}
 		}
 	}
 
@@ -157,13 +203,13 @@ public abstract class TestEvaluator {
 		if(logHtml || logJson || logPlaintext) {
 			Map<String,Object> event = JsonBuilder.toMap(jsonEvent);
 			if (logPlaintext) {
-				log(JsonLogConsoleOut.formatEvent(event), null, plaintextLogger);
+				write(JsonLogConsoleOut.formatEvent(event), null, plaintextLogger);
 			}
 			if (logHtml) {
-				log(JsonLogHtmlOut.formatEvent(event), null, htmlLogger);
+				write(JsonLogHtmlOut.formatEvent(event), null, htmlLogger);
 			}
 			if (logJson) {
-				log(JsonBuilder.toJsonString(event), null, jsonLogger);
+				write(JsonBuilder.toJsonString(event), null, jsonLogger);
 			}
 		}
 	}
@@ -172,17 +218,25 @@ public abstract class TestEvaluator {
 			Consumer<JsonObjectBuilder> combined = t == null ? jsonEvent : jsonEvent.andThen(obj -> obj.addValue("exception", exceptionJson(t)));
 			Map<String,Object> event = JsonBuilder.toMap(combined);
 			if (logPlaintext) {
-				log(JsonLogConsoleOut.formatEvent(event), t, plaintextLogger);
+				write(JsonLogConsoleOut.formatEvent(event), t, plaintextLogger);
 			}
 			if (logHtml) {
-				log(JsonLogHtmlOut.formatEvent(event), t, htmlLogger);
+				write(JsonLogHtmlOut.formatEvent(event), t, htmlLogger);
 			}
 			if (logJson) {
-				log(JsonBuilder.toJsonString(event), t, jsonLogger);
+				write(JsonBuilder.toJsonString(event), t, jsonLogger);
 			}
 		}
 	}
 
+	private void write(String message, Throwable t, Logger logger){
+		if(quietThread.get() != null){
+			logger.debug(message, t);
+		}else{
+			log(message, t, logger);
+		}
+	}
+
 	protected void log(String message, Throwable t, Logger logger){
 		logger.info(message, t);
 	}
@@ -366,10 +420,12 @@ public abstract class TestEvaluator {
 
 		@Override
 		public <T> T doTest(String testType, String actionDisplay, Consumer<JsonObjectBuilder> jsonEvent, Callable<Boolean> test, T returnObj, TestContext testContext) {
+			String outerAction = currentAction.get();
 			try {
 				if (!testStatus) {
 					return returnObj;
 				}
+				currentAction.set(actionDisplay);
 				setTestEventRef(testType, actionDisplay, jsonEvent);
 				logEvent(TEST_ASSERT, actionDisplay, getEventParams(), getSourceEvents());
 				try {
@@ -382,6 +438,11 @@ public abstract class TestEvaluator {
 				return returnObj;
 			}finally {
 				setSourceFindEvent(null, null);
+				try {
+					TestHooks.actionEnded();
+				} finally {
+					currentAction.set(outerAction);
+				}
 			}
 		}
 
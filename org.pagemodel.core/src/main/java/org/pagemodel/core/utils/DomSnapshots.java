@@ -0,0 +1,263 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.core.utils;
+
+import org.pagemodel.core.utils.json.OutputFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact storage for logged page source.
+ * <p>
+ * The first snapshot logged by each test (see reset) is stored whole, gzipped and base64 encoded.  Later snapshots are
+ * stored as a gzipped line diff against the previous snapshot, and the html report rebuilds them in the browser when
+ * they are opened.  A snapshot is stored whole again when its diff is not much smaller than the page, or after
+ * MAX_CHAIN diffs, which keeps reconstruction cheap.  Page source is masked with OutputFilter before it is stored.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class DomSnapshots {
+	public static boolean ENABLED = true;
+	public static int MAX_CHAIN = 20;
+	public static int MAX_EDIT_LINES = 2000;
+
+	private final static ThreadLocal<Snapshot> previous = new ThreadLocal<>();
+
+	private static class Snapshot {
+		private final String id;
+		private final String[] lines;
+		private final int chain;
+
+		private Snapshot(String id, String[] lines, int chain) {
+			this.id = id;
+			this.lines = lines;
+			this.chain = chain;
+		}
+	}
+
+	/**
+	 * Starts a new chain of snapshots, so the next snapshot on this thread is stored whole.
+	 */
+	public static void reset() {
+		previous.remove();
+	}
+
+	/**
+	 * @param html page source
+	 * @return json value for the snapshot: id, and either gz (the whole page) or base and diff (changes from the
+	 * snapshot with id base)
+	 */
+	public static Map<String, Object> snapshot(String html) {
+		String source = OutputFilter.mask(html);
+		String[] lines = source.split("\n", -1);
+		Snapshot last = previous.get();
+		String id = "dom-" + Unique.shortString();
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("id", id);
+		String diff = last == null || last.chain >= MAX_CHAIN ? null : diff(last.lines, lines);
+		if (diff != null && diff.length() < source.length() / 2) {
+			json.put("base", last.id);
+			json.put("diff", compress(diff));
+			previous.set(new Snapshot(id, lines, last.chain + 1));
+		} else {
+			json.put("gz", compress(source));
+			previous.set(new Snapshot(id, lines, 0));
+		}
+		json.put("lines", lines.length);
+		return json;
+	}
+
+	public static String compress(String text) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+		return Base64.getEncoder().encodeToString(bytes.toByteArray());
+	}
+
+	public static String decompress(String base64) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(base64)))) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				bytes.write(buffer, 0, read);
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Line diff as an edit script, one operation per line: "=n" copies n lines from the base, "-n" skips n lines
+	 * of the base, and "+text" inserts a line.
+	 * @return the edit script, or null if more than MAX_EDIT_LINES lines changed
+	 */
+	public static String diff(String[] base, String[] lines) {
+		int prefix = 0;
+		while (prefix < base.length && prefix < lines.length && base[prefix].equals(lines[prefix])) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < base.length - prefix && suffix < lines.length - prefix
+				&& base[base.length - 1 - suffix].equals(lines[lines.length - 1 - suffix])) {
+			suffix++;
+		}
+		char[] edits = middleEdits(base, prefix, base.length - suffix, lines, prefix, lines.length - suffix);
+		if (edits == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		appendRun(sb, '=', prefix);
+		int b = prefix;
+		int run = 0;
+		char runType = 0;
+		for (char edit : edits) {
+			if (edit == '+') {
+				appendRun(sb, runType, run);
+				run = 0;
+				runType = 0;
+				sb.append('+').append(lines[b++]).append('\n');
+				continue;
+			}
+			if (edit == '=') {
+				b++;
+			}
+			if (edit != runType) {
+				appendRun(sb, runType, run);
+				run = 0;
+				runType = edit;
+			}
+			run++;
+		}
+		appendRun(sb, runType, run);
+		appendRun(sb, '=', suffix);
+		if (sb.length() > 0) {
+			sb.setLength(sb.length() - 1);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Rebuilds a snapshot from its base and the edit script returned by diff.
+	 */
+	public static String applyDiff(String base, String script) {
+		String[] lines = base.split("\n", -1);
+		List<String> out = new ArrayList<>();
+		int pos = 0;
+		for (String op : script.split("\n", -1)) {
+			if (op.isEmpty()) {
+				continue;
+			}
+			char type = op.charAt(0);
+			if (type == '+') {
+				out.add(op.substring(1));
+			} else if (type == '=') {
+				int count = Integer.parseInt(op.substring(1));
+				for (int i = 0; i < count; i++) {
+					out.add(lines[pos++]);
+				}
+			} else if (type == '-') {
+				pos += Integer.parseInt(op.substring(1));
+			}
+		}
+		return String.join("\n", out);
+	}
+
+	private static void appendRun(StringBuilder sb, char type, int count) {
+		if (type != 0 && count > 0) {
+			sb.append(type).append(count).append('\n');
+		}
+	}
+
+	/**
+	 * Myers diff of a[aStart,aEnd) and b[bStart,bEnd).
+	 * @return one of '=', '-' or '+' per edit, or null if there are more than MAX_EDIT_LINES changes
+	 */
+	private static char[] middleEdits(String[] a, int aStart, int aEnd, String[] b, int bStart, int bEnd) {
+		int n = aEnd - aStart;
+		int m = bEnd - bStart;
+		int maxD = Math.min(n + m, MAX_EDIT_LINES);
+		int offset = maxD + 1;
+		int[] v = new int[2 * maxD + 3];
+		List<int[]> trace = new ArrayList<>();
+		int found = -1;
+		for (int d = 0; d <= maxD && found < 0; d++) {
+			int[] snap = new int[2 * d + 3];
+			System.arraycopy(v, offset - d - 1, snap, 0, snap.length);
+			trace.add(snap);
+			for (int k = -d; k <= d; k += 2) {
+				int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) ? v[offset + k + 1] : v[offset + k - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && a[aStart + x].equals(b[bStart + y])) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+				if (x >= n && y >= m) {
+					found = d;
+					break;
+				}
+			}
+		}
+		if (found < 0) {
+			return null;
+		}
+		char[] edits = new char[n + m];
+		int pos = edits.length;
+		int x = n;
+		int y = m;
+		for (int d = found; d > 0; d--) {
+			int[] snap = trace.get(d);
+			int k = x - y;
+			boolean down = k == -d || (k != d && snap[k - 1 + d + 1] < snap[k + 1 + d + 1]);
+			int prevK = down ? k + 1 : k - 1;
+			int prevX = snap[prevK + d + 1];
+			int prevY = prevX - prevK;
+			while (x > prevX && y > prevY) {
+				edits[--pos] = '=';
+				x--;
+				y--;
+			}
+			edits[--pos] = down ? '+' : '-';
+			x = prevX;
+			y = prevY;
+		}
+		while (x > 0) {
+			edits[--pos] = '=';
+			x--;
+		}
+		char[] result = new char[edits.length - pos];
+		System.arraycopy(edits, pos, result, 0, result.length);
+		return result;
+	}
+}
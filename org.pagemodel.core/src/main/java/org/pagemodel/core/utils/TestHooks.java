@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.pagemodel.core.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Callbacks run by the test rule when each test starts and ends, on the test's thread, and by TestEvaluator when each
+ * action ends.
+ * <p>
+ * Modules that keep per-test state (pending screenshots, command traces, screenshot caches) register here, so the
+ * state is flushed or cleared at test end without the test rule depending on those modules.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class TestHooks {
+	private final static List<Runnable> startHooks = new CopyOnWriteArrayList<>();
+	private final static List<Runnable> endHooks = new CopyOnWriteArrayList<>();
+	private final static List<Runnable> actionEndHooks = new CopyOnWriteArrayList<>();
+
+	public static void onTestStart(Runnable hook) {
+		startHooks.add(hook);
+	}
+
+	public static void onTestEnd(Runnable hook) {
+		endHooks.add(hook);
+	}
+
+	/**
+	 * Registers a hook run on the action's thread when each TestEvaluator action ends, while
+	 * TestEvaluator.getCurrentAction still returns the ending action.  Hooks run for every action, so they should be
+	 * cheap.
+	 */
+	public static void onActionEnd(Runnable hook) {
+		actionEndHooks.add(hook);
+	}
+
+	public static void testStarted() {
+		run(startHooks);
+	}
+
+	/**
+	 * Runs every end hook, even if an earlier one fails.  The first failure is rethrown after all hooks have run.
+	 */
+	public static void testEnded() {
+		run(endHooks);
+	}
+
+	public static void actionEnded() {
+		run(actionEndHooks);
+	}
+
+	private static void run(List<Runnable> hooks) {
+		RuntimeException error = null;
+		for (Runnable hook : hooks) {
+			try {
+				hook.run();
+			} catch (RuntimeException ex) {
+				if (error == null) {
+					error = ex;
+				} else {
+					error.addSuppressed(ex);
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+}
@@ -73,6 +73,8 @@ public class JsonLogConsoleOut {
 				continue;
 			}else if(e.getKey().equals("iframe")){
 				continue;
+			}else if(e.getKey().equals("dom")){
+				continue;
 			}else if(e.getKey().equals("stacktrace")){
 				continue;
 			}else if(e.getKey().equals("img-base64")){
@@ -131,16 +131,27 @@ public class JsonLogHtmlOut extends JsonLogConsoleOut{
 		}
 	}
 
+	private static String imageType(String base64) {
+		if (base64.startsWith("/9j/")) {
+			return "image/jpeg";
+		} else if (base64.startsWith("UklGR")) {
+			return "image/webp";
+		}
+		return "image/png";
+	}
+
 	protected DivBuilder addFilteredFieldItem(DivBuilder div, String name, Object item) {
 		if (name.equals("exception-obj")) {
 			return div;
 		}else if (name.equals("img-base64")) {
 			return div.openDiv("field-value")
-					.append("<img class='inline-image' src='data:image/png;base64, ")
+					.append("<img class='inline-image' src='data:").append(imageType(item.toString())).append(";base64, ")
 					.append(OutputFilter.mask(item.toString())).append("'>")
 					.closeDiv();
 		} else if (name.equals("iframe")) {
 			return addHtmlValue(div,item);
+		} else if (name.equals("dom") && item instanceof Map) {
+			return addDomSnapshot(div, (Map<String, Object>)item);
 		} else if(name.equals("duration") && item instanceof Long){
 			//assume milliseconds for long
 			item = formatDuration((long)item);
@@ -271,6 +282,17 @@ public class JsonLogHtmlOut extends JsonLogConsoleOut{
 
 
 
+	/**
+	 * Page source stored by DomSnapshots, rebuilt in the browser by pmShowDom when it is opened.
+	 */
+	protected DivBuilder addDomSnapshot(DivBuilder div, Map<String, Object> snapshot){
+		Object base = snapshot.get("base");
+		Object data = base == null ? snapshot.get("gz") : snapshot.get("diff");
+		return div.openDiv("field-value", "data-dom-id", "" + snapshot.get("id"), "data-dom-base", base == null ? "" : "" + base, "data-dom", "" + data)
+				.append("<button class='dom-button' onclick='pmShowDom(this)'>Show page source (" + snapshot.get("lines") + " lines)</button>")
+				.closeDiv();
+	}
+
 	protected DivBuilder addItem(DivBuilder div, Object item){
 		if(item instanceof Map){
 			return addObject(div, (Map<String, Object>)item);
@@ -614,16 +636,21 @@ public class JsonLogHtmlOut extends JsonLogConsoleOut{
 			+ "    }\n"
 			+ "\n"
 			+ "    .name-iframe > .field-name,\n"
+			+ "    .name-dom > .field-name,\n"
 			+ "    .name-html-src > .field-name {\n"
 			+ "        display: none;\n"
 			+ "    }\n"
 			+ "    .name-iframe,\n"
 			+ "    .name-iframe > .field-value,\n"
-			+ "    .name-iframe > .field-value > iframe {\n"
+			+ "    .name-iframe > .field-value > iframe,\n"
+			+ "    .name-dom,\n"
+			+ "    .name-dom > .field-value,\n"
+			+ "    .name-dom > .field-value > iframe {\n"
 			+ "        width:100%;\n"
 			+ "    }\n"
 			+ "\n"
-			+ "    .name-iframe > .field-value > iframe {\n"
+			+ "    .name-iframe > .field-value > iframe,\n"
+			+ "    .name-dom > .field-value > iframe {\n"
 			+ "        height: 60em;\n"
 			+ "    }\n"
 			+ "\n"
@@ -774,6 +801,45 @@ public class JsonLogHtmlOut extends JsonLogConsoleOut{
 			+ "\n"
 			+ "    /* =========== end log style ========= */"
 			+ "</style>\n"
+			+ "<script>\n"
+			+ "    var pmDom = {};\n"
+			+ "    function pmGunzip(b64) {\n"
+			+ "        var s = atob(b64), bytes = new Uint8Array(s.length), i;\n"
+			+ "        for (i = 0; i < s.length; i++) { bytes[i] = s.charCodeAt(i); }\n"
+			+ "        return new Response(new Blob([bytes]).stream().pipeThrough(new DecompressionStream('gzip'))).text();\n"
+			+ "    }\n"
+			+ "    function pmApplyDiff(base, script) {\n"
+			+ "        var lines = base.split('\\n'), ops = script.split('\\n'), out = [], pos = 0, i, j;\n"
+			+ "        for (i = 0; i < ops.length; i++) {\n"
+			+ "            var type = ops[i].charAt(0);\n"
+			+ "            if (type === '+') { out.push(ops[i].substring(1)); }\n"
+			+ "            else if (type === '=') { for (j = parseInt(ops[i].substring(1)); j > 0; j--) { out.push(lines[pos++]); } }\n"
+			+ "            else if (type === '-') { pos += parseInt(ops[i].substring(1)); }\n"
+			+ "        }\n"
+			+ "        return out.join('\\n');\n"
+			+ "    }\n"
+			+ "    function pmDomSource(id) {\n"
+			+ "        if (!pmDom[id]) {\n"
+			+ "            var el = document.querySelector(\"[data-dom-id='\" + id + \"']\");\n"
+			+ "            if (el == null) { return Promise.reject('snapshot ' + id + ' is not in this report'); }\n"
+			+ "            var base = el.getAttribute('data-dom-base');\n"
+			+ "            pmDom[id] = pmGunzip(el.getAttribute('data-dom')).then(function(text) {\n"
+			+ "                return base ? pmDomSource(base).then(function(src) { return pmApplyDiff(src, text); }) : text;\n"
+			+ "            });\n"
+			+ "        }\n"
+			+ "        return pmDom[id];\n"
+			+ "    }\n"
+			+ "    function pmShowDom(button) {\n"
+			+ "        var div = button.parentNode;\n"
+			+ "        pmDomSource(div.getAttribute('data-dom-id')).then(function(html) {\n"
+			+ "            var frame = document.createElement('iframe');\n"
+			+ "            frame.className = 'html-view';\n"
+			+ "            frame.setAttribute('sandbox', '');\n"
+			+ "            frame.srcdoc = html;\n"
+			+ "            div.replaceChild(frame, button);\n"
+			+ "        }, function(err) { button.textContent = 'Unable to show page source: ' + err; });\n"
+			+ "    }\n"
+			+ "</script>\n"
 			+ "</head>\n"
 			+ "<body>\n"
 			+ "<a id=\"topAnchor\" name=\"top\"></a>\n"
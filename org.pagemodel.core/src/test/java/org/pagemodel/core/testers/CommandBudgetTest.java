@@ -0,0 +1,86 @@
+package org.pagemodel.core.testers;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pagemodel.core.DefaultTestContext;
+import org.pagemodel.core.TestContext;
+
+public class CommandBudgetTest {
+	private TestContext context;
+	private Object returnObj;
+
+	@Before
+	public void setup(){
+		returnObj = new Object();
+		context = new DefaultTestContext();
+	}
+
+	@Test
+	public void countsOnlyWhileStarted() {
+		CommandBudget budget = new CommandBudget("test");
+		CommandBudget.record("click", 1_000_000);
+		budget.start();
+		CommandBudget.record("click", 2_000_000);
+		CommandBudget.record("text equals", 3_000_000);
+		budget.stop();
+		CommandBudget.record("click", 1_000_000);
+		Assert.assertEquals(2, budget.getCount());
+		Assert.assertEquals(5, budget.getTimeMs());
+	}
+
+	@Test
+	public void nestedBudgets() {
+		CommandBudget outer = new CommandBudget("outer").start();
+		CommandBudget inner = new CommandBudget("inner").start();
+		CommandBudget.record("click", 0);
+		inner.stop();
+		CommandBudget.record("click", 0);
+		outer.stop();
+		Assert.assertEquals(1, inner.getCount());
+		Assert.assertEquals(2, outer.getCount());
+	}
+
+	@Test
+	public void exceeded() {
+		CommandBudget budget = new CommandBudget("test").maxCommands(1).maxTime(10).start();
+		CommandBudget.record("click", 0);
+		Assert.assertFalse(budget.isExceeded());
+		Assert.assertSame(returnObj, budget.test(returnObj, context, new TestEvaluator.Now()));
+		CommandBudget.record("click", 0);
+		budget.stop();
+		Assert.assertTrue(budget.isExceeded());
+		try {
+			budget.test(returnObj, context, new TestEvaluator.Now());
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			Assert.assertTrue(ex.getMessage().contains("command budget"));
+		}
+		Assert.assertSame(returnObj, budget.warnOnly().test(returnObj, context, new TestEvaluator.Now()));
+	}
+
+	@Test
+	public void timeExceeded() {
+		CommandBudget budget = new CommandBudget("test").maxTime(10).start();
+		CommandBudget.record("click", 11_000_000);
+		budget.stop();
+		Assert.assertTrue(budget.isExceeded());
+	}
+
+	@Test
+	public void untracedBudgetIsNotChecked() {
+		CommandBudget traced = new CommandBudget("traced").maxCommands(0).start();
+		CommandBudget.record("click", 0);
+		traced.stop();
+		Assert.assertTrue(traced.isTraced());
+		CommandBudget untraced = new CommandBudget("untraced").maxCommands(0).start();
+		untraced.stop();
+		Assert.assertFalse(untraced.isTraced());
+		Assert.assertSame(returnObj, untraced.test(returnObj, context, new TestEvaluator.Now()));
+		try {
+			traced.test(returnObj, context, new TestEvaluator.Now());
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+}
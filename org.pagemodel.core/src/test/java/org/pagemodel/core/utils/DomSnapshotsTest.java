@@ -0,0 +1,62 @@
+package org.pagemodel.core.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+public class DomSnapshotsTest {
+
+	@Test
+	public void diffRoundTrip() {
+		Random random = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			String base = randomLines(random, random.nextInt(30));
+			String changed = randomLines(random, random.nextInt(30));
+			String script = DomSnapshots.diff(base.split("\n", -1), changed.split("\n", -1));
+			Assert.assertEquals(changed, DomSnapshots.applyDiff(base, script));
+		}
+	}
+
+	@Test
+	public void diffTooLarge() {
+		int max = DomSnapshots.MAX_EDIT_LINES;
+		try {
+			DomSnapshots.MAX_EDIT_LINES = 2;
+			Assert.assertNull(DomSnapshots.diff(new String[]{"a", "b", "c"}, new String[]{"x", "y", "z"}));
+		} finally {
+			DomSnapshots.MAX_EDIT_LINES = max;
+		}
+	}
+
+	@Test
+	public void snapshotChain() {
+		StringBuilder page = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			page.append("<div id='line").append(i).append("'>text ").append(i).append("</div>\n");
+		}
+		String first = page.toString();
+		String second = first.replace("text 50", "changed");
+		DomSnapshots.reset();
+		Map<String, Object> full = DomSnapshots.snapshot(first);
+		Map<String, Object> diff = DomSnapshots.snapshot(second);
+		Assert.assertNotNull(full.get("gz"));
+		Assert.assertEquals(full.get("id"), diff.get("base"));
+		Assert.assertEquals(first, DomSnapshots.decompress((String) full.get("gz")));
+		Assert.assertEquals(second, DomSnapshots.applyDiff(first, DomSnapshots.decompress((String) diff.get("diff"))));
+		DomSnapshots.reset();
+		Assert.assertNotNull(DomSnapshots.snapshot(second).get("gz"));
+	}
+
+	private static String randomLines(Random random, int count) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append('\n');
+			}
+			sb.append((char) ('a' + random.nextInt(4)));
+		}
+		return sb.toString();
+	}
+}
@@ -21,12 +21,15 @@ package org.pagemodel.gen.gradle;
  */
 public class ElementConfig {
 	public String name;
+	public boolean list;
 	public boolean displayed;
 	public String displayTest;
 	public String testerType;
 	public String findMethod;
 	public String byType;
 	public String byLocator;
+	public String byConstant;
+	public String xpathLocator;
 	public boolean clickNav;
 	public String returnType;
 	public String clickModifier;
@@ -20,6 +20,7 @@ public class GradleGenExtension {
 	private String srcDir = "src/main/resources/pagemodels";
 	private String genRootDir = "src/gen/java";
 	private Boolean cleanGenDir = true;
+	private Boolean translateXPath = true;
 
 	public String getSrcDir() {
 		return srcDir;
@@ -47,4 +48,12 @@ public class GradleGenExtension {
 	public void setCleanGenDir(Boolean cleanGenDir) {
 		this.cleanGenDir = cleanGenDir;
 	}
+
+	public Boolean getTranslateXPath() {
+		return translateXPath;
+	}
+
+	public void setTranslateXPath(Boolean translateXPath) {
+		this.translateXPath = translateXPath;
+	}
 }
@@ -33,6 +33,7 @@ public class GradleGenTask extends DefaultTask {
 		File modelDir = new File(this.getProject().getProjectDir(), extension.getSrcDir());
 		File outDir = new File(this.getProject().getProjectDir(), extension.getGenRootDir());
 		Boolean cleanGenDir = extension.getCleanGenDir();
+		PageModelReader.TRANSLATE_XPATH = extension.getTranslateXPath();
 
 		if (cleanGenDir && outDir.exists()) {
 			deleteDirectory(outDir);
@@ -41,6 +41,7 @@ public class PageModelJavaWriter {
 				.append("import org.pagemodel.web.testers.*;").append(System.lineSeparator())
 				.append("import org.pagemodel.core.testers.*;").append(System.lineSeparator())
 				.append("import org.pagemodel.tools.*;").append(System.lineSeparator())
+				.append("import java.util.List;").append(System.lineSeparator())
 				.append("import java.util.function.Consumer;").append(System.lineSeparator())
 				.append("import org.openqa.selenium.By;").append(System.lineSeparator())
 				.append("import org.openqa.selenium.WebElement;").append(System.lineSeparator());
@@ -53,6 +54,9 @@ public class PageModelJavaWriter {
 	private StringBuilder generatePageModelClass(PageModelConfig pageModel, StringBuilder sb, String indent){
 		PageModelWriter writer = getWriterType(pageModel);
 		writer.generateClassStart(pageModel, sb, indent);
+		if(pageModel.parentPage == null){
+			writer.generateLocatorConstants(pageModel, sb, indent);
+		}
 		writer.generateModelDisplayed(pageModel, sb, indent);
 		writer.generateElementGetters(pageModel, sb, indent);
 		writer.generateElementTesters(pageModel, sb, indent);
@@ -31,6 +31,12 @@ import static org.pagemodel.gen.gradle.PageModelJavaWriter.INDENT;
 
 public class PageModelReader {
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	/**
+	 * Generate css selectors for xpath locators that have an exact css equivalent, see XPathToCss.
+	 */
+	public static boolean TRANSLATE_XPATH = true;
+
+	private final List<String> untranslated = new ArrayList<>();
 
 	public PageModelConfig readPageModel(String filepath) throws IOException {
 		BufferedReader reader;
@@ -67,6 +73,10 @@ public class PageModelReader {
 			line = reader.readLine();
 		}
 		reader.close();
+		if(!untranslated.isEmpty()){
+			log.warn("Warning: XPath locators without a css equivalent in [" + filepath + "]:"
+					+ System.lineSeparator() + "  " + String.join(System.lineSeparator() + "  ", untranslated));
+		}
 		return rootPageModel;
 	}
 
@@ -167,10 +177,17 @@ public class PageModelReader {
 			i++;
 		}
 		elem.name = parts.get(i++);
+		if(elem.name.endsWith("[]")){
+			elem.name = elem.name.substring(0, elem.name.length() - 2);
+			elem.list = true;
+			if(elem.displayed){
+				elem.displayTest = ".allDisplayed()";
+			}
+		}
 		if(parts.get(i).startsWith("@")){
 			elem.testerType = parts.get(i++);
 		}else{
-			elem.testerType = ElementType.getTesterType(elem.name);
+			elem.testerType = elem.list ? "ElementListTester" : ElementType.getTesterType(elem.name);
 		}
 		elem.byType = parts.get(i++);
 		if(pageModel.modelType.equals("ComponentModel") || pageModel.modelType.equals("SectionModel")){
@@ -183,6 +200,16 @@ public class PageModelReader {
 			elem.findMethod = "findPageElement";
 		}
 		elem.byLocator = parts.get(i++);
+		if(TRANSLATE_XPATH && elem.byType.equals("xpath")){
+			String css = XPathToCss.translate(elem.byLocator, elem.findMethod.equals("findComponentElement"));
+			if(css != null){
+				elem.xpathLocator = elem.byLocator;
+				elem.byType = "cssSelector";
+				elem.byLocator = css;
+			}else{
+				untranslated.add(pageModel.modelName + "." + elem.name + " " + elem.byLocator);
+			}
+		}
 		while(i < parts.size()){
 			if(parts.get(i).startsWith("*")){
 				elem.displayTest = parts.get(i++).substring(1);
@@ -196,6 +223,11 @@ public class PageModelReader {
 				elem.returnType = parts.get(i++);
 			}
 		}
+		if(elem.list && (elem.returnType != null || elem.clickModifier != null)){
+			log.warn("Warning: Click parameters ignored for element list in line [" + String.join(" ", parts) + "]");
+			elem.returnType = null;
+			elem.clickModifier = null;
+		}
 		if(elem.returnType != null){
 			elem.clickNav = true;
 		}else{
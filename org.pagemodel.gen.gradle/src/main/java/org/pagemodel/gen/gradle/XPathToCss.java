@@ -0,0 +1,303 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.gen.gradle;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Translates xpath locators to css selectors that match exactly the same elements, since browsers evaluate css
+ * faster than xpath.  Only paths of child and descendant steps are translated, with element or * node tests and
+ * predicates made of positions, last(), @attr, @attr='value', contains(@attr, 'value'), starts-with(@attr, 'value'),
+ * not(@attr) and the contains(concat(' ', normalize-space(@class), ' '), ' name ') class test, joined with and.
+ * Anything else, such as text(), other axes or positions after a filter, has no css equivalent and is not
+ * translated.
+ * <p>
+ * Locator arguments (s%name% and i%name%) are kept in attribute values, and i%name% is allowed as a position.
+ * <p>
+ * A component locator is evaluated from the component element, where xpath // searches the whole page but css
+ * matches against the whole page and only requires the result to be inside the element.  So component locators are
+ * only translated when they are a single .// step.
+ * <p>
+ * Xpath compares attribute values case-sensitively, but in html documents css compares the values of some
+ * attributes, such as type, method and lang, case-insensitively.  Value tests on those attributes are not
+ * translated.  Id and class selectors are also case-insensitive in quirks mode documents (pages without a doctype),
+ * so there a translated id or class test may also match an element whose id or class differs only in case.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class XPathToCss {
+	private final static Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_-]*");
+	private final static Pattern CSS_IDENT = Pattern.compile("-?[A-Za-z_][A-Za-z0-9_-]*");
+	private final static Pattern INT_ARG = Pattern.compile("i%[^ %]+%");
+	// attributes whose values html compares case-insensitively in css attribute selectors
+	private final static Set<String> CASE_INSENSITIVE = new HashSet<>(Arrays.asList(
+			"accept", "accept-charset", "align", "alink", "axis", "bgcolor", "charset", "checked", "clear", "codetype",
+			"color", "compact", "declare", "defer", "dir", "direction", "disabled", "enctype", "face", "frame",
+			"hreflang", "http-equiv", "lang", "language", "link", "media", "method", "multiple", "nohref", "noresize",
+			"noshade", "nowrap", "readonly", "rel", "rev", "rules", "scope", "scrolling", "selected", "shape", "target",
+			"text", "type", "valign", "valuetype", "vlink"));
+	private final static Pattern CLASS_TEST = Pattern.compile(
+			"contains\\(\\s*concat\\(\\s*' '\\s*,\\s*normalize-space\\(\\s*@class\\s*\\)\\s*,\\s*' '\\s*\\)\\s*,\\s*' ([A-Za-z0-9_-]+) '\\s*\\)");
+
+	private final String xpath;
+	private int pos;
+
+	private XPathToCss(String xpath) {
+		this.xpath = xpath;
+	}
+
+	private static class NotTranslatable extends RuntimeException {
+	}
+
+	/**
+	 * @param component true if the locator is evaluated from a component element instead of the page
+	 * @return the equivalent css selector, or null if the xpath has no exact css equivalent
+	 */
+	public static String translate(String xpath, boolean component) {
+		if (xpath.indexOf('\\') >= 0 || xpath.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			return new XPathToCss(xpath.trim()).path(component);
+		} catch (NotTranslatable ex) {
+			return null;
+		}
+	}
+
+	private String path(boolean component) {
+		StringBuilder css = new StringBuilder();
+		if (component) {
+			expect(".//");
+			css.append(step());
+			if (!atEnd()) {
+				throw new NotTranslatable();
+			}
+			return css.toString();
+		}
+		if (accept(".//") || accept("//")) {
+			css.append(step());
+		} else if (accept("/")) {
+			String step = step();
+			if (!step.equals("html") && !step.matches("html[:\\[.#].*")) {
+				throw new NotTranslatable();
+			}
+			css.append(step);
+		} else {
+			throw new NotTranslatable();
+		}
+		while (!atEnd()) {
+			if (accept("//")) {
+				css.append(" ");
+			} else if (accept("/")) {
+				css.append(" > ");
+			} else {
+				throw new NotTranslatable();
+			}
+			css.append(step());
+		}
+		return css.toString();
+	}
+
+	private String step() {
+		String type;
+		if (accept("*")) {
+			type = "*";
+		} else {
+			type = name();
+			if (peek("(") || peek("::")) {
+				throw new NotTranslatable();
+			}
+		}
+		StringBuilder filters = new StringBuilder();
+		boolean first = true;
+		while (accept("[")) {
+			int end = closing();
+			String predicate = xpath.substring(pos, end).trim();
+			pos = end + 1;
+			String position = position(predicate, type);
+			if (position != null) {
+				if (!first) {
+					throw new NotTranslatable();
+				}
+				filters.append(position);
+			} else {
+				for (String condition : predicate.split("\\s+and\\s+")) {
+					filters.append(condition(condition.trim()));
+				}
+			}
+			first = false;
+		}
+		if (type.equals("*")) {
+			return filters.length() == 0 ? "*" : filters.toString();
+		}
+		return type + filters;
+	}
+
+	private String position(String predicate, String type) {
+		String ofType = type.equals("*") ? "child" : "of-type";
+		if (predicate.matches("[0-9]+") || INT_ARG.matcher(predicate).matches()) {
+			if (predicate.matches("0+")) {
+				throw new NotTranslatable();
+			}
+			return ":nth-" + ofType + "(" + predicate + ")";
+		}
+		if (predicate.matches("last\\(\\s*\\)")) {
+			return ":last-" + ofType;
+		}
+		if (predicate.matches("position\\(\\s*\\)\\s*=\\s*([0-9]+|i%[^ %]+%)")) {
+			return position(predicate.substring(predicate.indexOf('=') + 1).trim(), type);
+		}
+		return null;
+	}
+
+	private String condition(String condition) {
+		Matcher classTest = CLASS_TEST.matcher(condition);
+		if (classTest.matches()) {
+			String name = classTest.group(1);
+			return CSS_IDENT.matcher(name).matches() ? "." + name : "[class~='" + name + "']";
+		}
+		if (condition.startsWith("@")) {
+			int eq = condition.indexOf('=');
+			if (eq < 0) {
+				return "[" + attributeName(condition.substring(1)) + "]";
+			}
+			String name = valueAttributeName(condition.substring(1, eq));
+			String value = literal(condition.substring(eq + 1));
+			if (name.equals("id") && CSS_IDENT.matcher(value).matches()) {
+				return "#" + value;
+			}
+			return "[" + name + "='" + value + "']";
+		}
+		String function = null;
+		for (String f : new String[]{"contains", "starts-with"}) {
+			if (condition.matches(f + "\\s*\\(.*\\)")) {
+				function = f;
+			}
+		}
+		if (function != null) {
+			String args = condition.substring(condition.indexOf('(') + 1, condition.length() - 1);
+			int comma = args.indexOf(',');
+			if (comma < 0 || !args.trim().startsWith("@")) {
+				throw new NotTranslatable();
+			}
+			String name = valueAttributeName(args.substring(0, comma).trim().substring(1));
+			String value = literal(args.substring(comma + 1));
+			if (value.isEmpty()) {
+				throw new NotTranslatable();
+			}
+			return "[" + name + (function.equals("contains") ? "*='" : "^='") + value + "']";
+		}
+		if (condition.matches("not\\(\\s*@[^()]+\\)")) {
+			String name = attributeName(condition.substring(condition.indexOf('@') + 1, condition.length() - 1));
+			return ":not([" + name + "])";
+		}
+		throw new NotTranslatable();
+	}
+
+	private static String attributeName(String name) {
+		name = name.trim();
+		if (!NAME.matcher(name).matches()) {
+			throw new NotTranslatable();
+		}
+		return name;
+	}
+
+	/**
+	 * @return name of an attribute whose value is tested, which css must compare case-sensitively like xpath
+	 */
+	private static String valueAttributeName(String name) {
+		name = attributeName(name);
+		if (CASE_INSENSITIVE.contains(name.toLowerCase())) {
+			throw new NotTranslatable();
+		}
+		return name;
+	}
+
+	/**
+	 * @return the value of a quoted xpath string literal, which must not contain a single quote
+	 */
+	private static String literal(String literal) {
+		literal = literal.trim();
+		if (literal.length() < 2) {
+			throw new NotTranslatable();
+		}
+		char quote = literal.charAt(0);
+		if ((quote != '\'' && quote != '"') || literal.charAt(literal.length() - 1) != quote) {
+			throw new NotTranslatable();
+		}
+		String value = literal.substring(1, literal.length() - 1);
+		if (value.indexOf('\'') >= 0 || value.indexOf('"') >= 0) {
+			throw new NotTranslatable();
+		}
+		return value;
+	}
+
+	private String name() {
+		Matcher m = NAME.matcher(xpath).region(pos, xpath.length());
+		if (!m.lookingAt()) {
+			throw new NotTranslatable();
+		}
+		pos = m.end();
+		return m.group();
+	}
+
+	private int closing() {
+		int depth = 1;
+		char quote = 0;
+		for (int i = pos; i < xpath.length(); i++) {
+			char c = xpath.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"') {
+				quote = c;
+			} else if (c == '[') {
+				depth++;
+			} else if (c == ']' && --depth == 0) {
+				return i;
+			}
+		}
+		throw new NotTranslatable();
+	}
+
+	private boolean atEnd() {
+		return pos >= xpath.length();
+	}
+
+	private boolean peek(String token) {
+		return xpath.startsWith(token, pos);
+	}
+
+	private boolean accept(String token) {
+		if (peek(token)) {
+			pos += token.length();
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(String token) {
+		if (!accept(token)) {
+			throw new NotTranslatable();
+		}
+	}
+}
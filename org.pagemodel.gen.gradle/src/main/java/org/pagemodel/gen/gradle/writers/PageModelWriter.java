@@ -20,13 +20,17 @@ import org.pagemodel.gen.gradle.ElementConfig;
 import org.pagemodel.gen.gradle.PageModelConfig;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.pagemodel.gen.gradle.PageModelJavaWriter.INDENT;
 
 public class PageModelWriter {
+	private final static Pattern LOCATOR_ARG = Pattern.compile("[si]%[^ %]+%");
+
 	public StringBuilder generateClassStart(PageModelConfig pageModel, StringBuilder sb, String indent){
 		String classIndent = indent + INDENT;
 		String methodIndent = classIndent + INDENT;
@@ -34,6 +38,11 @@ public class PageModelWriter {
 				.append(indent).append("public class ").append(pageModel.modelName)
 					.append(" extends ").append(pageModel.modelInherit).append("<")
 					.append(pageModel.modelName).append("> {").append(System.lineSeparator())
+				.append(classIndent).append("static {").append(System.lineSeparator())
+				.append(methodIndent).append("PageModelFactory.register(").append(pageModel.modelName)
+					.append(".class, ExtendedTestContext.class, ").append(pageModel.modelName).append("::new);").append(System.lineSeparator())
+				.append(classIndent).append("}").append(System.lineSeparator())
+				.append(System.lineSeparator())
 				.append(classIndent).append("public ").append(pageModel.modelName)
 					.append("(ExtendedTestContext testContext) {").append(System.lineSeparator())
 				.append(methodIndent).append("super(testContext);").append(System.lineSeparator())
@@ -127,19 +136,85 @@ public class PageModelWriter {
 		return sb;
 	}
 
+	/**
+	 * Generates a static By for each parameterless locator of the model and its inner models, and a ByTemplate for
+	 * each parameterized one, so the element getters do not build a new locator on every call.  All of the fields
+	 * are declared in the top level class, since inner classes can not declare static fields.
+	 */
+	public StringBuilder generateLocatorConstants(PageModelConfig pageModel, StringBuilder sb, String indent){
+		String classIndent = indent + INDENT;
+		StringBuilder fields = new StringBuilder();
+		generateLocatorConstants(pageModel, "", new HashSet<>(), fields, classIndent);
+		if(fields.length() > 0){
+			sb.append(System.lineSeparator()).append(fields);
+		}
+		return sb;
+	}
+
+	private void generateLocatorConstants(PageModelConfig pageModel, String prefix, Set<String> names, StringBuilder sb, String classIndent){
+		for(ElementConfig elem : pageModel.elements){
+			String name = "BY_" + toConstantName(prefix + elem.name);
+			for(int i = 2; !names.add(name); i++){
+				name = "BY_" + toConstantName(prefix + elem.name) + "_" + i;
+			}
+			elem.byConstant = name;
+			List<String> parts = splitLocator(elem.byLocator);
+			if(elem.xpathLocator != null){
+				sb.append(classIndent).append("// xpath \"").append(elem.xpathLocator).append("\"").append(System.lineSeparator());
+			}
+			if(parts.size() == 1){
+				sb.append(classIndent).append("private final static By ").append(name).append(" = By.").append(elem.byType)
+						.append("(\"").append(elem.byLocator).append("\");").append(System.lineSeparator());
+			}else{
+				sb.append(classIndent).append("private final static ByTemplate ").append(name).append(" = new ByTemplate(By::")
+						.append(elem.byType).append(", \"").append(String.join("\", \"", parts)).append("\");").append(System.lineSeparator());
+			}
+		}
+		for(PageModelConfig inner : pageModel.innerModels){
+			generateLocatorConstants(inner, prefix + inner.modelName + "_", names, sb, classIndent);
+		}
+	}
+
+	protected String toConstantName(String name){
+		return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").replaceAll("([A-Z])([A-Z][a-z])", "$1_$2").toUpperCase();
+	}
+
+	/**
+	 * @return the locator text before, between and after the locator arguments
+	 */
+	protected List<String> splitLocator(String locator){
+		List<String> parts = new ArrayList<>();
+		Matcher matcher = LOCATOR_ARG.matcher(locator);
+		int start = 0;
+		while(matcher.find()){
+			parts.add(locator.substring(start, matcher.start()));
+			start = matcher.end();
+		}
+		parts.add(locator.substring(start));
+		return parts;
+	}
+
 	public StringBuilder generateElementGetter(PageModelConfig pageModel, ElementConfig elem, StringBuilder sb, String indent){
 		String classIndent = indent + INDENT;
 		String methodIndent = classIndent + INDENT;
 		String locator = elem.byLocator;
 		List<LocatorArg> args = findVars(locator);
-		for(LocatorArg arg : args){
-			locator = locator.replaceAll(arg.locatorString, "\" + " + arg.name + " + \"");
-		}
 		String methodArgs = String.join(", ", args.stream().map(arg -> arg.argString).toArray(String[]::new));
-		sb.append(System.lineSeparator()).append(classIndent).append("protected LocatedWebElement get")
+		String by;
+		if(elem.byConstant == null){
+			for(LocatorArg arg : args){
+				locator = locator.replaceAll(arg.locatorString, "\" + " + arg.name + " + \"");
+			}
+			by = "By." + elem.byType + "(\"" + locator + "\")";
+		}else if(args.isEmpty()){
+			by = elem.byConstant;
+		}else{
+			by = elem.byConstant + ".by(" + String.join(", ", args.stream().map(arg -> arg.name).toArray(String[]::new)) + ")";
+		}
+		sb.append(System.lineSeparator()).append(classIndent).append(elem.list ? "protected List<?> get" : "protected LocatedWebElement get")
 				.append(elem.name).append("(").append(methodArgs).append(") {").append(System.lineSeparator())
-				.append(methodIndent).append("return ").append(elem.findMethod).append("(\"").append(elem.name).append("\", By.").append(elem.byType)
-					.append("(\"").append(locator).append("\"));").append(System.lineSeparator())
+				.append(methodIndent).append("return ").append(elem.findMethod).append(elem.list ? "s" : "").append("(\"").append(elem.name).append("\", ")
+					.append(by).append(");").append(System.lineSeparator())
 				.append(classIndent).append("}").append(System.lineSeparator());
 		return sb;
 	}
@@ -164,6 +239,9 @@ public class PageModelWriter {
 		List<LocatorArg> args = findVars(locator);
 		String methodArgs = String.join(", ", args.stream().map(arg -> arg.argString).toArray(String[]::new));
 		String callArgs = String.join(", ", args.stream().map(arg -> arg.name).toArray(String[]::new));
+		if(elem.list){
+			return generateElementListTester(pageModel, elem, methodArgs, callArgs, sb, indent);
+		}
 		String clickAction = getClickAction(pageModel, elem, callArgs, continueIndent);
 		TesterType tester = getTesterType(pageModel, elem);
 		sb.append(System.lineSeparator())
@@ -175,6 +253,18 @@ public class PageModelWriter {
 		return sb;
 	}
 
+	protected StringBuilder generateElementListTester(PageModelConfig pageModel, ElementConfig elem, String methodArgs, String callArgs, StringBuilder sb, String indent){
+		String classIndent = indent + INDENT;
+		String methodIndent = classIndent + INDENT;
+		String elemGetter = callArgs.isEmpty() ? "this::get" + elem.name : "() -> get" + elem.name + "(" + callArgs + ")";
+		sb.append(System.lineSeparator())
+				.append(classIndent).append("public ElementListTester<").append(getPageTypeParam(pageModel)).append("> test").append(elem.name)
+					.append("(").append(methodArgs).append(") {").append(System.lineSeparator())
+				.append(methodIndent).append("return testElementList(\"").append(elem.name).append("\", ").append(elemGetter).append(");").append(System.lineSeparator())
+				.append(classIndent).append("}").append(System.lineSeparator());
+		return sb;
+	}
+
 	protected TesterType getTesterType(PageModelConfig pageModel, ElementConfig elem){
 		TesterType tester = new TesterType();
 		String returnType = getTesterNavTypeParam(pageModel, elem);
@@ -237,7 +327,7 @@ public class PageModelWriter {
 
 	protected List<LocatorArg> findVars(String locator){
 		List<LocatorArg> args = new ArrayList<>();
-		Matcher matcher = Pattern.compile("[si]%[^ %]+%").matcher(locator);
+		Matcher matcher = LOCATOR_ARG.matcher(locator);
 		while(matcher.find()){
 			args.add(new LocatorArg(matcher.group()));
 		}
@@ -0,0 +1,60 @@
+package org.pagemodel.gen.gradle;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PageModelJavaWriterTest {
+	private static String java;
+
+	@BeforeClass
+	public static void generate() throws Exception {
+		File model = new File(PageModelJavaWriterTest.class.getResource("/pagemodels/SamplePage.pagemodel").toURI());
+		java = new PageModelJavaWriter().generatePageModelJavaFile(new PageModelReader().readPageModel(model.getAbsolutePath()));
+	}
+
+	private static int count(String text) {
+		int count = 0;
+		for (int i = java.indexOf(text); i >= 0; i = java.indexOf(text, i + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+	@Test
+	public void locatorsAreConstants() {
+		Assert.assertTrue(java, java.contains("private final static By BY_HEADER_DISPLAY = By.cssSelector(\"h1:nth-of-type(1)\");"));
+		Assert.assertTrue(java, java.contains("private final static By BY_SAVE_BUTTON = By.id(\"save\");"));
+		Assert.assertTrue(java, java.contains("private final static By BY_ROW_NAME_DISPLAY = By.cssSelector(\"td:nth-child(1)\");"));
+		Assert.assertEquals(1, count("By.id(\"save\")"));
+		Assert.assertEquals(1, count("By.cssSelector(\"td:nth-child(1)\")"));
+	}
+
+	@Test
+	public void parameterizedLocatorsAreTemplates() {
+		Assert.assertTrue(java, java.contains("private final static ByTemplate BY_ROW_DISPLAY = "
+				+ "new ByTemplate(By::cssSelector, \"table#rows > tbody > tr:nth-of-type(\", \")\");"));
+		Assert.assertTrue(java, java.contains("private final static ByTemplate BY_ROW_DISPLAY_2 = "
+				+ "new ByTemplate(By::xpath, \"//table[@id='rows']/tbody/tr/td[1][text()='\", \"']//parent::tr\");"));
+		Assert.assertTrue(java, java.contains("findPageElement(\"RowDisplay\", BY_ROW_DISPLAY.by(rowNum))"));
+		Assert.assertTrue(java, java.contains("findPageElement(\"RowDisplay\", BY_ROW_DISPLAY_2.by(name))"));
+	}
+
+	@Test
+	public void constantsAreUsed() {
+		Assert.assertTrue(java, java.contains("findPageElement(\"SaveButton\", BY_SAVE_BUTTON)"));
+		Assert.assertTrue(java, java.contains("findComponentElement(\"NameDisplay\", BY_ROW_NAME_DISPLAY)"));
+		Matcher constants = Pattern.compile("private final static By(?:Template)? (BY_\\w+) =").matcher(java);
+		int declared = 0;
+		while (constants.find()) {
+			declared++;
+			String name = constants.group(1);
+			Assert.assertEquals(name, 1, count(name + ")") + count(name + ".by("));
+		}
+		Assert.assertEquals(6, declared);
+	}
+}
@@ -0,0 +1,98 @@
+package org.pagemodel.gen.gradle;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XPathToCssTest {
+
+	private static void assertPage(String css, String xpath) {
+		Assert.assertEquals(xpath, css, XPathToCss.translate(xpath, false));
+	}
+
+	private static void assertNotTranslated(String xpath) {
+		Assert.assertNull(xpath, XPathToCss.translate(xpath, false));
+	}
+
+	@Test
+	public void paths() {
+		assertPage("div", "//div");
+		assertPage("ul > li", "//ul/li");
+		assertPage("table tr > td", "//table//tr/td");
+		assertPage("html > body", "/html/body");
+		assertNotTranslated("/body/div");
+		assertNotTranslated("//a/parent::div");
+		assertNotTranslated("//a/..");
+	}
+
+	@Test
+	public void positions() {
+		assertPage("li:nth-of-type(2)", "//li[2]");
+		assertPage("ul > :nth-child(3)", "//ul/*[3]");
+		assertPage("li:nth-of-type(2)", "//li[position()=2]");
+		assertPage("tr:nth-of-type(i%row%)", "//tr[i%row%]");
+		assertPage("li:last-of-type", "//li[last()]");
+		assertPage(":last-child", "//*[last()]");
+		assertPage("li:nth-of-type(2).item", "//li[2][contains(concat(' ', normalize-space(@class), ' '), ' item ')]");
+		assertNotTranslated("//li[0]");
+		assertNotTranslated("//li[@class='item'][2]");
+		assertNotTranslated("//li[last()-1]");
+		assertNotTranslated("(//li)[2]");
+	}
+
+	@Test
+	public void attributes() {
+		assertPage("a[href]", "//a[@href]");
+		assertPage("input[name='q']", "//input[@name='q']");
+		assertPage("a[href*='login']", "//a[contains(@href, 'login')]");
+		assertPage("a[href^='/app']", "//a[starts-with(@href, \"/app\")]");
+		assertPage("input:not([disabled])", "//input[not(@disabled)]");
+		assertPage("input[name='q'][data-test='search']", "//input[@name='q' and @data-test='search']");
+		assertPage("input[name='s%field%']", "//input[@name='s%field%']");
+		assertNotTranslated("//a[contains(@href, '')]");
+		assertNotTranslated("//a[@title=\"it's\"]");
+		assertNotTranslated("//a[@href='x' or @href='y']");
+	}
+
+	@Test
+	public void ids() {
+		assertPage("div#main", "//div[@id='main']");
+		assertPage("#main", "//*[@id='main']");
+		assertPage("div[id='1main']", "//div[@id='1main']");
+		assertPage("div[id='main.content']", "//div[@id='main.content']");
+	}
+
+	@Test
+	public void classTest() {
+		assertPage("div.item", "//div[contains(concat(' ', normalize-space(@class), ' '), ' item ')]");
+		assertPage(".item", "//*[contains(concat(' ',normalize-space(@class),' '),' item ')]");
+		assertPage("div[class~='1col']", "//div[contains(concat(' ', normalize-space(@class), ' '), ' 1col ')]");
+		assertPage("div[class*='item']", "//div[contains(@class, 'item')]");
+	}
+
+	@Test
+	public void caseInsensitiveAttributeValues() {
+		assertPage("input[type]", "//input[@type]");
+		assertNotTranslated("//input[@type='submit']");
+		assertNotTranslated("//input[@TYPE='submit']");
+		assertNotTranslated("//form[contains(@method, 'post')]");
+		assertNotTranslated("//html[starts-with(@lang, 'en')]");
+	}
+
+	@Test
+	public void componentLocators() {
+		Assert.assertEquals("a[href]", XPathToCss.translate(".//a[@href]", true));
+		Assert.assertEquals("td:nth-of-type(2)", XPathToCss.translate(".//td[2]", true));
+		Assert.assertNull(XPathToCss.translate("//a", true));
+		Assert.assertNull(XPathToCss.translate(".//td/a", true));
+		Assert.assertNull(XPathToCss.translate("./a", true));
+		assertPage("a", ".//a");
+	}
+
+	@Test
+	public void text() {
+		assertNotTranslated("//p[text()='Save']");
+		assertNotTranslated("//p[contains(text(), 'Save')]");
+		assertNotTranslated("//p[.='Save']");
+		assertNotTranslated("//p/text()");
+	}
+}
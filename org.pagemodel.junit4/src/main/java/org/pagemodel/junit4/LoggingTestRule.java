@@ -24,7 +24,11 @@ import ch.qos.logback.core.recovery.ResilientFileOutputStream;
 import org.junit.rules.MethodRule;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.Statement;
+import org.pagemodel.core.DefaultTestContext;
+import org.pagemodel.core.testers.CommandBudget;
 import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.core.utils.DomSnapshots;
+import org.pagemodel.core.utils.TestHooks;
 import org.pagemodel.core.utils.TestRuntimeException;
 import org.pagemodel.core.utils.Unique;
 import org.pagemodel.core.utils.json.StacktraceFilter;
@@ -48,11 +52,38 @@ public class LoggingTestRule implements MethodRule {
 
 	private TestEvaluator evalLogger = new TestEvaluator.Now();
 	private FrameworkMethod method;
+	private Integer commandBudget;
+	private Long timeBudget;
+	private boolean warnOnBudget = false;
 
 	public LoggingTestRule(){
 		startLoggers();
 	}
 
+	/**
+	 * Fails each test that runs more than maxCommands browser commands.  Requires command tracing, see CommandBudget.
+	 */
+	public LoggingTestRule withCommandBudget(int maxCommands){
+		this.commandBudget = maxCommands;
+		return this;
+	}
+
+	/**
+	 * Fails each test whose browser commands take more than maxMs.  Requires command tracing, see CommandBudget.
+	 */
+	public LoggingTestRule withTimeBudget(long maxMs){
+		this.timeBudget = maxMs;
+		return this;
+	}
+
+	/**
+	 * Logs a warning instead of failing when a test exceeds its budget.
+	 */
+	public LoggingTestRule warnOnBudget(){
+		this.warnOnBudget = true;
+		return this;
+	}
+
 	private static void startLoggers(){
 		if(loggedReportPath){
 			return;
@@ -93,6 +124,8 @@ public class LoggingTestRule implements MethodRule {
 				}
 				String testId = Unique.shortString();
 				Date start = new Date();
+				DomSnapshots.reset();
+				TestEvaluator.setCurrentTest(method.getDeclaringClass().getSimpleName() + "." + method.getName());
 				evalLogger.logEvent("Test", "start", op -> op
 								.addValue("class", method.getDeclaringClass().getName())
 								.addValue("method", method.getName())
@@ -100,20 +133,61 @@ public class LoggingTestRule implements MethodRule {
 								.addValue("total", testQueueCount.getCount())
 								.addValue("start", start)
 								.addValue("testId", testId));
+				TestHooks.testStarted();
+				CommandBudget budget = createBudget(method);
+				boolean ended = false;
 				try {
+					if(budget != null){
+						budget.start();
+					}
 					base.evaluate();
+					ended = true;
+					TestHooks.testEnded();
+					if(budget != null){
+						budget.stop();
+						budget.test(null, new DefaultTestContext(), evalLogger);
+					}
 				}catch (Throwable t){
+					if(!ended){
+						try {
+							TestHooks.testEnded();
+						}catch (RuntimeException ex){
+							t.addSuppressed(ex);
+						}
+					}
 					logTestEnd(start, "fail", testId, count);
 					if(!(t instanceof TestRuntimeException)){
 						evalLogger.logException(t);
 					}
 					throw t;
+				}finally {
+					if(budget != null){
+						budget.stop();
+					}
+					TestEvaluator.setCurrentTest(null);
 				}
 				logTestEnd(start, "pass", testId, count);
 			}
 		};
 	}
 
+	private CommandBudget createBudget(FrameworkMethod method){
+		if(commandBudget == null && timeBudget == null){
+			return null;
+		}
+		CommandBudget budget = new CommandBudget(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+		if(commandBudget != null){
+			budget.maxCommands(commandBudget);
+		}
+		if(timeBudget != null){
+			budget.maxTime(timeBudget);
+		}
+		if(warnOnBudget){
+			budget.warnOnly();
+		}
+		return budget;
+	}
+
 	private void logTestEnd(Date start, String status, String testId, int count){
 		Date end = new Date();
 		long durationMsec = end.getTime() - start.getTime();
@@ -26,9 +26,13 @@ import org.pagemodel.core.utils.json.JsonObjectBuilder;
 import org.pagemodel.mail.MailTestContext;
 import org.pagemodel.ssh.SSHAuthenticator;
 import org.pagemodel.ssh.SSHTestContext;
+import org.pagemodel.tools.network.NetworkRecorder;
+import org.pagemodel.tools.network.NetworkTester;
 import org.pagemodel.web.DefaultWebTestContext;
 import org.pagemodel.web.utils.PageException;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.function.Consumer;
 
 /**
@@ -39,6 +43,7 @@ public class ExtendedTestContext extends DefaultWebTestContext implements SSHTes
 
 	private WebDriverConfig webDriverConfig;
 	protected SSHAuthenticator sshAuthenticator;
+	protected NetworkRecorder networkRecorder;
 
 	public ExtendedTestContext(WebDriver driver, SSHAuthenticator sshAuthenticator, WebDriverConfig webDriverConfig) {
 		super(driver);
@@ -51,6 +56,9 @@ public class ExtendedTestContext extends DefaultWebTestContext implements SSHTes
 
 	private void openBrowser(String url){
 		if (getDriver() != null) {
+			if (networkRecorder != null) {
+				networkRecorder.stop();
+			}
 			quit();
 		}
 		setDriver(WebDriverFactory.create(webDriverConfig, url));
@@ -160,4 +168,62 @@ public class ExtendedTestContext extends DefaultWebTestContext implements SSHTes
 	public void log(String action, Consumer<JsonObjectBuilder> eventParams){
 		this.getEvaluator().logEvent(TestEvaluator.TEST_LOG, action, eventParams);
 	}
+
+	/**
+	 * Starts recording the requests made by the browser.  Requires a Chromium browser, see NetworkRecorder.
+	 */
+	@Experimental
+	public ExtendedTestContext startNetworkCapture(){
+		return getEvaluator().testExecute("start network capture", op -> op
+						.addValue("maxEntries", NetworkRecorder.MAX_ENTRIES),
+				() -> {
+					if (networkRecorder == null) {
+						networkRecorder = new NetworkRecorder();
+					}
+					networkRecorder.clear();
+					networkRecorder.start(getDriver());
+				}, this, this);
+	}
+
+	/**
+	 * Stops recording requests.
+	 * @return assertions on the requests recorded since startNetworkCapture
+	 */
+	@Experimental
+	public NetworkTester<ExtendedTestContext> stopNetworkCapture(){
+		if (networkRecorder != null) {
+			networkRecorder.stop();
+		}
+		return testNetwork();
+	}
+
+	/**
+	 * @return assertions on the requests recorded so far
+	 */
+	@Experimental
+	public NetworkTester<ExtendedTestContext> testNetwork(){
+		NetworkRecorder recorder = networkRecorder == null ? new NetworkRecorder() : networkRecorder;
+		getEvaluator().logEvent(TestEvaluator.TEST_FIND, "network capture", op -> op
+				.addValue("recording", recorder.isRecording())
+				.addValue("requests", recorder.getEntries().size())
+				.addValue("dropped", recorder.getDropped()));
+		return new NetworkTester<>(recorder.getEntries(), this, this, getEvaluator());
+	}
+
+	/**
+	 * Writes the requests recorded so far as a HAR file in NetworkRecorder.LOG_DIR.
+	 */
+	@Experimental
+	public File saveHar(String name){
+		NetworkRecorder recorder = networkRecorder == null ? new NetworkRecorder() : networkRecorder;
+		try {
+			File file = recorder.saveHar(name);
+			getEvaluator().logEvent(TestEvaluator.TEST_LOG, "save har", op -> op
+					.addValue("file", file.getPath())
+					.addValue("requests", recorder.getEntries().size()));
+			return file;
+		} catch (IOException ex) {
+			throw createException("Error: Unable to save HAR file: " + name, ex);
+		}
+	}
 }
@@ -43,18 +43,24 @@ import org.openqa.selenium.safari.SafariOptions;
 import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.core.utils.json.JsonLogConsoleOut;
 import org.pagemodel.core.utils.json.JsonObjectBuilder;
+import org.pagemodel.tools.fake.FakeWebDriver;
+import org.pagemodel.tools.replay.ReplayWebDriver;
+import org.pagemodel.tools.replay.WebDriverRecorder;
+import org.pagemodel.tools.trace.CommandTracer;
 import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.utils.DriverTimeouts;
 import org.pagemodel.web.utils.PageException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -68,6 +74,17 @@ public abstract class WebDriverFactory {
 	public static int DEFAULT_IMPLICITLY_WAIT_MILLISECONDS = 0;
 	public static int DEFAULT_SCRIPT_TIMEOUT_SECONDS = 20;
 	public static String DOWNLOAD_DIRECTORY;
+	/**
+	 * Record every command of the drivers opened by create, see CommandTracer.
+	 */
+	public static boolean TRACE_COMMANDS = Boolean.getBoolean("pagemodel.traceCommands");
+	/**
+	 * Record every call of the drivers opened by create, named after the current test, see WebDriverRecorder.
+	 * Recordings are played back with the "replay" browser type.
+	 */
+	public static boolean RECORD_COMMANDS = Boolean.getBoolean("pagemodel.recordCommands");
+	public final static String RECORDING_CAPABILITY = "pagemodel:recording";
+	private final static AtomicInteger recordingCount = new AtomicInteger();
 
 	private final static Map<String, Function<MutableCapabilities,WebDriver>> browserFactoryMap = new HashMap<>();
 
@@ -89,6 +106,8 @@ public abstract class WebDriverFactory {
 		browserFactoryMap.put("opera", WebDriverFactory::openOpera);
 		browserFactoryMap.put("operablink", WebDriverFactory::openOpera);
 		browserFactoryMap.put("htmlunit", WebDriverFactory::openHtmlUnit);
+		browserFactoryMap.put("replay", WebDriverFactory::openReplay);
+		browserFactoryMap.put("fake", WebDriverFactory::openFake);
 	}
 
 	/**
@@ -112,7 +131,7 @@ public abstract class WebDriverFactory {
 					.addValue("remoteUrl", config.getRemoteUrl())
 					.addValue("capabilities",  config.getCapabilities().toJson()));
 			eval.logEvent(event);
-			driver = getRemoteWebDriver(config.getRemoteUrl(), config.getCapabilities());
+			driver = record(getRemoteWebDriver(config.getRemoteUrl(), config.getCapabilities()));
 		}else{
 			event = eval.getEventJson(TestEvaluator.TEST_EXECUTE,
 					"open url", op -> op
@@ -121,6 +140,9 @@ public abstract class WebDriverFactory {
 			eval.logEvent(event);
 			driver = getWebDriver(config.getCapabilities());
 		}
+		if (TRACE_COMMANDS) {
+			driver = CommandTracer.decorate(driver);
+		}
 		try {
 			driver.get(url);
 			clickThroughCertErrorPage(driver);
@@ -147,6 +169,14 @@ public abstract class WebDriverFactory {
 		}
 	}
 
+	private static WebDriver record(WebDriver driver) {
+		if (!RECORD_COMMANDS) {
+			return driver;
+		}
+		String test = TestEvaluator.getCurrentTest();
+		return WebDriverRecorder.record(driver, test != null ? test : "driver-" + recordingCount.incrementAndGet());
+	}
+
 	private static void clickThroughCertErrorPage(WebDriver driver) {
 		if (driver.getPageSource().contains("overridelink")) {
 			driver.findElement(By.id("overridelink")).click();
@@ -161,9 +191,12 @@ public abstract class WebDriverFactory {
 		}
 		try {
 			WebDriver driver = browserFactoryMap.get(browser).apply(capabilities);
-			driver.manage().timeouts().pageLoadTimeout(DEFAULT_PAGE_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-			driver.manage().timeouts().implicitlyWait(DEFAULT_IMPLICITLY_WAIT_MILLISECONDS, TimeUnit.MILLISECONDS);
-			driver.manage().timeouts().setScriptTimeout(DEFAULT_SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			if (!browser.equals("replay")) {
+				driver = record(driver);
+			}
+			DriverTimeouts.setPageLoadTimeout(driver, Duration.ofSeconds(DEFAULT_PAGE_LOAD_TIMEOUT_SECONDS));
+			DriverTimeouts.setImplicitWait(driver, Duration.ofMillis(DEFAULT_IMPLICITLY_WAIT_MILLISECONDS));
+			DriverTimeouts.setScriptTimeout(driver, Duration.ofSeconds(DEFAULT_SCRIPT_TIMEOUT_SECONDS));
 			return driver;
 		} catch (Exception ex){
 			throw new RuntimeException("Error: Unable to open browser with type [" + browser + "]", ex);
@@ -330,4 +363,25 @@ public abstract class WebDriverFactory {
 	private static WebDriver openHtmlUnit(Capabilities capabilities) {
 		return new HtmlUnitDriver(true);
 	}
+
+	/**
+	 * Plays back the recording named by the pagemodel:recording capability, or by the current test name.
+	 */
+	private static WebDriver openReplay(Capabilities capabilities) {
+		Object name = capabilities.getCapability(RECORDING_CAPABILITY);
+		if (name == null) {
+			name = TestEvaluator.getCurrentTest();
+		}
+		if (name == null) {
+			throw new RuntimeException("Error: No recording to replay, set the " + RECORDING_CAPABILITY + " capability");
+		}
+		return ReplayWebDriver.load(name.toString());
+	}
+
+	/**
+	 * Opens an in-memory FakeWebDriver, which loads data: and file: urls.
+	 */
+	private static WebDriver openFake(Capabilities capabilities) {
+		return new FakeWebDriver();
+	}
 }
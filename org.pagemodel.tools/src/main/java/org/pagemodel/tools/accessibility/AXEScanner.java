@@ -21,6 +21,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.utils.DriverTimeouts;
 import org.pagemodel.web.utils.Screenshot;
 
 import java.io.BufferedReader;
@@ -29,11 +30,11 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.net.URLConnection;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author Matt Stevenson [matt@pagemodel.org]
@@ -82,10 +83,16 @@ public class AXEScanner {
 		if (getScreenshotFlag()) {
 			Screenshot.takeScreenshot(testContext, outFileName);
 		}
-		testContext.getDriver().manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
-		JSONObject responseJSON = new AXE.Builder(testContext.getDriver(), SCRIPT_URL)
-				.setTimeout(timeoutSec)
-				.analyze();
+		DriverTimeouts.setImplicitWait(testContext.getDriver(), Duration.ZERO);
+		JSONObject responseJSON;
+		try {
+			responseJSON = new AXE.Builder(testContext.getDriver(), SCRIPT_URL)
+					.setTimeout(timeoutSec)
+					.analyze();
+		} finally {
+			// analyze sets the script timeout on the driver directly
+			DriverTimeouts.forDriver(testContext.getDriver()).invalidate(DriverTimeouts.Type.SCRIPT);
+		}
 		JSONArray violation = responseJSON.getJSONArray("violations");
 		List<String> foundExpectedViolations = new ArrayList<>();
 		List<String> foundViolations = new ArrayList<>();
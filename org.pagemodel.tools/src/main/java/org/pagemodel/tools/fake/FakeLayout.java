@@ -0,0 +1,239 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.fake;
+
+import org.openqa.selenium.Rectangle;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Visibility, visible text and a simple block flow layout for a FakeWebDriver page.
+ * <p>
+ * Block elements are stacked down the page at the full width of their parent, and inline elements and text run
+ * across a line and wrap at the parent width, with every character CHAR_WIDTH wide and every line LINE_HEIGHT high.
+ * Pixel width and height in a style attribute override the computed size.  Hidden elements have an empty rect.
+ * The rects are only stable enough to test relative positions and sizes, not to match a real browser.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class FakeLayout {
+	public static int CHAR_WIDTH = 8;
+	public static int LINE_HEIGHT = 20;
+	public static int CONTROL_WIDTH = 150;
+
+	private final static Set<String> HIDDEN_TAGS = new HashSet<>(Arrays.asList(
+			"head", "script", "style", "title", "meta", "link", "base", "template", "noscript"));
+	private final static Set<String> CONTROL_TAGS = new HashSet<>(Arrays.asList("input", "select", "textarea", "button"));
+	private final static Rectangle EMPTY = new Rectangle(0, 0, 0, 0);
+
+	protected final FakeNode document;
+	protected final int width;
+	protected Map<FakeNode, Rectangle> rects;
+
+	public FakeLayout(FakeNode document, int width) {
+		this.document = document;
+		this.width = width;
+	}
+
+	/**
+	 * @return the value of a property in the style attribute, or null if it is not set there
+	 */
+	public static String style(FakeNode node, String property) {
+		String style = node.getAttribute("style");
+		if (style == null) {
+			return null;
+		}
+		for (String declaration : style.split(";")) {
+			int colon = declaration.indexOf(':');
+			if (colon > 0 && declaration.substring(0, colon).trim().equalsIgnoreCase(property)) {
+				return declaration.substring(colon + 1).replace("!important", "").trim();
+			}
+		}
+		return null;
+	}
+
+	public static boolean isBlock(FakeNode node) {
+		String display = style(node, "display");
+		if (display != null) {
+			return !display.startsWith("inline");
+		}
+		return !FakeNode.INLINE_TAGS.contains(node.getTag());
+	}
+
+	protected static boolean isHidden(FakeNode node) {
+		if (HIDDEN_TAGS.contains(node.getTag()) || node.getAttribute("hidden") != null) {
+			return true;
+		}
+		if (node.getTag().equals("input") && "hidden".equalsIgnoreCase(node.getAttribute("type"))) {
+			return true;
+		}
+		return "none".equals(style(node, "display")) || "hidden".equals(style(node, "visibility"));
+	}
+
+	public boolean isDisplayed(FakeNode node) {
+		for (FakeNode n = node; n != null && !n.getTag().equals("#document"); n = n.getParent()) {
+			if (isHidden(n)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the rendered text of the element as WebElement.getText: hidden elements are skipped, white space is
+	 * collapsed, and block elements and br start a new line
+	 */
+	public String text(FakeNode node) {
+		if (!isDisplayed(node)) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder();
+		appendText(node, sb);
+		StringBuilder text = new StringBuilder();
+		for (String line : sb.toString().split("\n")) {
+			String trimmed = line.replace('\u00a0', ' ').replaceAll("[ \\t\\r\\f]+", " ").trim();
+			if (!trimmed.isEmpty()) {
+				if (text.length() > 0) {
+					text.append('\n');
+				}
+				text.append(trimmed);
+			}
+		}
+		return text.toString();
+	}
+
+	private void appendText(FakeNode node, StringBuilder sb) {
+		for (FakeNode child : node.getChildren()) {
+			if (!child.isElement()) {
+				sb.append(node.getTag().equals("pre") ? child.getTextContent() : child.getTextContent().replace('\n', ' '));
+			} else if (child.getTag().equals("br")) {
+				sb.append('\n');
+			} else if (!isHidden(child) && !child.getTag().equals("textarea")) {
+				boolean block = isBlock(child);
+				if (block) {
+					sb.append('\n');
+				}
+				appendText(child, sb);
+				if (block) {
+					sb.append('\n');
+				}
+			}
+		}
+	}
+
+	public synchronized Rectangle rect(FakeNode node) {
+		if (rects == null) {
+			rects = new IdentityHashMap<>();
+			for (FakeNode html : document.getElementChildren()) {
+				int height = layoutChildren(html, 0, 0, width);
+				rects.put(html, new Rectangle(0, 0, height, width));
+			}
+		}
+		Rectangle rect = rects.get(node);
+		return rect == null ? EMPTY : rect;
+	}
+
+	/**
+	 * Lays out the children of a node inside a box.
+	 * @return height of the children
+	 */
+	private int layoutChildren(FakeNode parent, int x, int y, int boxWidth) {
+		int top = y;
+		int lineX = x;
+		boolean inLine = false;
+		for (FakeNode child : parent.getChildren()) {
+			if (!child.isElement()) {
+				String text = child.getTextContent().replaceAll("\\s+", " ");
+				if (text.trim().isEmpty() && !inLine) {
+					continue;
+				}
+				int textWidth = text.length() * CHAR_WIDTH;
+				if (inLine && lineX + textWidth > x + boxWidth && lineX > x) {
+					y += LINE_HEIGHT;
+					lineX = x;
+				}
+				lineX += textWidth;
+				inLine = true;
+			} else if (isHidden(child)) {
+				continue;
+			} else if (child.getTag().equals("br")) {
+				y += LINE_HEIGHT;
+				lineX = x;
+				inLine = false;
+			} else if (isBlock(child)) {
+				if (inLine) {
+					y += LINE_HEIGHT;
+					lineX = x;
+					inLine = false;
+				}
+				int childWidth = px(child, "width", boxWidth);
+				int height = layoutChildren(child, x, y, childWidth);
+				height = px(child, "height", height);
+				rects.put(child, new Rectangle(x, y, height, childWidth));
+				y += height;
+			} else {
+				int childWidth = px(child, "width", inlineWidth(child));
+				if (inLine && lineX + childWidth > x + boxWidth && lineX > x) {
+					y += LINE_HEIGHT;
+					lineX = x;
+				}
+				int height = px(child, "height", CONTROL_TAGS.contains(child.getTag()) ? LINE_HEIGHT + 4 : LINE_HEIGHT);
+				layoutChildren(child, lineX, y, childWidth);
+				rects.put(child, new Rectangle(lineX, y, height, childWidth));
+				lineX += childWidth;
+				inLine = true;
+			}
+		}
+		if (inLine) {
+			y += LINE_HEIGHT;
+		}
+		return y - top;
+	}
+
+	private int inlineWidth(FakeNode node) {
+		switch (node.getTag()) {
+			case "input":
+			case "select":
+			case "textarea":
+				return "checkbox".equals(node.getAttribute("type")) || "radio".equals(node.getAttribute("type")) ? 13 : CONTROL_WIDTH;
+			case "img":
+				return number(node.getAttribute("width"), 0);
+			default:
+				return node.getTextContent().trim().replaceAll("\\s+", " ").length() * CHAR_WIDTH;
+		}
+	}
+
+	private static int px(FakeNode node, String property, int defaultValue) {
+		String value = style(node, property);
+		if (value == null || !value.endsWith("px")) {
+			return node.getTag().equals("img") && property.equals("height") ? number(node.getAttribute("height"), defaultValue) : defaultValue;
+		}
+		return number(value.substring(0, value.length() - 2), defaultValue);
+	}
+
+	private static int number(String value, int defaultValue) {
+		try {
+			return value == null ? defaultValue : (int) Double.parseDouble(value.trim());
+		} catch (NumberFormatException ex) {
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,875 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.fake;
+
+import org.openqa.selenium.InvalidSelectorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates the locators the page models use against a FakeNode tree.
+ * <p>
+ * css supports type, universal, id, class and attribute selectors (=, ~=, |=, ^=, $=, *=), :first-child,
+ * :last-child, :nth-child(n), :not(simple), selector groups and the descendant, child and sibling combinators.
+ * <p>
+ * xpath supports absolute and relative location paths with / and //, the child, descendant, parent, self, ancestor
+ * and following-sibling axes, * and text() node tests, and predicates made of positions, @attributes, text(), .,
+ * string and number literals, =, !=, &lt;, &gt;, and, or, and the functions contains, starts-with, normalize-space,
+ * string, translate, concat, not, position, last and count.  Anything else throws InvalidSelectorException.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class FakeLocator {
+
+	public static List<FakeNode> css(FakeNode context, String selector) {
+		List<List<String>> groups = new ArrayList<>();
+		for (String group : split(selector, ',')) {
+			groups.add(tokenizeCss(group.trim(), selector));
+		}
+		List<FakeNode> found = new ArrayList<>();
+		for (FakeNode node : context.getDescendants()) {
+			for (List<String> group : groups) {
+				if (matchesCss(node, group, group.size() - 1)) {
+					found.add(node);
+					break;
+				}
+			}
+		}
+		return found;
+	}
+
+	public static boolean matchesCss(FakeNode node, String selector) {
+		for (String group : split(selector, ',')) {
+			List<String> tokens = tokenizeCss(group.trim(), selector);
+			if (matchesCss(node, tokens, tokens.size() - 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Splits a compound css selector into alternating compound selectors and combinators.
+	 */
+	private static List<String> tokenizeCss(String selector, String full) {
+		if (selector.isEmpty()) {
+			throw new InvalidSelectorException("Invalid css selector: " + full);
+		}
+		List<String> tokens = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		int depth = 0;
+		char quote = 0;
+		for (int i = 0; i < selector.length(); i++) {
+			char c = selector.charAt(i);
+			if (quote != 0) {
+				current.append(c);
+				if (c == quote) {
+					quote = 0;
+				}
+				continue;
+			}
+			if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '[' || c == '(') {
+				depth++;
+			} else if (c == ']' || c == ')') {
+				depth--;
+			}
+			if (depth == 0 && (c == '>' || c == '+' || c == '~' || Character.isWhitespace(c))) {
+				if (current.length() > 0) {
+					tokens.add(current.toString());
+					current.setLength(0);
+				}
+				String combinator = Character.isWhitespace(c) ? " " : String.valueOf(c);
+				if (!tokens.isEmpty() && isCombinator(tokens.get(tokens.size() - 1))) {
+					if (!combinator.equals(" ")) {
+						tokens.set(tokens.size() - 1, combinator);
+					}
+				} else if (!tokens.isEmpty()) {
+					tokens.add(combinator);
+				} else if (!combinator.equals(" ")) {
+					throw new InvalidSelectorException("Invalid css selector: " + full);
+				}
+			} else {
+				current.append(c);
+			}
+		}
+		if (current.length() > 0) {
+			tokens.add(current.toString());
+		}
+		if (tokens.isEmpty() || isCombinator(tokens.get(tokens.size() - 1))) {
+			throw new InvalidSelectorException("Invalid css selector: " + full);
+		}
+		return tokens;
+	}
+
+	private static boolean isCombinator(String token) {
+		return token.equals(" ") || token.equals(">") || token.equals("+") || token.equals("~");
+	}
+
+	private static boolean matchesCss(FakeNode node, List<String> tokens, int index) {
+		if (node == null || !node.isElement() || node.getTag().equals("#document") || !matchesCompound(node, tokens.get(index))) {
+			return false;
+		}
+		if (index == 0) {
+			return true;
+		}
+		String combinator = tokens.get(index - 1);
+		switch (combinator) {
+			case ">":
+				return matchesCss(node.getParent(), tokens, index - 2);
+			case "+":
+				return matchesCss(previousSibling(node), tokens, index - 2);
+			case "~":
+				for (FakeNode sibling = previousSibling(node); sibling != null; sibling = previousSibling(sibling)) {
+					if (matchesCss(sibling, tokens, index - 2)) {
+						return true;
+					}
+				}
+				return false;
+			default:
+				for (FakeNode ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+					if (matchesCss(ancestor, tokens, index - 2)) {
+						return true;
+					}
+				}
+				return false;
+		}
+	}
+
+	private static FakeNode previousSibling(FakeNode node) {
+		if (node.getParent() == null) {
+			return null;
+		}
+		List<FakeNode> siblings = node.getParent().getElementChildren();
+		int index = siblings.indexOf(node);
+		return index > 0 ? siblings.get(index - 1) : null;
+	}
+
+	private static boolean matchesCompound(FakeNode node, String compound) {
+		int i = 0;
+		while (i < compound.length() && "#.[:".indexOf(compound.charAt(i)) < 0) {
+			i++;
+		}
+		String type = compound.substring(0, i);
+		if (!type.isEmpty() && !type.equals("*") && !type.equalsIgnoreCase(node.getTag())) {
+			return false;
+		}
+		while (i < compound.length()) {
+			char c = compound.charAt(i);
+			int end;
+			if (c == '[') {
+				end = closing(compound, i, '[', ']');
+				if (!matchesAttribute(node, compound.substring(i + 1, end))) {
+					return false;
+				}
+				i = end + 1;
+				continue;
+			}
+			end = i + 1;
+			while (end < compound.length() && "#.[:".indexOf(compound.charAt(end)) < 0) {
+				end++;
+			}
+			if (c == ':' && end < compound.length() && compound.charAt(end) == ':') {
+				throw new InvalidSelectorException("Unsupported css selector: " + compound);
+			}
+			String name = compound.substring(i + 1, end);
+			if (c == ':' && name.indexOf('(') >= 0) {
+				end = closing(compound, i + 1 + name.indexOf('('), '(', ')') + 1;
+				name = compound.substring(i + 1, end);
+			}
+			switch (c) {
+				case '#':
+					if (!name.equals(node.getAttribute("id"))) {
+						return false;
+					}
+					break;
+				case '.':
+					if (!words(node.getAttribute("class")).contains(name)) {
+						return false;
+					}
+					break;
+				case ':':
+					if (!matchesPseudo(node, name)) {
+						return false;
+					}
+					break;
+				default:
+					throw new InvalidSelectorException("Invalid css selector: " + compound);
+			}
+			i = end;
+		}
+		return true;
+	}
+
+	private static int closing(String text, int open, char openChar, char closeChar) {
+		int depth = 0;
+		char quote = 0;
+		for (int i = open; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == openChar) {
+				depth++;
+			} else if (c == closeChar && --depth == 0) {
+				return i;
+			}
+		}
+		throw new InvalidSelectorException("Invalid selector: " + text);
+	}
+
+	private static boolean matchesAttribute(FakeNode node, String condition) {
+		int op = 0;
+		while (op < condition.length() && "=~|^$*".indexOf(condition.charAt(op)) < 0) {
+			op++;
+		}
+		String name = condition.substring(0, op).trim();
+		String actual = node.getAttribute(name);
+		if (op == condition.length()) {
+			return actual != null;
+		}
+		if (actual == null) {
+			return false;
+		}
+		String operator = condition.charAt(op) == '=' ? "=" : condition.substring(op, op + 2);
+		String value = condition.substring(op + operator.length()).trim();
+		boolean ignoreCase = false;
+		if (value.endsWith(" i") || value.endsWith(" I")) {
+			ignoreCase = true;
+			value = value.substring(0, value.length() - 2).trim();
+		}
+		if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')) {
+			value = value.substring(1, value.length() - 1);
+		}
+		if (ignoreCase) {
+			actual = actual.toLowerCase();
+			value = value.toLowerCase();
+		}
+		switch (operator) {
+			case "=":
+				return actual.equals(value);
+			case "~=":
+				return words(actual).contains(value);
+			case "|=":
+				return actual.equals(value) || actual.startsWith(value + "-");
+			case "^=":
+				return !value.isEmpty() && actual.startsWith(value);
+			case "$=":
+				return !value.isEmpty() && actual.endsWith(value);
+			case "*=":
+				return !value.isEmpty() && actual.contains(value);
+			default:
+				throw new InvalidSelectorException("Invalid css attribute selector: " + condition);
+		}
+	}
+
+	private static boolean matchesPseudo(FakeNode node, String pseudo) {
+		List<FakeNode> siblings = node.getParent() == null ? Collections.singletonList(node) : node.getParent().getElementChildren();
+		if (pseudo.equals("first-child")) {
+			return siblings.get(0) == node;
+		}
+		if (pseudo.equals("last-child")) {
+			return siblings.get(siblings.size() - 1) == node;
+		}
+		if (pseudo.equals("checked")) {
+			return node.getAttribute("checked") != null || node.getAttribute("selected") != null;
+		}
+		if (pseudo.equals("disabled")) {
+			return node.getAttribute("disabled") != null;
+		}
+		if (pseudo.equals("enabled")) {
+			return node.getAttribute("disabled") == null;
+		}
+		if (pseudo.startsWith("nth-child(") && pseudo.endsWith(")")) {
+			String arg = pseudo.substring(10, pseudo.length() - 1).trim();
+			int position = siblings.indexOf(node) + 1;
+			switch (arg) {
+				case "odd":
+					return position % 2 == 1;
+				case "even":
+					return position % 2 == 0;
+				default:
+					try {
+						return position == Integer.parseInt(arg);
+					} catch (NumberFormatException ex) {
+						throw new InvalidSelectorException("Unsupported css selector: :" + pseudo);
+					}
+			}
+		}
+		if (pseudo.startsWith("not(") && pseudo.endsWith(")")) {
+			return !matchesCompound(node, pseudo.substring(4, pseudo.length() - 1).trim());
+		}
+		throw new InvalidSelectorException("Unsupported css selector: :" + pseudo);
+	}
+
+	private static Set<String> words(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return Collections.emptySet();
+		}
+		return new LinkedHashSet<>(Arrays.asList(value.trim().split("\\s+")));
+	}
+
+	private static List<String> split(String text, char separator) {
+		List<String> parts = new ArrayList<>();
+		int depth = 0;
+		char quote = 0;
+		int start = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '[' || c == '(') {
+				depth++;
+			} else if (c == ']' || c == ')') {
+				depth--;
+			} else if (c == separator && depth == 0) {
+				parts.add(text.substring(start, i));
+				start = i + 1;
+			}
+		}
+		parts.add(text.substring(start));
+		return parts;
+	}
+
+	public static List<FakeNode> xpath(FakeNode context, String xpath) {
+		XPath parser = new XPath(xpath);
+		List<FakeNode> nodes = parser.path(context);
+		parser.skipSpace();
+		if (!parser.atEnd()) {
+			throw parser.invalid();
+		}
+		List<FakeNode> elements = new ArrayList<>();
+		for (FakeNode node : nodes) {
+			if (node.isElement() && !node.getTag().equals("#document")) {
+				elements.add(node);
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * A recursive descent evaluator over the xpath text, evaluating as it parses.  Predicates are parsed once per
+	 * candidate node by rewinding to the start of the predicate.
+	 */
+	private static class XPath {
+		private final String text;
+		private int pos;
+
+		XPath(String text) {
+			this.text = text;
+		}
+
+		InvalidSelectorException invalid() {
+			return new InvalidSelectorException("Unsupported xpath: " + text + " at " + pos);
+		}
+
+		void skipSpace() {
+			while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		boolean atEnd() {
+			return pos >= text.length();
+		}
+
+		boolean peek(String token) {
+			skipSpace();
+			return text.startsWith(token, pos);
+		}
+
+		boolean accept(String token) {
+			if (peek(token)) {
+				pos += token.length();
+				return true;
+			}
+			return false;
+		}
+
+		void expect(String token) {
+			if (!accept(token)) {
+				throw invalid();
+			}
+		}
+
+		String name() {
+			skipSpace();
+			int start = pos;
+			while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || "-_:".indexOf(text.charAt(pos)) >= 0)) {
+				if (text.charAt(pos) == ':' && pos + 1 < text.length() && text.charAt(pos + 1) == ':') {
+					break;
+				}
+				pos++;
+			}
+			if (start == pos) {
+				throw invalid();
+			}
+			return text.substring(start, pos);
+		}
+
+		List<FakeNode> path(FakeNode context) {
+			List<FakeNode> nodes = new ArrayList<>();
+			skipSpace();
+			if (peek("/")) {
+				FakeNode root = context;
+				while (root.getParent() != null) {
+					root = root.getParent();
+				}
+				nodes.add(root);
+				if (accept("//")) {
+					nodes = descendantsOrSelf(nodes);
+				} else {
+					accept("/");
+					if (atEnd() || peek("|") || peek(")") || peek("]")) {
+						return nodes;
+					}
+				}
+			} else {
+				nodes.add(context);
+			}
+			nodes = step(nodes);
+			while (true) {
+				if (accept("//")) {
+					nodes = step(descendantsOrSelf(nodes));
+				} else if (peek("/")) {
+					accept("/");
+					nodes = step(nodes);
+				} else {
+					break;
+				}
+			}
+			if (accept("|")) {
+				Set<FakeNode> union = new LinkedHashSet<>(nodes);
+				union.addAll(path(context));
+				return new ArrayList<>(union);
+			}
+			return nodes;
+		}
+
+		List<FakeNode> descendantsOrSelf(List<FakeNode> nodes) {
+			Set<FakeNode> result = new LinkedHashSet<>();
+			for (FakeNode node : nodes) {
+				result.add(node);
+				result.addAll(node.getDescendants());
+			}
+			return new ArrayList<>(result);
+		}
+
+		List<FakeNode> step(List<FakeNode> context) {
+			skipSpace();
+			if (accept("..")) {
+				Set<FakeNode> parents = new LinkedHashSet<>();
+				for (FakeNode node : context) {
+					if (node.getParent() != null) {
+						parents.add(node.getParent());
+					}
+				}
+				return new ArrayList<>(parents);
+			}
+			if (peek(".") && !peek("..")) {
+				accept(".");
+				return predicates(context);
+			}
+			String axis = "child";
+			int mark = pos;
+			if (accept("@")) {
+				throw invalid();
+			}
+			if (!peek("*")) {
+				String name = name();
+				if (accept("::")) {
+					axis = name;
+				} else {
+					pos = mark;
+				}
+			}
+			String test;
+			if (accept("*")) {
+				test = "*";
+			} else {
+				test = name();
+				if (test.equals("text") || test.equals("node")) {
+					expect("(");
+					expect(")");
+					test = test + "()";
+				}
+			}
+			Set<FakeNode> result = new LinkedHashSet<>();
+			int predicateStart = pos;
+			int predicateEnd = pos;
+			for (FakeNode node : context) {
+				List<FakeNode> candidates = new ArrayList<>();
+				for (FakeNode candidate : axis(node, axis)) {
+					if (matchesTest(candidate, test)) {
+						candidates.add(candidate);
+					}
+				}
+				pos = predicateStart;
+				result.addAll(predicates(candidates));
+				predicateEnd = pos;
+			}
+			if (context.isEmpty()) {
+				skipPredicates();
+			} else {
+				pos = predicateEnd;
+			}
+			return new ArrayList<>(result);
+		}
+
+		List<FakeNode> axis(FakeNode node, String axis) {
+			List<FakeNode> nodes = new ArrayList<>();
+			switch (axis) {
+				case "child":
+					return node.getChildren();
+				case "descendant":
+					return node.getDescendants();
+				case "descendant-or-self":
+					nodes.add(node);
+					nodes.addAll(node.getDescendants());
+					return nodes;
+				case "self":
+					return Collections.singletonList(node);
+				case "parent":
+					return node.getParent() == null ? nodes : Collections.singletonList(node.getParent());
+				case "ancestor":
+				case "ancestor-or-self":
+					for (FakeNode a = axis.equals("ancestor") ? node.getParent() : node; a != null; a = a.getParent()) {
+						nodes.add(a);
+					}
+					return nodes;
+				case "following-sibling":
+				case "preceding-sibling":
+					if (node.getParent() != null) {
+						List<FakeNode> siblings = node.getParent().getChildren();
+						int index = siblings.indexOf(node);
+						if (axis.equals("following-sibling")) {
+							nodes.addAll(siblings.subList(index + 1, siblings.size()));
+						} else {
+							nodes.addAll(siblings.subList(0, index));
+							Collections.reverse(nodes);
+						}
+					}
+					return nodes;
+				default:
+					throw invalid();
+			}
+		}
+
+		boolean matchesTest(FakeNode node, String test) {
+			switch (test) {
+				case "node()":
+					return true;
+				case "text()":
+					return !node.isElement();
+				case "*":
+					return node.isElement() && !node.getTag().equals("#document");
+				default:
+					return node.isElement() && test.equalsIgnoreCase(node.getTag());
+			}
+		}
+
+		List<FakeNode> predicates(List<FakeNode> candidates) {
+			while (accept("[")) {
+				int start = pos;
+				List<FakeNode> kept = new ArrayList<>();
+				for (int i = 0; i < candidates.size(); i++) {
+					pos = start;
+					Object value = expr(candidates.get(i), i + 1, candidates.size());
+					if (value instanceof Double ? ((Double) value).intValue() == i + 1 : bool(value)) {
+						kept.add(candidates.get(i));
+					}
+				}
+				if (candidates.isEmpty()) {
+					skipTo(']');
+				}
+				expect("]");
+				candidates = kept;
+			}
+			return candidates;
+		}
+
+		void skipPredicates() {
+			while (accept("[")) {
+				skipTo(']');
+				expect("]");
+			}
+		}
+
+		void skipTo(char close) {
+			int depth = 1;
+			char quote = 0;
+			char open = close == ']' ? '[' : '(';
+			for (; pos < text.length(); pos++) {
+				char c = text.charAt(pos);
+				if (quote != 0) {
+					if (c == quote) {
+						quote = 0;
+					}
+				} else if (c == '"' || c == '\'') {
+					quote = c;
+				} else if (c == open) {
+					depth++;
+				} else if (c == close && --depth == 0) {
+					return;
+				}
+			}
+			throw invalid();
+		}
+
+		Object expr(FakeNode node, int position, int size) {
+			Object left = and(node, position, size);
+			while (acceptWord("or")) {
+				Object right = and(node, position, size);
+				left = bool(left) || bool(right);
+			}
+			return left;
+		}
+
+		Object and(FakeNode node, int position, int size) {
+			Object left = comparison(node, position, size);
+			while (acceptWord("and")) {
+				Object right = comparison(node, position, size);
+				left = bool(left) && bool(right);
+			}
+			return left;
+		}
+
+		boolean acceptWord(String word) {
+			int mark = pos;
+			if (accept(word) && (atEnd() || !Character.isLetterOrDigit(text.charAt(pos)) && text.charAt(pos) != '-')) {
+				return true;
+			}
+			pos = mark;
+			return false;
+		}
+
+		Object comparison(FakeNode node, int position, int size) {
+			Object left = primary(node, position, size);
+			for (String op : new String[]{"!=", "<=", ">=", "=", "<", ">"}) {
+				if (accept(op)) {
+					Object right = primary(node, position, size);
+					return compare(left, right, op);
+				}
+			}
+			return left;
+		}
+
+		boolean compare(Object left, Object right, String op) {
+			if (left instanceof List || right instanceof List) {
+				List<?> leftValues = left instanceof List ? (List<?>) left : Collections.singletonList(left);
+				List<?> rightValues = right instanceof List ? (List<?>) right : Collections.singletonList(right);
+				for (Object l : leftValues) {
+					for (Object r : rightValues) {
+						if (compare(l instanceof FakeNode ? ((FakeNode) l).getTextContent() : l,
+								r instanceof FakeNode ? ((FakeNode) r).getTextContent() : r, op)) {
+							return true;
+						}
+					}
+				}
+				return false;
+			}
+			if (op.equals("=") || op.equals("!=")) {
+				boolean equal;
+				if (left instanceof Boolean || right instanceof Boolean) {
+					equal = bool(left) == bool(right);
+				} else if (left instanceof Double || right instanceof Double) {
+					equal = number(left) == number(right);
+				} else {
+					equal = string(left).equals(string(right));
+				}
+				return op.equals("=") == equal;
+			}
+			double l = number(left);
+			double r = number(right);
+			switch (op) {
+				case "<":
+					return l < r;
+				case ">":
+					return l > r;
+				case "<=":
+					return l <= r;
+				default:
+					return l >= r;
+			}
+		}
+
+		Object primary(FakeNode node, int position, int size) {
+			skipSpace();
+			if (atEnd()) {
+				throw invalid();
+			}
+			char c = text.charAt(pos);
+			if (c == '"' || c == '\'') {
+				int end = text.indexOf(c, pos + 1);
+				if (end < 0) {
+					throw invalid();
+				}
+				String value = text.substring(pos + 1, end);
+				pos = end + 1;
+				return value;
+			}
+			if (Character.isDigit(c) || c == '-' && pos + 1 < text.length() && Character.isDigit(text.charAt(pos + 1))) {
+				int start = pos++;
+				while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+					pos++;
+				}
+				return Double.parseDouble(text.substring(start, pos));
+			}
+			if (accept("(")) {
+				Object value = expr(node, position, size);
+				expect(")");
+				return value;
+			}
+			if (accept("@")) {
+				String name = accept("*") ? "*" : name();
+				if (name.equals("*")) {
+					return new ArrayList<>(node.getAttributes().values());
+				}
+				String value = node.getAttribute(name);
+				return value == null ? Collections.emptyList() : Collections.singletonList(value);
+			}
+			int mark = pos;
+			if (c != '.' && c != '/') {
+				String name = name();
+				if (accept("(") && !name.equals("text") && !name.equals("node")) {
+					return function(name, node, position, size);
+				}
+				pos = mark;
+			}
+			return path(node);
+		}
+
+		Object function(String name, FakeNode node, int position, int size) {
+			List<Object> args = new ArrayList<>();
+			if (!accept(")")) {
+				do {
+					args.add(expr(node, position, size));
+				} while (accept(","));
+				expect(")");
+			}
+			switch (name) {
+				case "contains":
+					return string(arg(args, 0)).contains(string(arg(args, 1)));
+				case "starts-with":
+					return string(arg(args, 0)).startsWith(string(arg(args, 1)));
+				case "normalize-space":
+					return string(args.isEmpty() ? node : args.get(0)).trim().replaceAll("\\s+", " ");
+				case "string":
+					return string(args.isEmpty() ? node : args.get(0));
+				case "translate":
+					return translate(string(arg(args, 0)), string(arg(args, 1)), string(arg(args, 2)));
+				case "concat":
+					StringBuilder sb = new StringBuilder();
+					for (Object arg : args) {
+						sb.append(string(arg));
+					}
+					return sb.toString();
+				case "not":
+					return !bool(arg(args, 0));
+				case "true":
+					return true;
+				case "false":
+					return false;
+				case "position":
+					return (double) position;
+				case "last":
+					return (double) size;
+				case "count":
+					return (double) (arg(args, 0) instanceof List ? ((List<?>) arg(args, 0)).size() : 0);
+				case "string-length":
+					return (double) string(args.isEmpty() ? node : args.get(0)).length();
+				default:
+					throw invalid();
+			}
+		}
+
+		Object arg(List<Object> args, int index) {
+			if (index >= args.size()) {
+				throw invalid();
+			}
+			return args.get(index);
+		}
+
+		String translate(String value, String from, String to) {
+			StringBuilder sb = new StringBuilder();
+			for (char c : value.toCharArray()) {
+				int index = from.indexOf(c);
+				if (index < 0) {
+					sb.append(c);
+				} else if (index < to.length()) {
+					sb.append(to.charAt(index));
+				}
+			}
+			return sb.toString();
+		}
+
+		boolean bool(Object value) {
+			if (value instanceof Boolean) {
+				return (Boolean) value;
+			}
+			if (value instanceof Double) {
+				return (Double) value != 0;
+			}
+			if (value instanceof List) {
+				return !((List<?>) value).isEmpty();
+			}
+			return value != null && !string(value).isEmpty();
+		}
+
+		double number(Object value) {
+			if (value instanceof Double) {
+				return (Double) value;
+			}
+			if (value instanceof Boolean) {
+				return (Boolean) value ? 1 : 0;
+			}
+			try {
+				return Double.parseDouble(string(value).trim());
+			} catch (NumberFormatException ex) {
+				return Double.NaN;
+			}
+		}
+
+		String string(Object value) {
+			if (value instanceof List) {
+				List<?> list = (List<?>) value;
+				return list.isEmpty() ? "" : string(list.get(0));
+			}
+			if (value instanceof FakeNode) {
+				return ((FakeNode) value).getTextContent();
+			}
+			if (value instanceof Double) {
+				double d = (Double) value;
+				return d == Math.rint(d) ? String.valueOf((long) d) : String.valueOf(d);
+			}
+			return value == null ? "" : value.toString();
+		}
+	}
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.fake;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An element or text node of a FakeWebDriver page, parsed from html with parse.
+ * <p>
+ * The parser is lenient in the way browsers are: void elements need no end tag, an end tag closes any elements left
+ * open inside it, stray end tags are ignored, and script and style content is kept as raw text.  Only the common
+ * named character references are decoded.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class FakeNode {
+	public final static Set<String> VOID_TAGS = new HashSet<>(Arrays.asList(
+			"area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"));
+	public final static Set<String> RAW_TEXT_TAGS = new HashSet<>(Arrays.asList("script", "style", "textarea", "title"));
+	public final static Set<String> INLINE_TAGS = new HashSet<>(Arrays.asList(
+			"a", "abbr", "b", "button", "code", "em", "i", "img", "input", "label", "select", "small", "span",
+			"strong", "sub", "sup", "textarea", "u"));
+
+	private final static Pattern ATTRIBUTE = Pattern.compile("([^\\s=/>\"']+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+)))?");
+	private final static Pattern ENTITY = Pattern.compile("&(#x[0-9a-fA-F]+|#[0-9]+|[a-zA-Z]+);");
+
+	protected final String tag;
+	protected final String text;
+	protected final Map<String, String> attributes = new LinkedHashMap<>();
+	protected final List<FakeNode> children = new ArrayList<>();
+	protected FakeNode parent;
+
+	protected FakeNode(String tag, String text) {
+		this.tag = tag;
+		this.text = text;
+	}
+
+	public static FakeNode element(String tag) {
+		return new FakeNode(tag.toLowerCase(), null);
+	}
+
+	public static FakeNode text(String text) {
+		return new FakeNode(null, text);
+	}
+
+	/**
+	 * @return the document node, with an html element containing the parsed content
+	 */
+	public static FakeNode parse(String html) {
+		FakeNode document = element("#document");
+		FakeNode current = document;
+		int i = 0;
+		while (i < html.length()) {
+			int lt = html.indexOf('<', i);
+			if (lt < 0) {
+				current.append(text(decode(html.substring(i))));
+				break;
+			}
+			if (lt > i) {
+				current.append(text(decode(html.substring(i, lt))));
+			}
+			if (html.startsWith("<!--", lt)) {
+				int end = html.indexOf("-->", lt + 4);
+				i = end < 0 ? html.length() : end + 3;
+				continue;
+			}
+			if (html.startsWith("<!", lt) || html.startsWith("<?", lt)) {
+				int end = html.indexOf('>', lt);
+				i = end < 0 ? html.length() : end + 1;
+				continue;
+			}
+			int gt = tagEnd(html, lt);
+			String content = html.substring(lt + 1, gt).trim();
+			i = Math.min(gt + 1, html.length());
+			if (content.startsWith("/")) {
+				String name = content.substring(1).trim().toLowerCase();
+				for (FakeNode open = current; open != null && open != document; open = open.parent) {
+					if (name.equals(open.tag)) {
+						current = open.parent;
+						break;
+					}
+				}
+				continue;
+			}
+			boolean selfClosing = content.endsWith("/");
+			if (selfClosing) {
+				content = content.substring(0, content.length() - 1);
+			}
+			int nameEnd = 0;
+			while (nameEnd < content.length() && !Character.isWhitespace(content.charAt(nameEnd))) {
+				nameEnd++;
+			}
+			if (nameEnd == 0) {
+				current.append(text("<"));
+				i = lt + 1;
+				continue;
+			}
+			FakeNode el = element(content.substring(0, nameEnd));
+			Matcher m = ATTRIBUTE.matcher(content.substring(nameEnd));
+			while (m.find()) {
+				String value = m.group(2) != null ? m.group(2) : m.group(3) != null ? m.group(3) : m.group(4) != null ? m.group(4) : "";
+				el.attributes.putIfAbsent(m.group(1).toLowerCase(), decode(value));
+			}
+			if (el.tag.equals("p") && current.tag.equals("p")) {
+				current = current.parent;
+			}
+			if (el.tag.equals("li") && current.tag.equals("li") || el.tag.equals("option") && current.tag.equals("option")) {
+				current = current.parent;
+			}
+			current.append(el);
+			if (RAW_TEXT_TAGS.contains(el.tag) && !selfClosing) {
+				int end = html.toLowerCase().indexOf("</" + el.tag, i);
+				end = end < 0 ? html.length() : end;
+				String raw = html.substring(i, end);
+				if (!raw.isEmpty()) {
+					el.append(text(el.tag.equals("script") || el.tag.equals("style") ? raw : decode(raw)));
+				}
+				int close = html.indexOf('>', end);
+				i = close < 0 ? html.length() : close + 1;
+			} else if (!selfClosing && !VOID_TAGS.contains(el.tag)) {
+				current = el;
+			}
+		}
+		return normalize(document);
+	}
+
+	private static int tagEnd(String html, int lt) {
+		char quote = 0;
+		for (int i = lt + 1; i < html.length(); i++) {
+			char c = html.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '>') {
+				return i;
+			}
+		}
+		return html.length();
+	}
+
+	/**
+	 * Makes sure the document has html, head and body elements, as a browser would.
+	 */
+	private static FakeNode normalize(FakeNode document) {
+		FakeNode html = document.children.stream().filter(n -> "html".equals(n.tag)).findFirst().orElse(null);
+		if (html == null) {
+			html = element("html");
+			for (FakeNode child : new ArrayList<>(document.children)) {
+				if (child.tag != null) {
+					document.children.remove(child);
+					html.append(child);
+				}
+			}
+			document.children.clear();
+			document.append(html);
+		}
+		FakeNode head = html.children.stream().filter(n -> "head".equals(n.tag)).findFirst().orElse(null);
+		FakeNode body = html.children.stream().filter(n -> "body".equals(n.tag)).findFirst().orElse(null);
+		if (body == null) {
+			body = element("body");
+			for (FakeNode child : new ArrayList<>(html.children)) {
+				if (child != head && !(child.tag != null && Arrays.asList("title", "meta", "link", "script", "style", "base").contains(child.tag) && head == null)) {
+					html.children.remove(child);
+					body.append(child);
+				}
+			}
+			html.append(body);
+		}
+		if (head == null) {
+			head = element("head");
+			for (FakeNode child : new ArrayList<>(html.children)) {
+				if (child != body) {
+					html.children.remove(child);
+					head.append(child);
+				}
+			}
+			html.children.add(0, head);
+			head.parent = html;
+		}
+		return document;
+	}
+
+	protected static String decode(String text) {
+		if (text.indexOf('&') < 0) {
+			return text;
+		}
+		Matcher m = ENTITY.matcher(text);
+		StringBuffer sb = new StringBuffer();
+		while (m.find()) {
+			String name = m.group(1);
+			String value;
+			if (name.startsWith("#x")) {
+				value = new String(Character.toChars(Integer.parseInt(name.substring(2), 16)));
+			} else if (name.startsWith("#")) {
+				value = new String(Character.toChars(Integer.parseInt(name.substring(1))));
+			} else {
+				switch (name) {
+					case "amp": value = "&"; break;
+					case "lt": value = "<"; break;
+					case "gt": value = ">"; break;
+					case "quot": value = "\""; break;
+					case "apos": value = "'"; break;
+					case "nbsp": value = "\u00a0"; break;
+					case "copy": value = "\u00a9"; break;
+					default: value = m.group();
+				}
+			}
+			m.appendReplacement(sb, Matcher.quoteReplacement(value));
+		}
+		m.appendTail(sb);
+		return sb.toString();
+	}
+
+	protected static String encode(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+
+	public FakeNode append(FakeNode child) {
+		child.parent = this;
+		children.add(child);
+		return this;
+	}
+
+	public boolean isElement() {
+		return tag != null;
+	}
+
+	/**
+	 * @return lower case tag name, or null for a text node
+	 */
+	public String getTag() {
+		return tag;
+	}
+
+	public String getAttribute(String name) {
+		return attributes.get(name.toLowerCase());
+	}
+
+	public void setAttribute(String name, String value) {
+		if (value == null) {
+			attributes.remove(name.toLowerCase());
+		} else {
+			attributes.put(name.toLowerCase(), value);
+		}
+	}
+
+	public Map<String, String> getAttributes() {
+		return attributes;
+	}
+
+	public FakeNode getParent() {
+		return parent;
+	}
+
+	public List<FakeNode> getChildren() {
+		return children;
+	}
+
+	public List<FakeNode> getElementChildren() {
+		List<FakeNode> list = new ArrayList<>();
+		for (FakeNode child : children) {
+			if (child.isElement()) {
+				list.add(child);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * @return all descendant elements in document order
+	 */
+	public List<FakeNode> getDescendants() {
+		List<FakeNode> list = new ArrayList<>();
+		addDescendants(list);
+		return list;
+	}
+
+	private void addDescendants(List<FakeNode> list) {
+		for (FakeNode child : children) {
+			if (child.isElement()) {
+				list.add(child);
+				child.addDescendants(list);
+			}
+		}
+	}
+
+	/**
+	 * @return the text of all descendant text nodes, as the DOM textContent
+	 */
+	public String getTextContent() {
+		if (!isElement()) {
+			return text;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (FakeNode child : children) {
+			sb.append(child.getTextContent());
+		}
+		return sb.toString();
+	}
+
+	public String getInnerHtml() {
+		StringBuilder sb = new StringBuilder();
+		for (FakeNode child : children) {
+			child.writeHtml(sb);
+		}
+		return sb.toString();
+	}
+
+	public String getOuterHtml() {
+		StringBuilder sb = new StringBuilder();
+		writeHtml(sb);
+		return sb.toString();
+	}
+
+	protected void writeHtml(StringBuilder sb) {
+		if (!isElement()) {
+			sb.append(parent != null && ("script".equals(parent.tag) || "style".equals(parent.tag)) ? text : encode(text));
+			return;
+		}
+		if (tag.equals("#document")) {
+			sb.append(getInnerHtml());
+			return;
+		}
+		sb.append('<').append(tag);
+		attributes.forEach((name, value) -> sb.append(' ').append(name).append("=\"").append(encode(value)).append('"'));
+		sb.append('>');
+		if (VOID_TAGS.contains(tag)) {
+			return;
+		}
+		for (FakeNode child : children) {
+			child.writeHtml(sb);
+		}
+		sb.append("</").append(tag).append('>');
+	}
+
+	@Override
+	public String toString() {
+		return isElement() ? "<" + tag + attributes + ">" : "\"" + text + "\"";
+	}
+}
@@ -0,0 +1,679 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.fake;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchFrameException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.logging.Logs;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory WebDriver over a parsed html page, for measuring the overhead of page models and testers without a
+ * browser.  Pages are loaded from data:text/html and file: urls, or from html registered with addPage.
+ * <p>
+ * Elements support the standard locators (css and xpath subsets, see FakeLocator), attributes, text, visibility,
+ * simple form state, and rects from FakeLayout.  Screenshots are a blank png the size of the window.  Nothing on the
+ * page runs: frames, alerts and shadow roots are not supported, and scripts are answered only by the hooks registered
+ * with onScript.  Any other script throws JavascriptException, so the framework falls back from its script fast paths
+ * to plain WebDriver commands.  Those fast paths without a fallback, such as SelectScript, should be turned off or
+ * given a hook.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class FakeWebDriver implements WebDriver, JavascriptExecutor, TakesScreenshot, HasCapabilities {
+	public final static String WINDOW_HANDLE = "fake-window";
+	public static Dimension DEFAULT_WINDOW_SIZE = new Dimension(1280, 800);
+
+	protected final Map<String, String> pages = new HashMap<>();
+	protected final List<ScriptHook> scriptHooks = new ArrayList<>();
+	protected final Map<FakeNode, FakeWebElement> elements = new IdentityHashMap<>();
+	protected final Map<String, Cookie> cookies = new LinkedHashMap<>();
+	protected final List<String> history = new ArrayList<>();
+	protected int historyIndex = -1;
+	protected FakeNode document;
+	protected String currentUrl;
+	protected FakeLayout layout;
+	protected FakeNode focused;
+	protected Dimension windowSize = DEFAULT_WINDOW_SIZE;
+	protected Point windowPosition = new Point(0, 0);
+	protected Duration implicitWait = Duration.ZERO;
+	protected Duration scriptTimeout = Duration.ofSeconds(30);
+	protected Duration pageLoadTimeout = Duration.ofSeconds(300);
+	protected byte[] screenshot;
+	protected boolean closed;
+
+	protected static class ScriptHook {
+		private final Predicate<String> matches;
+		private final BiFunction<FakeWebDriver, Object[], Object> hook;
+
+		protected ScriptHook(Predicate<String> matches, BiFunction<FakeWebDriver, Object[], Object> hook) {
+			this.matches = matches;
+			this.hook = hook;
+		}
+	}
+
+	public FakeWebDriver() {
+		onScript(script -> script.replaceAll("\\s", "").matches("returndocument\\.title;?"), (driver, args) -> driver.getTitle());
+		onScript(script -> script.replaceAll("\\s", "").matches("return(window\\.|document\\.)location\\.href;?|returndocument\\.URL;?"),
+				(driver, args) -> driver.getCurrentUrl());
+		onScript(script -> script.replaceAll("\\s", "").matches("returndocument\\.readyState;?"), (driver, args) -> "complete");
+		load("about:blank", "");
+	}
+
+	public FakeWebDriver(String html) {
+		this();
+		setHtml(html);
+	}
+
+	/**
+	 * Registers the html returned when url is loaded.
+	 */
+	public FakeWebDriver addPage(String url, String html) {
+		pages.put(url, html);
+		return this;
+	}
+
+	/**
+	 * Replaces the current page, keeping the current url.
+	 */
+	public FakeWebDriver setHtml(String html) {
+		load(currentUrl, html);
+		return this;
+	}
+
+	/**
+	 * Answers scripts containing the given text with the hook, which is passed the driver and the script arguments.
+	 * Hooks added later are checked first.  Hooks that change the page should call changed.
+	 */
+	public FakeWebDriver onScript(String contains, BiFunction<FakeWebDriver, Object[], Object> hook) {
+		return onScript(script -> script.contains(contains), hook);
+	}
+
+	public FakeWebDriver onScript(Predicate<String> matches, BiFunction<FakeWebDriver, Object[], Object> hook) {
+		scriptHooks.add(0, new ScriptHook(matches, hook));
+		return this;
+	}
+
+	public FakeNode getDocument() {
+		return document;
+	}
+
+	/**
+	 * @return the element for a node of the current page
+	 */
+	public synchronized FakeWebElement element(FakeNode node) {
+		return elements.computeIfAbsent(node, n -> new FakeWebElement(this, n));
+	}
+
+	/**
+	 * Clears the cached layout after the page has been changed directly.
+	 */
+	public synchronized void changed() {
+		layout = null;
+	}
+
+	protected synchronized FakeLayout layout() {
+		if (layout == null) {
+			layout = new FakeLayout(document, windowSize.getWidth());
+		}
+		return layout;
+	}
+
+	protected boolean isAttached(FakeNode node) {
+		FakeNode root = node;
+		while (root.getParent() != null) {
+			root = root.getParent();
+		}
+		return root == document;
+	}
+
+	protected void focus(FakeNode node) {
+		focused = node;
+		changed();
+	}
+
+	protected void checkOpen() {
+		if (closed) {
+			throw new NoSuchSessionException("FakeWebDriver has been closed");
+		}
+	}
+
+	protected synchronized void load(String url, String html) {
+		document = FakeNode.parse(html);
+		currentUrl = url;
+		elements.clear();
+		focused = null;
+		layout = null;
+	}
+
+	protected String fetch(String url) {
+		if (pages.containsKey(url)) {
+			return pages.get(url);
+		}
+		if (url.equals("about:blank")) {
+			return "";
+		}
+		if (url.startsWith("data:")) {
+			int comma = url.indexOf(',');
+			if (comma < 0) {
+				throw new WebDriverException("Invalid data url: " + url);
+			}
+			String data = url.substring(comma + 1);
+			if (url.substring(0, comma).endsWith(";base64")) {
+				return new String(Base64.getDecoder().decode(data), StandardCharsets.UTF_8);
+			}
+			return percentDecode(data);
+		}
+		if (url.startsWith("file:")) {
+			try {
+				return new String(Files.readAllBytes(Paths.get(URI.create(url))), StandardCharsets.UTF_8);
+			} catch (IOException | RuntimeException ex) {
+				throw new WebDriverException("Unable to read page: " + url, ex);
+			}
+		}
+		throw new WebDriverException("No page added to FakeWebDriver for url: " + url);
+	}
+
+	private static String percentDecode(String data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == '%' && i + 2 < bytes.length) {
+				try {
+					out.write(Integer.parseInt(new String(bytes, i + 1, 2, StandardCharsets.US_ASCII), 16));
+					i += 2;
+					continue;
+				} catch (NumberFormatException ex) {
+					// not an escape
+				}
+			}
+			out.write(bytes[i]);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void get(String url) {
+		checkOpen();
+		load(url, fetch(url));
+		while (history.size() > historyIndex + 1) {
+			history.remove(history.size() - 1);
+		}
+		history.add(url);
+		historyIndex++;
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		checkOpen();
+		return currentUrl;
+	}
+
+	@Override
+	public String getTitle() {
+		checkOpen();
+		List<FakeNode> titles = FakeLocator.css(document, "title");
+		return titles.isEmpty() ? "" : titles.get(0).getTextContent().trim().replaceAll("\\s+", " ");
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		checkOpen();
+		return findElements(document, this, by);
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		List<WebElement> found = findElements(by);
+		if (found.isEmpty()) {
+			throw new NoSuchElementException("Unable to locate element: " + by);
+		}
+		return found.get(0);
+	}
+
+	protected List<WebElement> findElements(FakeNode context, SearchContext searchContext, By by) {
+		if (!(by instanceof By.Remotable)) {
+			return by.findElements(searchContext);
+		}
+		By.Remotable.Parameters params = ((By.Remotable) by).getRemoteParameters();
+		String value = String.valueOf(params.value());
+		List<FakeNode> nodes;
+		switch (params.using()) {
+			case "id":
+				nodes = matching(context, node -> value.equals(node.getAttribute("id")));
+				break;
+			case "name":
+				nodes = matching(context, node -> value.equals(node.getAttribute("name")));
+				break;
+			case "class name":
+				if (value.trim().contains(" ")) {
+					throw new InvalidSelectorException("Compound class names not permitted: " + value);
+				}
+				nodes = FakeLocator.css(context, "." + value.trim());
+				break;
+			case "tag name":
+				nodes = matching(context, node -> node.getTag().equalsIgnoreCase(value));
+				break;
+			case "css selector":
+				nodes = FakeLocator.css(context, value);
+				break;
+			case "xpath":
+				nodes = FakeLocator.xpath(context, value);
+				break;
+			case "link text":
+				nodes = matching(context, node -> node.getTag().equals("a") && layout().text(node).equals(value.trim()));
+				break;
+			case "partial link text":
+				nodes = matching(context, node -> node.getTag().equals("a") && layout().text(node).contains(value));
+				break;
+			default:
+				return by.findElements(searchContext);
+		}
+		List<WebElement> found = new ArrayList<>(nodes.size());
+		for (FakeNode node : nodes) {
+			found.add(element(node));
+		}
+		return found;
+	}
+
+	private static List<FakeNode> matching(FakeNode context, Predicate<FakeNode> test) {
+		List<FakeNode> nodes = new ArrayList<>();
+		for (FakeNode node : context.getDescendants()) {
+			if (test.test(node)) {
+				nodes.add(node);
+			}
+		}
+		return nodes;
+	}
+
+	@Override
+	public String getPageSource() {
+		checkOpen();
+		return document.getOuterHtml();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	@Override
+	public void quit() {
+		closed = true;
+	}
+
+	@Override
+	public Set<String> getWindowHandles() {
+		checkOpen();
+		return Collections.singleton(WINDOW_HANDLE);
+	}
+
+	@Override
+	public String getWindowHandle() {
+		checkOpen();
+		return WINDOW_HANDLE;
+	}
+
+	@Override
+	public TargetLocator switchTo() {
+		checkOpen();
+		return new FakeTargetLocator();
+	}
+
+	@Override
+	public Navigation navigate() {
+		checkOpen();
+		return new FakeNavigation();
+	}
+
+	@Override
+	public Options manage() {
+		checkOpen();
+		return new FakeOptions();
+	}
+
+	@Override
+	public Object executeScript(String script, Object... args) {
+		checkOpen();
+		for (ScriptHook hook : scriptHooks) {
+			if (hook.matches.test(script)) {
+				return hook.hook.apply(this, args);
+			}
+		}
+		String summary = script.trim().replaceAll("\\s+", " ");
+		throw new JavascriptException("Script not supported by FakeWebDriver: "
+				+ (summary.length() > 80 ? summary.substring(0, 80) + "..." : summary));
+	}
+
+	@Override
+	public Object executeAsyncScript(String script, Object... args) {
+		return executeScript(script, args);
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+		checkOpen();
+		return target.convertFromPngBytes(screenshot());
+	}
+
+	protected synchronized byte[] screenshot() {
+		if (screenshot == null) {
+			BufferedImage image = new BufferedImage(windowSize.getWidth(), windowSize.getHeight(), BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g.dispose();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try {
+				ImageIO.write(image, "png", out);
+			} catch (IOException ex) {
+				throw new WebDriverException("Unable to create screenshot", ex);
+			}
+			screenshot = out.toByteArray();
+		}
+		return screenshot;
+	}
+
+	@Override
+	public Capabilities getCapabilities() {
+		return new ImmutableCapabilities("browserName", "fake");
+	}
+
+	protected class FakeNavigation implements Navigation {
+		@Override
+		public void back() {
+			if (historyIndex > 0) {
+				historyIndex--;
+				String url = history.get(historyIndex);
+				load(url, fetch(url));
+			}
+		}
+
+		@Override
+		public void forward() {
+			if (historyIndex < history.size() - 1) {
+				historyIndex++;
+				String url = history.get(historyIndex);
+				load(url, fetch(url));
+			}
+		}
+
+		@Override
+		public void to(String url) {
+			get(url);
+		}
+
+		@Override
+		public void to(URL url) {
+			get(url.toString());
+		}
+
+		@Override
+		public void refresh() {
+			if (historyIndex >= 0) {
+				load(currentUrl, fetch(currentUrl));
+			}
+		}
+	}
+
+	protected class FakeTargetLocator implements TargetLocator {
+		@Override
+		public WebDriver frame(int index) {
+			if (index < 0 || index >= FakeLocator.css(document, "iframe,frame").size()) {
+				throw new NoSuchFrameException("No frame at index: " + index);
+			}
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver frame(String nameOrId) {
+			for (FakeNode frame : FakeLocator.css(document, "iframe,frame")) {
+				if (nameOrId.equals(frame.getAttribute("name")) || nameOrId.equals(frame.getAttribute("id"))) {
+					return FakeWebDriver.this;
+				}
+			}
+			throw new NoSuchFrameException("No frame named: " + nameOrId);
+		}
+
+		@Override
+		public WebDriver frame(WebElement frameElement) {
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver parentFrame() {
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver window(String nameOrHandle) {
+			if (!WINDOW_HANDLE.equals(nameOrHandle)) {
+				throw new NoSuchWindowException("No window: " + nameOrHandle);
+			}
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver newWindow(WindowType typeHint) {
+			throw new UnsupportedCommandException("FakeWebDriver does not support new windows");
+		}
+
+		@Override
+		public WebDriver defaultContent() {
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebElement activeElement() {
+			if (focused != null && isAttached(focused)) {
+				return element(focused);
+			}
+			List<FakeNode> body = FakeLocator.css(document, "body");
+			return body.isEmpty() ? null : element(body.get(0));
+		}
+
+		@Override
+		public Alert alert() {
+			throw new NoAlertPresentException("FakeWebDriver does not support alerts");
+		}
+	}
+
+	protected class FakeOptions implements Options {
+		@Override
+		public void addCookie(Cookie cookie) {
+			cookies.put(cookie.getName(), cookie);
+		}
+
+		@Override
+		public void deleteCookieNamed(String name) {
+			cookies.remove(name);
+		}
+
+		@Override
+		public void deleteCookie(Cookie cookie) {
+			cookies.remove(cookie.getName());
+		}
+
+		@Override
+		public void deleteAllCookies() {
+			cookies.clear();
+		}
+
+		@Override
+		public Set<Cookie> getCookies() {
+			return new LinkedHashSet<>(cookies.values());
+		}
+
+		@Override
+		public Cookie getCookieNamed(String name) {
+			return cookies.get(name);
+		}
+
+		@Override
+		public Timeouts timeouts() {
+			return new FakeTimeouts();
+		}
+
+		@Override
+		public Window window() {
+			return new FakeWindow();
+		}
+
+		@Override
+		public Logs logs() {
+			throw new UnsupportedCommandException("FakeWebDriver does not support logs");
+		}
+	}
+
+	protected class FakeTimeouts implements Timeouts {
+		@Override
+		@Deprecated
+		public Timeouts implicitlyWait(long time, TimeUnit unit) {
+			return implicitlyWait(Duration.ofMillis(unit.toMillis(time)));
+		}
+
+		@Override
+		public Timeouts implicitlyWait(Duration duration) {
+			implicitWait = duration;
+			return this;
+		}
+
+		@Override
+		public Duration getImplicitWaitTimeout() {
+			return implicitWait;
+		}
+
+		@Override
+		@Deprecated
+		public Timeouts setScriptTimeout(long time, TimeUnit unit) {
+			return scriptTimeout(Duration.ofMillis(unit.toMillis(time)));
+		}
+
+		@Override
+		public Timeouts scriptTimeout(Duration duration) {
+			scriptTimeout = duration;
+			return this;
+		}
+
+		@Override
+		public Duration getScriptTimeout() {
+			return scriptTimeout;
+		}
+
+		@Override
+		@Deprecated
+		public Timeouts pageLoadTimeout(long time, TimeUnit unit) {
+			return pageLoadTimeout(Duration.ofMillis(unit.toMillis(time)));
+		}
+
+		@Override
+		public Timeouts pageLoadTimeout(Duration duration) {
+			pageLoadTimeout = duration;
+			return this;
+		}
+
+		@Override
+		public Duration getPageLoadTimeout() {
+			return pageLoadTimeout;
+		}
+	}
+
+	protected class FakeWindow implements Window {
+		@Override
+		public Dimension getSize() {
+			return windowSize;
+		}
+
+		@Override
+		public void setSize(Dimension targetSize) {
+			synchronized (FakeWebDriver.this) {
+				windowSize = targetSize;
+				screenshot = null;
+				layout = null;
+			}
+		}
+
+		@Override
+		public Point getPosition() {
+			return windowPosition;
+		}
+
+		@Override
+		public void setPosition(Point targetPosition) {
+			windowPosition = targetPosition;
+		}
+
+		@Override
+		public void maximize() {
+		}
+
+		@Override
+		public void minimize() {
+		}
+
+		@Override
+		public void fullscreen() {
+		}
+	}
+}
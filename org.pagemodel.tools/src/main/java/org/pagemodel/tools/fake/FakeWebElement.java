@@ -0,0 +1,343 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.fake;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchShadowRootException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A WebElement of a FakeWebDriver page.
+ * <p>
+ * Form state is kept in the element attributes: click toggles the checked attribute of checkboxes and radio buttons
+ * and the selected attribute of options, and sendKeys and clear change the value attribute, or the text of a
+ * textarea.  No events are fired and no scripts run.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class FakeWebElement implements WebElement, WrapsDriver {
+	private final static Set<String> BOOLEAN_ATTRIBUTES = new HashSet<>(Arrays.asList(
+			"checked", "selected", "disabled", "readonly", "required", "multiple", "hidden", "autofocus", "async",
+			"defer", "novalidate", "open"));
+
+	protected final FakeWebDriver driver;
+	protected final FakeNode node;
+
+	protected FakeWebElement(FakeWebDriver driver, FakeNode node) {
+		this.driver = driver;
+		this.node = node;
+	}
+
+	public FakeNode getNode() {
+		return node;
+	}
+
+	@Override
+	public WebDriver getWrappedDriver() {
+		return driver;
+	}
+
+	protected FakeNode node() {
+		driver.checkOpen();
+		if (!driver.isAttached(node)) {
+			throw new StaleElementReferenceException("Element is no longer attached to the page: " + node);
+		}
+		return node;
+	}
+
+	@Override
+	public void click() {
+		FakeNode node = node();
+		if (!isDisplayed()) {
+			throw new ElementNotInteractableException("Element is not displayed: " + node);
+		}
+		driver.focus(node);
+		if (node.getAttribute("disabled") != null) {
+			return;
+		}
+		String type = String.valueOf(node.getAttribute("type")).toLowerCase();
+		if (node.getTag().equals("input") && type.equals("checkbox")) {
+			node.setAttribute("checked", node.getAttribute("checked") == null ? "" : null);
+		} else if (node.getTag().equals("input") && type.equals("radio")) {
+			String name = node.getAttribute("name");
+			if (name != null) {
+				for (FakeNode radio : FakeLocator.css(driver.getDocument(), "input[type=radio]")) {
+					if (name.equals(radio.getAttribute("name"))) {
+						radio.setAttribute("checked", null);
+					}
+				}
+			}
+			node.setAttribute("checked", "");
+		} else if (node.getTag().equals("option")) {
+			FakeNode select = node.getParent();
+			while (select != null && !"select".equals(select.getTag())) {
+				select = select.getParent();
+			}
+			if (select != null && select.getAttribute("multiple") != null) {
+				node.setAttribute("selected", node.getAttribute("selected") == null ? "" : null);
+			} else {
+				if (select != null) {
+					for (FakeNode option : FakeLocator.css(select, "option")) {
+						option.setAttribute("selected", null);
+					}
+				}
+				node.setAttribute("selected", "");
+			}
+		}
+	}
+
+	@Override
+	public void submit() {
+		node();
+	}
+
+	@Override
+	public void sendKeys(CharSequence... keysToSend) {
+		FakeNode node = node();
+		if (!isEnabled() || node.getAttribute("readonly") != null) {
+			throw new ElementNotInteractableException("Element is not editable: " + node);
+		}
+		driver.focus(node);
+		StringBuilder sb = new StringBuilder(value(node));
+		for (CharSequence keys : keysToSend) {
+			for (int i = 0; i < keys.length(); i++) {
+				char c = keys.charAt(i);
+				if (c == Keys.BACK_SPACE.charAt(0) || c == Keys.DELETE.charAt(0)) {
+					if (sb.length() > 0) {
+						sb.setLength(sb.length() - 1);
+					}
+				} else if (c == Keys.ENTER.charAt(0) || c == Keys.RETURN.charAt(0)) {
+					if (node.getTag().equals("textarea")) {
+						sb.append('\n');
+					}
+				} else if (Keys.getKeyFromUnicode(c) == null) {
+					sb.append(c);
+				}
+			}
+		}
+		setValue(node, sb.toString());
+	}
+
+	@Override
+	public void clear() {
+		FakeNode node = node();
+		if (!isEnabled() || node.getAttribute("readonly") != null) {
+			throw new ElementNotInteractableException("Element is not editable: " + node);
+		}
+		setValue(node, "");
+	}
+
+	protected static String value(FakeNode node) {
+		if (node.getTag().equals("textarea")) {
+			return node.getTextContent();
+		}
+		if (node.getTag().equals("select")) {
+			for (FakeNode option : FakeLocator.css(node, "option")) {
+				if (option.getAttribute("selected") != null) {
+					return value(option);
+				}
+			}
+			List<FakeNode> options = FakeLocator.css(node, "option");
+			return options.isEmpty() ? "" : value(options.get(0));
+		}
+		String value = node.getAttribute("value");
+		if (value == null && node.getTag().equals("option")) {
+			return node.getTextContent().trim().replaceAll("\\s+", " ");
+		}
+		return value == null ? "" : value;
+	}
+
+	protected static void setValue(FakeNode node, String value) {
+		if (node.getTag().equals("textarea")) {
+			node.getChildren().clear();
+			node.append(FakeNode.text(value));
+		} else {
+			node.setAttribute("value", value);
+		}
+	}
+
+	@Override
+	public String getTagName() {
+		return node().getTag();
+	}
+
+	@Override
+	public String getDomAttribute(String name) {
+		return node().getAttribute(name);
+	}
+
+	@Override
+	public String getDomProperty(String name) {
+		FakeNode node = node();
+		switch (name) {
+			case "value":
+				return value(node);
+			case "textContent":
+				return node.getTextContent();
+			case "innerHTML":
+				return node.getInnerHtml();
+			case "outerHTML":
+				return node.getOuterHtml();
+			case "innerText":
+				return getText();
+			case "tagName":
+				return node.getTag().toUpperCase();
+			case "className":
+				return node.getAttribute("class") == null ? "" : node.getAttribute("class");
+			case "checked":
+			case "selected":
+			case "disabled":
+				return String.valueOf(node.getAttribute(name) != null);
+			default:
+				return node.getAttribute(name);
+		}
+	}
+
+	@Override
+	public String getAttribute(String name) {
+		FakeNode node = node();
+		String lower = name.toLowerCase();
+		if (lower.equals("value") || lower.equals("textcontent") || lower.equals("innerhtml") || lower.equals("outerhtml")
+				|| lower.equals("innertext") || lower.equals("classname")) {
+			return getDomProperty(name);
+		}
+		if (lower.equals("class")) {
+			return node.getAttribute("class");
+		}
+		if (BOOLEAN_ATTRIBUTES.contains(lower)) {
+			return node.getAttribute(lower) == null ? null : "true";
+		}
+		return node.getAttribute(lower);
+	}
+
+	@Override
+	public String getAriaRole() {
+		String role = node().getAttribute("role");
+		return role == null ? "" : role;
+	}
+
+	@Override
+	public String getAccessibleName() {
+		String label = node().getAttribute("aria-label");
+		return label != null ? label : getText();
+	}
+
+	@Override
+	public boolean isSelected() {
+		FakeNode node = node();
+		return node.getAttribute("checked") != null || node.getAttribute("selected") != null;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return node().getAttribute("disabled") == null;
+	}
+
+	@Override
+	public String getText() {
+		return driver.layout().text(node());
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		return driver.findElements(node(), this, by);
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		List<WebElement> found = findElements(by);
+		if (found.isEmpty()) {
+			throw new NoSuchElementException("Unable to locate element: " + by);
+		}
+		return found.get(0);
+	}
+
+	@Override
+	public SearchContext getShadowRoot() {
+		throw new NoSuchShadowRootException("FakeWebDriver does not support shadow roots");
+	}
+
+	@Override
+	public boolean isDisplayed() {
+		return driver.layout().isDisplayed(node());
+	}
+
+	@Override
+	public Point getLocation() {
+		return getRect().getPoint();
+	}
+
+	@Override
+	public Dimension getSize() {
+		return getRect().getDimension();
+	}
+
+	@Override
+	public Rectangle getRect() {
+		return driver.layout().rect(node());
+	}
+
+	@Override
+	public String getCssValue(String propertyName) {
+		String value = FakeLayout.style(node(), propertyName);
+		if (value != null) {
+			return value;
+		}
+		if (propertyName.equals("display")) {
+			return FakeLayout.isBlock(node) ? "block" : "inline";
+		}
+		return "";
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+		node();
+		return driver.getScreenshotAs(target);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof FakeWebElement && ((FakeWebElement) obj).node == node;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(node);
+	}
+
+	@Override
+	public String toString() {
+		return "[FakeWebElement " + node + "]";
+	}
+}
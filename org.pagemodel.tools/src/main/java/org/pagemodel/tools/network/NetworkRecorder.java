@@ -0,0 +1,394 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.network;
+
+import com.google.gson.GsonBuilder;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.Augmenter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Records the network requests of a Chromium browser (Chrome or Edge, local or remote) through DevTools.
+ * <p>
+ * For each request the url, method, resource type, status, mime type, timings and transfer size are kept.  Headers
+ * and bodies are not recorded, and memory is bounded: at most MAX_ENTRIES finished requests are kept (the oldest are
+ * dropped first and counted in getDropped), at most MAX_PENDING requests are tracked while in flight, and urls are
+ * truncated to MAX_URL_LENGTH.
+ * <p>
+ * The DevTools protocol is used without a version specific binding, so the recorder works with any browser
+ * version Selenium can open a DevTools session to.
+ * <p>
+ * The DevTools session is shared with anything else using the driver's DevTools.  Selenium can only remove all of a
+ * session's listeners, so the recorder's listeners stay registered after stop and ignore events until the recorder
+ * is started again, and the Network domain is left enabled for other listeners.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class NetworkRecorder {
+	public static String LOG_DIR = "build/har/";
+	public static int MAX_ENTRIES = 5000;
+	public static int MAX_PENDING = 1000;
+	public static int MAX_URL_LENGTH = 2048;
+
+	private final Deque<Entry> entries = new ArrayDeque<>();
+	private final Map<String, Entry> pending = new HashMap<>();
+	private int dropped = 0;
+	private DevTools devTools;
+	private DevTools listening;
+
+	/**
+	 * A finished request.  Times are in milliseconds and sizes in bytes.
+	 */
+	public static class Entry {
+		protected String url;
+		protected String method;
+		protected String resourceType;
+		protected long startedMs;
+		protected double startTimestamp;
+		protected double endTimestamp;
+		protected int status;
+		protected String statusText = "";
+		protected String protocol = "";
+		protected String mimeType = "";
+		protected long transferSize;
+		protected boolean fromCache;
+		protected String error;
+		protected Map<?, ?> timing;
+
+		public String getUrl() {
+			return url;
+		}
+
+		public String getMethod() {
+			return method;
+		}
+
+		public String getResourceType() {
+			return resourceType;
+		}
+
+		/**
+		 * @return 0 if no response was received, see getError
+		 */
+		public int getStatus() {
+			return status;
+		}
+
+		public String getMimeType() {
+			return mimeType;
+		}
+
+		public long getTransferSize() {
+			return transferSize;
+		}
+
+		public boolean isFromCache() {
+			return fromCache;
+		}
+
+		public String getError() {
+			return error;
+		}
+
+		public boolean isFailed() {
+			return error != null || status >= 400;
+		}
+
+		public long getStartedMs() {
+			return startedMs;
+		}
+
+		/**
+		 * @return time from sending the request until the response was loaded, or the request failed
+		 */
+		public int getDuration() {
+			return (int) Math.max(0, Math.round((endTimestamp - startTimestamp) * 1000));
+		}
+
+		protected Map<String, Object> toHar() {
+			Map<String, Object> request = new LinkedHashMap<>();
+			request.put("method", method);
+			request.put("url", url);
+			request.put("httpVersion", protocol);
+			request.put("cookies", Collections.emptyList());
+			request.put("headers", Collections.emptyList());
+			request.put("queryString", Collections.emptyList());
+			request.put("headersSize", -1);
+			request.put("bodySize", -1);
+			Map<String, Object> content = new LinkedHashMap<>();
+			content.put("size", -1);
+			content.put("mimeType", mimeType);
+			Map<String, Object> response = new LinkedHashMap<>();
+			response.put("status", status);
+			response.put("statusText", statusText);
+			response.put("httpVersion", protocol);
+			response.put("cookies", Collections.emptyList());
+			response.put("headers", Collections.emptyList());
+			response.put("content", content);
+			response.put("redirectURL", "");
+			response.put("headersSize", -1);
+			response.put("bodySize", transferSize);
+			response.put("_transferSize", transferSize);
+			if (error != null) {
+				response.put("_error", error);
+			}
+			Map<String, Object> har = new LinkedHashMap<>();
+			har.put("startedDateTime", Instant.ofEpochMilli(startedMs).toString());
+			har.put("time", getDuration());
+			har.put("request", request);
+			har.put("response", response);
+			har.put("cache", Collections.emptyMap());
+			har.put("timings", harTimings());
+			har.put("_resourceType", resourceType);
+			har.put("_fromCache", fromCache);
+			return har;
+		}
+
+		private Map<String, Object> harTimings() {
+			double total = getDuration();
+			double dns = span("dnsStart", "dnsEnd");
+			double connect = span("connectStart", "connectEnd");
+			double ssl = span("sslStart", "sslEnd");
+			double send = Math.max(0, span("sendStart", "sendEnd"));
+			double headersEnd = number("receiveHeadersEnd");
+			double sendEnd = number("sendEnd");
+			double wait = headersEnd >= 0 && sendEnd >= 0 ? Math.max(0, headersEnd - sendEnd) : 0;
+			double receive = headersEnd >= 0 ? Math.max(0, total - headersEnd) : total;
+			double blocked = Math.max(0, total - Math.max(0, dns) - Math.max(0, connect) - send - wait - receive);
+			Map<String, Object> timings = new LinkedHashMap<>();
+			timings.put("blocked", round(blocked));
+			timings.put("dns", round(dns));
+			timings.put("connect", round(connect));
+			timings.put("ssl", round(ssl));
+			timings.put("send", round(send));
+			timings.put("wait", round(wait));
+			timings.put("receive", round(receive));
+			return timings;
+		}
+
+		private double span(String start, String end) {
+			double s = number(start);
+			double e = number(end);
+			return s >= 0 && e >= s ? e - s : -1;
+		}
+
+		private double number(String name) {
+			Object value = timing == null ? null : timing.get(name);
+			return value instanceof Number ? ((Number) value).doubleValue() : -1;
+		}
+
+		private static double round(double value) {
+			return value < 0 ? -1 : Math.round(value * 1000) / 1000.0;
+		}
+	}
+
+	/**
+	 * Starts recording requests made by the browser.
+	 * @throws UnsupportedOperationException if the driver does not support DevTools
+	 */
+	public synchronized NetworkRecorder start(WebDriver driver) {
+		if (devTools != null) {
+			return this;
+		}
+		WebDriver devToolsDriver = driver instanceof HasDevTools ? driver : new Augmenter().augment(driver);
+		if (!(devToolsDriver instanceof HasDevTools) || !((HasDevTools) devToolsDriver).maybeGetDevTools().isPresent()) {
+			throw new UnsupportedOperationException("Network capture requires a Chromium browser with DevTools, got: " + driver.getClass().getName());
+		}
+		devTools = ((HasDevTools) devToolsDriver).getDevTools();
+		devTools.createSessionIfThereIsNotOne();
+		if (listening != devTools) {
+			listening = devTools;
+			listen("Network.requestWillBeSent", this::onRequest);
+			listen("Network.responseReceived", this::onResponse);
+			listen("Network.loadingFinished", this::onFinished);
+			listen("Network.loadingFailed", this::onFailed);
+		}
+		devTools.send(new Command<>("Network.enable", Collections.emptyMap()));
+		return this;
+	}
+
+	/**
+	 * Stops recording.  Requests still in flight are dropped.  Recorded requests are kept until clear is called.
+	 * Other listeners on the driver's DevTools session are not affected.
+	 */
+	public synchronized void stop() {
+		devTools = null;
+		pending.clear();
+	}
+
+	public synchronized boolean isRecording() {
+		return devTools != null;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		pending.clear();
+		dropped = 0;
+	}
+
+	public synchronized List<Entry> getEntries() {
+		return new ArrayList<>(entries);
+	}
+
+	/**
+	 * @return number of finished requests dropped because MAX_ENTRIES was reached, or MAX_PENDING requests were in
+	 * flight
+	 */
+	public synchronized int getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Writes the recorded requests as a HAR 1.2 file in LOG_DIR.
+	 * @return the file written
+	 */
+	public File saveHar(String name) throws IOException {
+		File destFolder = new File(LOG_DIR);
+		if (!destFolder.exists()) {
+			destFolder.mkdirs();
+		}
+		File file = new File(destFolder, name.replaceAll("[^a-zA-Z0-9_.-]+", "") + ".har");
+		Map<String, Object> creator = new LinkedHashMap<>();
+		creator.put("name", "pagemodel");
+		creator.put("version", "1.0");
+		List<Map<String, Object>> harEntries = new ArrayList<>();
+		for (Entry entry : getEntries()) {
+			harEntries.add(entry.toHar());
+		}
+		Map<String, Object> log = new LinkedHashMap<>();
+		log.put("version", "1.2");
+		log.put("creator", creator);
+		log.put("pages", Collections.emptyList());
+		log.put("entries", harEntries);
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(Collections.singletonMap("log", log), writer);
+		}
+		return file;
+	}
+
+	private void listen(String method, Consumer<Map<String, Object>> listener) {
+		DevTools source = devTools;
+		source.addListener(new Event<Map<String, Object>>(method, input -> input.read(Json.MAP_TYPE)), params -> {
+			synchronized (this) {
+				if (devTools == source) {
+					listener.accept(params);
+				}
+			}
+		});
+	}
+
+	private void onRequest(Map<String, Object> params) {
+		String id = (String) params.get("requestId");
+		Map<?, ?> redirect = (Map<?, ?>) params.get("redirectResponse");
+		Entry previous = pending.remove(id);
+		if (previous != null && redirect != null) {
+			applyResponse(previous, redirect);
+			previous.endTimestamp = number(params.get("timestamp"));
+			add(previous);
+		}
+		if (pending.size() >= MAX_PENDING) {
+			dropped++;
+			return;
+		}
+		Map<?, ?> request = (Map<?, ?>) params.get("request");
+		Entry entry = new Entry();
+		String url = request == null ? "" : String.valueOf(request.get("url"));
+		entry.url = url.length() > MAX_URL_LENGTH ? url.substring(0, MAX_URL_LENGTH) : url;
+		entry.method = request == null ? "" : String.valueOf(request.get("method"));
+		entry.resourceType = params.get("type") == null ? "Other" : String.valueOf(params.get("type"));
+		entry.startTimestamp = number(params.get("timestamp"));
+		entry.startedMs = params.get("wallTime") instanceof Number
+				? Math.round(((Number) params.get("wallTime")).doubleValue() * 1000) : System.currentTimeMillis();
+		pending.put(id, entry);
+	}
+
+	private void onResponse(Map<String, Object> params) {
+		Entry entry = pending.get((String) params.get("requestId"));
+		if (entry != null && params.get("response") instanceof Map) {
+			applyResponse(entry, (Map<?, ?>) params.get("response"));
+		}
+	}
+
+	private void onFinished(Map<String, Object> params) {
+		Entry entry = pending.remove((String) params.get("requestId"));
+		if (entry != null) {
+			entry.endTimestamp = number(params.get("timestamp"));
+			if (params.get("encodedDataLength") instanceof Number) {
+				entry.transferSize = ((Number) params.get("encodedDataLength")).longValue();
+			}
+			add(entry);
+		}
+	}
+
+	private void onFailed(Map<String, Object> params) {
+		Entry entry = pending.remove((String) params.get("requestId"));
+		if (entry != null) {
+			entry.endTimestamp = number(params.get("timestamp"));
+			entry.error = params.get("errorText") == null ? "failed" : String.valueOf(params.get("errorText"));
+			add(entry);
+		}
+	}
+
+	private static void applyResponse(Entry entry, Map<?, ?> response) {
+		if (response.get("status") instanceof Number) {
+			entry.status = ((Number) response.get("status")).intValue();
+		}
+		entry.statusText = response.get("statusText") == null ? "" : String.valueOf(response.get("statusText"));
+		entry.protocol = response.get("protocol") == null ? "" : String.valueOf(response.get("protocol"));
+		entry.mimeType = response.get("mimeType") == null ? "" : String.valueOf(response.get("mimeType"));
+		entry.fromCache = Boolean.TRUE.equals(response.get("fromDiskCache")) || Boolean.TRUE.equals(response.get("fromPrefetchCache"));
+		entry.timing = response.get("timing") instanceof Map ? (Map<?, ?>) response.get("timing") : null;
+		if (response.get("encodedDataLength") instanceof Number) {
+			entry.transferSize = ((Number) response.get("encodedDataLength")).longValue();
+		}
+	}
+
+	private void add(Entry entry) {
+		if (entry.endTimestamp < entry.startTimestamp) {
+			entry.endTimestamp = entry.startTimestamp;
+		}
+		entries.addLast(entry);
+		while (entries.size() > MAX_ENTRIES) {
+			entries.removeFirst();
+			dropped++;
+		}
+	}
+
+	private static double number(Object value) {
+		return value instanceof Number ? ((Number) value).doubleValue() : 0;
+	}
+}
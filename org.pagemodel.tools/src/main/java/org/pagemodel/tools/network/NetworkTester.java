@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.network;
+
+import org.pagemodel.core.TestContext;
+import org.pagemodel.core.testers.ComparableTester;
+import org.pagemodel.core.testers.StringTester;
+import org.pagemodel.core.testers.TestEvaluator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Assertions on the requests recorded by a NetworkRecorder.  Times are in milliseconds and sizes in bytes.
+ *
+ * @param <R> return type for method chaining
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class NetworkTester<R> {
+	protected final R returnObj;
+	protected final List<NetworkRecorder.Entry> entries;
+	protected final String filter;
+	protected final TestContext testContext;
+	private TestEvaluator testEvaluator;
+
+	public NetworkTester(List<NetworkRecorder.Entry> entries, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		this(entries, null, returnObj, testContext, testEvaluator);
+	}
+
+	protected NetworkTester(List<NetworkRecorder.Entry> entries, String filter, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		this.entries = entries;
+		this.filter = filter;
+		this.returnObj = returnObj;
+		this.testContext = testContext;
+		this.testEvaluator = testEvaluator;
+	}
+
+	protected TestEvaluator getEvaluator(){
+		return testEvaluator;
+	}
+
+	public List<NetworkRecorder.Entry> getEntries() {
+		return new ArrayList<>(entries);
+	}
+
+	/**
+	 * @return assertions on only the requests with a url matching the regex
+	 */
+	public NetworkTester<R> urlMatches(String regex) {
+		Pattern pattern = Pattern.compile(regex);
+		return new NetworkTester<>(entries.stream().filter(e -> pattern.matcher(e.getUrl()).find()).collect(Collectors.toList()),
+				filter == null ? regex : filter + " && " + regex, returnObj, testContext, getEvaluator());
+	}
+
+	public ComparableTester<Integer, R> requestCount() {
+		addSourceEvent("requestCount");
+		return new ComparableTester<>(entries::size, returnObj, testContext, getEvaluator());
+	}
+
+	/**
+	 * @return number of requests that failed, or were answered with a status of 400 or more
+	 */
+	public ComparableTester<Integer, R> failedRequestCount() {
+		addSourceEvent("failedRequestCount");
+		return new ComparableTester<>(() -> (int) entries.stream().filter(NetworkRecorder.Entry::isFailed).count(), returnObj, testContext, getEvaluator());
+	}
+
+	/**
+	 * @return duration of the slowest request, or 0 if there are no requests.  See slowestRequestUrl.
+	 */
+	public ComparableTester<Integer, R> slowestRequest() {
+		addSourceEvent("slowestRequest");
+		return new ComparableTester<>(() -> slowest() == null ? 0 : slowest().getDuration(), returnObj, testContext, getEvaluator());
+	}
+
+	public StringTester<R> slowestRequestUrl() {
+		addSourceEvent("slowestRequestUrl");
+		return new StringTester<>(() -> slowest() == null ? null : slowest().getUrl(), returnObj, testContext, getEvaluator());
+	}
+
+	/**
+	 * @return bytes received over the network, including headers.  Requests served from cache count as 0.
+	 */
+	public ComparableTester<Long, R> totalTransferSize() {
+		addSourceEvent("totalTransferSize");
+		return new ComparableTester<>(() -> entries.stream().mapToLong(NetworkRecorder.Entry::getTransferSize).sum(), returnObj, testContext, getEvaluator());
+	}
+
+	public R noRequestSlowerThan(int ms) {
+		return slowestRequest().notGreaterThan(ms);
+	}
+
+	public R totalTransferUnder(long bytes) {
+		return totalTransferSize().lessThan(bytes);
+	}
+
+	public R noFailedRequests() {
+		return failedRequestCount().equals(0);
+	}
+
+	protected NetworkRecorder.Entry slowest() {
+		return entries.stream().max(Comparator.comparingInt(NetworkRecorder.Entry::getDuration)).orElse(null);
+	}
+
+	protected void addSourceEvent(String name) {
+		getEvaluator().addSourceEvent(TestEvaluator.TEST_FIND,
+				"network", op -> op
+						.addValue("value", name)
+						.addValue("urlMatches", filter)
+						.addValue("requests", entries.size()));
+	}
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.replay;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encoding of WebDriver calls for WebDriverRecorder and ReplayWebDriver.
+ * <p>
+ * A recording is a file of json lines.  The first line describes the driver, and each following line is one call:
+ * the target (driver, an element id, or a part of the driver api such as "timeouts"), the method, the arguments and
+ * the result or error.  Values are encoded so they decode to the same java types: numbers, elements, locators,
+ * sizes, cookies and screenshots are tagged objects, such as {"long": "3"} or {"element": "e1"}.  Long strings, such
+ * as the scripts run on every element, are written once as a text line and referenced by id.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public abstract class Recording {
+	public static int TEXT_MIN_LENGTH = 200;
+
+	public final static String DRIVER = "driver";
+
+	protected final static Gson gson = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
+	private final static Map<String, Class<?>> facades = new LinkedHashMap<>();
+
+	static {
+		facades.put("options", WebDriver.Options.class);
+		facades.put("timeouts", WebDriver.Timeouts.class);
+		facades.put("window", WebDriver.Window.class);
+		facades.put("navigation", WebDriver.Navigation.class);
+		facades.put("targetLocator", WebDriver.TargetLocator.class);
+		facades.put("alert", Alert.class);
+	}
+
+	protected final Map<String, String> textIds = new HashMap<>();
+	protected final Map<String, String> texts = new HashMap<>();
+
+	/**
+	 * @return id of the element in this recording
+	 */
+	protected abstract String elementId(WebElement element);
+
+	protected abstract Object element(String id);
+
+	protected abstract Object facade(String name, Class<?> type);
+
+	protected abstract Object driver();
+
+	/**
+	 * @return id for a long string that is not in the recording yet, or null to write the string as is
+	 */
+	protected String newText(String text) {
+		return null;
+	}
+
+	protected String key(String target, String method, Object[] args) {
+		return target + "." + method + gson.toJson(encodeArgs(args));
+	}
+
+	protected List<Object> encodeArgs(Object[] args) {
+		List<Object> list = new ArrayList<>();
+		if (args != null) {
+			for (Object arg : args) {
+				list.add(encode(arg));
+			}
+		}
+		return list;
+	}
+
+	protected Object encode(Object value) {
+		if (value == null || value instanceof Boolean) {
+			return value;
+		}
+		if (value instanceof String) {
+			String text = (String) value;
+			if (text.length() < TEXT_MIN_LENGTH) {
+				return text;
+			}
+			String id = textIds.get(text);
+			if (id == null) {
+				id = newText(text);
+			}
+			return id == null ? text : tag("text", id);
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return tag("double", String.valueOf(((Number) value).doubleValue()));
+		}
+		if (value instanceof Number) {
+			return tag("long", String.valueOf(((Number) value).longValue()));
+		}
+		if (value instanceof WebElement) {
+			return tag("element", elementId((WebElement) value));
+		}
+		if (value instanceof WebDriver) {
+			return tag("driver", DRIVER);
+		}
+		if (facadeName(value) != null) {
+			return tag("facade", facadeName(value));
+		}
+		if (value instanceof By) {
+			return tag("by", value.toString());
+		}
+		if (value instanceof Dimension) {
+			Dimension d = (Dimension) value;
+			return tag("dimension", d.getWidth() + "," + d.getHeight());
+		}
+		if (value instanceof Point) {
+			Point p = (Point) value;
+			return tag("point", p.getX() + "," + p.getY());
+		}
+		if (value instanceof Rectangle) {
+			Rectangle r = (Rectangle) value;
+			return tag("rect", r.getX() + "," + r.getY() + "," + r.getHeight() + "," + r.getWidth());
+		}
+		if (value instanceof Duration) {
+			return tag("duration", String.valueOf(((Duration) value).toMillis()));
+		}
+		if (value instanceof byte[]) {
+			return tag("bytes", Base64.getEncoder().encodeToString((byte[]) value));
+		}
+		if (value instanceof File) {
+			try {
+				return tag("file", Base64.getEncoder().encodeToString(Files.readAllBytes(((File) value).toPath())));
+			} catch (IOException ex) {
+				return tag("file", "");
+			}
+		}
+		if (value instanceof OutputType) {
+			return tag("outputType", value == OutputType.BYTES ? "BYTES" : value == OutputType.FILE ? "FILE" : "BASE64");
+		}
+		if (value instanceof Cookie) {
+			Cookie c = (Cookie) value;
+			Map<String, Object> cookie = new LinkedHashMap<>();
+			cookie.put("name", c.getName());
+			cookie.put("value", c.getValue());
+			cookie.put("domain", c.getDomain());
+			cookie.put("path", c.getPath());
+			cookie.put("expiry", c.getExpiry() == null ? null : String.valueOf(c.getExpiry().getTime()));
+			cookie.put("secure", c.isSecure());
+			cookie.put("httpOnly", c.isHttpOnly());
+			cookie.put("sameSite", c.getSameSite());
+			return tag("cookie", cookie);
+		}
+		if (value instanceof Enum) {
+			return tag("enum", Arrays.asList(((Enum<?>) value).getDeclaringClass().getName(), ((Enum<?>) value).name()));
+		}
+		if (value instanceof Capabilities) {
+			return tag("capabilities", encode(((Capabilities) value).asMap()));
+		}
+		if (value instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+				map.put(String.valueOf(e.getKey()), encode(e.getValue()));
+			}
+			return tag("map", map);
+		}
+		if (value instanceof Set) {
+			return tag("set", encodeArgs(((Set<?>) value).toArray()));
+		}
+		if (value instanceof Collection) {
+			return encodeArgs(((Collection<?>) value).toArray());
+		}
+		if (value instanceof Object[]) {
+			return encodeArgs((Object[]) value);
+		}
+		if (value instanceof CharSequence) {
+			return encode(value.toString());
+		}
+		return tag("object", value.getClass().getName());
+	}
+
+	protected Object decode(Object json) {
+		if (json == null || json instanceof String || json instanceof Boolean) {
+			return json;
+		}
+		if (json instanceof List) {
+			List<Object> list = new ArrayList<>();
+			for (Object item : (List<?>) json) {
+				list.add(decode(item));
+			}
+			return list;
+		}
+		if (!(json instanceof Map) || ((Map<?, ?>) json).size() != 1) {
+			return null;
+		}
+		Map.Entry<?, ?> tag = ((Map<?, ?>) json).entrySet().iterator().next();
+		Object value = tag.getValue();
+		String text = value instanceof String ? (String) value : null;
+		switch ((String) tag.getKey()) {
+			case "text":
+				return texts.get(text);
+			case "long":
+				return Long.parseLong(text);
+			case "double":
+				return Double.parseDouble(text);
+			case "element":
+				return element(text);
+			case "driver":
+				return driver();
+			case "facade":
+				return facade(text, facades.get(text));
+			case "by":
+				return text;
+			case "dimension": {
+				int[] v = ints(text);
+				return new Dimension(v[0], v[1]);
+			}
+			case "point": {
+				int[] v = ints(text);
+				return new Point(v[0], v[1]);
+			}
+			case "rect": {
+				int[] v = ints(text);
+				return new Rectangle(v[0], v[1], v[2], v[3]);
+			}
+			case "duration":
+				return Duration.ofMillis(Long.parseLong(text));
+			case "bytes":
+				return Base64.getDecoder().decode(text);
+			case "file":
+				try {
+					File file = File.createTempFile("replay", ".png");
+					file.deleteOnExit();
+					Files.write(file.toPath(), Base64.getDecoder().decode(text));
+					return file;
+				} catch (IOException ex) {
+					throw new WebDriverException(ex);
+				}
+			case "outputType":
+				return "BYTES".equals(text) ? OutputType.BYTES : "FILE".equals(text) ? OutputType.FILE : OutputType.BASE64;
+			case "cookie": {
+				Map<?, ?> c = (Map<?, ?>) value;
+				Date expiry = c.get("expiry") == null ? null : new Date(Long.parseLong((String) c.get("expiry")));
+				return new Cookie((String) c.get("name"), (String) c.get("value"), (String) c.get("domain"), (String) c.get("path"),
+						expiry, Boolean.TRUE.equals(c.get("secure")), Boolean.TRUE.equals(c.get("httpOnly")), (String) c.get("sameSite"));
+			}
+			case "enum": {
+				List<?> e = (List<?>) value;
+				try {
+					return enumConstant(Class.forName((String) e.get(0)), (String) e.get(1));
+				} catch (ClassNotFoundException ex) {
+					return null;
+				}
+			}
+			case "capabilities":
+				// encoded as a tagged map, see encode
+				return new ImmutableCapabilities(decodeMap(((Map<?, ?>) value).get("map")));
+			case "map":
+				return decodeMap(value);
+			case "set":
+				return new LinkedHashSet<>((List<?>) decode(value));
+		}
+		return null;
+	}
+
+	/**
+	 * @return the entries of an encoded map, with their values decoded
+	 */
+	protected Map<String, Object> decodeMap(Object json) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (Map.Entry<?, ?> e : ((Map<?, ?>) json).entrySet()) {
+			map.put(String.valueOf(e.getKey()), decode(e.getValue()));
+		}
+		return map;
+	}
+
+	protected Map<String, Object> encodeError(Throwable t) {
+		Map<String, Object> error = new LinkedHashMap<>();
+		error.put("class", t.getClass().getName());
+		error.put("message", t instanceof WebDriverException ? ((WebDriverException) t).getRawMessage() : t.getMessage());
+		return error;
+	}
+
+	protected RuntimeException decodeError(Map<?, ?> error) {
+		String message = (String) error.get("message");
+		try {
+			Class<?> clazz = Class.forName((String) error.get("class"));
+			if (RuntimeException.class.isAssignableFrom(clazz) && !Modifier.isAbstract(clazz.getModifiers())) {
+				Constructor<?> constructor = clazz.getConstructor(String.class);
+				return (RuntimeException) constructor.newInstance(message);
+			}
+		} catch (ReflectiveOperationException | LinkageError ex) {
+			// fall back to a WebDriverException
+		}
+		return new WebDriverException(message);
+	}
+
+	/**
+	 * @return name of the part of the driver api the value implements, such as "timeouts", or null
+	 */
+	protected static String facadeName(Object value) {
+		for (Map.Entry<String, Class<?>> facade : facades.entrySet()) {
+			if (facade.getValue().isInstance(value)) {
+				return facade.getKey();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return public interfaces implemented by the class and its superclasses
+	 */
+	protected static Set<Class<?>> interfaces(Class<?> clazz) {
+		Set<Class<?>> set = new LinkedHashSet<>();
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+			for (Class<?> i : c.getInterfaces()) {
+				if (Modifier.isPublic(i.getModifiers())) {
+					set.add(i);
+				}
+			}
+		}
+		return set;
+	}
+
+	private static Map<String, Object> tag(String name, Object value) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put(name, value);
+		return map;
+	}
+
+	/**
+	 * @return the constant of the enum class with the name, or null
+	 */
+	private static Object enumConstant(Class<?> clazz, String name) {
+		if (clazz.isEnum()) {
+			for (Object constant : clazz.getEnumConstants()) {
+				if (((Enum<?>) constant).name().equals(name)) {
+					return constant;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static int[] ints(String text) {
+		return Arrays.stream(text.split(",")).mapToInt(Integer::parseInt).toArray();
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.replay;
+
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A WebDriver that plays back a recording made with WebDriverRecorder, without a browser.
+ * <p>
+ * Each call is answered with the response recorded for the same target, method and arguments.  Identical calls are
+ * answered in the order they were recorded, and once the recorded responses run out the last one is repeated, so
+ * page models that poll a few more or fewer times than the recorded run still replay.  A call that was never
+ * recorded throws NotRecordedException.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ReplayWebDriver extends Recording {
+	protected final Map<String, List<Map<?, ?>>> calls = new HashMap<>();
+	protected final Map<String, Integer> cursors = new HashMap<>();
+	protected final Map<String, Object> elements = new HashMap<>();
+	protected final Map<Object, String> elementIds = new IdentityHashMap<>();
+	protected final Map<String, Object> facadeProxies = new HashMap<>();
+	protected WebDriver driverProxy;
+
+	public static class NotRecordedException extends IllegalStateException {
+		public NotRecordedException(String call) {
+			super("Call not found in recording: " + call);
+		}
+	}
+
+	protected ReplayWebDriver() {
+	}
+
+	/**
+	 * @return a driver replaying WebDriverRecorder.RECORDING_DIR/name.jsonl
+	 */
+	public static WebDriver load(String name) {
+		return load(new File(WebDriverRecorder.RECORDING_DIR, name.replaceAll("[^a-zA-Z0-9_.-]+", "") + ".jsonl"));
+	}
+
+	public static WebDriver load(File file) {
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			return load(reader);
+		} catch (IOException ex) {
+			throw new WebDriverException("Unable to read recording: " + file, ex);
+		}
+	}
+
+	public static WebDriver load(InputStream in) {
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			return load(reader);
+		} catch (IOException ex) {
+			throw new WebDriverException("Unable to read recording", ex);
+		}
+	}
+
+	protected static WebDriver load(Reader reader) throws IOException {
+		ReplayWebDriver replay = new ReplayWebDriver();
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		interfaces.add(WebDriver.class);
+		BufferedReader lines = new BufferedReader(reader);
+		for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			Map<?, ?> json = gson.fromJson(line, Map.class);
+			if (json.containsKey("recording")) {
+				for (Object name : (List<?>) json.get("interfaces")) {
+					try {
+						Class<?> clazz = Class.forName((String) name);
+						if (clazz.isInterface()) {
+							interfaces.add(clazz);
+						}
+					} catch (ClassNotFoundException ex) {
+						// not available when replaying
+					}
+				}
+			} else if (json.containsKey("text")) {
+				replay.texts.put((String) json.get("text"), (String) json.get("value"));
+				replay.textIds.put((String) json.get("value"), (String) json.get("text"));
+			} else {
+				String key = json.get("target") + "." + json.get("method") + gson.toJson(json.get("args"));
+				replay.calls.computeIfAbsent(key, k -> new ArrayList<>()).add(json);
+			}
+		}
+		replay.driverProxy = (WebDriver) replay.proxy(DRIVER, interfaces);
+		return replay.driverProxy;
+	}
+
+	protected Object proxy(String target, Set<Class<?>> interfaces) {
+		InvocationHandler handler = (proxy, method, args) -> invoke(proxy, target, method, args);
+		return Proxy.newProxyInstance(ReplayWebDriver.class.getClassLoader(), interfaces.toArray(new Class<?>[0]), handler);
+	}
+
+	protected Object invoke(Object proxy, String target, Method method, Object[] args) {
+		if (method.getDeclaringClass() == Object.class) {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					return "Replay " + target;
+			}
+		}
+		if (method.getDeclaringClass() == WrapsDriver.class) {
+			return driverProxy;
+		}
+		String key = key(target, method.getName(), args);
+		Map<?, ?> call = next(key);
+		if (call.containsKey("error")) {
+			throw decodeError((Map<?, ?>) call.get("error"));
+		}
+		Object result = decode(call.get("result"));
+		if (result instanceof Long && (method.getReturnType() == int.class || method.getReturnType() == Integer.class)) {
+			return ((Long) result).intValue();
+		}
+		if (result == null && method.getReturnType() == boolean.class) {
+			return false;
+		}
+		return result;
+	}
+
+	protected synchronized Map<?, ?> next(String key) {
+		List<Map<?, ?>> recorded = calls.get(key);
+		if (recorded == null) {
+			throw new NotRecordedException(key);
+		}
+		int index = cursors.getOrDefault(key, 0);
+		cursors.put(key, index + 1);
+		return recorded.get(Math.min(index, recorded.size() - 1));
+	}
+
+	@Override
+	protected synchronized String elementId(WebElement element) {
+		String id = elementIds.get(element);
+		return id == null ? "unknown" : id;
+	}
+
+	@Override
+	protected synchronized Object element(String id) {
+		return elements.computeIfAbsent(id, i -> {
+			Set<Class<?>> interfaces = new LinkedHashSet<>();
+			interfaces.add(WebElement.class);
+			interfaces.add(WrapsDriver.class);
+			interfaces.add(TakesScreenshot.class);
+			Object element = proxy(i, interfaces);
+			elementIds.put(element, i);
+			return element;
+		});
+	}
+
+	@Override
+	protected synchronized Object facade(String name, Class<?> type) {
+		if (type == null) {
+			return null;
+		}
+		return facadeProxies.computeIfAbsent(name, n -> {
+			Set<Class<?>> interfaces = new LinkedHashSet<>();
+			interfaces.add(type);
+			return proxy(n, interfaces);
+		});
+	}
+
+	@Override
+	protected Object driver() {
+		return driverProxy;
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.replay;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Records every call made to a WebDriver, its elements and the rest of its api, with the response, to a file that
+ * ReplayWebDriver can play back without a browser.  See Recording for the file format.
+ * <p>
+ * Each call is written as it completes, so a recording is usable up to the point a run failed.  The file is closed
+ * when the driver quits.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class WebDriverRecorder extends Recording {
+	public static String RECORDING_DIR = "build/recordings/";
+
+	protected final WebDriver driver;
+	protected final Writer writer;
+	protected WebDriver driverProxy;
+	protected final Map<WebElement, String> elementIds = new HashMap<>();
+	protected final Map<String, Object> facadeProxies = new HashMap<>();
+
+	protected WebDriverRecorder(WebDriver driver, File file) throws IOException {
+		this.driver = driver;
+		File folder = file.getAbsoluteFile().getParentFile();
+		if (!folder.exists()) {
+			folder.mkdirs();
+		}
+		this.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+		Map<String, Object> header = new LinkedHashMap<>();
+		header.put("recording", 1);
+		header.put("driver", driver.getClass().getName());
+		header.put("interfaces", interfaces(driver.getClass()).stream().map(Class::getName).collect(Collectors.toList()));
+		writeLine(header);
+	}
+
+	/**
+	 * @return the driver, with every call it makes written to RECORDING_DIR/name.jsonl
+	 */
+	public static WebDriver record(WebDriver driver, String name) {
+		return record(driver, new File(RECORDING_DIR, name.replaceAll("[^a-zA-Z0-9_.-]+", "") + ".jsonl"));
+	}
+
+	public static WebDriver record(WebDriver driver, File file) {
+		try {
+			WebDriverRecorder recorder = new WebDriverRecorder(driver, file);
+			recorder.driverProxy = (WebDriver) recorder.proxy(DRIVER, driver, interfaces(driver.getClass()));
+			return recorder.driverProxy;
+		} catch (IOException ex) {
+			throw new WebDriverException("Unable to write recording: " + file, ex);
+		}
+	}
+
+	protected Object proxy(String target, Object real, Set<Class<?>> interfaces) {
+		InvocationHandler handler = (proxy, method, args) -> invoke(target, real, method, args);
+		return Proxy.newProxyInstance(real.getClass().getClassLoader(), interfaces.toArray(new Class<?>[0]), handler);
+	}
+
+	protected Object invoke(String target, Object real, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			if (method.getName().equals("equals")) {
+				return real.equals(unwrap(args[0]));
+			}
+			return method.invoke(real, args);
+		}
+		if (method.getDeclaringClass() == WrapsElement.class) {
+			return real;
+		}
+		Object[] realArgs = args == null ? null : new Object[args.length];
+		for (int i = 0; realArgs != null && i < args.length; i++) {
+			realArgs[i] = unwrap(args[i]);
+		}
+		List<Object> encodedArgs = encodeArgs(realArgs);
+		Object result;
+		try {
+			result = method.invoke(real, realArgs);
+		} catch (InvocationTargetException ex) {
+			writeCall(target, method, encodedArgs, null, encodeError(ex.getCause()));
+			throw ex.getCause();
+		}
+		writeCall(target, method, encodedArgs, encode(result), null);
+		return wrap(result);
+	}
+
+	@Override
+	protected synchronized String elementId(WebElement element) {
+		return elementIds.computeIfAbsent(element, e -> "e" + (elementIds.size() + 1));
+	}
+
+	@Override
+	protected synchronized String newText(String text) {
+		String id = "t" + (textIds.size() + 1);
+		textIds.put(text, id);
+		Map<String, Object> line = new LinkedHashMap<>();
+		line.put("text", id);
+		line.put("value", text);
+		writeLine(line);
+		return id;
+	}
+
+	@Override
+	protected Object element(String id) {
+		return null;
+	}
+
+	@Override
+	protected Object facade(String name, Class<?> type) {
+		return null;
+	}
+
+	@Override
+	protected Object driver() {
+		return driverProxy;
+	}
+
+	protected Object wrap(Object result) {
+		if (result == null) {
+			return null;
+		}
+		if (result == driver || result instanceof WebDriver) {
+			return driverProxy;
+		}
+		if (result instanceof WebElement) {
+			Set<Class<?>> interfaces = interfaces(result.getClass());
+			interfaces.add(WrapsElement.class);
+			return proxy(elementId((WebElement) result), result, interfaces);
+		}
+		String facade = facadeName(result);
+		if (facade != null) {
+			return facadeProxies.computeIfAbsent(facade, n -> proxy(n, result, interfaces(result.getClass())));
+		}
+		if (result instanceof List) {
+			return ((List<?>) result).stream().map(this::wrap).collect(Collectors.toList());
+		}
+		if (result instanceof Map) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			((Map<?, ?>) result).forEach((k, v) -> map.put(k, wrap(v)));
+			return map;
+		}
+		return result;
+	}
+
+	protected Object unwrap(Object arg) {
+		if (arg instanceof WrapsElement && Proxy.isProxyClass(arg.getClass())) {
+			return ((WrapsElement) arg).getWrappedElement();
+		}
+		if (arg == driverProxy) {
+			return driver;
+		}
+		if (arg instanceof List) {
+			return ((List<?>) arg).stream().map(this::unwrap).collect(Collectors.toList());
+		}
+		if (arg instanceof Map) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			((Map<?, ?>) arg).forEach((k, v) -> map.put(k, unwrap(v)));
+			return map;
+		}
+		if (arg instanceof Object[] && !(arg instanceof CharSequence[])) {
+			Object[] array = ((Object[]) arg).clone();
+			for (int i = 0; i < array.length; i++) {
+				array[i] = unwrap(array[i]);
+			}
+			return array;
+		}
+		return arg;
+	}
+
+	protected synchronized void writeCall(String target, Method method, List<Object> args, Object result, Map<String, Object> error) {
+		Map<String, Object> line = new LinkedHashMap<>();
+		line.put("target", target);
+		line.put("method", method.getName());
+		line.put("args", args);
+		if (error != null) {
+			line.put("error", error);
+		} else {
+			line.put("result", result);
+		}
+		writeLine(line);
+		if (target.equals(DRIVER) && method.getName().equals("quit")) {
+			close();
+		}
+	}
+
+	protected synchronized void writeLine(Map<String, Object> line) {
+		try {
+			writer.write(gson.toJson(line));
+			writer.write('\n');
+			writer.flush();
+		} catch (IOException ex) {
+			// the driver keeps working if the recording can not be written
+		}
+	}
+
+	protected synchronized void close() {
+		try {
+			writer.close();
+		} catch (IOException ex) {
+			// already closed
+		}
+	}
+}
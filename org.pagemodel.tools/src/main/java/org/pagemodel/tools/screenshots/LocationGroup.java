@@ -11,6 +11,7 @@ import org.pagemodel.web.testers.ImageAnnotator;
 import org.pagemodel.web.testers.PageBoundsHelper;
 import org.pagemodel.web.testers.RectangleTester;
 import org.pagemodel.web.utils.Screenshot;
+import org.pagemodel.web.utils.ScreenshotFormat;
 
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
@@ -276,6 +277,10 @@ public class LocationGroup<P extends PageModel<? super P>> {
 	}
 
 	public P takeScreenshot() {
+		return ScreenshotFormat.withFormat(ScreenshotFormat.LOSSLESS, this::takeLosslessScreenshot);
+	}
+
+	protected P takeLosslessScreenshot() {
 		if(screenshotSetup != null){
 			ThrowingConsumer.unchecked(screenshotSetup).accept(page);
 		}
@@ -297,14 +302,10 @@ public class LocationGroup<P extends PageModel<? super P>> {
 			for (int i = 0; i < locations.size(); i++) {
 				NamedLocation<P> loc = locations.get(i);
 				if(loc.getAnnotated()) {
-					try {
-						if(!loc.placeholder && !NavLocation.class.isAssignableFrom(loc.getClass())) {
-							img = img.paint(label("" + count, loc.getAnnotationStyle(), loc));
-						}
-						count++;
-					}catch (Throwable t){
-						throw loc.createCause("Annotate Screenshot", t);
+					if(!loc.placeholder && !NavLocation.class.isAssignableFrom(loc.getClass())) {
+						img = img.paint(label("" + count, loc.getAnnotationStyle(), loc), t -> loc.createCause("Annotate Screenshot", t));
 					}
+					count++;
 				}
 			}
 			img.save(groupPrefix + ".0.1." + name + "Labeled");
@@ -478,7 +479,7 @@ public class LocationGroup<P extends PageModel<? super P>> {
 
 				// Label Background
 				.fillRoundedRect(page -> page.testPage().testLocation(p -> location.getPageBounds((P)p))
-						.topLeft().asRectangle((int)(width[0] + 2*widthPad[0]), (int)height[0]), arcSize[0], arcSize[0])
+						.topLeft().asRectangle((int)(width[0] + 2*widthPad[0]), (int)height[0]), () -> arcSize[0], () -> arcSize[0])
 				// Label Text
 				.setColor(style.color)
 				.drawText(label, page -> page.testPage().testLocation(p -> location.getPageBounds((P)p))
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.tools.trace;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import org.pagemodel.core.testers.CommandBudget;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.core.utils.TestHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every WebDriver command with its latency, and attributes it to the test and TestEvaluator action running
+ * on the same thread.
+ * <p>
+ * Commands are counted per action as they run.  When the action ends, or the action (or test) on a thread changes,
+ * the commands counted so far are logged as a "webdriver commands" event, when LOG_ACTIONS is set.  Commands not
+ * logged yet, such as those run outside an action, are logged when the test ends (see TestHooks).  Totals per
+ * action are kept for the whole run and logged as a hotspot table by logHotspots, which runs on exit when
+ * REPORT_ON_EXIT is set.
+ * <p>
+ * Calls that only return another part of the driver api, such as manage() or switchTo(), are not commands and are
+ * not counted.
+ * <p>
+ * Each command is also counted by the CommandBudget running on the same thread, if any.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class CommandTracer implements WebDriverListener {
+	private static final Logger log = LoggerFactory.getLogger(CommandTracer.class);
+
+	public static boolean LOG_ACTIONS = true;
+	public static boolean REPORT_ON_EXIT = true;
+	public static int HOTSPOT_ROWS = 20;
+	public final static String NO_ACTION = "(no action)";
+
+	private final static Set<String> NOT_COMMANDS = new HashSet<>(Arrays.asList(
+			"manage", "timeouts", "window", "navigate", "switchTo", "logs", "getWrappedDriver", "getWrappedElement",
+			"toString", "hashCode", "equals"));
+
+	private final static Map<String, Stats> hotspots = new ConcurrentHashMap<>();
+	private final static Set<Segment> openSegments = ConcurrentHashMap.newKeySet();
+	private final static ThreadLocal<Segment> segment = new ThreadLocal<>();
+	private final static ThreadLocal<Deque<Long>> starts = ThreadLocal.withInitial(ArrayDeque::new);
+	private static boolean exitHook = false;
+
+	static {
+		TestHooks.onActionEnd(CommandTracer::actionEnded);
+		TestHooks.onTestEnd(CommandTracer::flushThread);
+	}
+
+	/**
+	 * Command count and time of one action.
+	 */
+	public static class Stats {
+		protected final String action;
+		protected int count;
+		protected long nanos;
+		protected long maxNanos;
+		protected final Map<String, Integer> commands = new LinkedHashMap<>();
+
+		protected Stats(String action) {
+			this.action = action;
+		}
+
+		protected synchronized void add(String command, long nanos) {
+			count++;
+			this.nanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			commands.merge(command, 1, Integer::sum);
+		}
+
+		public String getAction() {
+			return action;
+		}
+
+		public synchronized int getCount() {
+			return count;
+		}
+
+		public synchronized long getTimeMs() {
+			return nanos / 1_000_000;
+		}
+
+		public synchronized long getMaxMs() {
+			return maxNanos / 1_000_000;
+		}
+
+		/**
+		 * @return number of calls by command, such as "element.getText"
+		 */
+		public synchronized Map<String, Integer> getCommands() {
+			return new LinkedHashMap<>(commands);
+		}
+
+		public synchronized String getTopCommand() {
+			return commands.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+		}
+	}
+
+	/**
+	 * Commands of the current action on one thread.
+	 */
+	protected static class Segment extends Stats {
+		protected final String test;
+
+		protected Segment(String test, String action) {
+			super(action);
+			this.test = test;
+		}
+
+		protected boolean matches(String test, String action) {
+			return this.action.equals(action) && (this.test == null ? test == null : this.test.equals(test));
+		}
+	}
+
+	/**
+	 * @return the driver, with every command it runs recorded by a CommandTracer
+	 */
+	public static WebDriver decorate(WebDriver driver) {
+		synchronized (CommandTracer.class) {
+			if (REPORT_ON_EXIT && !exitHook) {
+				exitHook = true;
+				Runtime.getRuntime().addShutdownHook(new Thread(CommandTracer::logHotspots));
+			}
+		}
+		return new EventFiringDecorator<>(new CommandTracer()).decorate(driver);
+	}
+
+	@Override
+	public void beforeAnyCall(Object target, Method method, Object[] args) {
+		if (!NOT_COMMANDS.contains(method.getName())) {
+			starts.get().push(System.nanoTime());
+		}
+	}
+
+	@Override
+	public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+		end(target, method);
+	}
+
+	@Override
+	public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+		end(target, method);
+	}
+
+	protected void end(Object target, Method method) {
+		if (NOT_COMMANDS.contains(method.getName()) || starts.get().isEmpty()) {
+			return;
+		}
+		long nanos = System.nanoTime() - starts.get().pop();
+		String command = commandName(target, method);
+		String action = TestEvaluator.getCurrentAction();
+		if (action == null) {
+			action = NO_ACTION;
+		}
+		String test = TestEvaluator.getCurrentTest();
+		Segment current = segment.get();
+		if (current != null && (!current.matches(test, action) || !openSegments.contains(current))) {
+			flush(current);
+			current = null;
+		}
+		if (current == null) {
+			current = new Segment(test, action);
+			segment.set(current);
+			openSegments.add(current);
+		}
+		current.add(command, nanos);
+		hotspots.computeIfAbsent(action, Stats::new).add(command, nanos);
+		CommandBudget.record(action, nanos);
+	}
+
+	protected static String commandName(Object target, Method method) {
+		String type = target instanceof WebElement ? "element" : target instanceof WebDriver ? "driver" : method.getDeclaringClass().getSimpleName();
+		return type + "." + method.getName();
+	}
+
+	/**
+	 * Logs the commands of the ending action on this thread.
+	 */
+	protected static void actionEnded() {
+		Segment current = segment.get();
+		if (current != null && current.action.equals(TestEvaluator.getCurrentAction())) {
+			flush(current);
+		}
+	}
+
+	/**
+	 * Logs the commands on this thread not logged yet.
+	 */
+	public static void flushThread() {
+		Segment current = segment.get();
+		if (current != null) {
+			flush(current);
+		}
+	}
+
+	protected static void flush(Segment seg) {
+		if (!openSegments.remove(seg)) {
+			return;
+		}
+		if (segment.get() == seg) {
+			segment.remove();
+		}
+		if (!LOG_ACTIONS) {
+			return;
+		}
+		new TestEvaluator.Now().logEvent(TestEvaluator.TEST_LOG, "webdriver commands", op -> op
+				.addValue("step", seg.getAction())
+				.addValue("test", seg.test)
+				.addValue("count", seg.getCount())
+				.addValue("time", seg.getTimeMs())
+				.addValue("max", seg.getMaxMs())
+				.addValue("commands", seg.getCommands()));
+	}
+
+	/**
+	 * @return totals per action for the run so far, ordered by time
+	 */
+	public static List<Stats> getHotspots() {
+		List<Stats> list = new ArrayList<>(hotspots.values());
+		list.sort(Comparator.comparingLong(Stats::getTimeMs).thenComparingInt(Stats::getCount).reversed());
+		return list;
+	}
+
+	public static void reset() {
+		hotspots.clear();
+		openSegments.clear();
+		segment.remove();
+	}
+
+	/**
+	 * Logs the commands of unfinished actions, and the HOTSPOT_ROWS actions with the most command time, as an event
+	 * and as a plain text table.
+	 */
+	public static void logHotspots() {
+		for (Segment seg : new ArrayList<>(openSegments)) {
+			flush(seg);
+		}
+		List<Stats> rows = getHotspots();
+		if (rows.isEmpty()) {
+			return;
+		}
+		long totalMs = rows.stream().mapToLong(Stats::getTimeMs).sum();
+		int totalCount = rows.stream().mapToInt(Stats::getCount).sum();
+		List<Stats> top = rows.subList(0, Math.min(HOTSPOT_ROWS, rows.size()));
+		List<Map<String, Object>> table = new ArrayList<>();
+		StringBuilder sb = new StringBuilder(String.format("WebDriver command hotspots: %d commands, %d ms%n", totalCount, totalMs));
+		sb.append(String.format("%-40s %8s %10s %8s %6s  %s%n", "action", "commands", "time ms", "max ms", "time%", "top command"));
+		for (Stats stats : top) {
+			long percent = totalMs == 0 ? 0 : stats.getTimeMs() * 100 / totalMs;
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("action", stats.getAction());
+			row.put("count", stats.getCount());
+			row.put("time", stats.getTimeMs());
+			row.put("max", stats.getMaxMs());
+			row.put("percent", percent);
+			row.put("topCommand", stats.getTopCommand());
+			table.add(row);
+			sb.append(String.format("%-40s %8d %10d %8d %5d%%  %s%n", stats.getAction(), stats.getCount(), stats.getTimeMs(),
+					stats.getMaxMs(), percent, stats.getTopCommand()));
+		}
+		new TestEvaluator.Now().logEvent(TestEvaluator.TEST_LOG, "webdriver hotspots", op -> op
+				.addValue("count", totalCount)
+				.addValue("time", totalMs)
+				.addValue("hotspots", table));
+		log.info(sb.toString());
+	}
+}
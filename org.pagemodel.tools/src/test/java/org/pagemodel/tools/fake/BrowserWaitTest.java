@@ -0,0 +1,122 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.BrowserWait;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BrowserWaitTest {
+	private final static String PAGE = "<html><body><div id='ok'>saved</div></body></html>";
+	private final static String LATE_PAGE = "<html><body><div id='ok'>saved</div><div id='late'>late</div></body></html>";
+
+	private FakeWebDriver driver;
+	private FormPage page;
+	private List<Object[]> browserWaits;
+
+	static class FormPage extends PageModel.DefaultPageModel<FormPage> {
+		int lateLookups;
+
+		public FormPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getOkDisplay() {
+			return findPageElement("OkDisplay", By.id("ok"));
+		}
+
+		protected LocatedWebElement getMissingDisplay() {
+			return findPageElement("MissingDisplay", By.id("missing"));
+		}
+
+		protected LocatedWebElement getLateDisplay() {
+			// the element appears on the third lookup
+			if (++lateLookups == 3) {
+				((FakeWebDriver) getContext().getDriver()).setHtml(LATE_PAGE);
+			}
+			return findPageElement("LateDisplay", By.id("late"));
+		}
+
+		public WebElementTester<FormPage, FormPage> testOkDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getOkDisplay, this, getEvaluator()), getEvaluator());
+		}
+
+		public WebElementTester<FormPage, FormPage> testMissingDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getMissingDisplay, this, getEvaluator()), getEvaluator());
+		}
+
+		public WebElementTester<FormPage, FormPage> testLateDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getLateDisplay, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	@Before
+	public void setup() {
+		browserWaits = new ArrayList<>();
+		driver = new FakeWebDriver(PAGE);
+		page = new FormPage(new DefaultWebTestContext(driver));
+	}
+
+	/**
+	 * Answers the BrowserWait script with the result, recording its arguments.
+	 */
+	private void browserResult(Object result) {
+		driver.onScript("new MutationObserver(", (d, args) -> {
+			browserWaits.add(args);
+			return result;
+		});
+	}
+
+	@Test
+	public void browserAndJavaAgree() {
+		browserResult(true);
+		page.testOkDisplay().waitFor().isDisplayed()
+				.testOkDisplay().waitFor().text().equals("saved");
+		Assert.assertEquals(2, browserWaits.size());
+		Assert.assertEquals(BrowserWait.DISPLAYED, browserWaits.get(0)[1]);
+		Assert.assertEquals(Arrays.asList(Arrays.asList("id", "ok")), browserWaits.get(0)[0]);
+		Assert.assertEquals(BrowserWait.PREDICATE, browserWaits.get(1)[1]);
+		Assert.assertEquals(10000L, browserWaits.get(0)[3]);
+		Assert.assertEquals(Duration.ofSeconds(30), driver.manage().timeouts().getScriptTimeout());
+	}
+
+	@Test
+	public void javaDisagreementKeepsPolling() {
+		browserResult(true);
+		page.testLateDisplay().waitFor().withTimeout(5).exists();
+		Assert.assertEquals(1, browserWaits.size());
+		Assert.assertEquals(3, page.lateLookups);
+	}
+
+	@Test
+	public void browserTimeoutFails() {
+		browserResult(false);
+		try {
+			page.testMissingDisplay().waitFor().withTimeout(1).exists();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+		Assert.assertEquals(1, browserWaits.size());
+		Assert.assertEquals(1000L, browserWaits.get(0)[3]);
+	}
+
+	@Test
+	public void unsupportedAsyncScriptFallsBackToPolling() {
+		page.testLateDisplay().waitFor().withTimeout(5).exists();
+		Assert.assertEquals(3, page.lateLookups);
+		browserResult("unsupported");
+		page.testOkDisplay().waitFor().isDisplayed();
+		Assert.assertEquals(1, browserWaits.size());
+	}
+}
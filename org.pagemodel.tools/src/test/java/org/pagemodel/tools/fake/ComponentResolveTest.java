@@ -0,0 +1,112 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.ComponentModel;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.LocatorScript;
+
+import java.util.List;
+
+public class ComponentResolveTest {
+	private final static String PAGE = "<html><body><ul>"
+			+ "<li class='row'><span>first</span></li>"
+			+ "<li class='row'><span>second</span></li>"
+			+ "<li class='row'><span>last</span></li>"
+			+ "</ul></body></html>";
+
+	private FakeWebDriver driver;
+	private int resolveScripts;
+
+	static class ListPage extends PageModel.DefaultPageModel<ListPage> {
+		public ListPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getFirstRow() {
+			return findPageElement("FirstRow", By.cssSelector("li.row"));
+		}
+
+		protected LocatedWebElement getLastRow() {
+			List<?> rows = findPageElements("Rows", By.cssSelector("li.row"));
+			return (LocatedWebElement) rows.get(rows.size() - 1);
+		}
+
+		public Row<ListPage> testFirstRow() {
+			return new Row<>(this, ClickAction.make(this::getFirstRow, this, getEvaluator()), getEvaluator());
+		}
+
+		public Row<ListPage> testLastRow() {
+			return new Row<>(this, ClickAction.make(this::getLastRow, this, getEvaluator()), getEvaluator());
+		}
+
+		public class Row<R> extends ComponentModel<R, ListPage, Row<R>> {
+			public Row(R returnObj, ClickAction<?, ListPage> clickAction, TestEvaluator testEvaluator) {
+				super(returnObj, clickAction, testEvaluator);
+			}
+
+			public class Row_section extends Row<Row_section> {
+				public Row_section(ClickAction<?, ListPage> clickAction, TestEvaluator testEvaluator) {
+					super(null, clickAction, testEvaluator);
+					setReturnObj(this);
+				}
+
+				public ListPage testSectionParent() {
+					return (ListPage) page;
+				}
+			}
+
+			public Row_section asSection() {
+				return new Row_section(clickAction, getEvaluator());
+			}
+
+			protected LocatedWebElement getNameDisplay() {
+				return findComponentElement("NameDisplay", By.cssSelector("span"));
+			}
+
+			public WebElementTester<R, ListPage> testNameDisplay() {
+				return new WebElementTester<>(getReturnObj(), ClickAction.make(this::getNameDisplay, (ListPage) page, getEvaluator()), getEvaluator());
+			}
+		}
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver(PAGE).onScript(LocatorScript.RESOLVE_SCRIPT, (d, args) -> {
+			resolveScripts++;
+			return FakeScripts.resolve(d, (List<?>) args[0], (Boolean) args[1]);
+		});
+	}
+
+	@Test
+	public void plainChainResolvesInBrowser() {
+		ListPage page = new ListPage(new DefaultWebTestContext(driver));
+		page.testFirstRow().testNameDisplay().text().equals("first");
+		Assert.assertTrue(resolveScripts > 0);
+	}
+
+	@Test
+	public void listItemRefResolvesInJava() {
+		ListPage page = new ListPage(new DefaultWebTestContext(driver));
+		page.testLastRow().testNameDisplay().text().equals("last");
+		Assert.assertEquals(0, resolveScripts);
+	}
+
+	@Test
+	public void listItemsAreNotChained() {
+		ListPage page = new ListPage(new DefaultWebTestContext(driver));
+		LocatedWebElement last = page.getLastRow();
+		Assert.assertEquals(2, last.getListIndex());
+		Assert.assertNull(LocatorScript.locatorChain(last));
+		Assert.assertNull(LocatorScript.locatorChain(LocatorScript.deferred(page::getLastRow)));
+		Assert.assertNotNull(LocatorScript.locatorChain(LocatorScript.deferred(page::getFirstRow)));
+	}
+}
@@ -0,0 +1,201 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.CompositeWait;
+import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.BrowserWait;
+import org.pagemodel.web.utils.DriverTimeouts;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CompositeWaitTest {
+	private final static String PAGE = "<html><body>"
+			+ "<div id='ok'>saved</div><div id='hidden' style='display:none'>hidden</div>"
+			+ "<div id='status'>  saved<br>to   disk </div>"
+			+ "</body></html>";
+
+	private FakeWebDriver driver;
+	private FormPage page;
+	private long pollMs;
+
+	static class FormPage extends PageModel.DefaultPageModel<FormPage> {
+		public FormPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getOkDisplay() {
+			return findPageElement("OkDisplay", By.id("ok"));
+		}
+
+		protected LocatedWebElement getHiddenDisplay() {
+			return findPageElement("HiddenDisplay", By.id("hidden"));
+		}
+
+		protected LocatedWebElement getStatusDisplay() {
+			return findPageElement("StatusDisplay", By.id("status"));
+		}
+
+		protected LocatedWebElement getMissingDisplay() {
+			return findPageElement("MissingDisplay", By.id("missing"));
+		}
+
+		public WebElementTester<FormPage, FormPage> testOkDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getOkDisplay, this, getEvaluator()), getEvaluator());
+		}
+
+		public WebElementTester<FormPage, FormPage> testHiddenDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getHiddenDisplay, this, getEvaluator()), getEvaluator());
+		}
+
+		public WebElementTester<FormPage, FormPage> testStatusDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getStatusDisplay, this, getEvaluator()), getEvaluator());
+		}
+
+		public WebElementTester<FormPage, FormPage> testMissingDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getMissingDisplay, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	public static class SavedPage extends PageModel.DefaultPageModel<SavedPage> {
+		public SavedPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		@Override
+		public boolean modelDisplayed() {
+			return !getContext().getDriver().findElements(By.id("ok")).isEmpty();
+		}
+	}
+
+	@Before
+	public void setup() {
+		pollMs = CompositeWait.POLL_MS;
+		CompositeWait.POLL_MS = 10;
+		driver = new FakeWebDriver(PAGE);
+		page = new FormPage(new DefaultWebTestContext(driver));
+	}
+
+	@After
+	public void cleanup() {
+		CompositeWait.POLL_MS = pollMs;
+	}
+
+	@Test
+	public void anyReportsEveryMatch() {
+		CompositeWait.Result<FormPage> result = page.testPage().waitForAny().withTimeout(1)
+				.whenDisplayed("ok", FormPage::testOkDisplay)
+				.whenDisplayed("hidden", FormPage::testHiddenDisplay)
+				.whenExists("missing", FormPage::testMissingDisplay)
+				.whenTextContains("saved", FormPage::testOkDisplay, "save")
+				.test();
+		Assert.assertEquals(Arrays.asList("ok", "saved"), result.getAllMatched());
+		Assert.assertEquals("ok", result.getMatched());
+	}
+
+	@Test
+	public void allWaitsForEveryCondition() {
+		int[] polls = new int[1];
+		CompositeWait.Result<FormPage> result = page.testPage().waitForAll().withTimeout(1)
+				.whenDisplayed("ok", FormPage::testOkDisplay)
+				.whenTrue("third poll", p -> ++polls[0] >= 3)
+				.test();
+		Assert.assertEquals(3, polls[0]);
+		Assert.assertEquals(Arrays.asList("ok", "third poll"), result.getAllMatched());
+	}
+
+	@Test
+	public void firstOfReportsOnlyFirstMatch() {
+		CompositeWait.Result<FormPage> result = page.testPage().waitForFirstOf().withTimeout(1)
+				.whenExists("missing", FormPage::testMissingDisplay)
+				.whenTrue("always", p -> true)
+				.whenDisplayed("ok", FormPage::testOkDisplay)
+				.test();
+		Assert.assertEquals(Arrays.asList("always"), result.getAllMatched());
+	}
+
+	@Test
+	public void pageConditionKeepsModel() {
+		CompositeWait.Result<FormPage> result = page.testPage().waitForAny().withTimeout(1)
+				.whenPage("saved", SavedPage.class)
+				.test();
+		Assert.assertTrue(result.isMatched("saved"));
+		Assert.assertNotNull(result.getModel("saved", SavedPage.class));
+	}
+
+	@Test
+	public void textConditionsIgnoreWhitespace() {
+		CompositeWait.Result<FormPage> result = page.testPage().waitForAll().withTimeout(1)
+				.whenTextContains("contains", FormPage::testStatusDisplay, "saved to disk")
+				.when("equals", FormPage::testStatusDisplay, BrowserWait.TEXT_EQUALS, "saved to disk")
+				.test();
+		Assert.assertEquals(Arrays.asList("contains", "equals"), result.getAllMatched());
+	}
+
+	@Test
+	public void timesOutWhenNothingMatches() {
+		try {
+			page.testPage().waitForAny().withTimeout(0)
+					.whenExists("missing", FormPage::testMissingDisplay)
+					.test();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+
+	@Test
+	public void emptyWaitIsRejected() {
+		try {
+			page.testPage().waitForAll().test();
+			Assert.fail("no exception caught");
+		} catch (IllegalStateException ex) {
+		}
+	}
+
+	@Test
+	public void elementConditionsCheckedInJavaWithoutImplicitWait() {
+		DriverTimeouts.setImplicitWait(driver, Duration.ofSeconds(5));
+		List<Duration> implicitWaits = new ArrayList<>();
+		page.testPage().waitForAny().withTimeout(1)
+				.whenDisplayed("ok", p -> {
+					implicitWaits.add(driver.manage().timeouts().getImplicitWaitTimeout());
+					return p.testOkDisplay();
+				})
+				.test();
+		Assert.assertTrue(implicitWaits.contains(Duration.ZERO));
+		Assert.assertEquals(Duration.ofSeconds(5), driver.manage().timeouts().getImplicitWaitTimeout());
+	}
+
+	@Test
+	public void elementConditionsCheckedWithOneScript() {
+		int[] scripts = new int[1];
+		driver.onScript("pmCondition(pmResolve(items[i][0])", (d, args) -> {
+			scripts[0]++;
+			return ((List<?>) args[0]).stream().map(item -> {
+				List<?> values = (List<?>) item;
+				WebElement element = FakeScripts.target(d, values.get(0));
+				boolean displayed = element != null && element.isDisplayed();
+				return values.get(1).equals(BrowserWait.DISPLAYED) ? displayed : !displayed;
+			}).collect(Collectors.toList());
+		});
+		CompositeWait.Result<FormPage> result = page.testPage().waitForAll().withTimeout(1)
+				.whenDisplayed("ok", FormPage::testOkDisplay)
+				.when("hidden", FormPage::testHiddenDisplay, BrowserWait.NOT_DISPLAYED)
+				.test();
+		Assert.assertEquals(1, scripts[0]);
+		Assert.assertEquals(Arrays.asList("ok", "hidden"), result.getAllMatched());
+	}
+}
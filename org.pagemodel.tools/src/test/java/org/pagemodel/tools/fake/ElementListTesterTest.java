@@ -0,0 +1,161 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.ElementListTester;
+import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.LocatorScript;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ElementListTesterTest {
+	private final static String PAGE = "<html><body><ul id='items'>"
+			+ "<li class='item' data-id='1'>one</li>"
+			+ "<li class='item' data-id='2' style='display:none'>two</li>"
+			+ "<li class='item' data-id='3'>three</li>"
+			+ "</ul></body></html>";
+
+	private FakeWebDriver driver;
+	private ListPage page;
+
+	static class ListPage extends PageModel.DefaultPageModel<ListPage> {
+		public ListPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected List<?> getItemDisplays() {
+			return findPageElements("ItemDisplays", By.cssSelector("li.item"));
+		}
+
+		protected List<?> getBrokenDisplays() {
+			throw new IllegalStateException("lookup failed");
+		}
+
+		protected LocatedWebElement getItemsDisplay() {
+			return findPageElement("ItemsDisplay", By.id("items"));
+		}
+
+		public ElementListTester<ListPage> testItemDisplays() {
+			return testElementList("ItemDisplays", this::getItemDisplays);
+		}
+
+		public ElementListTester<ListPage> testBrokenDisplays() {
+			return testElementList("BrokenDisplays", this::getBrokenDisplays);
+		}
+
+		public WebElementTester<ListPage, ListPage> testItemsDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getItemsDisplay, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	/**
+	 * Answers the ElementListTester text script the way the browser would.
+	 */
+	static Object projectText(FakeWebDriver driver, Object[] args) {
+		if (!"text".equals(args[2])) {
+			throw new JavascriptException("Unsupported property: " + args[2]);
+		}
+		List<?> chain = (List<?>) args[0];
+		List<?> elements = chain.isEmpty() ? (List<?>) args[1] : (List<?>) ((List<?>) FakeScripts.resolve(driver, chain, true)).get(1);
+		return elements.stream().map(element -> LocatorScript.normalizeText(((WebElement) element).getText())).collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the driver, recording the name of every command sent to it
+	 */
+	private WebDriver recording(List<String> commands) {
+		return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebDriver.class, JavascriptExecutor.class},
+				(proxy, method, args) -> {
+					if (method.getDeclaringClass() != Object.class) {
+						commands.add(method.getName());
+					}
+					try {
+						return method.invoke(driver, args);
+					} catch (InvocationTargetException ex) {
+						throw ex.getCause();
+					}
+				});
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver(PAGE);
+		page = new ListPage(new DefaultWebTestContext(driver));
+	}
+
+	@Test
+	public void readsEachElementWithoutScripts() {
+		page.testItemDisplays().size().equals(3)
+				.testItemDisplays().attribute("data-id").containsAll("1", "2", "3")
+				.testItemDisplays().text().contains("three")
+				.testItemDisplays().displayedCount().equals(2)
+				.testItemDisplays().tagName().notContains("ul");
+	}
+
+	@Test
+	public void textIsNormalizedWithoutScripts() {
+		driver.setHtml("<html><body><ul><li class='item'>  first<br>line  </li><li class='item'>second   line</li></ul></body></html>");
+		page.testItemDisplays().text().equalsOrdered("first line", "second line");
+	}
+
+	@Test
+	public void textIsReadWithOneScript() {
+		driver.setHtml("<html><body><ul><li class='item'>  first<br>line  </li><li class='item'>second   line</li></ul></body></html>");
+		driver.onScript("out.push(pmText(el))", ElementListTesterTest::projectText);
+		List<String> commands = new ArrayList<>();
+		WebTestContext context = new DefaultWebTestContext(recording(commands));
+		new ListPage(context).testItemDisplays().text().storeValue("items");
+		Assert.assertEquals(Arrays.asList("executeScript"), commands);
+		Assert.assertEquals(Arrays.asList("first line", "second line"), context.load("items"));
+	}
+
+	@Test
+	public void elementsInsideElement() {
+		page.testItemsDisplay().elements(By.tagName("li")).size().equals(3)
+				.testItemsDisplay().elements(By.cssSelector("li[data-id='1']")).allDisplayed();
+	}
+
+	@Test
+	public void displayedAssertionsCheckElements() {
+		try {
+			page.testItemDisplays().noneDisplayed();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+		try {
+			page.testItemDisplays().allDisplayed();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+
+	@Test
+	public void lookupFailureIsNotAnEmptyList() {
+		try {
+			page.testBrokenDisplays().size().equals(0);
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+		try {
+			page.testBrokenDisplays().noneDisplayed();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+}
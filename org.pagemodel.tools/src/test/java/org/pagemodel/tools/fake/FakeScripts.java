@@ -0,0 +1,78 @@
+package org.pagemodel.tools.fake;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answers the framework's own scripts for FakeWebDriver hooks, using the fake driver's locators.
+ */
+class FakeScripts {
+
+	/**
+	 * Answers LocatorScript.RESOLVE_SCRIPT.
+	 */
+	static Object resolve(FakeWebDriver driver, List<?> chain, boolean all) {
+		SearchContext root = driver;
+		List<Object> path = new ArrayList<>();
+		for (int i = 0; i < chain.size() - 1; i++) {
+			root = step(root, chain.get(i));
+			path.add(root);
+		}
+		List<WebElement> found = root == null ? new ArrayList<>() : root.findElements(by((List<?>) chain.get(chain.size() - 1)));
+		return Arrays.asList(path, all || found.isEmpty() ? found : found.subList(0, 1));
+	}
+
+	/**
+	 * @return the element for a script target from LocatorScript.scriptTarget, or null if it is not found
+	 */
+	static WebElement target(FakeWebDriver driver, Object target) {
+		if (target instanceof WebElement) {
+			return (WebElement) target;
+		}
+		SearchContext root = driver;
+		for (Object step : (List<?>) target) {
+			root = step(root, step);
+		}
+		return (WebElement) root;
+	}
+
+	private static SearchContext step(SearchContext root, Object step) {
+		if (step instanceof WebElement || step == null) {
+			return (WebElement) step;
+		}
+		if (root == null) {
+			return null;
+		}
+		List<WebElement> found = root.findElements(by((List<?>) step));
+		return found.isEmpty() ? null : found.get(0);
+	}
+
+	static By by(List<?> step) {
+		String value = (String) step.get(1);
+		switch ((String) step.get(0)) {
+			case "css selector":
+				return By.cssSelector(value);
+			case "xpath":
+				return By.xpath(value);
+			case "tag name":
+				return By.tagName(value);
+			case "id":
+				return By.id(value);
+			case "name":
+				return By.name(value);
+			case "class name":
+				return By.className(value);
+			case "link text":
+				return By.linkText(value);
+			case "partial link text":
+				return By.partialLinkText(value);
+			default:
+				throw new IllegalArgumentException("Unsupported locator: " + step);
+		}
+	}
+}
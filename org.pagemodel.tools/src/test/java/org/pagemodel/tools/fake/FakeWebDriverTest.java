@@ -0,0 +1,164 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.WebElementTester;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class FakeWebDriverTest {
+	private final static String PAGE = "<html><head><title>Fake Page</title><script>var a = '<p>';</script></head><body>"
+			+ "<div id='main' class='content wide'><h1>Welcome &amp; hello</h1>"
+			+ "<p class='item'>first <b>bold</b></p><p class='item' style='display:none'>hidden</p><p class='item'>third<br>line</p>"
+			+ "<input id='name' name='name' value='start'><input type='checkbox' id='agree'>"
+			+ "<select id='color'><option value='r'>Red</option><option value='g' selected>Green</option></select>"
+			+ "<a href='/next'>Next page</a></div>"
+			+ "<ul><li>one<li>two<li>three</ul></body></html>";
+
+	private FakeWebDriver driver;
+
+	static class FakePage extends PageModel.DefaultPageModel<FakePage> {
+		public FakePage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getTitleDisplay() {
+			return findPageElement("TitleDisplay", By.cssSelector("#main > h1"));
+		}
+
+		protected LocatedWebElement getNameField() {
+			return findPageElement("NameField", By.xpath("//input[@name='name']"));
+		}
+
+		public WebElementTester<FakePage, FakePage> testTitleDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getTitleDisplay, this, getEvaluator()), getEvaluator());
+		}
+
+		public WebElementTester<FakePage, FakePage> testNameField() {
+			return new WebElementTester<>(ClickAction.make(this::getNameField, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver().addPage("http://localhost/page", PAGE);
+		driver.get("http://localhost/page");
+	}
+
+	private List<String> text(List<WebElement> elements) {
+		return elements.stream().map(WebElement::getText).collect(Collectors.toList());
+	}
+
+	@Test
+	public void locators() {
+		Assert.assertEquals("Fake Page", driver.getTitle());
+		Assert.assertEquals("div", driver.findElement(By.id("main")).getTagName());
+		Assert.assertEquals(3, driver.findElements(By.className("item")).size());
+		Assert.assertEquals(3, driver.findElements(By.tagName("li")).size());
+		Assert.assertEquals("start", driver.findElement(By.name("name")).getAttribute("value"));
+		Assert.assertEquals("Welcome & hello", driver.findElement(By.cssSelector("div.content.wide > h1")).getText());
+		Assert.assertEquals(3, driver.findElements(By.cssSelector("p.item:not([style]), ul li:first-child")).size());
+		Assert.assertEquals("two", driver.findElement(By.cssSelector("li + li")).getText());
+		Assert.assertEquals("Next page", driver.findElement(By.linkText("Next page")).getText());
+		Assert.assertEquals("/next", driver.findElement(By.partialLinkText("Next")).getAttribute("href"));
+		Assert.assertEquals("three", driver.findElement(By.xpath("//ul/li[last()]")).getText());
+		Assert.assertEquals("first bold", driver.findElement(By.xpath("//p[contains(@class, 'item')][1]")).getText());
+		Assert.assertEquals("bold", driver.findElement(By.xpath("//b/..")).findElement(By.xpath("./b")).getText());
+
+		WebElement select = driver.findElement(By.id("color"));
+		Assert.assertEquals("g", select.findElement(By.xpath("./option[2]")).getAttribute("value"));
+		Assert.assertEquals("r", select.findElement(By.xpath(".//option[normalize-space(.) = 'Red']")).getAttribute("value"));
+		Assert.assertEquals(0, select.findElements(By.xpath(".//li")).size());
+		try {
+			driver.findElement(By.id("missing"));
+			Assert.fail("no exception caught");
+		} catch (NoSuchElementException ex) {
+		}
+	}
+
+	@Test
+	public void elementState() {
+		List<WebElement> items = driver.findElements(By.className("item"));
+		Assert.assertEquals("first bold\n\nthird\nline", String.join("\n", text(items)));
+		Assert.assertFalse(items.get(1).isDisplayed());
+		Assert.assertTrue(items.get(0).isDisplayed());
+		Assert.assertFalse(driver.findElement(By.tagName("script")).isDisplayed());
+		Assert.assertEquals("g", driver.findElement(By.id("color")).getAttribute("value"));
+
+		WebElement checkbox = driver.findElement(By.id("agree"));
+		Assert.assertFalse(checkbox.isSelected());
+		checkbox.click();
+		Assert.assertTrue(checkbox.isSelected());
+		Assert.assertEquals("true", checkbox.getAttribute("checked"));
+
+		WebElement name = driver.findElement(By.id("name"));
+		name.clear();
+		name.sendKeys("new name");
+		Assert.assertEquals("new name", name.getAttribute("value"));
+		Assert.assertEquals(name, driver.switchTo().activeElement());
+
+		Rectangle title = driver.findElement(By.tagName("h1")).getRect();
+		Rectangle first = items.get(0).getRect();
+		Assert.assertTrue(first.getY() >= title.getY() + title.getHeight());
+		Assert.assertTrue(first.getWidth() > 0 && first.getHeight() > 0);
+		Assert.assertEquals(0, items.get(1).getRect().getWidth());
+
+		driver.setHtml("<p>replaced</p>");
+		try {
+			name.getText();
+			Assert.fail("no exception caught");
+		} catch (StaleElementReferenceException ex) {
+		}
+	}
+
+	@Test
+	public void scriptsAndScreenshots() throws Exception {
+		Assert.assertEquals("Fake Page", driver.executeScript("return document.title;"));
+		driver.onScript("countItems", (d, args) -> (long) d.findElements(By.className("item")).size());
+		Assert.assertEquals(3L, driver.executeScript("return countItems();"));
+		try {
+			driver.executeScript("return window.innerWidth;");
+			Assert.fail("no exception caught");
+		} catch (JavascriptException ex) {
+		}
+		byte[] png = driver.getScreenshotAs(OutputType.BYTES);
+		Assert.assertEquals(FakeWebDriver.DEFAULT_WINDOW_SIZE.getWidth(), ImageIO.read(new ByteArrayInputStream(png)).getWidth());
+		Assert.assertSame(png, driver.getScreenshotAs(OutputType.BYTES));
+	}
+
+	@Test
+	public void navigation() {
+		driver.get("data:text/html,<p id='data'>from%20data</p>");
+		Assert.assertEquals("from data", driver.findElement(By.id("data")).getText());
+		driver.navigate().back();
+		Assert.assertEquals("http://localhost/page", driver.getCurrentUrl());
+		Assert.assertEquals("Fake Page", driver.getTitle());
+	}
+
+	@Test
+	public void pageModel() {
+		WebDriver webDriver = driver;
+		FakePage page = new FakePage(new DefaultWebTestContext(webDriver));
+		page.testTitleDisplay().isDisplayed()
+				.testTitleDisplay().text().equals("Welcome & hello")
+				.testNameField().sendKeys(" value")
+				.testNameField().attribute("value").equals("start value");
+	}
+}
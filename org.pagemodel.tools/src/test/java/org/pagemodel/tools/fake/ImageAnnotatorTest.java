@@ -0,0 +1,121 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.ImageAnnotator;
+import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.BoundsBatch;
+import org.slf4j.Logger;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ImageAnnotatorTest {
+	private final static String PAGE = "<html><body>"
+			+ "<div id='box' style='width:200px;height:100px'>box</div>"
+			+ "</body></html>";
+
+	private FakeWebDriver driver;
+	private BoxPage page;
+	private BufferedImage image;
+	private int rectScripts;
+	private int measureLogs;
+
+	static class BoxPage extends PageModel.DefaultPageModel<BoxPage> {
+		public BoxPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getBoxDisplay() {
+			return findPageElement("BoxDisplay", By.id("box"));
+		}
+
+		public WebElementTester<BoxPage, BoxPage> testBoxDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getBoxDisplay, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver(PAGE).onScript(BoundsBatch.RECTS_SCRIPT, (d, args) -> {
+			rectScripts++;
+			return ((List<?>) args[0]).stream().map(chain -> {
+				WebElement element = FakeScripts.target(d, chain);
+				if (element == null) {
+					return null;
+				}
+				Rectangle rect = element.getRect();
+				return Arrays.asList(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+			}).collect(Collectors.toList());
+		});
+		page = new BoxPage(new DefaultWebTestContext(driver));
+		image = new BufferedImage(1280, 800, BufferedImage.TYPE_INT_RGB);
+	}
+
+	private ImageAnnotator<BoxPage> annotator() {
+		return new ImageAnnotator<>(() -> image, page, page.getContext(), page.getEvaluator());
+	}
+
+	@Test
+	public void arcSizeMeasuredInUseGraphicsIsUsed() {
+		Rectangle box = driver.findElement(By.id("box")).getRect();
+		int[] arcSize = new int[1];
+		annotator()
+				.useGraphics(graphics -> arcSize[0] = 60)
+				.setColor(Color.WHITE)
+				.fillRoundedRect(p -> p.testBoxDisplay().location(), () -> arcSize[0], () -> arcSize[0])
+				.storeValue("annotated");
+		Assert.assertEquals(1, rectScripts);
+		Assert.assertEquals(0, image.getRGB(box.getX(), box.getY()) & 0xffffff);
+		Assert.assertEquals(0xffffff, image.getRGB(box.getX() + 100, box.getY() + 50) & 0xffffff);
+	}
+
+	@Test
+	public void paintErrorsGoToTheirHandler() {
+		ImageAnnotator<BoxPage> img = annotator()
+				.paint(i -> i.drawRect(p -> {
+					throw new IllegalStateException("no bounds");
+				}), t -> new IllegalArgumentException("label 1", t));
+		try {
+			img.storeValue("annotated");
+			Assert.fail("no exception caught");
+		} catch (IllegalArgumentException ex) {
+			Assert.assertEquals("label 1", ex.getMessage());
+			Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void boundsEventsAreLoggedOnce() {
+		TestEvaluator counting = new TestEvaluator.Now() {
+			@Override
+			protected void log(String message, Throwable t, Logger logger) {
+				if (logger.getName().endsWith(".json") && message.contains("measure box")) {
+					measureLogs++;
+				}
+				super.log(message, t, logger);
+			}
+		};
+		annotator()
+				.drawRect(p -> {
+					counting.logMessage("measure box");
+					return p.testBoxDisplay().location();
+				})
+				.storeValue("annotated");
+		Assert.assertEquals(1, rectScripts);
+		Assert.assertEquals(1, measureLogs);
+	}
+}
@@ -0,0 +1,101 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.PerformanceTester;
+import org.pagemodel.web.utils.PagePerformance;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PagePerformanceTest {
+	private FakeWebDriver driver;
+	private StartPage page;
+	private Map<String, Object> browserMetrics;
+	private int metricScripts;
+
+	static class StartPage extends PageModel.DefaultPageModel<StartPage> {
+		public StartPage(WebTestContext testContext) {
+			super(testContext);
+		}
+	}
+
+	@Before
+	public void setup() {
+		// numbers come back over the wire as Long or Double, like a real driver
+		browserMetrics = new HashMap<>();
+		browserMetrics.put(PagePerformance.URL, "http://localhost/start");
+		browserMetrics.put(PagePerformance.NAVIGATION_TYPE, "navigate");
+		browserMetrics.put(PagePerformance.TIME_TO_FIRST_BYTE, 120L);
+		browserMetrics.put(PagePerformance.DOM_CONTENT_LOADED, 850L);
+		browserMetrics.put(PagePerformance.LOAD, 1200.0);
+		browserMetrics.put(PagePerformance.CUMULATIVE_LAYOUT_SHIFT, 0L);
+		browserMetrics.put(PagePerformance.RESOURCE_COUNT, 12L);
+		browserMetrics.put(PagePerformance.SLOWEST_RESOURCE, 400L);
+		browserMetrics.put(PagePerformance.SLOWEST_RESOURCE_URL, "http://localhost/app.js");
+		browserMetrics.put(PagePerformance.LARGEST_CONTENTFUL_PAINT, null);
+		browserMetrics.put("unknown", 5L);
+		driver = new FakeWebDriver("<html><body><p>start</p></body></html>")
+				.onScript(PagePerformance.METRICS_SCRIPT, (d, args) -> {
+					metricScripts++;
+					return browserMetrics;
+				});
+		page = new StartPage(new DefaultWebTestContext(driver));
+	}
+
+	@Test
+	public void collectConvertsNumbersAndSkipsMissingMetrics() {
+		Map<String, Object> metrics = PagePerformance.collect(driver);
+		Assert.assertEquals(120, metrics.get(PagePerformance.TIME_TO_FIRST_BYTE));
+		Assert.assertEquals(1200, metrics.get(PagePerformance.LOAD));
+		Assert.assertEquals(0.0, metrics.get(PagePerformance.CUMULATIVE_LAYOUT_SHIFT));
+		Assert.assertEquals("navigate", metrics.get(PagePerformance.NAVIGATION_TYPE));
+		Assert.assertFalse(metrics.containsKey(PagePerformance.LARGEST_CONTENTFUL_PAINT));
+		Assert.assertFalse(metrics.containsKey(PagePerformance.FIRST_PAINT));
+		Assert.assertFalse(metrics.containsKey("unknown"));
+	}
+
+	@Test
+	public void collectIsEmptyWhenTheScriptFails() {
+		Assert.assertTrue(PagePerformance.collect(new FakeWebDriver()).isEmpty());
+		driver.onScript(PagePerformance.METRICS_SCRIPT, (d, args) -> "unsupported");
+		Assert.assertTrue(PagePerformance.collect(driver).isEmpty());
+	}
+
+	@Test
+	public void assertionsUseOneRead() {
+		PerformanceTester<StartPage> performance = page.testPage().testPerformance();
+		performance.timeToFirstByte().lessThan(200)
+				.testPage().testPerformance().domContentLoaded().greaterThan(500);
+		Assert.assertEquals(2, metricScripts);
+		performance.load().lessThan(2000);
+		performance.cumulativeLayoutShift().lessThan(0.1);
+		performance.resourceCount().equals(12);
+		performance.slowestResourceUrl().endsWith("app.js");
+		performance.navigationType().equals("navigate");
+		Assert.assertEquals(2, metricScripts);
+		Assert.assertEquals(400, performance.getMetrics().get(PagePerformance.SLOWEST_RESOURCE));
+	}
+
+	@Test
+	public void failedAssertionFails() {
+		try {
+			page.testPage().testPerformance().domContentLoaded().lessThan(500);
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+
+	@Test
+	public void missingMetricFails() {
+		try {
+			page.testPage().testPerformance().largestContentfulPaint().lessThan(2500);
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.Select;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.DropDownTester;
+import org.pagemodel.web.testers.MultiSelectTester;
+import org.pagemodel.web.utils.SelectScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SelectScriptTest {
+	private final static String PAGE = "<html><body>"
+			+ "<select id='color'><option value='r'>Red</option><option value='g' selected>Green</option>"
+			+ "<option value='b' disabled>Blue</option></select>"
+			+ "<select id='sizes' multiple><option value='s' selected>Small</option><option value='m'>Medium</option>"
+			+ "<option value='l' selected>Large</option></select>"
+			+ "</body></html>";
+
+	private FakeWebDriver driver;
+	private FormPage page;
+	private int selectScripts;
+
+	static class FormPage extends PageModel.DefaultPageModel<FormPage> {
+		public FormPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getColorDropDown() {
+			return findPageElement("ColorDropDown", By.id("color"));
+		}
+
+		protected LocatedWebElement getSizesMultiSelect() {
+			return findPageElement("SizesMultiSelect", By.id("sizes"));
+		}
+
+		public DropDownTester<FormPage, FormPage> testColorDropDown() {
+			return new DropDownTester<>(ClickAction.make(this::getColorDropDown, this, getEvaluator()), getEvaluator());
+		}
+
+		public MultiSelectTester<FormPage, FormPage> testSizesMultiSelect() {
+			return new MultiSelectTester<>(ClickAction.make(this::getSizesMultiSelect, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	/**
+	 * Answers the SelectScript script with Selenium's Select on the fake elements.
+	 */
+	static Object selectScript(FakeWebDriver driver, Object[] args) {
+		WebElement element = FakeScripts.target(driver, args[0]);
+		if (element == null) {
+			return "missing";
+		}
+		if (!element.getTagName().equals("select")) {
+			return "tag:" + element.getTagName();
+		}
+		String action = (String) args[1];
+		String by = (String) args[2];
+		if (action.equals("options")) {
+			return element.findElements(By.tagName("option")).stream()
+					.map(option -> Arrays.asList(option.getText(), option.getAttribute("value"), option.isSelected()))
+					.collect(Collectors.toList());
+		}
+		Select select = new Select(element);
+		if (action.equals("deselect") && !select.isMultiple()) {
+			return "single";
+		}
+		try {
+			if (by.equals("all")) {
+				select.deselectAll();
+			} else if (by.equals("text")) {
+				if (action.equals("select")) {
+					select.selectByVisibleText((String) args[3]);
+				} else {
+					select.deselectByVisibleText((String) args[3]);
+				}
+			} else if (by.equals("value")) {
+				if (action.equals("select")) {
+					select.selectByValue((String) args[3]);
+				} else {
+					select.deselectByValue((String) args[3]);
+				}
+			} else if (action.equals("select")) {
+				select.selectByIndex(((Number) args[3]).intValue());
+			} else {
+				select.deselectByIndex(((Number) args[3]).intValue());
+			}
+		} catch (NoSuchElementException ex) {
+			return "none";
+		} catch (UnsupportedOperationException ex) {
+			return "disabled";
+		}
+		return "ok";
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver(PAGE).onScript("sel.options", (d, args) -> {
+			selectScripts++;
+			return selectScript(d, args);
+		});
+		page = new FormPage(new DefaultWebTestContext(driver));
+	}
+
+	@After
+	public void cleanup() {
+		SelectScript.ENABLED = true;
+	}
+
+	@Test
+	public void readsOptionsWithOneScript() {
+		page.testColorDropDown().optionsTextList().containsAll("Red", "Green", "Blue");
+		// one script for the logged value and one for the check
+		Assert.assertEquals(2, selectScripts);
+		page.testColorDropDown().optionsValueList().containsAll("r", "g", "b")
+				.testColorDropDown().selectedTextList().contains("Green")
+				.testSizesMultiSelect().selectedTextList().containsAll("Small", "Large")
+				.testSizesMultiSelect().selectedTextList().notContains("Medium");
+		Assert.assertEquals(10, selectScripts);
+	}
+
+	@Test
+	public void selectsWithScript() {
+		page.testColorDropDown().selectText("Red")
+				.testColorDropDown().selectedTextList().contains("Red")
+				.testColorDropDown().selectedTextList().notContains("Green")
+				.testSizesMultiSelect().selectValue("m")
+				.testSizesMultiSelect().selectedTextList().containsAll("Small", "Medium", "Large")
+				.testSizesMultiSelect().clearSelected()
+				.testSizesMultiSelect().selectedTextList().notContains("Small");
+		Assert.assertEquals("r", driver.findElement(By.id("color")).getAttribute("value"));
+	}
+
+	@Test
+	public void selectErrors() {
+		try {
+			page.testColorDropDown().selectValue("missing");
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+		try {
+			SelectScript.select(driver, driver.findElement(By.id("color")), SelectScript.BY_TEXT, "Blue");
+			Assert.fail("no exception caught");
+		} catch (UnsupportedOperationException ex) {
+		}
+		try {
+			SelectScript.getOptions(driver, driver.findElement(By.tagName("option")));
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			Assert.assertTrue(ex.getMessage().contains("select"));
+		}
+	}
+
+	@Test
+	public void optionsMatchSelectWithoutScripts() {
+		List<String> scripted = SelectScript.getOptions(driver, driver.findElement(By.id("sizes"))).stream()
+				.map(option -> option.getText() + "=" + option.isSelected()).collect(Collectors.toList());
+		SelectScript.ENABLED = false;
+		page.testSizesMultiSelect().optionsTextList().containsAll("Small", "Medium", "Large")
+				.testSizesMultiSelect().selectedTextList().containsAll("Small", "Large");
+		List<String> selenium = new Select(driver.findElement(By.id("sizes"))).getOptions().stream()
+				.map(option -> option.getText() + "=" + option.isSelected()).collect(Collectors.toList());
+		Assert.assertEquals(selenium, scripted);
+		Assert.assertEquals(1, selectScripts);
+	}
+}
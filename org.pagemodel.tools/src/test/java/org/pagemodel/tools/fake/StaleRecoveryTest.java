@@ -0,0 +1,77 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+
+import java.util.List;
+
+public class StaleRecoveryTest {
+	private final static String PAGE = "<html><body><ul id='items'>"
+			+ "<li class='item'>one</li><li class='item'>two</li><li class='item'>three</li>"
+			+ "</ul></body></html>";
+	private final static String CHANGED = "<html><body><ul id='items'>"
+			+ "<li class='item'>uno</li><li class='item'>dos</li><li class='item'>tres</li>"
+			+ "</ul></body></html>";
+	private final static String SHORTER = "<html><body><ul id='items'>"
+			+ "<li class='item'>uno</li>"
+			+ "</ul></body></html>";
+
+	private FakeWebDriver driver;
+	private ListPage page;
+
+	static class ListPage extends PageModel.DefaultPageModel<ListPage> {
+		public ListPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getItemsDisplay() {
+			return findPageElement("ItemsDisplay", By.id("items"));
+		}
+
+		protected LocatedWebElement getItem(int index) {
+			List<?> items = findPageElements("ItemDisplays", By.cssSelector("li.item"));
+			return (LocatedWebElement) items.get(index);
+		}
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver(PAGE);
+		page = new ListPage(new DefaultWebTestContext(driver));
+	}
+
+	@Test
+	public void staleElementIsFoundAgain() {
+		LocatedWebElement items = page.getItemsDisplay();
+		driver.setHtml(CHANGED);
+		Assert.assertTrue(items.getText().contains("uno"));
+		Assert.assertEquals(1, items.getStaleRecoveries());
+	}
+
+	@Test
+	public void staleListItemIsFoundAtItsIndex() {
+		LocatedWebElement third = page.getItem(2);
+		Assert.assertEquals("three", third.getText());
+		driver.setHtml(CHANGED);
+		Assert.assertEquals("tres", third.getText());
+		Assert.assertEquals(1, third.getStaleRecoveries());
+	}
+
+	@Test
+	public void staleListItemPastEndOfListIsNotRecovered() {
+		LocatedWebElement second = page.getItem(1);
+		driver.setHtml(SHORTER);
+		try {
+			second.getText();
+			Assert.fail("no exception caught");
+		} catch (StaleElementReferenceException ex) {
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package org.pagemodel.tools.fake;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.pagemodel.web.DefaultWebTestContext;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.WaitAbort;
+
+import java.util.Arrays;
+
+public class WaitAbortTest {
+	private final static String PAGE = "<html><head><title>Start</title></head><body><p>start</p></body></html>";
+	private final static String LOGIN = "<html><head><title>Login</title></head><body><form id='login'></form></body></html>";
+	private final static String ERROR = "<html><head><title>Oops</title></head><body><div id='error'>failed</div></body></html>";
+
+	private FakeWebDriver driver;
+	private StartPage page;
+	private String navigateTo;
+	private int locationScripts;
+	private int browserWaits;
+
+	static class StartPage extends PageModel.DefaultPageModel<StartPage> {
+		public StartPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		protected LocatedWebElement getSavedDisplay() {
+			return findPageElement("SavedDisplay", By.id("saved"));
+		}
+
+		public WebElementTester<StartPage, StartPage> testSavedDisplay() {
+			return new WebElementTester<>(ClickAction.make(this::getSavedDisplay, this, getEvaluator()), getEvaluator());
+		}
+	}
+
+	public static class ErrorPage extends PageModel.DefaultPageModel<ErrorPage> {
+		public ErrorPage(WebTestContext testContext) {
+			super(testContext);
+		}
+
+		@Override
+		public boolean modelDisplayed() {
+			return !getContext().getDriver().findElements(By.id("error")).isEmpty();
+		}
+	}
+
+	@Before
+	public void setup() {
+		driver = new FakeWebDriver(PAGE)
+				.addPage("http://localhost/login", LOGIN)
+				.addPage("http://localhost/error", ERROR)
+				.onScript("window.location.href, document.title", (d, args) -> {
+					// the page changes after the wait has started
+					if (++locationScripts == 2 && navigateTo != null) {
+						d.get(navigateTo);
+					}
+					return Arrays.asList(d.getCurrentUrl(), d.getTitle());
+				})
+				.onScript("MutationObserver", (d, args) -> {
+					browserWaits++;
+					return false;
+				});
+		page = new StartPage(new DefaultWebTestContext(driver));
+	}
+
+	@After
+	public void cleanup() {
+		WaitAbort.clearErrorPages();
+	}
+
+	private static String abortReason(Throwable t) {
+		while (t != null) {
+			if (t instanceof WaitAbort.AbortedException) {
+				return t.getMessage();
+			}
+			t = t.getCause();
+		}
+		return null;
+	}
+
+	@Test
+	public void abortsOnUrlChange() {
+		navigateTo = "http://localhost/login";
+		String start = driver.getCurrentUrl();
+		try {
+			page.testPage().waitFor().abortOnUrlChange().title().equals("never");
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			String reason = abortReason(ex);
+			Assert.assertNotNull(reason);
+			Assert.assertTrue(reason, reason.contains("url changed from " + start + " to " + navigateTo));
+		}
+	}
+
+	@Test
+	public void abortsOnTitle() {
+		navigateTo = "http://localhost/login";
+		try {
+			page.testPage().waitFor().abortOnTitle("^Log").title().equals("never");
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			String reason = abortReason(ex);
+			Assert.assertNotNull(reason);
+			Assert.assertTrue(reason, reason.contains("title 'Login'"));
+		}
+	}
+
+	@Test
+	public void abortsOnErrorPage() {
+		navigateTo = "http://localhost/error";
+		try {
+			page.testPage().waitFor().abortOnPage(ErrorPage.class).title().equals("never");
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			String reason = abortReason(ex);
+			Assert.assertNotNull(reason);
+			Assert.assertTrue(reason, reason.contains("page ErrorPage displayed at http://localhost/error"));
+		}
+	}
+
+	@Test
+	public void abortsWhenAlreadyOnErrorPage() {
+		driver.get("http://localhost/error");
+		try {
+			page.testPage().waitFor().abortOnPage(ErrorPage.class).title().equals("never");
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			String reason = abortReason(ex);
+			Assert.assertNotNull(reason);
+			Assert.assertTrue(reason, reason.contains("page ErrorPage displayed at http://localhost/error"));
+		}
+	}
+
+	@Test
+	public void alreadyOnErrorPageSkipsBrowserWait() {
+		driver.get("http://localhost/error");
+		try {
+			page.testSavedDisplay().waitFor().abortOnPage(ErrorPage.class).exists();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			Assert.assertNotNull(abortReason(ex));
+		}
+		Assert.assertEquals(0, browserWaits);
+	}
+
+	@Test
+	public void registeredErrorPageAbortsEveryWait() {
+		WaitAbort.registerErrorPage(ErrorPage.class);
+		WaitAbort.registerErrorPage(ErrorPage.class);
+		navigateTo = "http://localhost/error";
+		try {
+			page.testPage().waitFor().title().equals("never");
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+			Assert.assertNotNull(abortReason(ex));
+		}
+	}
+
+	@Test
+	public void metConditionIsNotAborted() {
+		navigateTo = "http://localhost/error";
+		String start = driver.getCurrentUrl();
+		page.testPage().waitFor().abortOnUrlChange().abortOnPage(ErrorPage.class).title().equals("Start");
+		Assert.assertEquals(start, driver.getCurrentUrl());
+	}
+}
@@ -0,0 +1,242 @@
+package org.pagemodel.tools.network;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.Connection;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.Message;
+import org.openqa.selenium.remote.http.WebSocket;
+import org.pagemodel.core.DefaultTestContext;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.tools.fake.FakeWebDriver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class NetworkRecorderTest {
+	private FakeDevTools devTools;
+	private DevToolsDriver driver;
+
+	/**
+	 * DevTools without a browser: listeners are kept by event name and called by fire.
+	 */
+	static class FakeDevTools extends DevTools {
+		final Map<String, List<Consumer<Object>>> listeners = new HashMap<>();
+		final List<String> commands = new ArrayList<>();
+		int listenersAdded;
+		int listenersCleared;
+
+		FakeDevTools() {
+			super(devTools -> null, new Connection(new HttpClient() {
+				@Override
+				public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+					return new WebSocket() {
+						@Override
+						public WebSocket send(Message message) {
+							return this;
+						}
+
+						@Override
+						public void close() {
+						}
+					};
+				}
+
+				@Override
+				public HttpResponse execute(HttpRequest req) {
+					throw new UnsupportedOperationException();
+				}
+			}, "ws://localhost/devtools"));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <X> void addListener(Event<X> event, Consumer<X> handler) {
+			listenersAdded++;
+			listeners.computeIfAbsent(event.getMethod(), method -> new ArrayList<>()).add((Consumer<Object>) handler);
+		}
+
+		@Override
+		public void clearListeners() {
+			listenersCleared++;
+			listeners.clear();
+		}
+
+		@Override
+		public void createSessionIfThereIsNotOne() {
+		}
+
+		@Override
+		public <X> X send(Command<X> command) {
+			commands.add(command.getMethod());
+			return null;
+		}
+
+		void fire(String method, Map<String, Object> params) {
+			listeners.getOrDefault(method, new ArrayList<>()).forEach(listener -> listener.accept(params));
+		}
+	}
+
+	static class DevToolsDriver extends FakeWebDriver implements HasDevTools {
+		private final DevTools devTools;
+
+		DevToolsDriver(DevTools devTools) {
+			this.devTools = devTools;
+		}
+
+		@Override
+		public Optional<DevTools> maybeGetDevTools() {
+			return Optional.of(devTools);
+		}
+	}
+
+	@Before
+	public void setup() {
+		devTools = new FakeDevTools();
+		driver = new DevToolsDriver(devTools);
+	}
+
+	private void request(String id, String url, int status, double start, double end) {
+		Map<String, Object> request = new LinkedHashMap<>();
+		request.put("url", url);
+		request.put("method", "GET");
+		Map<String, Object> sent = new LinkedHashMap<>();
+		sent.put("requestId", id);
+		sent.put("request", request);
+		sent.put("type", "Script");
+		sent.put("timestamp", start);
+		devTools.fire("Network.requestWillBeSent", sent);
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("status", status);
+		response.put("mimeType", "text/javascript");
+		Map<String, Object> received = new LinkedHashMap<>();
+		received.put("requestId", id);
+		received.put("response", response);
+		devTools.fire("Network.responseReceived", received);
+		Map<String, Object> finished = new LinkedHashMap<>();
+		finished.put("requestId", id);
+		finished.put("timestamp", end);
+		finished.put("encodedDataLength", 2048);
+		devTools.fire("Network.loadingFinished", finished);
+	}
+
+	private NetworkTester<NetworkRecorderTest> testNetwork(NetworkRecorder recorder) {
+		return new NetworkTester<>(recorder.getEntries(), this, new DefaultTestContext(), new TestEvaluator.Now());
+	}
+
+	@Test
+	public void recordsFinishedRequests() {
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		request("1", "http://localhost/app.js", 200, 10.0, 10.25);
+		request("2", "http://localhost/missing.js", 404, 10.0, 10.1);
+		List<NetworkRecorder.Entry> entries = recorder.getEntries();
+		Assert.assertEquals(2, entries.size());
+		Assert.assertEquals("http://localhost/app.js", entries.get(0).getUrl());
+		Assert.assertEquals(200, entries.get(0).getStatus());
+		Assert.assertEquals(250, entries.get(0).getDuration());
+		Assert.assertEquals(2048, entries.get(0).getTransferSize());
+		Assert.assertTrue(entries.get(1).isFailed());
+		Assert.assertTrue(devTools.commands.contains("Network.enable"));
+	}
+
+	@Test
+	public void stopKeepsOtherListeners() {
+		List<Object> other = new ArrayList<>();
+		devTools.addListener(new Event<>("Network.requestWillBeSent", input -> null), other::add);
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		recorder.stop();
+		Assert.assertFalse(recorder.isRecording());
+		Assert.assertEquals(0, devTools.listenersCleared);
+		Assert.assertFalse(devTools.commands.contains("Network.disable"));
+		request("1", "http://localhost/app.js", 200, 10.0, 10.25);
+		Assert.assertEquals(1, other.size());
+		Assert.assertTrue(recorder.getEntries().isEmpty());
+	}
+
+	@Test
+	public void restartDoesNotRecordTwice() {
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		int listeners = devTools.listenersAdded;
+		recorder.stop();
+		recorder.start(driver);
+		Assert.assertEquals(listeners, devTools.listenersAdded);
+		request("1", "http://localhost/app.js", 200, 10.0, 10.25);
+		Assert.assertEquals(1, recorder.getEntries().size());
+	}
+
+	@Test
+	public void recordersOnOneSessionAreIndependent() {
+		NetworkRecorder first = new NetworkRecorder().start(driver);
+		NetworkRecorder second = new NetworkRecorder().start(driver);
+		request("1", "http://localhost/app.js", 200, 10.0, 10.25);
+		first.stop();
+		request("2", "http://localhost/style.css", 200, 11.0, 11.1);
+		Assert.assertEquals(1, first.getEntries().size());
+		Assert.assertEquals(2, second.getEntries().size());
+	}
+
+	@Test
+	public void noRequestsPass() {
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		testNetwork(recorder).noRequestSlowerThan(2000)
+				.testNetwork(recorder).noFailedRequests()
+				.testNetwork(recorder).totalTransferUnder(1);
+	}
+
+	@Test
+	public void filteredRequests() {
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		request("1", "http://localhost/app.js", 200, 10.0, 13.0);
+		request("2", "http://localhost/missing.css", 404, 10.0, 10.1);
+		testNetwork(recorder).urlMatches("\\.png$").noRequestSlowerThan(2000);
+		testNetwork(recorder).urlMatches("\\.css$").noRequestSlowerThan(2000);
+		testNetwork(recorder).urlMatches("\\.js$").noFailedRequests();
+		testNetwork(recorder).urlMatches("localhost").urlMatches("\\.js$").requestCount().equals(1);
+	}
+
+	@Test
+	public void passingAssertions() {
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		request("1", "http://localhost/app.js", 200, 10.0, 10.25);
+		request("2", "http://localhost/style.css", 200, 10.0, 10.5);
+		testNetwork(recorder).noRequestSlowerThan(500)
+				.testNetwork(recorder).noFailedRequests()
+				.testNetwork(recorder).totalTransferUnder(4097)
+				.testNetwork(recorder).slowestRequestUrl().equals("http://localhost/style.css")
+				.testNetwork(recorder).requestCount().equals(2);
+	}
+
+	@Test
+	public void failingAssertions() {
+		NetworkRecorder recorder = new NetworkRecorder().start(driver);
+		request("1", "http://localhost/app.js", 200, 10.0, 12.5);
+		request("2", "http://localhost/missing.js", 404, 10.0, 10.1);
+		try {
+			testNetwork(recorder).noRequestSlowerThan(2000);
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+		try {
+			testNetwork(recorder).noFailedRequests();
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+		try {
+			testNetwork(recorder).totalTransferUnder(4096);
+			Assert.fail("no exception caught");
+		} catch (RuntimeException ex) {
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.pagemodel.tools.replay;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ReplayWebDriverTest {
+	private final static String PAGE = "data:text/html,<html><head><title>Replay</title></head><body>"
+			+ "<p id='a' class='item'>first</p><p id='b' class='item'>second</p></body></html>";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private void run(WebDriver driver, String script) {
+		driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+		driver.get(PAGE);
+		Assert.assertEquals("Replay", driver.getTitle());
+		WebElement a = driver.findElement(By.id("a"));
+		Assert.assertEquals("first", a.getText());
+		Assert.assertTrue(a.isDisplayed());
+		Assert.assertEquals("item", a.getAttribute("class"));
+		List<WebElement> items = driver.findElements(By.className("item"));
+		Assert.assertEquals(2, items.size());
+		Assert.assertEquals("second", items.get(1).getText());
+		Object found = ((JavascriptExecutor) driver).executeScript(script, a);
+		Assert.assertEquals(a, found);
+		Assert.assertEquals(2L, ((JavascriptExecutor) driver).executeScript("return document.querySelectorAll('p').length;"));
+		Assert.assertTrue(a.getSize() instanceof Dimension);
+		try {
+			driver.findElement(By.id("missing"));
+			Assert.fail("no exception caught");
+		} catch (NoSuchElementException ex) {
+		}
+	}
+
+	@Test
+	public void recordAndReplay() {
+		File file = new File(folder.getRoot(), "recording.jsonl");
+		StringBuilder script = new StringBuilder("return arguments[0];");
+		while (script.length() < Recording.TEXT_MIN_LENGTH) {
+			script.append(" ");
+		}
+		WebDriver recorded = WebDriverRecorder.record(new HtmlUnitDriver(true), file);
+		run(recorded, script.toString());
+		recorded.quit();
+
+		WebDriver replay = ReplayWebDriver.load(file);
+		Assert.assertTrue(replay instanceof JavascriptExecutor);
+		run(replay, script.toString());
+		replay.quit();
+	}
+
+	@Test(expected = ReplayWebDriver.NotRecordedException.class)
+	public void notRecorded() {
+		File file = new File(folder.getRoot(), "recording.jsonl");
+		WebDriver recorded = WebDriverRecorder.record(new HtmlUnitDriver(true), file);
+		recorded.get(PAGE);
+		recorded.quit();
+
+		WebDriver replay = ReplayWebDriver.load(file);
+		replay.findElement(By.id("a"));
+	}
+
+	@Test
+	public void encodedValuesDecodeToTheirTypes() {
+		Recording recording = new Recording() {
+			@Override
+			protected String elementId(WebElement element) {
+				return null;
+			}
+
+			@Override
+			protected Object element(String id) {
+				return null;
+			}
+
+			@Override
+			protected Object facade(String name, Class<?> type) {
+				return null;
+			}
+
+			@Override
+			protected Object driver() {
+				return null;
+			}
+		};
+		Capabilities caps = new ImmutableCapabilities("browserName", "chrome", "pageLoadStrategy", PageLoadStrategy.EAGER);
+		Object decoded = recording.decode(Recording.gson.fromJson(Recording.gson.toJson(recording.encode(caps)), Object.class));
+		Assert.assertTrue(decoded instanceof Capabilities);
+		Assert.assertEquals("chrome", ((Capabilities) decoded).getBrowserName());
+		Assert.assertEquals(PageLoadStrategy.EAGER, ((Capabilities) decoded).getCapability("pageLoadStrategy"));
+		Assert.assertEquals(3L, recording.decode(recording.encode(3)));
+		Assert.assertNull(recording.decode(Collections.singletonMap("enum", Arrays.asList(PageLoadStrategy.class.getName(), "MISSING"))));
+		Assert.assertNull(recording.decode(Collections.singletonMap("enum", Arrays.asList(String.class.getName(), "EAGER"))));
+	}
+}
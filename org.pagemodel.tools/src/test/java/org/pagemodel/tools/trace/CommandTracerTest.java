@@ -0,0 +1,108 @@
+package org.pagemodel.tools.trace;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.core.DefaultTestContext;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.core.utils.TestHooks;
+import org.pagemodel.tools.fake.FakeWebDriver;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CommandTracerTest {
+	private final static Logger jsonLogger = (Logger) LoggerFactory.getLogger(TestEvaluator.class.getName() + ".json");
+
+	private ListAppender<ILoggingEvent> appender;
+	private WebDriver driver;
+	private CommandTracer tracer;
+	private TestEvaluator evaluator;
+	private DefaultTestContext context;
+
+	@Before
+	public void setup() {
+		CommandTracer.reset();
+		appender = new ListAppender<>();
+		appender.start();
+		jsonLogger.addAppender(appender);
+		driver = new FakeWebDriver("<html><head><title>Start</title></head><body><p>text</p></body></html>");
+		tracer = new CommandTracer();
+		evaluator = new TestEvaluator.Now();
+		context = new DefaultTestContext();
+	}
+
+	@After
+	public void cleanup() {
+		jsonLogger.detachAppender(appender);
+		CommandTracer.reset();
+	}
+
+	/**
+	 * Runs a driver command the way the decorated driver reports it to the tracer.
+	 */
+	private void command(String name) throws Exception {
+		Method method = WebDriver.class.getMethod(name);
+		tracer.beforeAnyCall(driver, method, new Object[0]);
+		tracer.afterAnyCall(driver, method, new Object[0], method.invoke(driver));
+	}
+
+	private List<String> commandEvents() {
+		return appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+				.filter(message -> message.contains("webdriver commands"))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void commandsAreLoggedWhenTheActionEnds() {
+		evaluator.testExecute("read page", op -> {}, () -> {
+			command("getTitle");
+			command("getCurrentUrl");
+			command("getPageSource");
+		}, this, context);
+		List<String> events = commandEvents();
+		Assert.assertEquals(1, events.size());
+		Assert.assertTrue(events.get(0), events.get(0).contains("read page"));
+		Assert.assertTrue(events.get(0), events.get(0).contains("\"count\": 3"));
+	}
+
+	@Test
+	public void nestedActionsAreLoggedSeparately() {
+		evaluator.testExecute("outer", op -> {}, () -> {
+			evaluator.testExecute("inner", op -> {}, () -> command("getTitle"), this, context);
+			Assert.assertEquals(1, commandEvents().size());
+			Assert.assertTrue(commandEvents().get(0).contains("inner"));
+			command("getCurrentUrl");
+		}, this, context);
+		List<String> events = commandEvents();
+		Assert.assertEquals(2, events.size());
+		Assert.assertTrue(events.get(1), events.get(1).contains("outer"));
+	}
+
+	@Test
+	public void actionWithoutCommandsLogsNothing() throws Exception {
+		command("getTitle");
+		evaluator.testExecute("no commands", op -> {}, () -> {}, this, context);
+		Assert.assertTrue(commandEvents().isEmpty());
+	}
+
+	@Test
+	public void commandsOutsideActionsAreLoggedAtTestEnd() throws Exception {
+		command("getTitle");
+		command("getCurrentUrl");
+		Assert.assertTrue(commandEvents().isEmpty());
+		TestHooks.testEnded();
+		List<String> events = commandEvents();
+		Assert.assertEquals(1, events.size());
+		Assert.assertTrue(events.get(0), events.get(0).contains(CommandTracer.NO_ACTION));
+		TestHooks.testEnded();
+		Assert.assertEquals(1, commandEvents().size());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web;
+
+import org.openqa.selenium.By;
+
+import java.util.function.Function;
+
+/**
+ * A locator with arguments, split once into its fixed parts so that building a locator for a set of arguments is a
+ * single sized append of the parts and arguments.  Generated page models keep one template per parameterized
+ * element in a static field:
+ * <pre>
+ * private final static ByTemplate BY_ROW = new ByTemplate(By::xpath, "//table/tbody/tr[", "]");
+ *
+ * protected LocatedWebElement getRow(int row) {
+ *     return findPageElement("Row", BY_ROW.by(row));
+ * }
+ * </pre>
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ByTemplate {
+	private final Function<String, By> factory;
+	private final String[] parts;
+	private final int length;
+
+	/**
+	 * @param parts the locator text before, between and after the arguments, one more than the number of arguments
+	 */
+	public ByTemplate(Function<String, By> factory, String... parts) {
+		if (parts.length == 0) {
+			throw new IllegalArgumentException("Locator template has no parts");
+		}
+		this.factory = factory;
+		this.parts = parts.clone();
+		int length = 0;
+		for (String part : parts) {
+			length += part.length();
+		}
+		this.length = length;
+	}
+
+	public int getArgumentCount() {
+		return parts.length - 1;
+	}
+
+	public By by(Object arg) {
+		checkArguments(1);
+		String value = String.valueOf(arg);
+		return factory.apply(new StringBuilder(length + value.length()).append(parts[0]).append(value).append(parts[1]).toString());
+	}
+
+	public By by(Object arg1, Object arg2) {
+		checkArguments(2);
+		String value1 = String.valueOf(arg1);
+		String value2 = String.valueOf(arg2);
+		return factory.apply(new StringBuilder(length + value1.length() + value2.length())
+				.append(parts[0]).append(value1).append(parts[1]).append(value2).append(parts[2]).toString());
+	}
+
+	public By by(Object... args) {
+		checkArguments(args.length);
+		String[] values = new String[args.length];
+		int size = length;
+		for (int i = 0; i < args.length; i++) {
+			values[i] = String.valueOf(args[i]);
+			size += values[i].length();
+		}
+		StringBuilder sb = new StringBuilder(size).append(parts[0]);
+		for (int i = 0; i < values.length; i++) {
+			sb.append(values[i]).append(parts[i + 1]);
+		}
+		return factory.apply(sb.toString());
+	}
+
+	private void checkArguments(int count) {
+		if (count != parts.length - 1) {
+			throw new IllegalArgumentException("Locator template expects " + (parts.length - 1) + " arguments, got " + count);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.join("{}", parts);
+	}
+}
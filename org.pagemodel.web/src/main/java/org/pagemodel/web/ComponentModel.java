@@ -17,20 +17,29 @@
 package org.pagemodel.web;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.web.testers.ClickAction;
+import org.pagemodel.web.testers.ElementListTester;
 import org.pagemodel.web.testers.WebElementTester;
+import org.pagemodel.web.utils.DriverTimeouts;
+import org.pagemodel.web.utils.LocatorScript;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * @author Matt Stevenson [matt@pagemodel.org]
  */
 public abstract class ComponentModel<R, N extends PageModel<? super N>, C extends ComponentModel<? super R, N, ? super C>> extends WebElementTester<R, N> implements ModelBase {
 
+	public static boolean RESOLVE_IN_BROWSER = true;
+
 	public ComponentModel(R returnObj, ClickAction<?, N> clickAction, TestEvaluator testEvaluator) {
 		super(returnObj, clickAction, testEvaluator);
 	}
@@ -39,7 +48,29 @@ public abstract class ComponentModel<R, N extends PageModel<? super N>, C extend
 		super(clickAction, testEvaluator);
 	}
 
+	WebTestContext getModelContext() {
+		return page == null ? null : page.getContext();
+	}
+
+	/**
+	 * @param ref element list getter, usually calling findComponentElements or findPageElements
+	 */
+	protected ElementListTester<R> testElementList(String name, Callable<? extends List<?>> ref) {
+		return new ElementListTester<>(name, ref, getReturnObj(), page, getEvaluator());
+	}
+
 	protected LocatedWebElement findComponentElement(String name, By by) {
+		if (LocatorScript.isDeferred()) {
+			return new LocatedWebElement(null, name, by, this, callRef());
+		}
+		if (RESOLVE_IN_BROWSER) {
+			LocatedWebElement located = new LocatedWebElement(null, name, by, this, LocatorScript.deferred(this::callRef));
+			List<WebElement> found = resolveInBrowser(located, false);
+			if (found != null) {
+				located.element = found.isEmpty() ? null : found.get(0);
+				return located;
+			}
+		}
 		WebElement element = callRef();
 		try {
 			WebElement el = element.findElement(by);
@@ -50,31 +81,76 @@ public abstract class ComponentModel<R, N extends PageModel<? super N>, C extend
 	}
 
 	protected <T extends LocatedWebElement> List<? super T> findComponentElements(String name, By by) {
+		if (LocatorScript.isDeferred()) {
+			return Arrays.asList(new LocatedWebElement(null, name, by, this, callRef()).listItem(LocatedWebElement.LIST_PLACEHOLDER));
+		}
+		if (RESOLVE_IN_BROWSER) {
+			LocatedWebElement parent = LocatorScript.deferred(this::callRef);
+			List<WebElement> found = resolveInBrowser(new LocatedWebElement(null, name, by, this, parent), true);
+			if (found != null) {
+				if (!parent.hasElement()) {
+					return Arrays.asList(new LocatedWebElement(null, name, by, this, parent));
+				}
+				return Arrays.asList(IntStream.range(0, found.size())
+						.mapToObj(i -> new LocatedWebElement(found.get(i), name, by, this, parent).listItem(i)).toArray(WebElement[]::new));
+			}
+		}
 		WebElement element = callRef();
 		try {
-			return Arrays.asList(element.findElements(by).stream().map(el -> new LocatedWebElement(el, name, by, this, element)).toArray(WebElement[]::new));
+			List<WebElement> found = element.findElements(by);
+			return Arrays.asList(IntStream.range(0, found.size())
+					.mapToObj(i -> new LocatedWebElement(found.get(i), name, by, this, element).listItem(i)).toArray(WebElement[]::new));
 		} catch (Exception e) {
 			return Arrays.asList(new LocatedWebElement(null, name, by, this, element));
 		}
 	}
 
 	protected LocatedWebElement findPageElement(String name, By by) {
+		if (LocatorScript.isDeferred()) {
+			return new LocatedWebElement(null, name, by, this, callRef()).pageScoped();
+		}
 		WebElement element = callRef();
 		try {
 			WebElement el = page.getContext().getDriver().findElement(by);
-			return new LocatedWebElement(el, name, by, this, element);
+			return new LocatedWebElement(el, name, by, this, element).pageScoped();
 		} catch (Exception e) {
-			return new LocatedWebElement(null, name, by, this, element);
+			return new LocatedWebElement(null, name, by, this, element).pageScoped();
 		}
 	}
 
 	protected <T extends LocatedWebElement> List<? super T> findPageElements(String name, By by) {
+		if (LocatorScript.isDeferred()) {
+			return Arrays.asList(new LocatedWebElement(null, name, by, this, callRef()).pageScoped().listItem(LocatedWebElement.LIST_PLACEHOLDER));
+		}
 		WebElement element = callRef();
 		try {
-			return Arrays.asList(page.getContext().getDriver().findElements(by).stream().map(el -> new LocatedWebElement(el, name, by, this, element)).toArray(WebElement[]::new));
+			List<WebElement> found = page.getContext().getDriver().findElements(by);
+			return Arrays.asList(IntStream.range(0, found.size())
+					.mapToObj(i -> new LocatedWebElement(found.get(i), name, by, this, element).pageScoped().listItem(i)).toArray(WebElement[]::new));
 		} catch (Exception e) {
-			return Arrays.asList(new LocatedWebElement(null, name, by, this, element));
+			return Arrays.asList(new LocatedWebElement(null, name, by, this, element).pageScoped());
+		}
+	}
+
+	/**
+	 * Finds the element and the component elements above it with one script from the page root, instead of
+	 * finding each parent in turn.
+	 * @return elements found, or null if the lookup should fall back to the driver.  Missing elements also fall back
+	 * when an implicit wait is set, so the driver can wait for them.
+	 */
+	private List<WebElement> resolveInBrowser(LocatedWebElement located, boolean all) {
+		if (located.getLocatorParent() == null) {
+			return null;
+		}
+		WebDriver driver = page.getContext().getDriver();
+		List<WebElement> found = LocatedWebElement.resolveChain(driver, located, all);
+		if (found != null && found.isEmpty()) {
+			Duration implicitWait = DriverTimeouts.forDriver(driver).get(DriverTimeouts.Type.IMPLICIT_WAIT);
+			if (implicitWait != null && !implicitWait.isZero()) {
+				return null;
+			}
 		}
+		return found;
 	}
 
 	@Override
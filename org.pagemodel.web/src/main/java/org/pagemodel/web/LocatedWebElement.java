@@ -17,24 +17,45 @@
 package org.pagemodel.web;
 
 import org.openqa.selenium.*;
+import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.core.utils.json.JsonBuilder;
 import org.pagemodel.core.utils.json.JsonObjectBuilder;
+import org.pagemodel.web.utils.BoundsBatch;
+import org.pagemodel.web.utils.LocatorScript;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * @author Matt Stevenson [matt@pagemodel.org]
  */
 public class LocatedWebElement implements WebElement {
+	public static boolean RECOVER_STALE = true;
+	public static int MAX_STALE_RETRIES = 1;
+	/**
+	 * List index of the single unresolved element a find...Elements method returns while find methods are deferred,
+	 * which stands for the whole list rather than any one item.
+	 */
+	public final static int LIST_PLACEHOLDER = -2;
+
+	private final static AtomicInteger staleRecoveries = new AtomicInteger();
+
 	protected WebElement element;
 	protected WebElement parent;
 	protected String locator;
+	protected By by;
+	protected boolean pageScoped = false;
 	protected String friendlyName;
 	protected ModelBase model;
+	protected int recoveries = 0;
+	protected int listIndex = -1;
 
 	public LocatedWebElement(WebElement element, String friendlyName, By by, ModelBase model, WebElement parent) {
 		this(element, friendlyName, by.toString(), model, parent);
+		this.by = by;
 	}
 
 	public LocatedWebElement(WebElement element, String friendlyName, String locator, ModelBase model, WebElement parent) {
@@ -52,116 +73,241 @@ public class LocatedWebElement implements WebElement {
 		return element;
 	}
 
+	/**
+	 * Calls a method on the found element.  If the element is stale, it is found again with its locator, starting
+	 * from its parent (which is found again too if it is also stale), and the call is retried, up to
+	 * MAX_STALE_RETRIES times.
+	 */
+	protected <T> T delegate(Function<WebElement, T> call) {
+		int retries = 0;
+		while (true) {
+			try {
+				return call.apply(getElement());
+			} catch (StaleElementReferenceException ex) {
+				if (!RECOVER_STALE || retries++ >= MAX_STALE_RETRIES || !relocate()) {
+					throw ex;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds a stale element again with its locator and parent.
+	 * @return true if the element was found
+	 */
+	protected boolean relocate() {
+		if (element instanceof LocatedWebElement) {
+			return ((LocatedWebElement) element).relocate();
+		}
+		WebElement found = findAgain();
+		if (found == null) {
+			return false;
+		}
+		element = found;
+		recoveries++;
+		staleRecoveries.incrementAndGet();
+		WebTestContext context = getModelContext();
+		if (context != null) {
+			context.getEvaluator().logEvent(TestEvaluator.TEST_EXECUTE, "recover stale element", op -> op
+					.addValue("name", friendlyName)
+					.addValue("model", model == null ? null : model.getClass().getSimpleName())
+					.addValue("by", locator)
+					.addValue("count", recoveries));
+		}
+		return true;
+	}
+
+	/**
+	 * List items are found again by their position in the list, placeholders are not found again.
+	 */
+	private WebElement findAgain() {
+		if (by == null || isListPlaceholder()) {
+			return null;
+		}
+		for (int attempt = 0; attempt < 2; attempt++) {
+			try {
+				SearchContext root = parent == null || pageScoped ? getDriver()
+						: parent instanceof LocatedWebElement ? ((LocatedWebElement) parent).getElement() : parent;
+				if (root == null) {
+					return null;
+				}
+				if (listIndex >= 0) {
+					List<WebElement> found = root.findElements(by);
+					return listIndex < found.size() ? found.get(listIndex) : null;
+				}
+				return root.findElement(by);
+			} catch (StaleElementReferenceException ex) {
+				if (attempt > 0 || pageScoped || !(parent instanceof LocatedWebElement) || !((LocatedWebElement) parent).relocate()) {
+					return null;
+				}
+			} catch (WebDriverException ex) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	protected WebTestContext getModelContext() {
+		if (model instanceof PageModel) {
+			return ((PageModel<?>) model).getContext();
+		} else if (model instanceof ComponentModel) {
+			return ((ComponentModel<?, ?, ?>) model).getModelContext();
+		}
+		return null;
+	}
+
+	/**
+	 * @return driver of the model this element belongs to, or of the wrapped element, or null
+	 */
+	public WebDriver getDriver() {
+		WebTestContext context = getModelContext();
+		if (context != null && context.getDriver() != null) {
+			return context.getDriver();
+		}
+		WebElement el = getElement();
+		return el instanceof WrapsDriver ? ((WrapsDriver) el).getWrappedDriver() : null;
+	}
+
+	/**
+	 * @return number of times this element was found again after going stale
+	 */
+	public int getStaleRecoveries() {
+		return recoveries;
+	}
+
+	/**
+	 * @return number of stale elements found again since startup
+	 */
+	public static int getStaleRecoveryCount() {
+		return staleRecoveries.get();
+	}
+
 	public String getFriendlyName(){
 		return friendlyName;
 	}
 
 	@Override
 	public void click() {
-		getElement().click();
+		delegate(el -> {
+			el.click();
+			return null;
+		});
 	}
 
 	@Override
 	public void submit() {
-		getElement().submit();
+		delegate(el -> {
+			el.submit();
+			return null;
+		});
 	}
 
 	@Override
 	public void sendKeys(CharSequence... keysToSend) {
-		getElement().sendKeys(keysToSend);
+		delegate(el -> {
+			el.sendKeys(keysToSend);
+			return null;
+		});
 	}
 
 	@Override
 	public void clear() {
-		getElement().clear();
+		delegate(el -> {
+			el.clear();
+			return null;
+		});
 	}
 
 	@Override
 	public String getTagName() {
-		return getElement().getTagName();
+		return delegate(el -> el.getTagName());
 	}
 
 	@Override
 	public String getAttribute(String name) {
-		return getElement().getAttribute(name);
+		return delegate(el -> el.getAttribute(name));
 	}
 
 	@Override
 	public boolean isSelected() {
-		return getElement().isSelected();
+		return delegate(el -> el.isSelected());
 	}
 
 	@Override
 	public boolean isEnabled() {
-		return getElement().isEnabled();
+		return delegate(el -> el.isEnabled());
 	}
 
 	@Override
 	public String getText() {
-		return getElement().getText();
+		return delegate(el -> el.getText());
 	}
 
 	@Override
 	public List<WebElement> findElements(By by) {
-		return getElement().findElements(by);
+		return delegate(el -> el.findElements(by));
 	}
 
 	@Override
 	public WebElement findElement(By by) {
-		return getElement().findElement(by);
+		return delegate(el -> el.findElement(by));
 	}
 
 	@Override
 	public boolean isDisplayed() {
-		return getElement().isDisplayed();
+		return delegate(el -> el.isDisplayed());
 	}
 
 	@Override
 	public Point getLocation() {
-		return getElement().getLocation();
+		return delegate(el -> el.getLocation());
 	}
 
 	@Override
 	public Dimension getSize() {
-		return getElement().getSize();
+		return delegate(el -> el.getSize());
 	}
 
 	@Override
 	public Rectangle getRect() {
-		return getElement().getRect();
+		Rectangle rect = BoundsBatch.lookup(this);
+		if (rect != null) {
+			return rect;
+		}
+		return delegate(el -> el.getRect());
 	}
 
 	@Override
 	public String getCssValue(String propertyName) {
-		return getElement().getCssValue(propertyName);
+		return delegate(el -> el.getCssValue(propertyName));
 	}
 
 	@Override
 	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
-		return getElement().getScreenshotAs(target);
+		return delegate(el -> el.getScreenshotAs(target));
 	}
 
 	@Override
 	public SearchContext getShadowRoot() {
-		return getElement().getShadowRoot();
+		return delegate(el -> el.getShadowRoot());
 	}
 	@Override
 	public String getAriaRole() {
-		return getElement().getAriaRole();
+		return delegate(el -> el.getAriaRole());
 	}
 
 	@Override
 	public String getAccessibleName() {
-		return getElement().getAccessibleName();
+		return delegate(el -> el.getAccessibleName());
 	}
 	@Override
 	public String getDomProperty(String name) {
-		return getElement().getDomProperty(name);
+		return delegate(el -> el.getDomProperty(name));
 	}
 
 	@Override
 	public String getDomAttribute(String name) {
-		return getElement().getDomAttribute(name);
+		return delegate(el -> el.getDomAttribute(name));
 	}
 
 	public String getElementLocator() {
@@ -172,6 +318,42 @@ public class LocatedWebElement implements WebElement {
 		return parent;
 	}
 
+	public By getBy() {
+		return by;
+	}
+
+	/**
+	 * Marks this element as found from the page root even though it has a parent, as with
+	 * ComponentModel.findPageElement.  The parent is kept for logging but not used to scope the locator.
+	 */
+	public LocatedWebElement pageScoped() {
+		this.pageScoped = true;
+		return this;
+	}
+
+	public boolean isPageScoped() {
+		return pageScoped;
+	}
+
+	/**
+	 * Marks this element as item index of the list returned by a find...Elements method, or as LIST_PLACEHOLDER.
+	 */
+	public LocatedWebElement listItem(int index) {
+		this.listIndex = index;
+		return this;
+	}
+
+	/**
+	 * @return position of this element in the list it was found in, or -1 if it was not found as part of a list
+	 */
+	public int getListIndex() {
+		return listIndex;
+	}
+
+	public boolean isListPlaceholder() {
+		return listIndex == LIST_PLACEHOLDER;
+	}
+
 	public boolean hasElement() {
 		return element != null;
 	}
@@ -188,6 +370,37 @@ public class LocatedWebElement implements WebElement {
 		return friendlyName != null;
 	}
 
+	/**
+	 * Finds the element, and any of its parents that have not been found yet, with a single script call from the
+	 * page root.  Parents found by the script are filled in.
+	 * @param all find every element matching the last locator instead of the first
+	 * @return elements matching the element locator, or null if the locator chain can not be resolved in the browser
+	 */
+	public static List<WebElement> resolveChain(WebDriver driver, LocatedWebElement element, boolean all) {
+		List<LocatedWebElement> steps = new ArrayList<>();
+		List<Object> chain = LocatorScript.locatorChain(element, steps);
+		if (chain == null || !(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			List<?> result = (List<?>) ((JavascriptExecutor) driver).executeScript(LocatorScript.RESOLVE_SCRIPT, chain, all);
+			List<?> path = (List<?>) result.get(0);
+			for (int i = 0; i < path.size(); i++) {
+				LocatedWebElement step = steps.get(i);
+				if (step != null && !step.hasElement() && path.get(i) instanceof WebElement) {
+					step.element = (WebElement) path.get(i);
+				}
+			}
+			List<WebElement> found = new ArrayList<>();
+			for (Object el : (List<?>) result.get(1)) {
+				found.add((WebElement) el);
+			}
+			return found;
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+
 	public Map<String,Object> getElementJson(ModelBase model) {
 		return getElementJson(this, "element", model);
 	}
@@ -8,12 +8,15 @@ import org.pagemodel.core.utils.ThrowingConsumer;
 import org.pagemodel.core.utils.ThrowingFunction;
 import org.pagemodel.core.utils.ThrowingRunnable;
 import org.pagemodel.web.testers.AlertTester;
+import org.pagemodel.web.testers.ElementListTester;
 import org.pagemodel.web.testers.PageTester;
+import org.pagemodel.web.utils.LocatorScript;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * @param <P> PageModel implementation type
@@ -139,7 +142,17 @@ public interface PageModel<P extends PageModel<? super P>> extends ModelBase {
 			return page -> {};
 		}
 
+		/**
+		 * @param ref element list getter, usually calling findPageElements
+		 */
+		protected ElementListTester<T> testElementList(String name, Callable<? extends List<?>> ref) {
+			return new ElementListTester<>(name, ref, (T) this, this, getEvaluator());
+		}
+
 		protected LocatedWebElement findPageElement(String name, By by) {
+			if (LocatorScript.isDeferred()) {
+				return new LocatedWebElement(null, name, by, this, null);
+			}
 			try {
 				WebElement el = getContext().getDriver().findElement(by);
 				return new LocatedWebElement(el, name, by, this, null);
@@ -149,8 +162,13 @@ public interface PageModel<P extends PageModel<? super P>> extends ModelBase {
 		}
 
 		protected <T extends LocatedWebElement> List<? super T> findPageElements(String name, By by) {
+			if (LocatorScript.isDeferred()) {
+				return Arrays.asList(new LocatedWebElement(null, name, by, this, null).listItem(LocatedWebElement.LIST_PLACEHOLDER));
+			}
 			try {
-				return Arrays.asList(getContext().getDriver().findElements(by).stream().map(el -> new LocatedWebElement(el, name, by, this, null)).toArray(WebElement[]::new));
+				List<WebElement> found = getContext().getDriver().findElements(by);
+				return Arrays.asList(IntStream.range(0, found.size())
+						.mapToObj(i -> new LocatedWebElement(found.get(i), name, by, this, null).listItem(i)).toArray(WebElement[]::new));
 			} catch (Exception e) {
 				return Arrays.asList(new LocatedWebElement(null, name, by, this, null));
 			}
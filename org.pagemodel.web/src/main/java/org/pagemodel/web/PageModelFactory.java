@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web;
+
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.testers.ClickAction;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Registry of page model and section model constructors, so that navigating to a page does not have to search
+ * the model class for a matching constructor every time.
+ * <p>
+ * Page models can register a constructor reference eagerly from a static initializer:
+ * <pre>
+ * static {
+ *     PageModelFactory.register(MyPage.class, MyTestContext.class, MyPage::new);
+ * }
+ * </pre>
+ * Classes that are not registered are looked up once per model class and context class, and the matching
+ * constructor is cached as a MethodHandle.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class PageModelFactory {
+	private final static Map<Class<?>, Map<Class<?>, Function<WebTestContext, ?>>> pageFactories = new ConcurrentHashMap<>();
+	private final static Map<Class<?>, BiFunction<ClickAction<?, ?>, TestEvaluator, ?>> sectionFactories = new ConcurrentHashMap<>();
+	private final static Function<WebTestContext, ?> NO_CONSTRUCTOR = context -> null;
+
+	public static <T extends PageModel<? super T>, C extends WebTestContext> void register(Class<T> clazz, Class<C> contextType, Function<? super C, ? extends T> factory) {
+		pageFactories.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>())
+				.put(contextType, context -> factory.apply(contextType.cast(context)));
+	}
+
+	public static <S> void registerSection(Class<S> clazz, BiFunction<ClickAction, TestEvaluator, ? extends S> factory) {
+		sectionFactories.put(clazz, (clickAction, testEvaluator) -> factory.apply(clickAction, testEvaluator));
+	}
+
+	/**
+	 * @return true if the page model class has a constructor that accepts the context type
+	 */
+	public static boolean hasPageFactory(Class<?> clazz, Class<? extends WebTestContext> contextType) {
+		return getPageFactory(clazz, contextType) != NO_CONSTRUCTOR;
+	}
+
+	/**
+	 * @return a new instance of the page model, or null if it has no constructor that accepts the context
+	 * @throws RuntimeException if the constructor throws an exception
+	 */
+	public static <T> T makePage(Class<T> clazz, WebTestContext context) {
+		Function<WebTestContext, ?> factory = getPageFactory(clazz, context.getClass());
+		return clazz.cast(factory.apply(context));
+	}
+
+	public static <S> S makeSection(Class<S> clazz, ClickAction<?, ?> clickAction, TestEvaluator testEvaluator) {
+		BiFunction<ClickAction<?, ?>, TestEvaluator, ?> factory = sectionFactories.get(clazz);
+		if (factory == null) {
+			initialize(clazz);
+			factory = sectionFactories.computeIfAbsent(clazz, PageModelFactory::findSectionConstructor);
+		}
+		return clazz.cast(factory.apply(clickAction, testEvaluator));
+	}
+
+	private static Function<WebTestContext, ?> getPageFactory(Class<?> clazz, Class<? extends WebTestContext> contextType) {
+		Map<Class<?>, Function<WebTestContext, ?>> factories = pageFactories.get(clazz);
+		Function<WebTestContext, ?> factory = factories == null ? null : factories.get(contextType);
+		if (factory != null) {
+			return factory;
+		}
+		initialize(clazz);
+		factories = pageFactories.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>());
+		return factories.computeIfAbsent(contextType, type -> {
+			for (Map.Entry<Class<?>, Function<WebTestContext, ?>> entry : pageFactories.get(clazz).entrySet()) {
+				if (entry.getValue() != NO_CONSTRUCTOR && entry.getKey().isAssignableFrom(type)) {
+					return entry.getValue();
+				}
+			}
+			return findPageConstructor(clazz, type);
+		});
+	}
+
+	private static Function<WebTestContext, ?> findPageConstructor(Class<?> clazz, Class<?> contextType) {
+		for (Constructor<?> c : clazz.getConstructors()) {
+			if (c.getParameterTypes().length == 1 && c.getParameterTypes()[0].isAssignableFrom(contextType)) {
+				MethodHandle handle = unreflect(c).asType(MethodType.methodType(Object.class, WebTestContext.class));
+				return context -> {
+					try {
+						return handle.invokeExact(context);
+					} catch (Throwable t) {
+						throw constructorException(clazz, t);
+					}
+				};
+			}
+		}
+		return NO_CONSTRUCTOR;
+	}
+
+	private static BiFunction<ClickAction<?, ?>, TestEvaluator, ?> findSectionConstructor(Class<?> clazz) {
+		MethodHandle handle;
+		try {
+			handle = MethodHandles.publicLookup()
+					.findConstructor(clazz, MethodType.methodType(void.class, ClickAction.class, TestEvaluator.class))
+					.asType(MethodType.methodType(Object.class, ClickAction.class, TestEvaluator.class));
+		} catch (NoSuchMethodException | IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+		return (clickAction, testEvaluator) -> {
+			try {
+				return handle.invokeExact(clickAction, testEvaluator);
+			} catch (Throwable t) {
+				throw constructorException(clazz, t);
+			}
+		};
+	}
+
+	private static MethodHandle unreflect(Constructor<?> c) {
+		try {
+			return MethodHandles.publicLookup().unreflectConstructor(c);
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private static RuntimeException constructorException(Class<?> clazz, Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		}
+		return new RuntimeException("Error creating Page Model for class: " + clazz.getName(), t);
+	}
+
+	private static void initialize(Class<?> clazz) {
+		// runs the static initializer, which may register a constructor reference for the class
+		try {
+			Class.forName(clazz.getName(), true, clazz.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError ex) {
+		}
+	}
+}
@@ -22,16 +22,16 @@ import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.core.utils.DomSnapshots;
 import org.pagemodel.web.testers.ClickAction;
 import org.pagemodel.web.testers.WebTestEvaluator;
+import org.pagemodel.web.utils.DriverTimeouts;
 import org.pagemodel.web.utils.Screenshot;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author Matt Stevenson [matt@pagemodel.org]
@@ -40,19 +40,13 @@ public class PageUtils {
 	public static int DEFAULT_PAGE_LOAD_TIMEOUT_SECONDS = 20;
 
 	public static <T extends PageModel<? super T>> T makeInstance(final Class<T> clazz, final WebTestContext context) {
-		try {
-			for(Constructor<?> c : clazz.getConstructors()){
-				if(c.getParameterTypes().length == 1 && c.getParameterTypes()[0].isAssignableFrom(context.getClass())){
-					T page = (T)c.newInstance(context);
-					//TODO: fix test evaluator message source to be cleared out
-//					return PageUtils.trySetEvaluator(page, context.getEvaluator());
-					return page;
-				}
-			}
+		T page = PageModelFactory.makePage(clazz, context);
+		if(page == null){
 			throw new RuntimeException("Error creating Page Model for class: " + clazz.getName() + ".  Unable to find valid constructor.");
-		} catch (IllegalAccessException | InstantiationException | InvocationTargetException ex) {
-			throw new RuntimeException(ex);
 		}
+		//TODO: fix test evaluator message source to be cleared out
+//		return PageUtils.trySetEvaluator(page, context.getEvaluator());
+		return page;
 	}
 
 	static public <T extends PageModel<? super T>> T waitForNavigateToPage(final Class<T> clazz, final WebTestContext context) {
@@ -68,32 +62,28 @@ public class PageUtils {
 	}
 
 	static public <T extends PageModel<? super T>> T waitForNavigateToPage(final Class<T> clazz, PageModel<?> sectionParent, Callable<WebElement> elementRef, final WebTestContext context, int timeout) {
-		try {
-			T page = null;
-			if (SectionModel.class.isAssignableFrom(clazz)) {
-				page = (T) SectionModel.make((Class) clazz, ClickAction.make(elementRef, (PageModel) sectionParent, sectionParent.getEvaluator()), sectionParent.getEvaluator());
-			} else {
-				for(Constructor<?> c : clazz.getConstructors()){
-					if(c.getParameterTypes().length == 1 && c.getParameterTypes()[0].isAssignableFrom(context.getClass())){
-						page = (T)c.newInstance(context);
-					}
-				}
-				if(page == null){
-					throw new RuntimeException("Error creating Page Model for class: " + clazz.getName() + ".  Unable to find valid constructor.");
-				}
+		T page = null;
+		if (SectionModel.class.isAssignableFrom(clazz)) {
+			page = (T) SectionModel.make((Class) clazz, ClickAction.make(elementRef, (PageModel) sectionParent, sectionParent.getEvaluator()), sectionParent.getEvaluator());
+		} else {
+			try {
+				page = PageModelFactory.makePage(clazz, context);
+			} catch (RuntimeException ex) {
+				Screenshot.takeScreenshot(context, "ERROR+" + clazz.getName());
+				throw ex;
 			}
-			//TODO: fix test evaluator message source to be cleared out
-//			PageUtils.trySetEvaluator(page, context.getEvaluator());
-			boolean isDisplayed = waitForPageIsDisplayed(page, timeout);
-			if (isDisplayed) {
-				page.onPageLoad();
-				return page;
-			} else {
-				throw new RuntimeException("Unable to find page: " + clazz.getName());
+			if(page == null){
+				throw new RuntimeException("Error creating Page Model for class: " + clazz.getName() + ".  Unable to find valid constructor.");
 			}
-		} catch (IllegalAccessException | InstantiationException | InvocationTargetException ex) {
-			Screenshot.takeScreenshot(context, "ERROR+" + clazz.getName());
-			throw new RuntimeException(ex);
+		}
+		//TODO: fix test evaluator message source to be cleared out
+//		PageUtils.trySetEvaluator(page, context.getEvaluator());
+		boolean isDisplayed = waitForPageIsDisplayed(page, timeout);
+		if (isDisplayed) {
+			page.onPageLoad();
+			return page;
+		} else {
+			throw new RuntimeException("Unable to find page: " + clazz.getName());
 		}
 	}
 
@@ -120,7 +110,7 @@ public class PageUtils {
 					"model displayed", op -> op
 							.addValue("model",  page.getClass().getSimpleName()));
 			wait.until(d -> {
-				page.getContext().getDriver().manage().timeouts().implicitlyWait(50, TimeUnit.MILLISECONDS);
+				DriverTimeouts.setImplicitWait(page.getContext().getDriver(), Duration.ofMillis(50));
 				try {
 					return page.modelDisplayed();
 				} catch (NullPointerException | NoSuchElementException | StaleElementReferenceException ex) {
@@ -170,6 +160,8 @@ public class PageUtils {
 			testType = TestEvaluator.TEST_LOG;
 		}
 		Screenshot.takeScreenshot(testContext, ("Page" + testType).replaceAll("\\s", ""));
+		String source = testContext.getDriver().getPageSource();
+		Map<String,Object> snapshot = DomSnapshots.ENABLED ? DomSnapshots.snapshot(source) : null;
 		testContext.getEvaluator().logEvent(testType, "page source", op -> op
 				.doAdd(o -> {
 					if(!msg.isEmpty()){
@@ -179,7 +171,12 @@ public class PageUtils {
 				.addValue("url", testContext.getDriver().getCurrentUrl())
 				.addValue("title", testContext.getDriver().getTitle())
 				.addValue("handle", testContext.getDriver().getWindowHandle())
-				.addValue("iframe", testContext.getDriver().getPageSource())
-				.addValue("html-src", testContext.getDriver().getPageSource()));
+				.doAdd(o -> {
+					if(snapshot != null){
+						o.addValue("dom", snapshot);
+					}else{
+						o.addValue("iframe", source);
+					}
+				}));
 	}
 }
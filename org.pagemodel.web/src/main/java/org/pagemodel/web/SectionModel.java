@@ -25,7 +25,6 @@ import org.pagemodel.web.testers.AlertTester;
 import org.pagemodel.web.testers.ClickAction;
 import org.pagemodel.web.testers.PageTester;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 
@@ -37,11 +36,7 @@ public abstract class SectionModel<S extends SectionModel<? super S, P, R>, P ex
 	protected WebTestContext testContext;
 
 	public static <S extends SectionModel<? super S, P, R>, P extends PageModel<? super P>, R extends PageModel<? super R>> S make(final Class<S> sectionClass, ClickAction<P, R> clickAction, TestEvaluator testEvaluator) {
-		try {
-			return sectionClass.getConstructor(ClickAction.class, TestEvaluator.class).newInstance(clickAction, testEvaluator);
-		} catch (NoSuchMethodException | IllegalAccessException | InstantiationException | InvocationTargetException ex) {
-			throw new RuntimeException(ex);
-		}
+		return PageModelFactory.makeSection(sectionClass, clickAction, testEvaluator);
 	}
 
 	protected P parentPage;
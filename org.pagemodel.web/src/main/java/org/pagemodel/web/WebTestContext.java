@@ -21,6 +21,8 @@ import org.pagemodel.core.TestContext;
 import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.core.utils.json.JsonLogConsoleOut;
 import org.pagemodel.web.utils.PageException;
+import org.pagemodel.web.utils.ScreenshotDedup;
+import org.pagemodel.web.utils.ScreenshotWriter;
 
 import java.util.Map;
 
@@ -34,9 +36,11 @@ public interface WebTestContext extends TestContext {
 	void setDriver(WebDriver driver);
 
 	default void quit() {
+		ScreenshotWriter.flush();
 		if (getDriver() == null) {
 			return;
 		}
+		ScreenshotDedup.reset(getDriver());
 		this.getEvaluator().logEvent(TestEvaluator.TEST_EXECUTE, "close browser", json -> {});
 		try {
 			getDriver().quit();
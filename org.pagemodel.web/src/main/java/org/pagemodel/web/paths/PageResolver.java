@@ -22,18 +22,17 @@ import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.pagemodel.web.PageModel;
+import org.pagemodel.web.PageModelFactory;
 import org.pagemodel.web.PageUtils;
 import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.utils.DriverTimeouts;
 import org.pagemodel.web.utils.Screenshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author Matt Stevenson [matt@pagemodel.org]
@@ -64,12 +63,12 @@ public class PageResolver {
 
 	public <T extends PageModel<? super T>> T tryPageTypesOnce(WebTestContext testContext, int timeoutSeconds, Class<? extends PageModel>... classList) {
 		try {
-			testContext.getDriver().manage().timeouts().implicitlyWait(1, TimeUnit.SECONDS);
+			DriverTimeouts.setImplicitWait(testContext.getDriver(), Duration.ofSeconds(1));
 			if (!waitForPageLoad(testContext, timeoutSeconds)) {
 				Screenshot.takeScreenshot(testContext, "ERROR_" + classList[0].getSimpleName());
 				return null;
 			}
-			testContext.getDriver().manage().timeouts().implicitlyWait(500, TimeUnit.MILLISECONDS);
+			DriverTimeouts.setImplicitWait(testContext.getDriver(), Duration.ofMillis(500));
 			for (Class<? extends PageModel> clazz : classList) {
 				T page = tryPageType(clazz, testContext);
 				if (page != null) {
@@ -79,7 +78,7 @@ public class PageResolver {
 			Screenshot.takeScreenshot(testContext, "ERROR_" + classList[0].getSimpleName());
 			return null;
 		} finally {
-			testContext.getDriver().manage().timeouts().implicitlyWait(1, TimeUnit.SECONDS);
+			DriverTimeouts.setImplicitWait(testContext.getDriver(), Duration.ofSeconds(1));
 		}
 	}
 
@@ -99,16 +98,12 @@ public class PageResolver {
 	public <T extends PageModel<? super T>> T tryPageType(Class<? extends PageModel> clazz, WebTestContext testContext) {
 		T page = null;
 		try {
-			for(Constructor<?> c : clazz.getConstructors()){
-				if(c.getParameterTypes().length == 1 && c.getParameterTypes()[0].isAssignableFrom(testContext.getClass())){
-					page = (T)c.newInstance(testContext);
-				}
-			}
+			page = (T) PageModelFactory.makePage(clazz, testContext);
 			if(page == null){
 				log.error("Error creating Page Model for class: " + clazz.getName() + ".  Unable to find valid constructor.");
 				return null;
 			}
-		} catch (IllegalAccessException | InstantiationException | InvocationTargetException ex) {
+		} catch (RuntimeException ex) {
 			log.error("Error creating Page Model for class: " + clazz.getName(), ex);
 			return null;
 		}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.testers;
+
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.utils.BrowserAssert;
+import org.pagemodel.web.utils.BrowserWait;
+import org.pagemodel.web.utils.LocatorScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A test condition that can also be waited on in the browser with BrowserWait.
+ * Calling it runs the java test, which remains the source of truth for the assertion, unless BrowserAssert is
+ * enabled, in which case the condition is tested in the browser with one script call.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class BrowserCondition implements Callable<Boolean> {
+	protected Callable<LocatedWebElement> elementRef;
+	protected String condition;
+	protected List<String> args;
+	protected Callable<Boolean> test;
+	protected Callable<?> actualRef;
+	protected List<?> evaluated;
+
+	public BrowserCondition(Callable<LocatedWebElement> elementRef, String condition, Callable<Boolean> test, String... args) {
+		this.elementRef = elementRef;
+		this.condition = condition;
+		this.test = test;
+		this.args = Arrays.asList(args);
+	}
+
+	/**
+	 * @param actualRef java reference for the actual value of a predicate condition, used when the value can not be
+	 *                  read in the browser
+	 */
+	public BrowserCondition withActual(Callable<?> actualRef) {
+		this.actualRef = actualRef;
+		return this;
+	}
+
+	public String getCondition() {
+		return condition;
+	}
+
+	public List<String> getArgs() {
+		return args;
+	}
+
+	@Override
+	public Boolean call() throws Exception {
+		if (BrowserAssert.ENABLED) {
+			List<?> result = evaluated != null ? evaluated : evaluate();
+			evaluated = null;
+			if (result != null) {
+				return Boolean.TRUE.equals(result.get(0));
+			}
+		}
+		return test.call();
+	}
+
+	/**
+	 * Actual value for the event log.  With BrowserAssert enabled the value is read by the same script that tests the
+	 * condition, and the next call uses that result instead of running the script again.
+	 */
+	public Object getActual() {
+		if (BrowserAssert.ENABLED) {
+			evaluated = evaluate();
+			if (evaluated != null) {
+				return evaluated.get(1);
+			}
+		}
+		try {
+			return actualRef == null ? null : actualRef.call();
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+
+	protected List<?> evaluate() {
+		try {
+			LocatedWebElement element = LocatorScript.deferred(elementRef);
+			return element == null ? null : BrowserAssert.evaluate(element.getDriver(), LocatorScript.locatorChain(element), condition, args);
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return true if the condition was met in the browser, false on timeout, or null if the condition can not be
+	 * waited on in the browser
+	 */
+	public Boolean waitInBrowser(WebDriver driver, long timeoutMs) {
+		return waitInBrowser(driver, timeoutMs, null);
+	}
+
+	/**
+	 * @param abort abort conditions from WaitAbort.browserArgs, or null
+	 */
+	public Boolean waitInBrowser(WebDriver driver, long timeoutMs, List<Object> abort) {
+		evaluated = null;
+		try {
+			List<Object> chain = LocatorScript.locatorChain(elementRef.call());
+			return BrowserWait.waitFor(driver, chain, condition, args, timeoutMs, abort);
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+}
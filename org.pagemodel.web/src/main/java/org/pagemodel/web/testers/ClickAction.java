@@ -28,12 +28,12 @@ import org.pagemodel.web.LocatedWebElement;
 import org.pagemodel.web.PageModel;
 import org.pagemodel.web.PageUtils;
 import org.pagemodel.web.SectionModel;
+import org.pagemodel.web.utils.DriverTimeouts;
 import org.pagemodel.web.utils.PageException;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author Matt Stevenson [matt@pagemodel.org]
@@ -237,11 +237,10 @@ public class ClickAction<P extends PageModel<? super P>, N extends PageModel<? s
 		} else {
 			try {
 				if(navWait != 0){
-					getPage().getContext().getDriver().manage().timeouts().pageLoadTimeout(navWait, TimeUnit.SECONDS);
-				}
-				doClick(testClickable);
-				if(navWait != 0){
-					getPage().getContext().getDriver().manage().timeouts().pageLoadTimeout(20, TimeUnit.SECONDS);
+					DriverTimeouts.forDriver(getPage().getContext().getDriver())
+							.runWithTimeout(DriverTimeouts.Type.PAGE_LOAD, Duration.ofSeconds(navWait), () -> doClick(testClickable));
+				} else {
+					doClick(testClickable);
 				}
 				return afterAction();
 			} catch (Throwable t) {
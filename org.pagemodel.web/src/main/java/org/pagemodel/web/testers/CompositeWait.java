@@ -0,0 +1,399 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.testers;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.core.utils.ThrowingFunction;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.PageUtils;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.utils.BrowserWait;
+import org.pagemodel.web.utils.DriverTimeouts;
+import org.pagemodel.web.utils.LocatorScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Waits for several element and page conditions at once, and reports which of them matched.
+ * <p>
+ * Element conditions are checked together with one script call per poll.  Page model and custom conditions, and
+ * element conditions that can not be checked by the script, are checked in java on the same poll with the implicit
+ * wait set to zero, so a missing element does not hold up the other conditions.  A wait needs at least one
+ * condition.
+ * <ul>
+ * <li>any: ends when at least one condition matches, and reports all conditions matched on that poll</li>
+ * <li>all: ends when every condition matches</li>
+ * <li>first-of: ends when at least one condition matches, and reports only the first matched condition in the
+ * order they were added</li>
+ * </ul>
+ *
+ * @param <P> page model the wait starts from
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class CompositeWait<P extends PageModel<? super P>> {
+	public static long POLL_MS = 250;
+
+	public enum Mode {
+		ANY, ALL, FIRST_OF
+	}
+
+	private final static String CONDITIONS_SCRIPT =
+			"var items = arguments[0], results = [], i;"
+			+ LocatorScript.DOM_FUNCTIONS
+			+ BrowserWait.CONDITION_FUNCTIONS
+			+ "for (i = 0; i < items.length; i++) {"
+			+ "  try { results.push(pmCondition(pmResolve(items[i][0]), items[i][1], items[i][2]) === true); }"
+			+ "  catch (e) { results.push(false); }"
+			+ "}"
+			+ "return results;";
+
+	protected final P page;
+	protected final WebTestContext testContext;
+	private final TestEvaluator testEvaluator;
+	protected final Mode mode;
+	protected final List<Branch> branches = new ArrayList<>();
+	protected int waitSec = WebElementTester.WebElementWait.DEFAULT_WAIT_SEC;
+
+	protected abstract class Branch {
+		protected final String name;
+
+		protected Branch(String name) {
+			this.name = name;
+		}
+
+		protected abstract boolean test() throws Exception;
+
+		/**
+		 * Finds the locator chain of an element condition before polling starts.
+		 */
+		protected void prepare() {
+		}
+
+		/**
+		 * @return [chain, condition, args] to check this condition in the condition script, or null
+		 */
+		protected List<Object> scriptItem() {
+			return null;
+		}
+
+		protected PageModel<?> getModel() {
+			return null;
+		}
+	}
+
+	protected class ElementBranch extends Branch {
+		protected final ThrowingFunction<P, ? extends WebElementTester<?, ?>, ?> element;
+		protected final String condition;
+		protected final List<String> args;
+		protected List<Object> chain;
+
+		protected ElementBranch(String name, ThrowingFunction<P, ? extends WebElementTester<?, ?>, ?> element, String condition, String... args) {
+			super(name);
+			this.element = element;
+			this.condition = condition;
+			this.args = Arrays.asList(args);
+		}
+
+		protected LocatedWebElement find() {
+			return ThrowingFunction.unchecked(element).apply(page).callRef();
+		}
+
+		@Override
+		protected void prepare() {
+			chain = LocatorScript.locatorChain(LocatorScript.deferred(this::find));
+		}
+
+		@Override
+		protected List<Object> scriptItem() {
+			return chain == null ? null : Arrays.asList(chain, condition, args);
+		}
+
+		@Override
+		protected boolean test() {
+			return DriverTimeouts.forDriver(testContext.getDriver()).withTimeout(DriverTimeouts.Type.IMPLICIT_WAIT, Duration.ZERO,
+					() -> matches(find()));
+		}
+
+		protected boolean matches(LocatedWebElement el) {
+			boolean found = el != null && el.hasElement();
+			switch (condition) {
+				case BrowserWait.EXISTS:
+					return found;
+				case BrowserWait.NOT_EXISTS:
+					return !found;
+				case BrowserWait.DISPLAYED:
+					return found && el.isDisplayed();
+				case BrowserWait.NOT_DISPLAYED:
+					return !found || !el.isDisplayed();
+				case BrowserWait.TEXT_CONTAINS:
+					return found && LocatorScript.normalizeText(el.getText()).contains(args.get(0));
+				case BrowserWait.TEXT_EQUALS:
+					return found && args.get(0).equals(LocatorScript.normalizeText(el.getText()));
+				case BrowserWait.ATTRIBUTE_CONTAINS:
+					return found && el.getAttribute(args.get(0)) != null && el.getAttribute(args.get(0)).contains(args.get(1));
+				case BrowserWait.ATTRIBUTE_EQUALS:
+					return found && args.get(1).equals(el.getAttribute(args.get(0)));
+			}
+			throw new IllegalArgumentException("Unsupported condition: " + condition);
+		}
+	}
+
+	protected class PageBranch extends Branch {
+		protected final Function<WebTestContext, PageModel<?>> makePage;
+		protected PageModel<?> model;
+
+		protected <T extends PageModel<? super T>> PageBranch(String name, Class<T> pageClass) {
+			super(name);
+			this.makePage = context -> PageUtils.makeInstance(pageClass, context);
+		}
+
+		@Override
+		protected PageModel<?> getModel() {
+			return model;
+		}
+
+		@Override
+		protected boolean test() {
+			return DriverTimeouts.forDriver(testContext.getDriver()).withTimeout(DriverTimeouts.Type.IMPLICIT_WAIT, Duration.ZERO, () -> {
+				PageModel<?> instance = makePage.apply(testContext);
+				if (instance.modelDisplayed()) {
+					model = instance;
+					return true;
+				}
+				return false;
+			});
+		}
+	}
+
+	protected class CustomBranch extends Branch {
+		protected final ThrowingFunction<P, Boolean, ?> test;
+
+		protected CustomBranch(String name, ThrowingFunction<P, Boolean, ?> test) {
+			super(name);
+			this.test = test;
+		}
+
+		@Override
+		protected boolean test() {
+			return Boolean.TRUE.equals(ThrowingFunction.unchecked(test).apply(page));
+		}
+	}
+
+	/**
+	 * Conditions matched when the wait ended.
+	 */
+	public static class Result<P> {
+		protected final P page;
+		protected final List<String> matched = new ArrayList<>();
+		protected final Map<String, PageModel<?>> models = new LinkedHashMap<>();
+
+		protected Result(P page) {
+			this.page = page;
+		}
+
+		/**
+		 * @return name of the first matched condition, in the order they were added
+		 */
+		public String getMatched() {
+			return matched.isEmpty() ? null : matched.get(0);
+		}
+
+		public List<String> getAllMatched() {
+			return new ArrayList<>(matched);
+		}
+
+		public boolean isMatched(String name) {
+			return matched.contains(name);
+		}
+
+		/**
+		 * @return the page model found by a matched whenPage condition, or null
+		 */
+		public PageModel<?> getModel(String name) {
+			return models.get(name);
+		}
+
+		/**
+		 * @return the page model found by a matched whenPage condition, or null
+		 */
+		public <T extends PageModel<? super T>> T getModel(String name, Class<T> pageClass) {
+			return pageClass.cast(models.get(name));
+		}
+
+		public P getPage() {
+			return page;
+		}
+	}
+
+	public CompositeWait(Mode mode, P page, WebTestContext testContext, TestEvaluator testEvaluator) {
+		this.mode = mode;
+		this.page = page;
+		this.testContext = testContext;
+		this.testEvaluator = testEvaluator;
+	}
+
+	protected TestEvaluator getEvaluator() {
+		return testEvaluator;
+	}
+
+	public CompositeWait<P> withTimeout(int waitSec) {
+		this.waitSec = waitSec;
+		return this;
+	}
+
+	/**
+	 * @param condition one of the BrowserWait condition names, such as BrowserWait.DISPLAYED
+	 * @param args      condition arguments: expected text, or attribute name and expected value
+	 */
+	public CompositeWait<P> when(String name, ThrowingFunction<P, ? extends WebElementTester<?, ?>, ?> element, String condition, String... args) {
+		if (!BrowserWait.isSupported(condition)) {
+			throw new IllegalArgumentException("Unsupported condition: " + condition);
+		}
+		branches.add(new ElementBranch(name, element, condition, args));
+		return this;
+	}
+
+	public CompositeWait<P> whenDisplayed(String name, ThrowingFunction<P, ? extends WebElementTester<?, ?>, ?> element) {
+		return when(name, element, BrowserWait.DISPLAYED);
+	}
+
+	public CompositeWait<P> whenExists(String name, ThrowingFunction<P, ? extends WebElementTester<?, ?>, ?> element) {
+		return when(name, element, BrowserWait.EXISTS);
+	}
+
+	public CompositeWait<P> whenTextContains(String name, ThrowingFunction<P, ? extends WebElementTester<?, ?>, ?> element, String text) {
+		return when(name, element, BrowserWait.TEXT_CONTAINS, text);
+	}
+
+	/**
+	 * Matches when the page model is displayed.  The model is available from Result.getModel.
+	 */
+	public <T extends PageModel<? super T>> CompositeWait<P> whenPage(String name, Class<T> pageClass) {
+		branches.add(new PageBranch(name, pageClass));
+		return this;
+	}
+
+	public CompositeWait<P> whenTrue(String name, ThrowingFunction<P, Boolean, ?> test) {
+		branches.add(new CustomBranch(name, test));
+		return this;
+	}
+
+	public Result<P> test() {
+		if (branches.isEmpty()) {
+			throw new IllegalStateException("No conditions added to wait " + mode.name().toLowerCase().replace('_', '-'));
+		}
+		Result<P> result = new Result<>(page);
+		String action = "wait " + mode.name().toLowerCase().replace('_', '-');
+		return getEvaluator().testCondition(action, op -> op
+						.addValue("timeout", waitSec)
+						.addValue("conditions", branches.stream().map(b -> b.name).collect(Collectors.toList())),
+				() -> poll(action, result),
+				result, testContext);
+	}
+
+	protected boolean poll(String action, Result<P> result) throws InterruptedException {
+		for (Branch branch : branches) {
+			branch.prepare();
+		}
+		long end = System.currentTimeMillis() + waitSec * 1000L;
+		while (true) {
+			boolean[] matched = check();
+			boolean any = false;
+			boolean all = true;
+			for (boolean m : matched) {
+				any |= m;
+				all &= m;
+			}
+			if (mode == Mode.ALL ? all : any) {
+				for (int i = 0; i < matched.length; i++) {
+					if (matched[i]) {
+						Branch branch = branches.get(i);
+						result.matched.add(branch.name);
+						if (branch.getModel() != null) {
+							result.models.put(branch.name, branch.getModel());
+						}
+						if (mode == Mode.FIRST_OF) {
+							break;
+						}
+					}
+				}
+				getEvaluator().logEvent(TestEvaluator.TEST_EXECUTE, action + " matched", op -> op
+						.addValue("matched", new ArrayList<>(result.matched)));
+				return true;
+			}
+			if (System.currentTimeMillis() >= end) {
+				return false;
+			}
+			Thread.sleep(POLL_MS);
+		}
+	}
+
+	/**
+	 * @return whether each condition matched, with all scriptable element conditions checked in one script call
+	 */
+	protected boolean[] check() {
+		boolean[] matched = new boolean[branches.size()];
+		List<Integer> scripted = new ArrayList<>();
+		List<Object> items = new ArrayList<>();
+		for (int i = 0; i < branches.size(); i++) {
+			List<Object> item = branches.get(i).scriptItem();
+			if (item != null) {
+				scripted.add(i);
+				items.add(item);
+			}
+		}
+		List<?> results = items.isEmpty() ? null : runScript(testContext.getDriver(), items);
+		if (results == null) {
+			scripted.clear();
+		}
+		for (int i = 0; i < branches.size(); i++) {
+			int index = scripted.indexOf(i);
+			if (index >= 0) {
+				matched[i] = Boolean.TRUE.equals(results.get(index));
+				continue;
+			}
+			try {
+				matched[i] = branches.get(i).test();
+			} catch (Throwable t) {
+				matched[i] = false;
+			}
+		}
+		return matched;
+	}
+
+	private static List<?> runScript(WebDriver driver, List<Object> items) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			Object result = ((JavascriptExecutor) driver).executeScript(CONDITIONS_SCRIPT, items);
+			return result instanceof List && ((List<?>) result).size() == items.size() ? (List<?>) result : null;
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+}
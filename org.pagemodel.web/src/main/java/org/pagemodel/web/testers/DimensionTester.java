@@ -20,6 +20,8 @@ import org.openqa.selenium.Dimension;
 import org.pagemodel.core.TestContext;
 import org.pagemodel.core.testers.ComparableTester;
 import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.utils.BrowserAssert;
 
 import java.util.concurrent.Callable;
 
@@ -31,6 +33,7 @@ public class DimensionTester<R> {
 	protected final Callable<Dimension> ref;
 	protected final TestContext testContext;
 	private TestEvaluator testEvaluator;
+	protected Callable<LocatedWebElement> elementRef;
 
 	public DimensionTester(Callable<Dimension> ref, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
 		this.ref = ref;
@@ -39,6 +42,14 @@ public class DimensionTester<R> {
 		this.testEvaluator = testEvaluator;
 	}
 
+	/**
+	 * @param elementRef element the size is read from, so width and height assertions can be tested in the browser
+	 */
+	public DimensionTester(Callable<Dimension> ref, Callable<LocatedWebElement> elementRef, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		this(ref, returnObj, testContext, testEvaluator);
+		this.elementRef = elementRef;
+	}
+
 	protected Dimension callRef() {
 		try {
 			return ref.call();
@@ -52,10 +63,16 @@ public class DimensionTester<R> {
 	}
 
 	public ComparableTester<Integer, R> width() {
+		if (elementRef != null) {
+			return new ElementComparableTester<>(() -> callRef().getWidth(), elementRef, BrowserAssert.WIDTH, returnObj, testContext, getEvaluator());
+		}
 		return new ComparableTester<>(() -> callRef().getWidth(), returnObj, testContext, getEvaluator());
 	}
 
 	public ComparableTester<Integer, R> height() {
+		if (elementRef != null) {
+			return new ElementComparableTester<>(() -> callRef().getHeight(), elementRef, BrowserAssert.HEIGHT, returnObj, testContext, getEvaluator());
+		}
 		return new ComparableTester<>(() -> callRef().getHeight(), returnObj, testContext, getEvaluator());
 	}
 }
@@ -31,9 +31,12 @@ public class DropDownTester<R, P extends PageModel<? super P>> extends SelectTes
 			super(type, val, select, returnObj, clickAction, testEvaluator);
 		}
 
-		protected void selectByType() {
-			String text = callRef().getText();
-			select.selectText(text);
+		protected void selectByType() throws Exception {
+			if ("index".equals(type)) {
+				select.setOption("text", callRef().getText(), true);
+			} else {
+				select.setOption(type, val, true);
+			}
 		}
 	}
 }
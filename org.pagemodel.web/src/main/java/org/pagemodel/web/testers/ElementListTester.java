@@ -0,0 +1,241 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.testers;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.pagemodel.core.testers.ComparableTester;
+import org.pagemodel.core.testers.StringListTester;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.utils.LocatorScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Tests a property across every element of a list, such as the rows of a table, fetching the property for all
+ * elements with a single script instead of one command per element.
+ * <p>
+ * The element list reference is usually a getter calling findPageElements or findComponentElements.  When its
+ * locator chain can be scripted, the elements are also found by the same script.
+ *
+ * @param <R> return type for method chaining
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ElementListTester<R> {
+	private final static String PROJECT_SCRIPT =
+			"var chain = arguments[0], els = arguments[1], prop = arguments[2], arg = arguments[3], out = [], i;"
+			+ LocatorScript.DOM_FUNCTIONS
+			+ "if (chain.length > 0) { els = pmResolveAll(chain); }"
+			+ "for (i = 0; i < els.length; i++) {"
+			+ "  var el = els[i];"
+			+ "  if (prop === 'text') { out.push(pmText(el)); }"
+			+ "  else if (prop === 'attribute') { out.push(pmAttr(el, arg)); }"
+			+ "  else if (prop === 'tagName') { out.push(el.tagName.toLowerCase()); }"
+			+ "  else if (prop === 'cssValue') { out.push(window.getComputedStyle(el).getPropertyValue(arg)); }"
+			+ "  else if (prop === 'displayed') { out.push(pmVisible(el)); }"
+			+ "  else if (prop === 'rect') {"
+			+ "    var r = el.getBoundingClientRect();"
+			+ "    out.push([Math.round(r.left + window.pageXOffset), Math.round(r.top + window.pageYOffset), Math.round(r.width), Math.round(r.height)]);"
+			+ "  }"
+			+ "}"
+			+ "return out;";
+
+	protected final String name;
+	protected final Callable<? extends List<?>> ref;
+	protected final R returnObj;
+	protected final PageModel<?> page;
+	private final TestEvaluator testEvaluator;
+
+	public ElementListTester(String name, Callable<? extends List<?>> ref, R returnObj, PageModel<?> page, TestEvaluator testEvaluator) {
+		this.name = name;
+		this.ref = ref;
+		this.returnObj = returnObj;
+		this.page = page;
+		this.testEvaluator = testEvaluator;
+	}
+
+	protected TestEvaluator getEvaluator() {
+		return testEvaluator;
+	}
+
+	public StringListTester<R> text() {
+		getEvaluator().setSourceFindEvent("text", op -> op.addValue("elements", name));
+		return new StringListTester<>(() -> strings(project("text", null)), returnObj, page.getContext(), getEvaluator());
+	}
+
+	public StringListTester<R> attribute(String attribute) {
+		getEvaluator().setSourceFindEvent("attribute", op -> op
+				.addValue("value", attribute)
+				.addValue("elements", name));
+		return new StringListTester<>(() -> strings(project("attribute", attribute)), returnObj, page.getContext(), getEvaluator());
+	}
+
+	public StringListTester<R> tagName() {
+		getEvaluator().setSourceFindEvent("tag name", op -> op.addValue("elements", name));
+		return new StringListTester<>(() -> strings(project("tagName", null)), returnObj, page.getContext(), getEvaluator());
+	}
+
+	public StringListTester<R> cssValue(String property) {
+		getEvaluator().setSourceFindEvent("css value", op -> op
+				.addValue("value", property)
+				.addValue("elements", name));
+		return new StringListTester<>(() -> strings(project("cssValue", property)), returnObj, page.getContext(), getEvaluator());
+	}
+
+	public ComparableTester<Integer, R> size() {
+		getEvaluator().setSourceFindEvent("size", op -> op.addValue("elements", name));
+		return new ComparableTester<>(() -> project("tagName", null).size(), returnObj, page.getContext(), getEvaluator());
+	}
+
+	public ComparableTester<Integer, R> displayedCount() {
+		getEvaluator().setSourceFindEvent("displayed count", op -> op.addValue("elements", name));
+		return new ComparableTester<>(() -> (int) project("displayed", null).stream().filter(Boolean.TRUE::equals).count(),
+				returnObj, page.getContext(), getEvaluator());
+	}
+
+	public R allDisplayed() {
+		return getEvaluator().testCondition("all displayed", op -> op
+						.addValue("elements", name)
+						.addValue("actual", project("displayed", null)),
+				() -> {
+					List<Object> displayed = project("displayed", null);
+					return !displayed.isEmpty() && displayed.stream().allMatch(Boolean.TRUE::equals);
+				},
+				returnObj, page.getContext());
+	}
+
+	public R noneDisplayed() {
+		return getEvaluator().testCondition("none displayed", op -> op
+						.addValue("elements", name)
+						.addValue("actual", project("displayed", null)),
+				() -> project("displayed", null).stream().noneMatch(Boolean.TRUE::equals),
+				returnObj, page.getContext());
+	}
+
+	public RectangleTester<R> rectAt(int index) {
+		getEvaluator().setSourceFindEvent("bounds", op -> op
+				.addValue("value", index)
+				.addValue("elements", name));
+		return new RectangleTester<>(name + "[" + index + "]", () -> rects().get(index), returnObj, page.getContext(), getEvaluator());
+	}
+
+	public List<Rectangle> rects() {
+		return project("rect", null).stream().map(val -> {
+			List<?> rect = (List<?>) val;
+			int x = ((Number) rect.get(0)).intValue();
+			int y = ((Number) rect.get(1)).intValue();
+			int width = ((Number) rect.get(2)).intValue();
+			int height = ((Number) rect.get(3)).intValue();
+			return new Rectangle(x, y, height, width);
+		}).collect(Collectors.toList());
+	}
+
+	/**
+	 * Fetches a property for every element in the list with one script, or reads it from each element in turn if
+	 * the script can not be run.  Failures to find the elements are thrown rather than read as an empty list.
+	 */
+	protected List<Object> project(String property, String arg) {
+		List<Object> chain = null;
+		List<?> deferred = LocatorScript.deferred(ref);
+		if (deferred != null && deferred.size() == 1 && deferred.get(0) instanceof LocatedWebElement) {
+			chain = LocatorScript.listChain((LocatedWebElement) deferred.get(0));
+		}
+		List<WebElement> elements = chain == null ? findElements() : new ArrayList<>();
+		WebDriver driver = page.getContext().getDriver();
+		if (driver instanceof JavascriptExecutor) {
+			try {
+				Object result = ((JavascriptExecutor) driver).executeScript(PROJECT_SCRIPT,
+						chain == null ? new ArrayList<>() : chain, elements, property, arg == null ? "" : arg);
+				if (result instanceof List) {
+					return new ArrayList<>((List<?>) result);
+				}
+			} catch (WebDriverException ex) {
+			}
+		}
+		if (chain != null) {
+			elements = findElements();
+		}
+		try {
+			List<Object> values = new ArrayList<>();
+			for (WebElement element : elements) {
+				values.add(read(element, property, arg));
+			}
+			return values;
+		} catch (WebDriverException ex) {
+			throw page.getContext().createException("Error: Unable to read " + property + " of elements: " + name, ex);
+		}
+	}
+
+	private List<WebElement> findElements() {
+		try {
+			return elements(ref.call());
+		} catch (Exception ex) {
+			throw page.getContext().createException("Error: Unable to find elements: " + name, ex);
+		}
+	}
+
+	private static Object read(WebElement element, String property, String arg) {
+		switch (property) {
+			case "text":
+				return LocatorScript.normalizeText(element.getText());
+			case "attribute":
+				return element.getAttribute(arg);
+			case "tagName":
+				return element.getTagName().toLowerCase();
+			case "cssValue":
+				return element.getCssValue(arg);
+			case "displayed":
+				return element.isDisplayed();
+			case "rect":
+				Rectangle rect = element.getRect();
+				return Arrays.asList(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+			default:
+				throw new IllegalArgumentException("Unknown element property: " + property);
+		}
+	}
+
+	private static List<WebElement> elements(List<?> list) {
+		List<WebElement> elements = new ArrayList<>();
+		if (list == null) {
+			return elements;
+		}
+		for (Object obj : list) {
+			if (obj instanceof LocatedWebElement) {
+				LocatedWebElement located = (LocatedWebElement) obj;
+				if (located.hasElement()) {
+					elements.add(located.getElement());
+				}
+			} else if (obj instanceof WebElement) {
+				elements.add((WebElement) obj);
+			}
+		}
+		return elements;
+	}
+
+	private static List<String> strings(List<Object> values) {
+		return values.stream().map(val -> val == null ? null : val.toString()).collect(Collectors.toList());
+	}
+}
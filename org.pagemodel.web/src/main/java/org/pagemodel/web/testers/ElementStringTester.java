@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.testers;
+
+import org.pagemodel.core.TestContext;
+import org.pagemodel.core.testers.StringTester;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.LocatedWebElement;
+import org.pagemodel.web.utils.BrowserAssert;
+import org.pagemodel.web.utils.BrowserWait;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * StringTester for element text, attributes and tag name, where assertions can be tested in the browser.
+ * Assertions are compiled into BrowserWait predicate conditions, which are waited on in the browser, and tested
+ * with one script call when BrowserAssert is enabled.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ElementStringTester<R> extends StringTester<R> {
+	protected Callable<LocatedWebElement> elementRef;
+	protected String kind;
+	protected String attribute;
+
+	public ElementStringTester(Callable<String> ref, Callable<LocatedWebElement> elementRef, String attribute, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		this(ref, elementRef, attribute == null ? BrowserAssert.TEXT : BrowserAssert.ATTRIBUTE, attribute, returnObj, testContext, testEvaluator);
+	}
+
+	/**
+	 * @param kind      value of the element being tested: BrowserAssert.TEXT, ATTRIBUTE or TAG_NAME
+	 * @param attribute attribute name for BrowserAssert.ATTRIBUTE, otherwise null
+	 */
+	public ElementStringTester(Callable<String> ref, Callable<LocatedWebElement> elementRef, String kind, String attribute, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		super(ref, returnObj, testContext, testEvaluator);
+		this.elementRef = elementRef;
+		this.kind = kind;
+		this.attribute = attribute;
+	}
+
+	@Override
+	protected Callable<Boolean> condition(String action, String value, Callable<Boolean> test) {
+		String op = BrowserAssert.predicateOp(action);
+		if (op == null || (value == null && !op.endsWith(BrowserAssert.EMPTY))) {
+			return test;
+		}
+		List<String> args = BrowserAssert.predicateArgs(kind, attribute, op, value);
+		if (args == null) {
+			return test;
+		}
+		return new BrowserCondition(elementRef, BrowserWait.PREDICATE, test, args.toArray(new String[0]))
+				.withActual(this::callRef);
+	}
+
+	@Override
+	protected Object actual(Callable<Boolean> test) {
+		return test instanceof BrowserCondition ? ((BrowserCondition) test).getActual() : callRef();
+	}
+}
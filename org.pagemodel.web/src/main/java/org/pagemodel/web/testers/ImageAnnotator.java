@@ -22,6 +22,7 @@ import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.core.utils.ThrowingConsumer;
 import org.pagemodel.core.utils.ThrowingFunction;
 import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.utils.BoundsBatch;
 import org.pagemodel.web.utils.Screenshot;
 
 import javax.imageio.ImageIO;
@@ -31,16 +32,31 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
 
 import static org.pagemodel.web.utils.Screenshot.SCREENSHOT_DEST;
 
 /**
+ * Draws annotations on a screenshot.
+ * <p>
+ * Drawing calls are recorded and painted when the image is saved or stored.  Before painting, the element bounds
+ * needed by all recorded calls are resolved together with one script call (see BoundsBatch), instead of a round
+ * trip for each element, and bounds functions are run in the order they were recorded so they can use values
+ * computed by earlier useGraphics calls.  Other values computed by useGraphics, such as arc sizes, are passed as
+ * suppliers so they are also read when painting.  Errors while painting the calls recorded by
+ * paint(paintFunc, onError) are passed to onError, so they can be attributed to what was being drawn.
+ *
  * @author Matt Stevenson [matt@pagemodel.org]
  */
 public class ImageAnnotator<R> {
+	public static boolean ANTIALIAS = true;
+
 	protected final R returnObj;
 	protected final Callable<BufferedImage> ref;
 	protected final WebTestContext testContext;
@@ -49,6 +65,26 @@ public class ImageAnnotator<R> {
 	protected Graphics2D graphics = null;
 	protected Point imageOrigin;
 	protected Point currentOrigin;
+	protected final List<PaintOp> ops = new ArrayList<>();
+	protected Function<Throwable, ? extends RuntimeException> onError = null;
+
+	@FunctionalInterface
+	protected interface Paint {
+		void paint(Graphics2D graphics, Rectangle bounds) throws Exception;
+	}
+
+	protected static class PaintOp {
+		protected final Callable<Rectangle> bounds;
+		protected final Paint paint;
+		protected final Function<Throwable, ? extends RuntimeException> onError;
+		protected boolean batched = false;
+
+		protected PaintOp(Callable<Rectangle> bounds, Paint paint, Function<Throwable, ? extends RuntimeException> onError) {
+			this.bounds = bounds;
+			this.paint = paint;
+			this.onError = onError;
+		}
+	}
 
 	public ImageAnnotator(Point origin, Callable<BufferedImage> ref, R returnObj, WebTestContext testContext, TestEvaluator testEvaluator) {
 		this.ref = ref;
@@ -74,6 +110,10 @@ public class ImageAnnotator<R> {
 		try {
 			BufferedImage image = getImage();
 			graphics = image == null ? null : (Graphics2D)image.getGraphics();
+			if(graphics != null && ANTIALIAS){
+				graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			}
 			return graphics;
 		} catch (Exception ex) {
 			return null;
@@ -97,22 +137,73 @@ public class ImageAnnotator<R> {
 	}
 
 	public R storeValue(String key) {
-		testContext.store(key, callRef());
+		testContext.store(key, render());
 		return returnObj;
 	}
 
-	public ImageAnnotator<R> resetOrigin(){
-		if(this.currentOrigin.x == 0 && this.currentOrigin.y == 0){
-			return translateOrigin(imageOrigin);
-		}else{
-			return translateOrigin(currentOrigin);
+	protected ImageAnnotator<R> record(Paint paint){
+		ops.add(new PaintOp(null, paint, onError));
+		return this;
+	}
+
+	protected ImageAnnotator<R> record(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, Paint paint){
+		ops.add(new PaintOp(() -> ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds(), paint, onError));
+		return this;
+	}
+
+	/**
+	 * Resolves the bounds of the recorded drawing calls and paints them.
+	 * @return the graphics of the painted image
+	 */
+	protected Graphics2D render(){
+		Graphics2D g = callRef();
+		if(g == null || ops.isEmpty()){
+			return g;
+		}
+		List<PaintOp> pending = new ArrayList<>(ops);
+		ops.clear();
+		BoundsBatch batch = new BoundsBatch();
+		if(BoundsBatch.ENABLED && testContext != null){
+			for(PaintOp op : pending){
+				if(op.bounds != null){
+					op.batched = batch.collect(op.bounds);
+				}
+			}
+			batch.resolve(testContext.getDriver());
 		}
+		for(PaintOp op : pending){
+			try {
+				op.paint.paint(g, op.bounds == null ? null : batch.apply(op.batched, op.bounds));
+			} catch (Exception ex) {
+				if(op.onError != null){
+					throw op.onError.apply(ex);
+				}
+				if(ex instanceof RuntimeException){
+					throw (RuntimeException)ex;
+				}
+				throw new RuntimeException(ex);
+			}
+		}
+		return g;
 	}
 
-	public ImageAnnotator<R> translateOrigin(int x, int y){
+	public ImageAnnotator<R> resetOrigin(){
+		return record((g, rect) -> {
+			if(this.currentOrigin.x == 0 && this.currentOrigin.y == 0){
+				translate(g, imageOrigin.getX(), imageOrigin.getY());
+			}else{
+				translate(g, currentOrigin.getX(), currentOrigin.getY());
+			}
+		});
+	}
+
+	private void translate(Graphics2D g, int x, int y){
 		this.currentOrigin = new Point(this.currentOrigin.x - x, this.currentOrigin.y - y);
-		callRef().translate(-x, -y);
-		return this;
+		g.translate(-x, -y);
+	}
+
+	public ImageAnnotator<R> translateOrigin(int x, int y){
+		return record((g, rect) -> translate(g, x, y));
 	}
 
 	public ImageAnnotator<R> translateOrigin(Point point){
@@ -124,32 +215,27 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> translateOrigin(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return translateOrigin(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> translate(g, rect.getX(), rect.getY()));
 	}
 
 	public ImageAnnotator<R> setColor(Color color){
-		callRef().setColor(color);
-		return this;
+		return record((g, rect) -> g.setColor(color));
 	}
 
 	public ImageAnnotator<R> setFont(Font font){
-		callRef().setFont(font);
-		return this;
+		return record((g, rect) -> g.setFont(font));
 	}
 
 	public ImageAnnotator<R> setStroke(Stroke stroke){
-		callRef().setStroke(stroke);
-		return this;
+		return record((g, rect) -> g.setStroke(stroke));
 	}
 
 	public ImageAnnotator<R> setBackground(Color color){
-		callRef().setBackground(color);
-		return this;
+		return record((g, rect) -> g.setBackground(color));
 	}
 
 	public ImageAnnotator<R> drawOval(int x, int y, int width, int height){
-		callRef().drawOval(x, y, width, height);
-		return this;
+		return record((g, rect) -> g.drawOval(x, y, width, height));
 	}
 
 	public ImageAnnotator<R> drawOval(Rectangle rect){
@@ -157,12 +243,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> drawOval(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return drawOval(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.drawOval(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
 	}
 
 	public ImageAnnotator<R> fillOval(int x, int y, int width, int height){
-		callRef().fillOval(x, y, width, height);
-		return this;
+		return record((g, rect) -> g.fillOval(x, y, width, height));
 	}
 
 	public ImageAnnotator<R> fillOval(Rectangle rect){
@@ -170,12 +255,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> fillOval(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return fillOval(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.fillOval(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
 	}
 
 	public ImageAnnotator<R> drawArc(int x, int y, int width, int height, int startAngle, int arcAngle){
-		callRef().drawArc(x, y, width, height, startAngle, arcAngle);
-		return this;
+		return record((g, rect) -> g.drawArc(x, y, width, height, startAngle, arcAngle));
 	}
 
 	public ImageAnnotator<R> drawArc(Rectangle rect, int startAngle, int arcAngle){
@@ -183,12 +267,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> drawArc(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, int startAngle, int arcAngle){
-		return drawArc(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds(), startAngle, arcAngle);
+		return record(getBounds, (g, rect) -> g.drawArc(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), startAngle, arcAngle));
 	}
 
 	public ImageAnnotator<R> fillArc(int x, int y, int width, int height, int startAngle, int arcAngle){
-		callRef().fillArc(x, y, width, height, startAngle, arcAngle);
-		return this;
+		return record((g, rect) -> g.fillArc(x, y, width, height, startAngle, arcAngle));
 	}
 
 	public ImageAnnotator<R> fillArc(Rectangle rect, int startAngle, int arcAngle){
@@ -196,12 +279,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> fillArc(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, int startAngle, int arcAngle){
-		return fillArc(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds(), startAngle, arcAngle);
+		return record(getBounds, (g, rect) -> g.fillArc(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), startAngle, arcAngle));
 	}
 
 	public ImageAnnotator<R> drawRect(int x, int y, int width, int height){
-		callRef().drawRect(x, y, width, height);
-		return this;
+		return record((g, rect) -> g.drawRect(x, y, width, height));
 	}
 
 	public ImageAnnotator<R> drawRect(Rectangle rect){
@@ -209,12 +291,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> drawRect(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return drawRect(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.drawRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
 	}
 
 	public ImageAnnotator<R> drawRoundedRect(int x, int y, int width, int height, int arcWidth, int arcHeight){
-		callRef().drawRoundRect(x, y, width, height, arcWidth, arcHeight);
-		return this;
+		return record((g, rect) -> g.drawRoundRect(x, y, width, height, arcWidth, arcHeight));
 	}
 
 	public ImageAnnotator<R> drawRoundedRect(Rectangle rect, int arcWidth, int arcHeight){
@@ -222,12 +303,15 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> drawRoundedRect(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, int arcWidth, int arcHeight){
-		return drawRoundedRect(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds(), arcWidth, arcHeight);
+		return record(getBounds, (g, rect) -> g.drawRoundRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), arcWidth, arcHeight));
+	}
+
+	public ImageAnnotator<R> drawRoundedRect(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, IntSupplier arcWidth, IntSupplier arcHeight){
+		return record(getBounds, (g, rect) -> g.drawRoundRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), arcWidth.getAsInt(), arcHeight.getAsInt()));
 	}
 
 	public ImageAnnotator<R> clip(int x, int y, int width, int height){
-		callRef().clipRect(x, y, width, height);
-		return this;
+		return record((g, rect) -> g.clipRect(x, y, width, height));
 	}
 
 	public ImageAnnotator<R> clip(Rectangle rect){
@@ -235,12 +319,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> clip(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return clip(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.clipRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
 	}
 
 	public ImageAnnotator<R> clear(int x, int y, int width, int height){
-		callRef().clearRect(x, y, width, height);
-		return this;
+		return record((g, rect) -> g.clearRect(x, y, width, height));
 	}
 
 	public ImageAnnotator<R> clear(Rectangle rect){
@@ -248,12 +331,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> clear(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return clear(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.clearRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
 	}
 
 	public ImageAnnotator<R> fillRect(int x, int y, int width, int height){
-		callRef().fillRect(x, y, width, height);
-		return this;
+		return record((g, rect) -> g.fillRect(x, y, width, height));
 	}
 
 	public ImageAnnotator<R> fillRect(Rectangle rect){
@@ -261,12 +343,11 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> fillRect(ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return fillRect(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.fillRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
 	}
 
 	public ImageAnnotator<R> fillRoundedRect(int x, int y, int width, int height, int arcWidth, int arcHeight){
-		callRef().fillRoundRect(x, y, width, height, arcWidth, arcHeight);
-		return this;
+		return record((g, rect) -> g.fillRoundRect(x, y, width, height, arcWidth, arcHeight));
 	}
 
 	public ImageAnnotator<R> fillRoundedRect(Rectangle rect, int arcWidth, int arcHeight){
@@ -274,12 +355,15 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> fillRoundedRect(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, int arcWidth, int arcHeight){
-		return fillRoundedRect(ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds(), arcWidth, arcHeight);
+		return record(getBounds, (g, rect) -> g.fillRoundRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), arcWidth, arcHeight));
+	}
+
+	public ImageAnnotator<R> fillRoundedRect(ThrowingFunction<R,? extends HasPageBounds,?> getBounds, IntSupplier arcWidth, IntSupplier arcHeight){
+		return record(getBounds, (g, rect) -> g.fillRoundRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), arcWidth.getAsInt(), arcHeight.getAsInt()));
 	}
 
 	public ImageAnnotator<R> drawText(String text, int x, int y){
-		callRef().drawString(text, x, y);
-		return this;
+		return record((g, rect) -> g.drawString(text, x, y));
 	}
 
 	public ImageAnnotator<R> drawText(String text, Rectangle rect){
@@ -287,7 +371,7 @@ public class ImageAnnotator<R> {
 	}
 
 	public ImageAnnotator<R> drawText(String text, ThrowingFunction<R,? extends HasPageBounds,?> getBounds){
-		return drawText(text,ThrowingFunction.unchecked(getBounds).apply(returnObj).getBounds());
+		return record(getBounds, (g, rect) -> g.drawString(text, rect.getX(), rect.getY()));
 	}
 
 	public ImageAnnotator<R> drawText(String text, Point point){
@@ -299,16 +383,32 @@ public class ImageAnnotator<R> {
 		return this;
 	}
 
-	public ImageAnnotator<R> useGraphics(ThrowingConsumer<Graphics,?> paintFunc){
-		ThrowingConsumer.unchecked(paintFunc).accept(callRef());
+	/**
+	 * Records drawing calls, passing any error from recording or later painting them to onError.
+	 */
+	public ImageAnnotator<R> paint(ThrowingConsumer<ImageAnnotator<R>,?> paintFunc, Function<Throwable, ? extends RuntimeException> onError){
+		Function<Throwable, ? extends RuntimeException> outer = this.onError;
+		this.onError = onError;
+		try {
+			paintFunc.accept(this);
+		} catch (Throwable t) {
+			throw onError.apply(t);
+		} finally {
+			this.onError = outer;
+		}
 		return this;
 	}
 
+	public ImageAnnotator<R> useGraphics(ThrowingConsumer<Graphics,?> paintFunc){
+		return record((g, rect) -> ThrowingConsumer.unchecked(paintFunc).accept(g));
+	}
+
 	public R save(String filename){
 		return save(filename, false);
 	}
 
 	public R save(String filename, boolean formatName){
+		render();
 		Screenshot.save(getImage(), filename, formatName);
 		return returnObj;
 	}
@@ -1,6 +1,5 @@
 package org.pagemodel.web.testers;
 
-import org.openqa.selenium.support.ui.Select;
 import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.web.PageModel;
 
@@ -31,7 +30,7 @@ public class MultiSelectTester<R, P extends PageModel<? super P>> extends Select
 		return getEvaluator().testRun(TestEvaluator.TEST_EXECUTE,
 				"clear selected", op -> op
 						.addValue("element", getElementJson()),
-				() -> new Select(callRef()).deselectAll(),
+				this::clearOptions,
 				getReturnObj(), page.getContext());
 	}
 
@@ -40,17 +39,6 @@ public class MultiSelectTester<R, P extends PageModel<? super P>> extends Select
 			super(type, val, select, returnObj, clickAction, testEvaluator);
 		}
 
-		@Override
-		protected void selectByType() {
-			if ("index".equals(type)) {
-				new Select(select.callRef()).selectByIndex((int) val);
-			} else if ("text".equals(type)) {
-				new Select(select.callRef()).selectByVisibleText((String) val);
-			} else if ("value".equals(type)) {
-				new Select(select.callRef()).selectByValue((String) val);
-			}
-		}
-
 		public R setUnselected(){
 			return getEvaluator().testRun(TestEvaluator.TEST_EXECUTE,
 					"set unselected", op -> op
@@ -59,14 +47,8 @@ public class MultiSelectTester<R, P extends PageModel<? super P>> extends Select
 					getReturnObj(), page.getContext());
 		}
 
-		protected void unselectByType() {
-			if ("index".equals(type)) {
-				new Select(select.callRef()).deselectByIndex((int) val);
-			} else if ("text".equals(type)) {
-				new Select(select.callRef()).deselectByVisibleText((String) val);
-			} else if ("value".equals(type)) {
-				new Select(select.callRef()).deselectByValue((String) val);
-			}
+		protected void unselectByType() throws Exception {
+			select.setOption(type, val, false);
 		}
 	}
 }
@@ -17,23 +17,26 @@
 package org.pagemodel.web.testers;
 
 import org.openqa.selenium.*;
+import org.pagemodel.core.testers.CommandBudget;
 import org.pagemodel.core.testers.ComparableTester;
 import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.core.utils.ThrowingFunction;
 import org.pagemodel.core.utils.json.JsonBuilder;
 import org.pagemodel.web.PageModel;
+import org.pagemodel.web.PageModelFactory;
 import org.pagemodel.web.PageUtils;
 import org.pagemodel.web.WebTestContext;
 import org.pagemodel.web.paths.PageFlow;
+import org.pagemodel.web.utils.DriverTimeouts;
+import org.pagemodel.web.utils.PagePerformance;
 import org.pagemodel.web.utils.RectangleUtils;
 import org.pagemodel.web.utils.RefreshTracker;
 import org.pagemodel.web.utils.Screenshot;
 import org.pagemodel.web.utils.WindowHelper;
 
 import java.awt.image.BufferedImage;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import static org.pagemodel.web.PageUtils.DEFAULT_PAGE_LOAD_TIMEOUT_SECONDS;
@@ -98,7 +101,7 @@ public class PageTester<P extends PageModel<? super P>> extends PageTesterBase<P
 						.addValue("value", javascript)
 						.addValue("model", getModelName()),
 				() -> {
-					testContext.getDriver().manage().timeouts().setScriptTimeout(timeoutSeconds, TimeUnit.SECONDS);
+					DriverTimeouts.setScriptTimeout(testContext.getDriver(), Duration.ofSeconds(timeoutSeconds));
 					JavascriptExecutor jse = (JavascriptExecutor) testContext.getDriver();
 					objRef[0] = async ? jse.executeAsyncScript(javascript, args) : jse.executeScript(javascript, args);
 				},
@@ -106,10 +109,41 @@ public class PageTester<P extends PageModel<? super P>> extends PageTesterBase<P
 				page.getContext());
 	}
 
+	/**
+	 * Reads the performance metrics of the current page, such as after navigateTo or a click that loads a new page,
+	 * and logs them as one event.  The returned tester asserts on the metrics read here.
+	 */
+	public PerformanceTester<P> testPerformance() {
+		Map<String, Object> metrics = PagePerformance.collect(testContext.getDriver());
+		getEvaluator().logEvent(TestEvaluator.TEST_FIND,
+				"page performance", op -> op
+						.addValue("model", getModelName())
+						.addValue("metrics", metrics));
+		return new PerformanceTester<>(metrics, page, testContext, getEvaluator());
+	}
+
 	public PageWait<P> waitFor() {
 		return new PageWait<>(page, testContext, new WebTestEvaluator.Wait(testContext, WebElementTester.WebElementWait.DEFAULT_WAIT_SEC));
 	}
 
+	/**
+	 * Waits until at least one of the conditions added to the returned wait matches.
+	 */
+	public CompositeWait<P> waitForAny() {
+		return new CompositeWait<>(CompositeWait.Mode.ANY, page, testContext, getEvaluator());
+	}
+
+	public CompositeWait<P> waitForAll() {
+		return new CompositeWait<>(CompositeWait.Mode.ALL, page, testContext, getEvaluator());
+	}
+
+	/**
+	 * Waits until one of the conditions matches, and reports only the first match in the order they were added.
+	 */
+	public CompositeWait<P> waitForFirstOf() {
+		return new CompositeWait<>(CompositeWait.Mode.FIRST_OF, page, testContext, getEvaluator());
+	}
+
 	public PageTesterBase<P> waitAndRefreshFor() {
 		return new PageTesterBase<>(page, testContext, new WebTestEvaluator.WaitAndRefresh<>(testContext, WebElementTester.WebElementWait.DEFAULT_WAIT_SEC, page, page));
 	}
@@ -232,6 +266,10 @@ public class PageTester<P extends PageModel<? super P>> extends PageTesterBase<P
 		return new ImageAnnotator<>(new Point(0, 0), () -> image, page, testContext, getEvaluator());
 	}
 
+	public VisualTester<P> testVisual(String name){
+		return new VisualTester<>(name, null, page, testContext, getEvaluator());
+	}
+
 	public P logPageSource(String...messages){
 		PageUtils.logPageSource(page.getContext(), TestEvaluator.TEST_LOG, messages);
 		return page;
@@ -267,12 +305,11 @@ public class PageTester<P extends PageModel<? super P>> extends PageTesterBase<P
 					"test model", op -> op
 					.addValue("expected", clazz.getSimpleName())
 					.addValue("model", page.getClass().getSimpleName()));
-			for(Constructor<?> c : clazz.getConstructors()){
-				if(c.getParameterTypes().length == 1 && c.getParameterTypes()[0].isAssignableFrom(testContext.getClass())){
-					return (T)c.newInstance(testContext);
-				}
+			T model = PageModelFactory.makePage(clazz, testContext);
+			if(model != null){
+				return model;
 			}
-		} catch (IllegalAccessException | InstantiationException | InvocationTargetException ex) {
+		} catch (RuntimeException ex) {
 			throw testContext.createException(JsonBuilder.toMap(getEvaluator().getExecuteEvent(
 					"test model", op -> op
 					.addValue("expected", clazz.getSimpleName())
@@ -319,4 +356,33 @@ public class PageTester<P extends PageModel<? super P>> extends PageTesterBase<P
 				},
 				retPage, page.getContext());
 	}
+
+	/**
+	 * Runs a step, and fails if it used more than maxCommands browser commands.  Requires command tracing, see
+	 * CommandBudget.
+	 * @return the value returned by the step
+	 */
+	public <R> R withCommandBudget(int maxCommands, ThrowingFunction<P, R, ?> step) {
+		return withBudget(new CommandBudget("step").maxCommands(maxCommands), step);
+	}
+
+	/**
+	 * Runs a step, and fails if its browser commands took more than maxMs.  Requires command tracing, see
+	 * CommandBudget.
+	 * @return the value returned by the step
+	 */
+	public <R> R withTimeBudget(long maxMs, ThrowingFunction<P, R, ?> step) {
+		return withBudget(new CommandBudget("step").maxTime(maxMs), step);
+	}
+
+	public <R> R withBudget(CommandBudget budget, ThrowingFunction<P, R, ?> step) {
+		R result;
+		budget.start();
+		try {
+			result = ThrowingFunction.unchecked(step).apply(page);
+		} finally {
+			budget.stop();
+		}
+		return budget.test(result, page.getContext(), getEvaluator());
+	}
 }
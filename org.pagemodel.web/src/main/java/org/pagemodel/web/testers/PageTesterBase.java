@@ -89,6 +89,29 @@ public class PageTesterBase<P extends PageModel<? super P>> {
 			this.testEvaluator = testEvaluator;
 		}
 
+		/**
+		 * Ends the wait as soon as the browser navigates to a different url.
+		 */
+		public PageWait<P> abortOnUrlChange() {
+			testEvaluator.getAbort().onUrlChange();
+			return this;
+		}
+
+		public PageWait<P> abortOnUrl(String regex) {
+			testEvaluator.getAbort().onUrlMatches(regex);
+			return this;
+		}
+
+		public PageWait<P> abortOnTitle(String regex) {
+			testEvaluator.getAbort().onTitleMatches(regex);
+			return this;
+		}
+
+		public <T extends PageModel<? super T>> PageWait<P> abortOnPage(Class<T> pageClass) {
+			testEvaluator.getAbort().onPage(pageClass);
+			return this;
+		}
+
 		public P numberOfMinutes(int minutes) {
 			return waitDuration(minutes, TimeUnit.MINUTES);
 		}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.testers;
+
+import org.pagemodel.core.TestContext;
+import org.pagemodel.core.testers.ComparableTester;
+import org.pagemodel.core.testers.StringTester;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.utils.PagePerformance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Assertions on the performance metrics of the current page, read once by PageTester.testPerformance.
+ * Times are in milliseconds from the start of the navigation and sizes are in bytes, see PagePerformance.
+ * A metric the browser did not report is null, and assertions on it fail.
+ *
+ * @param <R> return type for method chaining
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class PerformanceTester<R> {
+	protected final R returnObj;
+	protected final Map<String, Object> metrics;
+	protected final TestContext testContext;
+	private TestEvaluator testEvaluator;
+
+	public PerformanceTester(Map<String, Object> metrics, R returnObj, TestContext testContext, TestEvaluator testEvaluator) {
+		this.metrics = metrics;
+		this.returnObj = returnObj;
+		this.testContext = testContext;
+		this.testEvaluator = testEvaluator;
+	}
+
+	protected TestEvaluator getEvaluator(){
+		return testEvaluator;
+	}
+
+	/**
+	 * @return all metrics by name, see the PagePerformance name constants
+	 */
+	public Map<String, Object> getMetrics() {
+		return new LinkedHashMap<>(metrics);
+	}
+
+	public ComparableTester<Integer, R> timeToFirstByte() {
+		return testInteger(PagePerformance.TIME_TO_FIRST_BYTE);
+	}
+
+	public ComparableTester<Integer, R> domInteractive() {
+		return testInteger(PagePerformance.DOM_INTERACTIVE);
+	}
+
+	public ComparableTester<Integer, R> domContentLoaded() {
+		return testInteger(PagePerformance.DOM_CONTENT_LOADED);
+	}
+
+	public ComparableTester<Integer, R> load() {
+		return testInteger(PagePerformance.LOAD);
+	}
+
+	public ComparableTester<Integer, R> firstPaint() {
+		return testInteger(PagePerformance.FIRST_PAINT);
+	}
+
+	public ComparableTester<Integer, R> firstContentfulPaint() {
+		return testInteger(PagePerformance.FIRST_CONTENTFUL_PAINT);
+	}
+
+	public ComparableTester<Integer, R> largestContentfulPaint() {
+		return testInteger(PagePerformance.LARGEST_CONTENTFUL_PAINT);
+	}
+
+	public ComparableTester<Double, R> cumulativeLayoutShift() {
+		addSourceEvent(PagePerformance.CUMULATIVE_LAYOUT_SHIFT);
+		return new ComparableTester<>(() -> (Double) metrics.get(PagePerformance.CUMULATIVE_LAYOUT_SHIFT), returnObj, testContext, getEvaluator());
+	}
+
+	/**
+	 * @return transfer size of the document, 0 if it was served from cache
+	 */
+	public ComparableTester<Integer, R> documentSize() {
+		return testInteger(PagePerformance.DOCUMENT_SIZE);
+	}
+
+	public ComparableTester<Integer, R> resourceCount() {
+		return testInteger(PagePerformance.RESOURCE_COUNT);
+	}
+
+	/**
+	 * @return total transfer size of the resources loaded by the page.  Cross origin resources without a
+	 * Timing-Allow-Origin header report 0.
+	 */
+	public ComparableTester<Integer, R> resourceSize() {
+		return testInteger(PagePerformance.RESOURCE_SIZE);
+	}
+
+	/**
+	 * @return duration of the slowest resource, see slowestResourceUrl
+	 */
+	public ComparableTester<Integer, R> slowestResource() {
+		return testInteger(PagePerformance.SLOWEST_RESOURCE);
+	}
+
+	public StringTester<R> slowestResourceUrl() {
+		addSourceEvent(PagePerformance.SLOWEST_RESOURCE_URL);
+		return new StringTester<>(() -> (String) metrics.get(PagePerformance.SLOWEST_RESOURCE_URL), returnObj, testContext, getEvaluator());
+	}
+
+	public StringTester<R> navigationType() {
+		addSourceEvent(PagePerformance.NAVIGATION_TYPE);
+		return new StringTester<>(() -> (String) metrics.get(PagePerformance.NAVIGATION_TYPE), returnObj, testContext, getEvaluator());
+	}
+
+	protected ComparableTester<Integer, R> testInteger(String name) {
+		addSourceEvent(name);
+		return new ComparableTester<>(() -> (Integer) metrics.get(name), returnObj, testContext, getEvaluator());
+	}
+
+	protected void addSourceEvent(String name) {
+		getEvaluator().addSourceEvent(TestEvaluator.TEST_FIND,
+				"page performance", op -> op
+						.addValue("value", name)
+						.addValue("url", metrics.get(PagePerformance.URL)));
+	}
+}
@@ -199,6 +199,10 @@ public class RectangleTester<R> extends HasPageBounds {
 		return returnObj;
 	}
 
+	public VisualTester<R> testVisual(String name){
+		return new VisualTester<>(name, this::callRef, returnObj, testContext, getEvaluator());
+	}
+
 	public ImageAnnotator<R> editScreenshot(){
 		Rectangle rect = callRef();
 		BufferedImage image = Screenshot.getScreenshot(testContext.getDriver(), rect, true, 0);
@@ -25,6 +25,8 @@ import org.pagemodel.core.testers.TestEvaluator;
 import org.pagemodel.web.ComponentModel;
 import org.pagemodel.web.LocatedWebElement;
 import org.pagemodel.web.PageModel;
+import org.pagemodel.web.utils.LocatorScript;
+import org.pagemodel.web.utils.SelectScript;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -89,7 +91,7 @@ public class SelectTester<R, P extends PageModel<? super P>> extends ComponentMo
 				"select text", op -> op
 						.addValue("value", text)
 						.addValue("element", getElementJson()),
-				() -> new Select(callRef()).selectByVisibleText(text),
+				() -> setOption(SelectScript.BY_TEXT, text, true),
 				getReturnObj(), page.getContext());
 	}
 	public R selectValue(String value) {
@@ -97,7 +99,7 @@ public class SelectTester<R, P extends PageModel<? super P>> extends ComponentMo
 				"select value", op -> op
 						.addValue("value", value)
 						.addValue("element", getElementJson()),
-				() -> new Select(callRef()).selectByValue(value),
+				() -> setOption(SelectScript.BY_VALUE, value, true),
 				getReturnObj(), page.getContext());
 	}
 
@@ -106,7 +108,7 @@ public class SelectTester<R, P extends PageModel<? super P>> extends ComponentMo
 				"select index", op -> op
 						.addValue("value", index)
 						.addValue("element", getElementJson()),
-				() -> new Select(callRef()).selectByIndex(index),
+				() -> setOption(SelectScript.BY_INDEX, index, true),
 				getReturnObj(), page.getContext());
 	}
 
@@ -117,16 +119,81 @@ public class SelectTester<R, P extends PageModel<? super P>> extends ComponentMo
 		return new StringListTester<>(this::getSelectOptionsValues, getReturnObj(), click().getContext(), getEvaluator());
 	}
 
-	protected List<String> getSelectOptionsText(){
-		List<WebElement> options = new Select(callRef()).getOptions();
-		return options.stream().map(WebElement::getText).collect(Collectors.toList());
+	public StringListTester<R> selectedTextList(){
+		return new StringListTester<>(this::getSelectedOptionsText, getReturnObj(), click().getContext(), getEvaluator());
+	}
+
+	protected List<String> getSelectOptionsText() throws Exception {
+		if (!SelectScript.isSupported(page.getContext().getDriver())) {
+			return new Select(callRef()).getOptions().stream().map(WebElement::getText).collect(Collectors.toList());
+		}
+		return getSelectOptions().stream().map(SelectScript.Option::getText).collect(Collectors.toList());
+	}
 
+	protected List<String> getSelectOptionsValues() throws Exception {
+		if (!SelectScript.isSupported(page.getContext().getDriver())) {
+			return new Select(callRef()).getOptions().stream().map(x -> x.getAttribute("value")).collect(Collectors.toList());
+		}
+		return getSelectOptions().stream().map(SelectScript.Option::getValue).collect(Collectors.toList());
 	}
 
-	protected List<String> getSelectOptionsValues(){
-		List<WebElement> options = new Select(callRef()).getOptions();
-		return options.stream().map(x -> x.getAttribute("value")).collect(Collectors.toList());
+	protected List<String> getSelectedOptionsText() throws Exception {
+		if (!SelectScript.isSupported(page.getContext().getDriver())) {
+			return new Select(callRef()).getAllSelectedOptions().stream().map(WebElement::getText).collect(Collectors.toList());
+		}
+		return getSelectOptions().stream().filter(SelectScript.Option::isSelected).map(SelectScript.Option::getText).collect(Collectors.toList());
+	}
+
+	/**
+	 * Fetches text, value and selected state of all options with one script.
+	 */
+	protected List<SelectScript.Option> getSelectOptions() throws Exception {
+		return SelectScript.getOptions(page.getContext().getDriver(), LocatorScript.scriptTarget(this::callRef));
+	}
+
+	/**
+	 * Selects or deselects an option in the page with one script, falling back to Selenium's Select when scripts
+	 * are not supported by the driver.
+	 * @param type index, text or value
+	 */
+	protected void setOption(String type, Object val, boolean selected) throws Exception {
+		if (!SelectScript.isSupported(page.getContext().getDriver())) {
+			Select select = new Select(callRef());
+			if (SelectScript.BY_INDEX.equals(type)) {
+				if (selected) {
+					select.selectByIndex((int) val);
+				} else {
+					select.deselectByIndex((int) val);
+				}
+			} else if (SelectScript.BY_TEXT.equals(type)) {
+				if (selected) {
+					select.selectByVisibleText((String) val);
+				} else {
+					select.deselectByVisibleText((String) val);
+				}
+			} else if (SelectScript.BY_VALUE.equals(type)) {
+				if (selected) {
+					select.selectByValue((String) val);
+				} else {
+					select.deselectByValue((String) val);
+				}
+			}
+			return;
+		}
+		Object target = LocatorScript.scriptTarget(this::callRef);
+		if (selected) {
+			SelectScript.select(page.getContext().getDriver(), target, type, val);
+		} else {
+			SelectScript.deselect(page.getContext().getDriver(), target, type, val);
+		}
+	}
 
+	protected void clearOptions() throws Exception {
+		if (!SelectScript.isSupported(page.getContext().getDriver())) {
+			new Select(callRef()).deselectAll();
+			return;
+		}
+		SelectScript.deselectAll(page.getContext().getDriver(), LocatorScript.scriptTarget(this::callRef));
 	}
 
 	public class OptionTester<R> extends WebElementTester<R,P> {
@@ -149,14 +216,8 @@ public class SelectTester<R, P extends PageModel<? super P>> extends ComponentMo
 					getReturnObj(), page.getContext());
 		}
 
-		protected void selectByType(){
-			if("index".equals(type)){
-				new Select(select.callRef()).selectByIndex((int)val);
-			}else if("text".equals(type)){
-				new Select(select.callRef()).selectByVisibleText((String)val);
-			}else if("value".equals(type)){
-				new Select(select.callRef()).selectByValue((String)val);
-			}
+		protected void selectByType() throws Exception {
+			select.setOption(type, val, true);
 		}
 	}
 
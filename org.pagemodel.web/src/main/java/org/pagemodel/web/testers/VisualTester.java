@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.testers;
+
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.utils.Screenshot;
+import org.pagemodel.web.utils.VisualCompare;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares a screenshot of the page or an element against a stored baseline image.
+ * <p>
+ * Baselines are stored as BASELINE_DIR/name.png.  A missing baseline is created from the current screenshot, and
+ * all baselines are rewritten when the system property pagemodel.visual.update is true.  When the screenshot does
+ * not match, the screenshot and a diff image are saved with the other screenshots.
+ *
+ * @param <R> return type for method chaining
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class VisualTester<R> {
+	public static String BASELINE_DIR = "src/test/resources/visual/";
+	public static boolean UPDATE_BASELINES = Boolean.getBoolean("pagemodel.visual.update");
+	public static int DEFAULT_COLOR_TOLERANCE = 8;
+	public static double DEFAULT_MAX_DIFF_RATIO = 0.0;
+
+	protected final String name;
+	protected final Callable<Rectangle> bounds;
+	protected final R returnObj;
+	protected final WebTestContext testContext;
+	private final TestEvaluator testEvaluator;
+	protected final List<Rectangle> ignored = new ArrayList<>();
+	protected int colorTolerance = DEFAULT_COLOR_TOLERANCE;
+	protected double maxDiffRatio = DEFAULT_MAX_DIFF_RATIO;
+
+	/**
+	 * @param bounds region of the page to compare, or null to compare the browser window
+	 */
+	public VisualTester(String name, Callable<Rectangle> bounds, R returnObj, WebTestContext testContext, TestEvaluator testEvaluator) {
+		this.name = name;
+		this.bounds = bounds;
+		this.returnObj = returnObj;
+		this.testContext = testContext;
+		this.testEvaluator = testEvaluator;
+	}
+
+	protected TestEvaluator getEvaluator() {
+		return testEvaluator;
+	}
+
+	/**
+	 * @param region region to skip in page coordinates, such as a clock or an ad
+	 */
+	public VisualTester<R> ignore(Rectangle region) {
+		if (region != null) {
+			ignored.add(region);
+		}
+		return this;
+	}
+
+	public VisualTester<R> ignore(HasPageBounds bounds) {
+		return ignore(bounds.getBounds());
+	}
+
+	/**
+	 * @param tolerance maximum difference in each color channel (0-255) for pixels to be considered the same
+	 */
+	public VisualTester<R> colorTolerance(int tolerance) {
+		this.colorTolerance = tolerance;
+		return this;
+	}
+
+	/**
+	 * @param ratio fraction of pixels (0.0-1.0) allowed to differ
+	 */
+	public VisualTester<R> maxDiffRatio(double ratio) {
+		this.maxDiffRatio = ratio;
+		return this;
+	}
+
+	public R matchesBaseline() {
+		File baselineFile = new File(BASELINE_DIR, name + ".png");
+		VisualCompare.Result[] result = new VisualCompare.Result[1];
+		String[] diffPath = new String[1];
+		return getEvaluator().testCondition("matches baseline", op -> op
+						.addValue("value", name)
+						.addValue("baseline", "file://" + baselineFile.getAbsolutePath())
+						.addValue("max", maxDiffRatio)
+						.addValue("actual", result[0] == null ? null : result[0].getDiffRatio())
+						.addValue("diff", diffPath[0] == null ? null : "file://" + diffPath[0]),
+				() -> {
+					Rectangle rect = bounds == null ? null : bounds.call();
+					BufferedImage actual = Screenshot.capture(testContext.getDriver(), rect);
+					if (actual == null) {
+						return false;
+					}
+					if (UPDATE_BASELINES || !baselineFile.exists()) {
+						writeBaseline(actual, baselineFile);
+						return true;
+					}
+					BufferedImage baseline = ImageIO.read(baselineFile);
+					result[0] = VisualCompare.compare(baseline, actual, colorTolerance, toImageRegions(rect));
+					if (result[0].getDiffRatio() <= maxDiffRatio) {
+						return true;
+					}
+					Screenshot.save(actual, "visual_" + name + "_actual", true);
+					if (result[0].getDiffImage() != null) {
+						diffPath[0] = Screenshot.save(result[0].getDiffImage(), "visual_" + name + "_diff", true);
+					}
+					return false;
+				},
+				returnObj, testContext);
+	}
+
+	protected List<Rectangle> toImageRegions(Rectangle rect) {
+		Point origin = rect == null ? new Point(0, 0) : rect.getPoint();
+		List<Rectangle> regions = new ArrayList<>();
+		for (Rectangle region : ignored) {
+			regions.add(new Rectangle(region.getX() - origin.getX(), region.getY() - origin.getY(), region.getHeight(), region.getWidth()));
+		}
+		return regions;
+	}
+
+	protected void writeBaseline(BufferedImage image, File baselineFile) throws Exception {
+		File dir = baselineFile.getParentFile();
+		if (dir != null && !dir.exists()) {
+			dir.mkdirs();
+		}
+		ImageIO.write(image, "png", baselineFile);
+		getEvaluator().logEvent(TestEvaluator.TEST_EXECUTE, "save baseline", op -> op
+				.addValue("value", "file://" + baselineFile.getAbsolutePath()));
+	}
+}
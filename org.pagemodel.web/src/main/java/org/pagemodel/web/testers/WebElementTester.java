@@ -16,7 +16,9 @@
 
 package org.pagemodel.web.testers;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebElement;
@@ -31,6 +33,9 @@ import org.pagemodel.core.utils.ThrowingCallable;
 import org.pagemodel.core.utils.json.JsonBuilder;
 import org.pagemodel.web.LocatedWebElement;
 import org.pagemodel.web.PageModel;
+import org.pagemodel.web.utils.BrowserAssert;
+import org.pagemodel.web.utils.BrowserWait;
+import org.pagemodel.web.utils.LocatorScript;
 import org.pagemodel.web.utils.PageException;
 import org.pagemodel.web.utils.Screenshot;
 
@@ -42,6 +47,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @param <R> return type for method chaining
@@ -94,6 +101,10 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 		}
 	}
 
+	protected Callable<Boolean> browserCondition(String condition, Callable<Boolean> test, String... args) {
+		return new BrowserCondition(this::callRef, condition, test, args);
+	}
+
 	@Override
 	protected String getName() {
 		return callRef().getFriendlyName();
@@ -107,17 +118,38 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 		this.returnObj = returnObj;
 	}
 
+	/**
+	 * Tests the elements inside this element that match the locator.
+	 */
+	public ElementListTester<R> elements(By by) {
+		return new ElementListTester<>(by.toString(), () -> findElements(by), getReturnObj(), page, getEvaluator());
+	}
+
+	private List<WebElement> findElements(By by) {
+		LocatedWebElement parent = callRef();
+		if (LocatorScript.isDeferred()) {
+			return Arrays.asList(new LocatedWebElement(null, by.toString(), by, page, parent).listItem(LocatedWebElement.LIST_PLACEHOLDER));
+		}
+		if (!parent.hasElement()) {
+			throw new NoSuchElementException("Unable to find element: " + parent.getElementLocator());
+		}
+		List<WebElement> found = parent.findElements(by);
+		return IntStream.range(0, found.size())
+				.mapToObj(i -> new LocatedWebElement(found.get(i), by.toString(), by, page, parent).listItem(i))
+				.collect(Collectors.toList());
+	}
+
 	public R exists() {
 		return getEvaluator().testCondition("exists", op -> op
 						.addValue("element", getElementJson()),
-				() -> callRef().hasElement(),
+				browserCondition(BrowserWait.EXISTS, () -> callRef().hasElement()),
 				getReturnObj(), page.getContext());
 	}
 
 	public R notExists() {
 		return getEvaluator().testCondition("not exists", op -> op
 						.addValue("element", getElementJson()),
-				() -> !callRef().hasElement(),
+				browserCondition(BrowserWait.NOT_EXISTS, () -> !callRef().hasElement()),
 				getReturnObj(), page.getContext());
 	}
 
@@ -166,14 +198,14 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 	public R isDisplayed() {
 		return getEvaluator().testCondition("displayed", op -> op
 						.addValue("element", getElementJson()),
-				() -> callRef().hasElement() && callRef().isDisplayed(),
+				browserCondition(BrowserWait.DISPLAYED, () -> callRef().hasElement() && callRef().isDisplayed()),
 				getReturnObj(), page.getContext());
 	}
 
 	public R notDisplayed() {
 		return getEvaluator().testCondition("not displayed", op -> op
 						.addValue("element", getElementJson()),
-				() -> !(callRef().hasElement() && callRef().isDisplayed()),
+				browserCondition(BrowserWait.NOT_DISPLAYED, () -> !(callRef().hasElement() && callRef().isDisplayed())),
 				getReturnObj(), page.getContext());
 	}
 
@@ -197,19 +229,19 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 
 	public StringTester<R> text() {
 		getEvaluator().setSourceFindEvent("text", op -> op.addValue("element", getElementJson()));
-		return new StringTester<>(() -> callRef().getText() == null ? null : callRef().getText().trim().replaceAll("\\s+", " "), getReturnObj(), page.getContext(), getEvaluator());
+		return new ElementStringTester<>(() -> LocatorScript.normalizeText(callRef().getText()), this::callRef, null, getReturnObj(), page.getContext(), getEvaluator());
 	}
 
 	public StringTester<R> tagName() {
 		getEvaluator().setSourceFindEvent("tag name", op -> op.addValue("element", getElementJson()));
-		return new StringTester<>(() -> callRef().getTagName() == null ? null : callRef().getTagName().toLowerCase(), getReturnObj(), page.getContext(), getEvaluator());
+		return new ElementStringTester<>(() -> callRef().getTagName() == null ? null : callRef().getTagName().toLowerCase(), this::callRef, BrowserAssert.TAG_NAME, null, getReturnObj(), page.getContext(), getEvaluator());
 	}
 
 	public StringTester<R> attribute(String attribute) {
 		getEvaluator().setSourceFindEvent("text", op -> op
 				.addValue("value", attribute)
 				.addValue("element", getElementJson()));
-		return new StringTester<>(() -> callRef().getAttribute(attribute), getReturnObj(), page.getContext(), getEvaluator());
+		return new ElementStringTester<>(() -> callRef().getAttribute(attribute), this::callRef, attribute, getReturnObj(), page.getContext(), getEvaluator());
 	}
 
 	public StringTester<R> cssValue(String string) {
@@ -222,7 +254,7 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 	public DimensionTester<R> size() {
 		getEvaluator().setSourceFindEvent("size", op -> op
 				.addValue("element", getElementJson()));
-		return new DimensionTester<>(() -> callRef().getSize(), getReturnObj(), page.getContext(), getEvaluator());
+		return new DimensionTester<>(() -> callRef().getSize(), this::callRef, getReturnObj(), page.getContext(), getEvaluator());
 	}
 
 	public RectangleTester<R> location() {
@@ -273,7 +305,7 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 	}
 
 	public R takeScreenshot(String filename, int padding){
-		Screenshot.takeScreenshot(page.getContext().getDriver(), callRef().getRect(), filename, false, padding);
+		Screenshot.takeScreenshot(page.getContext().getDriver(), callRef(), filename, false, padding);
 		return returnObj;
 	}
 
@@ -281,6 +313,10 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 		return takeScreenshot(filename, 0);
 	}
 
+	public VisualTester<R> testVisual(String name){
+		return new VisualTester<>(name, () -> callRef().getRect(), returnObj, page.getContext(), getEvaluator());
+	}
+
 	public WebElementWait<R, N> waitFor() {
 		return new WebElementWait<>(clickAction, new WebTestEvaluator.Wait(page.getContext(), WebElementWait.DEFAULT_WAIT_SEC));
 	}
@@ -331,6 +367,29 @@ public class WebElementTester<R, N extends PageModel<? super N>> extends HasPage
 			return this;
 		}
 
+		/**
+		 * Ends the wait as soon as the browser navigates to a different url.
+		 */
+		public WebElementWait<R, N> abortOnUrlChange() {
+			getEvaluator().getAbort().onUrlChange();
+			return this;
+		}
+
+		public WebElementWait<R, N> abortOnUrl(String regex) {
+			getEvaluator().getAbort().onUrlMatches(regex);
+			return this;
+		}
+
+		public WebElementWait<R, N> abortOnTitle(String regex) {
+			getEvaluator().getAbort().onTitleMatches(regex);
+			return this;
+		}
+
+		public <T extends PageModel<? super T>> WebElementWait<R, N> abortOnPage(Class<T> pageClass) {
+			getEvaluator().getAbort().onPage(pageClass);
+			return this;
+		}
+
 		@Override
 		public N click() {
 			isClickable();
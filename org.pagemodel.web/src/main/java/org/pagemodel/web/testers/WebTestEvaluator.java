@@ -24,7 +24,9 @@ import org.pagemodel.core.utils.json.JsonObjectBuilder;
 import org.pagemodel.web.PageModel;
 import org.pagemodel.web.PageUtils;
 import org.pagemodel.web.WebTestContext;
+import org.pagemodel.web.utils.BrowserWait;
 import org.pagemodel.web.utils.RefreshTracker;
+import org.pagemodel.web.utils.WaitAbort;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
@@ -37,8 +39,11 @@ import java.util.function.Function;
  */
 public class WebTestEvaluator {
 	public static class Wait extends TestEvaluator.Now {
+		public static long MIN_POLL_MS = 500;
+
 		protected WebTestContext testContext;
 		protected int waitSec;
+		protected WaitAbort abort = new WaitAbort();
 
 		public Wait(WebTestContext testContext, int waitSec) {
 			this.label = "wait";
@@ -51,10 +56,18 @@ public class WebTestEvaluator {
 			return this;
 		}
 
+		/**
+		 * @return conditions that end this wait early, see WaitAbort
+		 */
+		public WaitAbort getAbort() {
+			return abort;
+		}
+
 		@Override
 		public Consumer<JsonObjectBuilder> getEvalTypeJson(){
 			return super.getEvalTypeJson()
-					.andThen(eval -> eval.addValue("timeout", waitSec));
+					.andThen(eval -> eval.addValue("timeout", waitSec))
+					.andThen(abort::addJson);
 		}
 
 		public WebTestContext getTestContext() {
@@ -67,9 +80,63 @@ public class WebTestEvaluator {
 
 		@Override
 		protected Boolean callTest(Callable<Boolean> test) {
-			FluentWait wait = new WebDriverWait(testContext.getDriver(), Duration.of(waitSec, ChronoUnit.SECONDS))
+			long waitMs = waitSec * 1000L;
+			WaitAbort.State abortState = abort.start(testContext.getDriver());
+			String[] abortReason = new String[1];
+			if (BrowserWait.ENABLED && test instanceof BrowserCondition) {
+				// the browser wait only ends early when the page changes, so page models are checked before it starts
+				boolean done = false;
+				if (abort.hasPageChecks()) {
+					try {
+						done = poll(test, abortState, abortReason);
+					} catch (RuntimeException ex) { }
+				}
+				if (done) {
+					return finish(abortReason[0]);
+				}
+				long start = System.currentTimeMillis();
+				Boolean result = ((BrowserCondition) test).waitInBrowser(testContext.getDriver(), waitMs, abort.browserArgs(abortState));
+				if (result != null) {
+					try {
+						if (test.call()) {
+							return true;
+						}
+					} catch (Throwable t) { }
+					waitMs = Math.max(waitMs - (System.currentTimeMillis() - start), MIN_POLL_MS);
+				}
+			}
+			FluentWait wait = new WebDriverWait(testContext.getDriver(), Duration.of(waitMs, ChronoUnit.MILLIS))
 					.ignoring(Throwable.class).ignoring(Exception.class);
-			wait.until(driver -> ThrowingCallable.unchecked(test).call());
+			wait.until(driver -> poll(test, abortState, abortReason));
+			return finish(abortReason[0]);
+		}
+
+		/**
+		 * @return true if the test passed or an abort condition was met, which is stored in abortReason
+		 */
+		protected boolean poll(Callable<Boolean> test, WaitAbort.State abortState, String[] abortReason) {
+			RuntimeException error = null;
+			try {
+				if (ThrowingCallable.unchecked(test).call()) {
+					return true;
+				}
+			} catch (RuntimeException ex) {
+				error = ex;
+			}
+			abortReason[0] = abort.check(testContext, abortState);
+			if (abortReason[0] != null) {
+				return true;
+			}
+			if (error != null) {
+				throw error;
+			}
+			return false;
+		}
+
+		private static Boolean finish(String abortReason) {
+			if (abortReason != null) {
+				throw new WaitAbort.AbortedException(abortReason);
+			}
 			return true;
 		}
 	}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.LocatedWebElement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Resolves the bounds of many elements with a single script call.
+ * <p>
+ * Bounds functions are first run with find methods deferred, collecting the locator chain of every element whose
+ * rect is requested.  All chains are resolved in one script, and the bounds functions are run again with
+ * LocatedWebElement.getRect answered from the resolved rects.  A bounds function that asks for the rect of an element
+ * with no locator chain, or that fails while deferred, is run normally instead.  Events logged while collecting are
+ * logged at debug level (see TestEvaluator.callQuietly), so each bounds function is only logged once.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class BoundsBatch {
+	public static boolean ENABLED = true;
+
+	public final static String RECTS_SCRIPT =
+			"var chains = arguments[0], rects = [], i;"
+			+ LocatorScript.DOM_FUNCTIONS
+			+ "for (i = 0; i < chains.length; i++) {"
+			+ "  var el = pmResolve(chains[i]);"
+			+ "  if (el == null) { rects.push(null); continue; }"
+			+ "  var r = el.getBoundingClientRect();"
+			+ "  rects.push([r.left + window.pageXOffset, r.top + window.pageYOffset, r.width, r.height]);"
+			+ "}"
+			+ "return rects;";
+
+	private final static ThreadLocal<BoundsBatch> active = new ThreadLocal<>();
+
+	private final Set<List<Object>> chains = new LinkedHashSet<>();
+	private final Map<List<Object>, Rectangle> rects = new HashMap<>();
+	private boolean collecting = false;
+	private boolean collectFailed = false;
+	private boolean resolved = false;
+
+	/**
+	 * Runs a bounds function with find methods deferred, recording the elements it needs.
+	 * @return true if the function can be answered from the batch
+	 */
+	public boolean collect(Callable<?> bounds) {
+		collectFailed = false;
+		Object result = run(true, () -> TestEvaluator.callQuietly(() -> LocatorScript.deferred(() -> {
+			Object value = bounds.call();
+			return value == null ? Boolean.FALSE : value;
+		})));
+		return result != null && !collectFailed;
+	}
+
+	/**
+	 * Resolves the rects of all collected elements in one script call.
+	 * @return false if the script could not be run, in which case every element is found normally
+	 */
+	public boolean resolve(WebDriver driver) {
+		if (chains.isEmpty() || !(driver instanceof JavascriptExecutor)) {
+			return false;
+		}
+		List<List<Object>> list = new ArrayList<>(chains);
+		try {
+			List<?> result = (List<?>) ((JavascriptExecutor) driver).executeScript(RECTS_SCRIPT, list);
+			for (int i = 0; i < list.size(); i++) {
+				rects.put(list.get(i), toRect((List<?>) result.get(i)));
+			}
+			resolved = true;
+		} catch (RuntimeException ex) {
+			resolved = false;
+		}
+		return resolved;
+	}
+
+	/**
+	 * Runs a bounds function, deferred and answered from the batch if batched is true, otherwise normally.
+	 */
+	public <T> T apply(boolean batched, Callable<T> bounds) throws Exception {
+		if (!batched || !resolved) {
+			return bounds.call();
+		}
+		Exception[] error = new Exception[1];
+		T value = run(false, () -> LocatorScript.deferred(() -> {
+			try {
+				return bounds.call();
+			} catch (Exception ex) {
+				error[0] = ex;
+				return null;
+			}
+		}));
+		if (error[0] != null) {
+			throw error[0];
+		}
+		return value;
+	}
+
+	/**
+	 * Called from LocatedWebElement.getRect.
+	 * @return the rect from the active batch, a placeholder while collecting, or null if the element is not batched
+	 */
+	public static Rectangle lookup(LocatedWebElement element) {
+		BoundsBatch batch = active.get();
+		if (batch == null || !ENABLED) {
+			return null;
+		}
+		List<Object> chain = LocatorScript.locatorChain(element);
+		if (batch.collecting) {
+			if (chain == null) {
+				batch.collectFailed = true;
+			} else {
+				batch.chains.add(chain);
+			}
+			return new Rectangle(0, 0, 0, 0);
+		}
+		if (chain == null || !batch.rects.containsKey(chain)) {
+			return null;
+		}
+		Rectangle rect = batch.rects.get(chain);
+		if (rect == null) {
+			throw new NoSuchElementException("Unable to find element: " + element.getElementLocator());
+		}
+		return rect;
+	}
+
+	private <T> T run(boolean collect, Callable<T> callable) {
+		BoundsBatch previous = active.get();
+		boolean wasCollecting = collecting;
+		active.set(this);
+		collecting = collect;
+		try {
+			return callable.call();
+		} catch (Exception ex) {
+			return null;
+		} finally {
+			collecting = wasCollecting;
+			if (previous == null) {
+				active.remove();
+			} else {
+				active.set(previous);
+			}
+		}
+	}
+
+	private static Rectangle toRect(List<?> values) {
+		if (values == null) {
+			return null;
+		}
+		int x = ((Number) values.get(0)).intValue();
+		int y = ((Number) values.get(1)).intValue();
+		int width = ((Number) values.get(2)).intValue();
+		int height = ((Number) values.get(3)).intValue();
+		return new Rectangle(x, y, height, width);
+	}
+}
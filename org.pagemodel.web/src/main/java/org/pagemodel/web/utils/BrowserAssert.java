@@ -0,0 +1,298 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates element assertions in the browser.
+ * <p>
+ * An assertion on a single element, such as text().contains or size().width().greaterThan, is compiled into the
+ * predicate condition: a value read from the element (text, attribute, tag name, width or height) and an operation
+ * comparing it to the expected value.  Predicates can be waited on with BrowserWait like any other condition.
+ * <p>
+ * When ENABLED, one-shot assertions are also checked in the browser: the element is found, its value read and the
+ * predicate tested with one script call, instead of fetching the value over the WebDriver wire and testing it in
+ * java.  The value read by the script is logged as the actual value of the assertion.  If the element or value is
+ * missing, or the script fails, the assertion is tested in java as usual.
+ * <p>
+ * Regular expressions are only tested in the browser when they mean the same thing to a javascript RegExp as to a
+ * java Pattern.  browserRegex rewrites the constructs that differ (such as ., \s and negated classes, which in java
+ * also match whole surrogate pairs) and rejects the ones that can not be rewritten (such as lookbehind, possessive
+ * quantifiers and back references), which are then tested in java.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class BrowserAssert {
+	public static boolean ENABLED = false;
+
+	public final static String TEXT = "text";
+	public final static String ATTRIBUTE = "attribute";
+	public final static String TAG_NAME = "tagName";
+	public final static String WIDTH = "width";
+	public final static String HEIGHT = "height";
+
+	public final static String CONTAINS = "contains";
+	public final static String CONTAINED_BY = "contained by";
+	public final static String EQUALS = "equals";
+	public final static String MATCHES = "matches regex";
+	public final static String STARTS_WITH = "starts with";
+	public final static String ENDS_WITH = "ends with";
+	public final static String EMPTY = "is empty";
+	public final static String GREATER_THAN = "greater than";
+	public final static String LESS_THAN = "less than";
+
+	private final static String SURROGATE_PAIR = "[\\uD800-\\uDBFF][\\uDC00-\\uDFFF]";
+	private final static String JAVA_SPACE = " \\t\\n\\x0B\\f\\r";
+	private final static String JAVA_DOT = "(?:" + SURROGATE_PAIR + "|[^\\n\\r\\u0085\\u2028\\u2029])";
+	private final static String JAVA_END = "(?=(?:\\r\\n|[\\n\\r\\u0085\\u2028\\u2029])?$)";
+	private final static Pattern QUANTIFIER = Pattern.compile("\\{\\d+(,\\d*)?}");
+
+	public final static String PREDICATE_FUNCTIONS =
+			"var pmValue = function(el, kind, arg) {"
+			+ "  if (el == null) { return null; }"
+			+ "  switch (kind) {"
+			+ "    case 'text': return pmVisible(el) ? pmText(el) : '';"
+			+ "    case 'attribute': return pmAttr(el, arg);"
+			+ "    case 'tagName': return el.tagName == null ? null : el.tagName.toLowerCase();"
+			+ "    case 'width': return Math.floor(el.getBoundingClientRect().width);"
+			+ "    case 'height': return Math.floor(el.getBoundingClientRect().height);"
+			+ "  }"
+			+ "  throw new Error('unsupported value: ' + kind);"
+			+ "};"
+			+ "var pmPredicate = function(actual, op, expected) {"
+			+ "  if (op.charAt(0) === '!') { return actual != null && !pmPredicate(actual, op.substring(1), expected); }"
+			+ "  if (actual == null) { return false; }"
+			+ "  if (typeof actual === 'number') { expected = Number(expected); }"
+			+ "  switch (op) {"
+			+ "    case 'contains': return actual.indexOf(expected) >= 0;"
+			+ "    case 'contained by': return expected.indexOf(actual) >= 0;"
+			+ "    case 'equals': return actual === expected;"
+			+ "    case 'matches regex': return new RegExp('^(?:' + expected + ')$').test(actual);"
+			+ "    case 'starts with': return actual.substring(0, expected.length) === expected;"
+			+ "    case 'ends with': return actual.length >= expected.length && actual.substring(actual.length - expected.length) === expected;"
+			+ "    case 'is empty': return actual === '';"
+			+ "    case 'greater than': return actual > expected;"
+			+ "    case 'less than': return actual < expected;"
+			+ "  }"
+			+ "  throw new Error('unsupported operation: ' + op);"
+			+ "};";
+
+	private final static String EVALUATE_SCRIPT =
+			"var chain = arguments[0], cond = arguments[1], args = arguments[2];"
+			+ LocatorScript.DOM_FUNCTIONS
+			+ BrowserWait.CONDITION_FUNCTIONS
+			+ "var el = pmResolve(chain);"
+			+ "if (cond !== 'predicate') {"
+			+ "  if (el == null && cond !== 'exists' && cond !== 'notExists' && cond !== 'displayed' && cond !== 'notDisplayed') { return null; }"
+			+ "  return [pmCondition(el, cond, args) === true, null];"
+			+ "}"
+			+ "var actual = pmValue(el, args[0], args[1]);"
+			+ "if (actual == null) { return null; }"
+			+ "return [pmPredicate(actual, args[2], args[3]) === true, actual];";
+
+	/**
+	 * @param action action display of a StringTester or ComparableTester assertion, such as "not contains"
+	 * @return the predicate operation for the assertion, or null if it can not be tested in the browser
+	 */
+	public static String predicateOp(String action) {
+		boolean negate = action.startsWith("not ");
+		String op = negate ? action.substring(4) : action;
+		if (op.equals("empty")) {
+			op = EMPTY;
+		}
+		if (!Arrays.asList(CONTAINS, CONTAINED_BY, EQUALS, MATCHES, STARTS_WITH, ENDS_WITH, EMPTY, GREATER_THAN, LESS_THAN).contains(op)) {
+			return null;
+		}
+		return negate ? "!" + op : op;
+	}
+
+	/**
+	 * @param kind     value to read from the element: TEXT, ATTRIBUTE, TAG_NAME, WIDTH or HEIGHT
+	 * @param kindArg  attribute name for ATTRIBUTE, otherwise null
+	 * @param op       operation from predicateOp
+	 * @param expected expected value
+	 * @return arguments for the BrowserWait.PREDICATE condition, or null if the predicate can not be tested in the
+	 * browser
+	 */
+	public static List<String> predicateArgs(String kind, String kindArg, String op, Object expected) {
+		String value = expected == null ? "" : String.valueOf(expected);
+		if (op.endsWith(MATCHES)) {
+			value = browserRegex(value);
+			if (value == null) {
+				return null;
+			}
+		}
+		return Arrays.asList(kind, kindArg == null ? "" : kindArg, op, value);
+	}
+
+	/**
+	 * @param regex java regular expression
+	 * @return an equivalent javascript RegExp source, or null if the expression is not known to match the same strings
+	 * in both engines
+	 */
+	public static String browserRegex(String regex) {
+		try {
+			Pattern.compile(regex);
+		} catch (RuntimeException ex) {
+			return null;
+		}
+		StringBuilder js = new StringBuilder();
+		int i = 0;
+		while (i < regex.length()) {
+			char c = regex.charAt(i);
+			int next = i + 1;
+			String part;
+			if (c == '\\') {
+				next = escapeEnd(regex, i);
+				part = next < 0 ? null : browserEscape(regex.substring(i, next), false);
+			} else if (c == '[') {
+				part = browserClass(regex, i);
+				next = classEnd(regex, i);
+			} else if (c == '(') {
+				part = regex.startsWith("(?", i) && !regex.startsWith("(?:", i) && !regex.startsWith("(?=", i) && !regex.startsWith("(?!", i) ? null : "(";
+			} else if (c == '{') {
+				Matcher m = QUANTIFIER.matcher(regex).region(i, regex.length());
+				boolean quantifier = m.lookingAt();
+				part = quantifier ? m.group() : null;
+				next = quantifier ? m.end() : -1;
+			} else if (c == '.') {
+				part = JAVA_DOT;
+			} else if (c == '$') {
+				part = i == regex.length() - 1 ? JAVA_END : null;
+			} else if (c == ']' || c == '}' || Character.isSurrogate(c)) {
+				part = null;
+			} else {
+				part = String.valueOf(c);
+			}
+			if (part == null || next < 0) {
+				return null;
+			}
+			// possessive quantifiers are not supported by javascript
+			if ("*+?}".indexOf(regex.charAt(next - 1)) >= 0 && next < regex.length() && regex.charAt(next) == '+' && c != '\\') {
+				return null;
+			}
+			js.append(part);
+			i = next;
+		}
+		return js.toString();
+	}
+
+	private static int escapeEnd(String regex, int i) {
+		if (i + 1 >= regex.length()) {
+			return -1;
+		}
+		char c = regex.charAt(i + 1);
+		int length = c == 'x' ? 4 : c == 'u' ? 6 : 2;
+		if (i + length > regex.length()) {
+			return -1;
+		}
+		for (int h = i + 2; h < i + length; h++) {
+			if (Character.digit(regex.charAt(h), 16) < 0) {
+				return -1;
+			}
+		}
+		return i + length;
+	}
+
+	private static String browserEscape(String escape, boolean inClass) {
+		char c = escape.charAt(1);
+		switch (c) {
+			case 'd':
+			case 'w':
+			case 't':
+			case 'n':
+			case 'r':
+			case 'f':
+			case 'x':
+				return escape;
+			case 'u':
+				return Character.isSurrogate((char) Integer.parseInt(escape.substring(2), 16)) ? null : escape;
+			case 's':
+				return inClass ? JAVA_SPACE : "[" + JAVA_SPACE + "]";
+			case 'S':
+				return inClass ? null : "(?:" + SURROGATE_PAIR + "|[^" + JAVA_SPACE + "])";
+			case 'D':
+			case 'W':
+				return inClass ? null : "(?:" + SURROGATE_PAIR + "|" + escape + ")";
+		}
+		return c < 128 && !Character.isLetterOrDigit(c) ? escape : null;
+	}
+
+	private static int classEnd(String regex, int i) {
+		int end = i + 1;
+		while (end < regex.length() && regex.charAt(end) != ']') {
+			end += regex.charAt(end) == '\\' ? 2 : 1;
+		}
+		return end + 1;
+	}
+
+	private static String browserClass(String regex, int i) {
+		boolean negated = regex.startsWith("[^", i);
+		int start = negated ? i + 2 : i + 1;
+		if (start >= regex.length() || regex.charAt(start) == ']') {
+			return null;
+		}
+		StringBuilder js = new StringBuilder();
+		int j = start;
+		while (j < regex.length() && regex.charAt(j) != ']') {
+			char c = regex.charAt(j);
+			if (c == '[' || Character.isSurrogate(c) || regex.startsWith("&&", j)) {
+				return null;
+			}
+			if (c == '\\') {
+				int end = escapeEnd(regex, j);
+				String part = end < 0 ? null : browserEscape(regex.substring(j, end), true);
+				if (part == null) {
+					return null;
+				}
+				js.append(part);
+				j = end;
+			} else {
+				js.append(c);
+				j++;
+			}
+		}
+		if (j >= regex.length()) {
+			return null;
+		}
+		return negated ? "(?:" + SURROGATE_PAIR + "|[^" + js + "])" : "[" + js + "]";
+	}
+
+	/**
+	 * Tests a condition once in the browser.
+	 * @return [matched, actual value], where the actual value is null unless the condition is a predicate, or null if
+	 * the condition could not be tested in the browser and should be tested in java
+	 */
+	public static List<?> evaluate(WebDriver driver, List<Object> chain, String condition, List<String> args) {
+		if (chain == null || !BrowserWait.isSupported(condition) || !(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			Object result = ((JavascriptExecutor) driver).executeScript(EVALUATE_SCRIPT, chain, condition, args);
+			return result instanceof List && ((List<?>) result).size() == 2 ? (List<?>) result : null;
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Waits for a simple element condition inside the browser with a MutationObserver, instead of polling the
+ * condition over the WebDriver wire.  The condition is checked when the DOM changes (at most once per animation
+ * frame), on a slow fallback interval for changes that do not mutate the DOM (such as css transitions), and once
+ * more when the timeout expires.
+ * <p>
+ * Supported conditions: exists, notExists, displayed, notDisplayed, textContains, textEquals, attributeContains,
+ * attributeEquals, and predicate (see BrowserAssert).
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class BrowserWait {
+	public static boolean ENABLED = true;
+	public static int FALLBACK_INTERVAL_MS = 100;
+	public static int SCRIPT_TIMEOUT_MARGIN_MS = 2000;
+
+	public final static String EXISTS = "exists";
+	public final static String NOT_EXISTS = "notExists";
+	public final static String DISPLAYED = "displayed";
+	public final static String NOT_DISPLAYED = "notDisplayed";
+	public final static String TEXT_CONTAINS = "textContains";
+	public final static String TEXT_EQUALS = "textEquals";
+	public final static String ATTRIBUTE_CONTAINS = "attributeContains";
+	public final static String ATTRIBUTE_EQUALS = "attributeEquals";
+	public final static String PREDICATE = "predicate";
+
+	public final static String CONDITION_FUNCTIONS =
+			BrowserAssert.PREDICATE_FUNCTIONS
+			+ "var pmCondition = function(el, cond, args) {"
+			+ "  switch (cond) {"
+			+ "    case 'exists': return el != null;"
+			+ "    case 'notExists': return el == null;"
+			+ "    case 'displayed': return pmVisible(el);"
+			+ "    case 'notDisplayed': return !pmVisible(el);"
+			+ "    case 'textContains': return el != null && pmText(el).indexOf(args[0]) >= 0;"
+			+ "    case 'textEquals': return el != null && pmText(el) === args[0];"
+			+ "    case 'attributeContains': var ac = pmAttr(el, args[0]); return ac != null && ac.indexOf(args[1]) >= 0;"
+			+ "    case 'attributeEquals': return el != null && pmAttr(el, args[0]) === args[1];"
+			+ "    case 'predicate': return pmPredicate(pmValue(el, args[0], args[1]), args[2], args[3]);"
+			+ "  }"
+			+ "  throw new Error('unsupported condition: ' + cond);"
+			+ "};";
+
+	private final static String WAIT_SCRIPT =
+			"var chain = arguments[0], cond = arguments[1], args = arguments[2], timeout = arguments[3],"
+			+ "  interval = arguments[4], abort = arguments[5], done = arguments[arguments.length - 1];"
+			+ LocatorScript.DOM_FUNCTIONS
+			+ CONDITION_FUNCTIONS
+			+ "var finished = false, scheduled = false, observer = null, fallback = null, timer = null;"
+			+ "var test = function() {"
+			+ "  try { return pmCondition(pmResolve(chain), cond, args); } catch (e) { return false; }"
+			+ "};"
+			+ "var finish = function(result) {"
+			+ "  if (finished) { return; }"
+			+ "  finished = true;"
+			+ "  if (observer != null) { observer.disconnect(); }"
+			+ "  if (fallback != null) { clearInterval(fallback); }"
+			+ "  if (timer != null) { clearTimeout(timer); }"
+			+ "  done(result);"
+			+ "};"
+			+ "var aborted = function() {"
+			+ "  if (abort == null) { return false; }"
+			+ "  var url = window.location.href, title = document.title;"
+			+ "  return url !== abort[0] || title !== abort[3]"
+			+ "    || (abort[1] != null && new RegExp(abort[1]).test(url))"
+			+ "    || (abort[2] != null && new RegExp(abort[2]).test(title));"
+			+ "};"
+			+ "var check = function() {"
+			+ "  scheduled = false;"
+			+ "  if (finished) { return; }"
+			+ "  if (test()) { finish(true); }"
+			+ "  else if (aborted()) { finish(null); }"
+			+ "};"
+			+ "var schedule = function() {"
+			+ "  if (scheduled || finished) { return; }"
+			+ "  scheduled = true;"
+			+ "  if (document.hidden || typeof window.requestAnimationFrame !== 'function') { setTimeout(check, 16); }"
+			+ "  else { window.requestAnimationFrame(check); }"
+			+ "};"
+			+ "try {"
+			+ "  if (test()) { finish(true); return; }"
+			+ "  if (aborted()) { finish(null); return; }"
+			+ "  if (typeof MutationObserver !== 'function') { finish(null); return; }"
+			+ "  observer = new MutationObserver(schedule);"
+			+ "  observer.observe(document.documentElement, { childList: true, subtree: true, attributes: true, characterData: true });"
+			+ "  fallback = setInterval(check, interval);"
+			+ "  timer = setTimeout(function() { finish(test()); }, timeout);"
+			+ "} catch (e) { finish(null); }";
+
+	public static boolean isSupported(String condition) {
+		return Arrays.asList(EXISTS, NOT_EXISTS, DISPLAYED, NOT_DISPLAYED,
+				TEXT_CONTAINS, TEXT_EQUALS, ATTRIBUTE_CONTAINS, ATTRIBUTE_EQUALS, PREDICATE).contains(condition);
+	}
+
+	/**
+	 * @param driver    driver to run the wait script with
+	 * @param chain     locator chain built by LocatorScript.locatorChain
+	 * @param condition one of the supported condition names
+	 * @param args      condition arguments (expected text, or attribute name and expected value)
+	 * @param timeoutMs maximum time to wait in the browser
+	 * @return true if the condition was met, false if the wait timed out, or null if the wait could not be run in
+	 * the browser and the caller should fall back to polling
+	 */
+	public static Boolean waitFor(WebDriver driver, List<Object> chain, String condition, List<String> args, long timeoutMs) {
+		return waitFor(driver, chain, condition, args, timeoutMs, null);
+	}
+
+	/**
+	 * @param abort arguments from WaitAbort.browserArgs, or null.  The wait returns null as soon as the url or
+	 *              title changes, so the caller can check the abort conditions.
+	 */
+	public static Boolean waitFor(WebDriver driver, List<Object> chain, String condition, List<String> args, long timeoutMs, List<Object> abort) {
+		if (!ENABLED || chain == null || !isSupported(condition) || !(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			Object result = DriverTimeouts.forDriver(driver).withTimeout(DriverTimeouts.Type.SCRIPT, Duration.ofMillis(timeoutMs + SCRIPT_TIMEOUT_MARGIN_MS),
+					() -> ((JavascriptExecutor) driver).executeAsyncScript(WAIT_SCRIPT, chain, condition, args, timeoutMs, FALLBACK_INTERVAL_MS, abort));
+			return result instanceof Boolean ? (Boolean) result : null;
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+}
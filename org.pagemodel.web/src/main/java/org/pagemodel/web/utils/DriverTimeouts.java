@@ -0,0 +1,228 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the implicit wait, page load and script timeouts of a WebDriver, and only sends a timeout command when the
+ * value actually changes.  Each timeout change is a remote command, so code that sets the same timeout over and over
+ * (in a polling loop, or around every click) should go through this class instead of driver.manage().timeouts().
+ * <p>
+ * Temporary changes wrap the code that needs them, restoring the previous value afterwards:
+ * <pre>
+ * boolean displayed = DriverTimeouts.forDriver(driver).withTimeout(Type.IMPLICIT_WAIT, Duration.ZERO, () -> ...);
+ * </pre>
+ * or can be scoped by hand with override(), closing the returned Scope when done.
+ * Code that changes the driver timeouts directly should call invalidate() so the tracked values are read again.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class DriverTimeouts {
+	private final static Map<WebDriver, DriverTimeouts> driverTimeouts = Collections.synchronizedMap(new WeakHashMap<>());
+
+	public enum Type {
+		IMPLICIT_WAIT, PAGE_LOAD, SCRIPT
+	}
+
+	protected final WeakReference<WebDriver> driverRef;
+	protected final Map<Type, Duration> current = new EnumMap<>(Type.class);
+	protected final Map<Type, Integer> sent = new EnumMap<>(Type.class);
+	protected final Map<Type, Integer> suppressed = new EnumMap<>(Type.class);
+
+	protected DriverTimeouts(WebDriver driver) {
+		this.driverRef = new WeakReference<>(driver);
+		for (Type type : Type.values()) {
+			sent.put(type, 0);
+			suppressed.put(type, 0);
+		}
+	}
+
+	public static DriverTimeouts forDriver(WebDriver driver) {
+		synchronized (driverTimeouts) {
+			return driverTimeouts.computeIfAbsent(driver, DriverTimeouts::new);
+		}
+	}
+
+	public static void setImplicitWait(WebDriver driver, Duration duration) {
+		forDriver(driver).set(Type.IMPLICIT_WAIT, duration);
+	}
+
+	public static void setPageLoadTimeout(WebDriver driver, Duration duration) {
+		forDriver(driver).set(Type.PAGE_LOAD, duration);
+	}
+
+	public static void setScriptTimeout(WebDriver driver, Duration duration) {
+		forDriver(driver).set(Type.SCRIPT, duration);
+	}
+
+	/**
+	 * Sets the timeout on the driver, unless it is already known to have this value.
+	 */
+	public synchronized void set(Type type, Duration duration) {
+		if (duration.equals(current.get(type))) {
+			suppressed.put(type, suppressed.get(type) + 1);
+			return;
+		}
+		current.remove(type);
+		send(type, duration);
+		current.put(type, duration);
+	}
+
+	/**
+	 * @return the tracked timeout value, reading it from the driver if it is not known yet, or null if it can not
+	 * be read
+	 */
+	public synchronized Duration get(Type type) {
+		if (!current.containsKey(type)) {
+			Duration duration = read(type);
+			if (duration != null) {
+				current.put(type, duration);
+			}
+		}
+		return current.get(type);
+	}
+
+	/**
+	 * Sets the timeout until the returned scope is closed, then restores the previous value.
+	 */
+	public synchronized Scope override(Type type, Duration duration) {
+		Duration previous = get(type);
+		set(type, duration);
+		return new Scope(type, previous);
+	}
+
+	/**
+	 * Runs the action with the timeout set to the duration, then restores the previous value.
+	 * @return the result of the action
+	 */
+	public <T> T withTimeout(Type type, Duration duration, Supplier<T> action) {
+		Scope scope = override(type, duration);
+		try {
+			return action.get();
+		} finally {
+			scope.close();
+		}
+	}
+
+	public void runWithTimeout(Type type, Duration duration, Runnable action) {
+		withTimeout(type, duration, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Forgets the tracked timeout values, for use after the driver timeouts are changed directly.
+	 */
+	public synchronized void invalidate() {
+		current.clear();
+	}
+
+	/**
+	 * Forgets one tracked timeout value, for use after that driver timeout is changed directly.
+	 */
+	public synchronized void invalidate(Type type) {
+		current.remove(type);
+	}
+
+	public synchronized int getSentCount(Type type) {
+		return sent.get(type);
+	}
+
+	public synchronized int getSuppressedCount(Type type) {
+		return suppressed.get(type);
+	}
+
+	public synchronized int getSentCount() {
+		return sent.values().stream().mapToInt(Integer::intValue).sum();
+	}
+
+	public synchronized int getSuppressedCount() {
+		return suppressed.values().stream().mapToInt(Integer::intValue).sum();
+	}
+
+	protected void send(Type type, Duration duration) {
+		WebDriver.Timeouts timeouts = getDriver().manage().timeouts();
+		sent.put(type, sent.get(type) + 1);
+		switch (type) {
+			case IMPLICIT_WAIT:
+				timeouts.implicitlyWait(duration);
+				break;
+			case PAGE_LOAD:
+				timeouts.pageLoadTimeout(duration);
+				break;
+			case SCRIPT:
+				timeouts.scriptTimeout(duration);
+				break;
+		}
+	}
+
+	protected Duration read(Type type) {
+		try {
+			WebDriver.Timeouts timeouts = getDriver().manage().timeouts();
+			switch (type) {
+				case IMPLICIT_WAIT:
+					return timeouts.getImplicitWaitTimeout();
+				case PAGE_LOAD:
+					return timeouts.getPageLoadTimeout();
+				case SCRIPT:
+					return timeouts.getScriptTimeout();
+			}
+		} catch (Throwable t) {
+		}
+		return null;
+	}
+
+	protected WebDriver getDriver() {
+		WebDriver driver = driverRef.get();
+		if (driver == null) {
+			throw new IllegalStateException("Error: WebDriver has been released");
+		}
+		return driver;
+	}
+
+	public class Scope implements AutoCloseable {
+		private final Type type;
+		private final Duration previous;
+		private boolean closed = false;
+
+		protected Scope(Type type, Duration previous) {
+			this.type = type;
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (previous != null) {
+				set(type, previous);
+			}
+		}
+	}
+}
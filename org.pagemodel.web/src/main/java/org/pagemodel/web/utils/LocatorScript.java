@@ -0,0 +1,264 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.pagemodel.web.LocatedWebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Converts the locator of a LocatedWebElement into a chain of [using, value] steps that can be resolved in the
+ * browser, along with the javascript helpers used to resolve and inspect elements in a single script call.
+ * <p>
+ * A chain is a list where each step is either a [using, value] pair applied to the previous result, or a
+ * WebElement used as the root for the following steps.  An empty chain resolves to the document.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class LocatorScript {
+
+	public final static String DOM_FUNCTIONS =
+			"var pmFindAll = function(root, using, value) {"
+			+ "  var list = [], i;"
+			+ "  if (root == null) { return list; }"
+			+ "  if (using === 'xpath') {"
+			+ "    var doc = root.ownerDocument || root;"
+			+ "    var snap = doc.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+			+ "    for (i = 0; i < snap.snapshotLength; i++) { list.push(snap.snapshotItem(i)); }"
+			+ "    return list;"
+			+ "  }"
+			+ "  var nodes, filter = null;"
+			+ "  if (using === 'css selector') { nodes = root.querySelectorAll(value); }"
+			+ "  else if (using === 'tag name') { nodes = root.getElementsByTagName(value); }"
+			+ "  else if (using === 'class name') { nodes = root.getElementsByClassName(value); }"
+			+ "  else if (using === 'id') { nodes = root.querySelectorAll('[id]'); filter = function(e) { return e.id === value; }; }"
+			+ "  else if (using === 'name') { nodes = root.querySelectorAll('[name]'); filter = function(e) { return e.getAttribute('name') === value; }; }"
+			+ "  else if (using === 'link text' || using === 'partial link text') {"
+			+ "    nodes = root.getElementsByTagName('a');"
+			+ "    filter = function(e) {"
+			+ "      var t = pmText(e);"
+			+ "      return using === 'link text' ? t === value.trim() : t.indexOf(value) >= 0;"
+			+ "    };"
+			+ "  }"
+			+ "  else { throw new Error('unsupported locator: ' + using); }"
+			+ "  for (i = 0; i < nodes.length; i++) { if (filter == null || filter(nodes[i])) { list.push(nodes[i]); } }"
+			+ "  return list;"
+			+ "};"
+			+ "var pmFind = function(root, using, value) {"
+			+ "  var list = pmFindAll(root, using, value);"
+			+ "  return list.length > 0 ? list[0] : null;"
+			+ "};"
+			+ "var pmResolveAll = function(chain) {"
+			+ "  var roots = [document], i, j;"
+			+ "  for (i = 0; i < chain.length; i++) {"
+			+ "    var step = chain[i];"
+			+ "    if (step == null || step.nodeType) { roots = step == null ? [] : [step]; continue; }"
+			+ "    var next = [];"
+			+ "    if (i === chain.length - 1) {"
+			+ "      for (j = 0; j < roots.length; j++) { next = next.concat(pmFindAll(roots[j], step[0], step[1])); }"
+			+ "    } else {"
+			+ "      var found = roots.length > 0 ? pmFind(roots[0], step[0], step[1]) : null;"
+			+ "      if (found != null) { next.push(found); }"
+			+ "    }"
+			+ "    roots = next;"
+			+ "  }"
+			+ "  return roots;"
+			+ "};"
+			+ "var pmResolve = function(chain) {"
+			+ "  var root = document, i;"
+			+ "  for (i = 0; i < chain.length && root != null; i++) {"
+			+ "    var step = chain[i];"
+			+ "    root = (step == null || step.nodeType) ? step : pmFind(root, step[0], step[1]);"
+			+ "  }"
+			+ "  return root === document ? document.documentElement : root;"
+			+ "};"
+			+ "var pmTarget = function(ref) {"
+			+ "  return (ref == null || ref.nodeType) ? ref : pmResolve(ref);"
+			+ "};"
+			+ "var pmText = function(el) {"
+			+ "  if (el == null) { return null; }"
+			+ "  var t = el.innerText != null ? el.innerText : el.textContent;"
+			+ "  return t == null ? '' : t.trim().replace(/\\s+/g, ' ');"
+			+ "};"
+			+ "var pmAttr = function(el, name) {"
+			+ "  if (el == null) { return null; }"
+			+ "  var v = name === 'style' ? null : el[name];"
+			+ "  if (v != null && typeof v !== 'object' && typeof v !== 'function') {"
+			+ "    return typeof v === 'boolean' ? (v ? 'true' : null) : String(v);"
+			+ "  }"
+			+ "  return el.getAttribute(name);"
+			+ "};"
+			+ "var pmVisible = function(el) {"
+			+ "  if (el == null || !document.documentElement.contains(el)) { return false; }"
+			+ "  var style = window.getComputedStyle(el);"
+			+ "  if (style.display === 'none' || style.visibility === 'hidden' || style.opacity === '0') { return false; }"
+			+ "  return el.getClientRects().length > 0;"
+			+ "};";
+
+	/**
+	 * @return element text the way pmText reads it in the browser: trimmed, with whitespace collapsed to one space
+	 */
+	public static String normalizeText(String text) {
+		return text == null ? null : text.trim().replaceAll("\\s+", " ");
+	}
+
+	public static List<String> locatorStep(By by) {
+		if (by == null || !(by instanceof By.Remotable)) {
+			return null;
+		}
+		By.Remotable.Parameters params = ((By.Remotable) by).getRemoteParameters();
+		if (!(params.value() instanceof String)) {
+			return null;
+		}
+		return Arrays.asList(params.using(), (String) params.value());
+	}
+
+	public final static String RESOLVE_SCRIPT =
+			"var chain = arguments[0], all = arguments[1], root = document, path = [], i;"
+			+ DOM_FUNCTIONS
+			+ "for (i = 0; i < chain.length - 1; i++) {"
+			+ "  var step = chain[i];"
+			+ "  root = (step == null || step.nodeType) ? step : (root == null ? null : pmFind(root, step[0], step[1]));"
+			+ "  path.push(root);"
+			+ "}"
+			+ "var last = chain[chain.length - 1], found = root == null ? [] : pmFindAll(root, last[0], last[1]);"
+			+ "return [path, all ? found : found.slice(0, 1)];";
+
+	private final static ThreadLocal<Boolean> deferredFind = ThreadLocal.withInitial(() -> false);
+
+	/**
+	 * @return true while a locator chain is being collected with deferred(), in which case model find methods should
+	 * return unresolved LocatedWebElements instead of calling the driver
+	 */
+	public static boolean isDeferred() {
+		return deferredFind.get();
+	}
+
+	/**
+	 * Runs an element reference with find methods deferred, to collect its locator chain without finding anything.
+	 * @return the element returned by the reference, or null if it failed
+	 */
+	public static <T> T deferred(Callable<T> elementRef) {
+		boolean previous = deferredFind.get();
+		deferredFind.set(true);
+		try {
+			return elementRef.call();
+		} catch (Throwable t) {
+			return null;
+		} finally {
+			deferredFind.set(previous);
+		}
+	}
+
+	/**
+	 * Script argument for an element, to be resolved in the script with pmTarget: the locator chain if it can be
+	 * scripted, so the element is found by the script itself, otherwise the element found by the driver.
+	 * @throws NoSuchElementException if the element has no chain and can not be found
+	 */
+	public static Object scriptTarget(Callable<LocatedWebElement> elementRef) throws Exception {
+		List<Object> chain = locatorChain(deferred(elementRef));
+		if (chain != null) {
+			return chain;
+		}
+		LocatedWebElement element = elementRef.call();
+		if (element == null || !element.hasElement()) {
+			throw new NoSuchElementException("Unable to find element: " + (element == null ? null : element.getElementLocator()));
+		}
+		return element.getElement();
+	}
+
+	/**
+	 * @param element element to build a locator chain for
+	 * @return chain of locator steps from the page root to the element, or null if the element can not be located in
+	 * the browser (no By locator, or an unlocatable parent)
+	 */
+	public static List<Object> locatorChain(LocatedWebElement element) {
+		return locatorChain(element, new ArrayList<>());
+	}
+
+	/**
+	 * @param stepElements filled with the LocatedWebElement for each step of the chain, or null for anchor steps
+	 */
+	public static List<Object> locatorChain(LocatedWebElement element, List<LocatedWebElement> stepElements) {
+		return locatorChain(element, stepElements, false);
+	}
+
+	/**
+	 * @param placeholder the LIST_PLACEHOLDER element returned by a find...Elements method while deferred
+	 * @return chain of locator steps from the page root to every element of the list, or null if the list can not be
+	 * located in the browser
+	 */
+	public static List<Object> listChain(LocatedWebElement placeholder) {
+		if (placeholder == null || !placeholder.isListPlaceholder() || placeholder.hasElement()) {
+			return null;
+		}
+		return locatorChain(placeholder, new ArrayList<>(), true);
+	}
+
+	/**
+	 * A step only locates the first element matching its locator, so a chain can not be built through any other
+	 * list item, or through a list placeholder that stands for an item the reference picked out of the list.
+	 */
+	private static List<Object> locatorChain(LocatedWebElement element, List<LocatedWebElement> stepElements, boolean listTarget) {
+		if (element == null || element.getListIndex() > 0 || (element.isListPlaceholder() && !listTarget)) {
+			return null;
+		}
+		List<String> step = locatorStep(element.getBy());
+		if (step == null) {
+			return null;
+		}
+		List<Object> chain = new ArrayList<>();
+		List<LocatedWebElement> steps = new ArrayList<>();
+		if (element.hasParent() && !element.isPageScoped()) {
+			List<Object> parentChain = parentChain(element.getLocatorParent(), steps);
+			if (parentChain == null) {
+				return null;
+			}
+			chain.addAll(parentChain);
+		}
+		chain.add(step);
+		steps.add(element);
+		stepElements.addAll(steps);
+		return chain;
+	}
+
+	private static List<Object> parentChain(WebElement parent, List<LocatedWebElement> stepElements) {
+		if (parent instanceof LocatedWebElement) {
+			LocatedWebElement located = (LocatedWebElement) parent;
+			List<Object> chain = locatorChain(located, stepElements);
+			if (chain != null) {
+				return chain;
+			}
+			if (!located.hasElement()) {
+				return null;
+			}
+			stepElements.add(null);
+			return new ArrayList<>(Arrays.asList(located.getElement()));
+		}
+		if (parent == null) {
+			return null;
+		}
+		stepElements.add(null);
+		return new ArrayList<>(Arrays.asList(parent));
+	}
+}
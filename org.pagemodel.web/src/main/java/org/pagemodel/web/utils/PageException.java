@@ -74,13 +74,17 @@ public class PageException extends TestRuntimeException {
 		super.captureExceptionDetails(testContext, logException);
 		if(logOnError()){
 			takeScreenshot();
+			Screenshot.saveFullResolution();
 		}
+		ScreenshotWriter.flush();
 	}
 
 	public void removeScreenshot() {
 		if (screenshotPath == null || screenshotPath.isEmpty()) {
 			return;
 		}
+		ScreenshotDedup.forget(screenshotPath);
+		ScreenshotWriter.flush();
 		File screenshot = new File(screenshotPath);
 		if (screenshot.exists()) {
 			if (screenshot.delete()) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the performance metrics of the current document with one script call.
+ * <p>
+ * Times are in milliseconds from the start of the navigation, read from Navigation Timing (or the older
+ * performance.timing when it is not supported), Paint Timing, and the buffered largest-contentful-paint and
+ * layout-shift entries.  Cumulative layout shift is the largest session window of shifts without recent input.
+ * Resource Timing is summarized as a count, the total transfer size and the slowest resource.
+ * <p>
+ * Metrics the browser does not support, and events that have not happened yet (such as load while the page is
+ * still loading), are null.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class PagePerformance {
+	public final static String URL = "url";
+	public final static String NAVIGATION_TYPE = "navigationType";
+	public final static String TIME_TO_FIRST_BYTE = "timeToFirstByte";
+	public final static String DOM_INTERACTIVE = "domInteractive";
+	public final static String DOM_CONTENT_LOADED = "domContentLoaded";
+	public final static String LOAD = "load";
+	public final static String FIRST_PAINT = "firstPaint";
+	public final static String FIRST_CONTENTFUL_PAINT = "firstContentfulPaint";
+	public final static String LARGEST_CONTENTFUL_PAINT = "largestContentfulPaint";
+	public final static String CUMULATIVE_LAYOUT_SHIFT = "cumulativeLayoutShift";
+	public final static String DOCUMENT_SIZE = "documentSize";
+	public final static String RESOURCE_COUNT = "resourceCount";
+	public final static String RESOURCE_SIZE = "resourceSize";
+	public final static String SLOWEST_RESOURCE = "slowestResource";
+	public final static String SLOWEST_RESOURCE_URL = "slowestResourceUrl";
+
+	public final static String METRICS_SCRIPT =
+			"var perf = window.performance, result = { url: window.location.href }, i;"
+			+ "if (perf == null) { return result; }"
+			+ "var ms = function(v) { return v != null && v > 0 ? Math.round(v) : null; };"
+			+ "var entries = function(type) {"
+			+ "  try { return perf.getEntriesByType ? perf.getEntriesByType(type) : []; } catch (e) { return []; }"
+			+ "};"
+			+ "var buffered = function(type) {"
+			+ "  try {"
+			+ "    if (typeof PerformanceObserver !== 'function' || PerformanceObserver.supportedEntryTypes == null"
+			+ "        || PerformanceObserver.supportedEntryTypes.indexOf(type) < 0) { return null; }"
+			+ "    var observer = new PerformanceObserver(function() {});"
+			+ "    observer.observe({ type: type, buffered: true });"
+			+ "    var list = observer.takeRecords();"
+			+ "    observer.disconnect();"
+			+ "    return list;"
+			+ "  } catch (e) { return null; }"
+			+ "};"
+			+ "var nav = entries('navigation');"
+			+ "if (nav.length > 0) {"
+			+ "  nav = nav[0];"
+			+ "  result.navigationType = nav.type;"
+			+ "  result.timeToFirstByte = ms(nav.responseStart);"
+			+ "  result.domInteractive = ms(nav.domInteractive);"
+			+ "  result.domContentLoaded = ms(nav.domContentLoadedEventEnd);"
+			+ "  result.load = ms(nav.loadEventEnd);"
+			+ "  result.documentSize = nav.transferSize == null ? null : nav.transferSize;"
+			+ "} else if (perf.timing != null && perf.timing.navigationStart > 0) {"
+			+ "  var t = perf.timing, rel = function(v) { return v > 0 ? ms(v - t.navigationStart) : null; };"
+			+ "  result.timeToFirstByte = rel(t.responseStart);"
+			+ "  result.domInteractive = rel(t.domInteractive);"
+			+ "  result.domContentLoaded = rel(t.domContentLoadedEventEnd);"
+			+ "  result.load = rel(t.loadEventEnd);"
+			+ "}"
+			+ "var paint = entries('paint');"
+			+ "for (i = 0; i < paint.length; i++) {"
+			+ "  if (paint[i].name === 'first-paint') { result.firstPaint = ms(paint[i].startTime); }"
+			+ "  if (paint[i].name === 'first-contentful-paint') { result.firstContentfulPaint = ms(paint[i].startTime); }"
+			+ "}"
+			+ "var lcp = buffered('largest-contentful-paint');"
+			+ "if (lcp != null && lcp.length > 0) {"
+			+ "  var last = lcp[lcp.length - 1];"
+			+ "  result.largestContentfulPaint = ms(last.renderTime || last.loadTime || last.startTime);"
+			+ "}"
+			+ "var shifts = buffered('layout-shift');"
+			+ "if (shifts != null) {"
+			+ "  var cls = 0, session = 0, first = 0, prev = 0;"
+			+ "  for (i = 0; i < shifts.length; i++) {"
+			+ "    var s = shifts[i];"
+			+ "    if (s.hadRecentInput) { continue; }"
+			+ "    if (session > 0 && (s.startTime - prev > 1000 || s.startTime - first > 5000)) { session = 0; }"
+			+ "    if (session === 0) { first = s.startTime; }"
+			+ "    session += s.value;"
+			+ "    prev = s.startTime;"
+			+ "    cls = Math.max(cls, session);"
+			+ "  }"
+			+ "  result.cumulativeLayoutShift = cls;"
+			+ "}"
+			+ "var resources = entries('resource'), size = 0, slowest = null;"
+			+ "for (i = 0; i < resources.length; i++) {"
+			+ "  size += resources[i].transferSize || 0;"
+			+ "  if (slowest == null || resources[i].duration > slowest.duration) { slowest = resources[i]; }"
+			+ "}"
+			+ "result.resourceCount = resources.length;"
+			+ "result.resourceSize = size;"
+			+ "if (slowest != null) {"
+			+ "  result.slowestResource = Math.round(slowest.duration);"
+			+ "  result.slowestResourceUrl = slowest.name;"
+			+ "}"
+			+ "return result;";
+
+	/**
+	 * @return metrics of the current document by name, see the name constants, or an empty map if they can not be
+	 * read
+	 */
+	public static Map<String, Object> collect(WebDriver driver) {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		if (!(driver instanceof JavascriptExecutor)) {
+			return metrics;
+		}
+		Object result;
+		try {
+			result = ((JavascriptExecutor) driver).executeScript(METRICS_SCRIPT);
+		} catch (RuntimeException ex) {
+			return metrics;
+		}
+		if (!(result instanceof Map)) {
+			return metrics;
+		}
+		Map<?, ?> values = (Map<?, ?>) result;
+		for (String name : new String[]{URL, NAVIGATION_TYPE, TIME_TO_FIRST_BYTE, DOM_INTERACTIVE, DOM_CONTENT_LOADED, LOAD,
+				FIRST_PAINT, FIRST_CONTENTFUL_PAINT, LARGEST_CONTENTFUL_PAINT, CUMULATIVE_LAYOUT_SHIFT, DOCUMENT_SIZE,
+				RESOURCE_COUNT, RESOURCE_SIZE, SLOWEST_RESOURCE, SLOWEST_RESOURCE_URL}) {
+			Object value = values.get(name);
+			if (value instanceof Number) {
+				value = name.equals(CUMULATIVE_LAYOUT_SHIFT) ? (Object) ((Number) value).doubleValue() : (Object) ((Number) value).intValue();
+			}
+			if (value != null) {
+				metrics.put(name, value);
+			}
+		}
+		return metrics;
+	}
+}
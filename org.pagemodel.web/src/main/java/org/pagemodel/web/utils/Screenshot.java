@@ -20,15 +20,22 @@ import org.openqa.selenium.OutputType;
 import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.chromium.HasCdp;
 import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.core.utils.TestHooks;
 import org.pagemodel.web.WebTestContext;
 
 import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.pagemodel.web.utils.RectangleUtils.*;
 
@@ -39,6 +46,23 @@ public class Screenshot {
 
 	private static int SCREENSHOT_NUMBER = 1;
 	public static String SCREENSHOT_DEST = "build/screenshots/";
+	public static boolean NATIVE_CAPTURE = true;
+
+	private final static ThreadLocal<FullCapture> lastFullCapture = new ThreadLocal<>();
+
+	static {
+		TestHooks.onTestEnd(lastFullCapture::remove);
+	}
+
+	private static class FullCapture {
+		private final File file;
+		private final byte[] png;
+
+		private FullCapture(File file, byte[] png) {
+			this.file = file;
+			this.png = png;
+		}
+	}
 
 	public static <T> String takeScreenshot(WebTestContext testContext, String filenamePrefix) {
 		return takeScreenshot(testContext, filenamePrefix, true);
@@ -61,105 +85,131 @@ public class Screenshot {
 		return takeScreenshot(driver, filenamePrefix, true);
 	}
 
+	/**
+	 * Automatically named screenshots (formatName true) of a page that has not changed since the previous one
+	 * reference the previous file instead of writing a new one.
+	 */
 	public static String takeScreenshot(WebDriver driver, String filenamePrefix, boolean formatName) {
-		File destFolder = new File(SCREENSHOT_DEST);
-		TestEvaluator.Now eval = new TestEvaluator.Now();
-		if (!destFolder.exists()) {
-			eval.quiet().testRun(TestEvaluator.TEST_EXECUTE,
-					"create directory", op -> op
-							.addValue("value", destFolder.getAbsolutePath()),
-					() -> destFolder.mkdirs(),
-					null, null);
+		String fingerprint = formatName ? ScreenshotDedup.fingerprint(driver) : null;
+		String previous = formatName ? ScreenshotDedup.previous(driver, "window", fingerprint, 0) : null;
+		if (previous != null) {
+			return reuse(previous);
 		}
-		File screenshot;
-		if(formatName){
-			SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss");
-			String date = simpleDateFormat.format(new Date());
-			String filename = String.format("%03d_%s_%s.png", SCREENSHOT_NUMBER++, filenamePrefix, date);
-			screenshot = new File(destFolder, filename);
-		}else{
-			screenshot = new File(destFolder, filenamePrefix+".png");
-		}
-
 		byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-		String base64Encoded = Base64.getEncoder().encodeToString(bytes);
-		eval.logEvent(TestEvaluator.TEST_EXECUTE, "save screenshot", obj -> obj
-				.addValue("value", "file://" + screenshot.getAbsolutePath())
-				.addValue("img-base64", base64Encoded));
-		try (FileOutputStream fos = new FileOutputStream(screenshot)) {
-			fos.write(bytes);
-		} catch (IOException ex) {
-			eval.logException(TestEvaluator.TEST_ERROR, "save screenshot", obj -> obj
-							.addValue("value", "file://" + screenshot.getAbsolutePath())
-					, null, ex);
+		long hash = formatName && ScreenshotDedup.ENABLED ? ScreenshotDedup.hash(bytes) : 0;
+		previous = formatName ? ScreenshotDedup.previous(driver, "window", null, hash) : null;
+		if (previous != null) {
+			ScreenshotDedup.record(driver, "window", fingerprint, hash, previous);
+			return reuse(previous);
+		}
+		File screenshot = screenshotFile(filenamePrefix, formatName, ScreenshotFormat.current());
+		submitCapture(screenshot, bytes, ScreenshotFormat.current());
+		if (formatName) {
+			ScreenshotDedup.record(driver, "window", fingerprint, hash, screenshot.getAbsolutePath());
 		}
 		return screenshot.getAbsolutePath();
 	}
 
+	private static String reuse(String previous) {
+		new TestEvaluator.Now().logEvent(TestEvaluator.TEST_EXECUTE, "reuse screenshot", obj -> obj
+				.addValue("value", "file://" + previous));
+		return previous;
+	}
+
 	public static String takeScreenshot(WebDriver driver, Rectangle bounds, String filename, int...padding) {
 		return takeScreenshot(driver, bounds, filename, false, padding);
 	}
 
 	public static String takeScreenshot(WebDriver driver, Rectangle bounds, String filenamePrefix, boolean formatName, int...padding) {
-		File destFolder = new File(SCREENSHOT_DEST);
-		TestEvaluator.Now eval = new TestEvaluator.Now();
-		if (!destFolder.exists()) {
-			eval.quiet().testRun(TestEvaluator.TEST_EXECUTE,
-					"create directory", op -> op
-							.addValue("value", destFolder.getAbsolutePath()),
-					() -> destFolder.mkdirs(),
-					null, null);
+		ScreenshotFormat format = ScreenshotFormat.current();
+		File screenshot = screenshotFile(filenamePrefix, formatName, format);
+		byte[] region = captureRegion(driver, bounds, padding);
+		if (region != null) {
+			submitCapture(screenshot, region, format);
+			return screenshot.getAbsolutePath();
 		}
-
-		File screenshot;
-		if(formatName){
-			SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss");
-			String date = simpleDateFormat.format(new Date());
-			String filename = String.format("%03d_%s_%s.png", SCREENSHOT_NUMBER++, filenamePrefix, date);
-			screenshot = new File(destFolder, filename);
-		}else{
-			screenshot = new File(destFolder, filenamePrefix+".png");
-		}
-
 		byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-		try {
-			int[] pads = RectangleUtils.getPads(padding);
-			BufferedImage fullImg = ImageIO.read(new ByteArrayInputStream(bytes));
-			int xmin = Math.min(fullImg.getWidth(), Math.max(0, bounds.getX() - pads[LEFT]));
-			int xmax = Math.min(fullImg.getWidth() - xmin, Math.max(0, bounds.getWidth() + pads[LEFT] + pads[RIGHT]));
-			int ymin = Math.min(fullImg.getHeight(), Math.max(0, bounds.getY() - pads[TOP]));
-			int ymax = Math.min(fullImg.getHeight() - ymin, Math.max(0, bounds.getHeight() + pads[TOP] + pads[BOTTOM]));
-			BufferedImage eleScreenshot= fullImg.getSubimage(xmin, ymin, xmax, ymax);
-
-			ImageIO.write(eleScreenshot, "png", screenshot);
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			ImageIO.write(eleScreenshot, "png", outBytes);
-			String base64Encoded = Base64.getEncoder().encodeToString(outBytes.toByteArray());
-			eval.logEvent(TestEvaluator.TEST_EXECUTE, "save screenshot", obj -> obj
-					.addValue("value", "file://" + screenshot.getAbsolutePath())
-					.addValue("img-base64", base64Encoded));
+		keepFullCapture(screenshot, bytes, format);
+		ScreenshotWriter.submit(() -> {
+			byte[] cropped;
+			try {
+				long start = System.nanoTime();
+				int[] pads = RectangleUtils.getPads(padding);
+				BufferedImage fullImg = ImageIO.read(new ByteArrayInputStream(bytes));
+				int xmin = Math.min(fullImg.getWidth(), Math.max(0, bounds.getX() - pads[LEFT]));
+				int xmax = Math.min(fullImg.getWidth() - xmin, Math.max(0, bounds.getWidth() + pads[LEFT] + pads[RIGHT]));
+				int ymin = Math.min(fullImg.getHeight(), Math.max(0, bounds.getY() - pads[TOP]));
+				int ymax = Math.min(fullImg.getHeight() - ymin, Math.max(0, bounds.getHeight() + pads[TOP] + pads[BOTTOM]));
+				cropped = format.encode(fullImg.getSubimage(xmin, ymin, xmax, ymax));
+				ScreenshotWriter.recordEncode(System.nanoTime() - start);
+			} catch (Exception ex) {
+				new TestEvaluator.Now().logException(TestEvaluator.TEST_ERROR, "save screenshot", obj -> obj
+								.addValue("value", "file://" + screenshot.getAbsolutePath())
+						, null, ex);
+				return;
+			}
+			write(screenshot, cropped);
+		});
+		return screenshot.getAbsolutePath();
+	}
 
-		}catch (Exception ex){
-			eval.logException(TestEvaluator.TEST_ERROR, "save screenshot", obj -> obj
-							.addValue("value", "file://" + screenshot.getAbsolutePath())
-					, null, ex);
+	/**
+	 * Screenshot of a single element, captured by the browser when there is no padding.
+	 */
+	public static String takeScreenshot(WebDriver driver, WebElement element, String filenamePrefix, boolean formatName, int...padding) {
+		if (NATIVE_CAPTURE && isUnpadded(padding)) {
+			try {
+				byte[] bytes = element.getScreenshotAs(OutputType.BYTES);
+				File screenshot = screenshotFile(filenamePrefix, formatName, ScreenshotFormat.current());
+				submitCapture(screenshot, bytes, ScreenshotFormat.current());
+				return screenshot.getAbsolutePath();
+			} catch (RuntimeException ex) {
+				// driver does not support element screenshots, crop the window screenshot instead
+			}
 		}
-		return screenshot.getAbsolutePath();
+		return takeScreenshot(driver, element.getRect(), filenamePrefix, formatName, padding);
 	}
 
 	public static BufferedImage getScreenshot(WebDriver driver, Rectangle bounds, boolean formatName, int...padding) {
 		TestEvaluator.Now eval = new TestEvaluator.Now();
+		byte[] region = bounds == null ? null : captureRegion(driver, bounds, padding);
+		if (region != null) {
+			try {
+				BufferedImage image = ImageIO.read(new ByteArrayInputStream(region));
+				eval.logEvent(TestEvaluator.TEST_EXECUTE, "get screenshot", obj -> obj
+						.addObject("bounds", RectangleUtils.rectangleJson(bounds))
+						.addValue("img-base64", Base64.getEncoder().encodeToString(region)));
+				return image;
+			} catch (IOException ex) {
+				// fall back to cropping the window screenshot
+			}
+		}
 		byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
 		try {
 			BufferedImage fullImg = ImageIO.read(new ByteArrayInputStream(bytes));
 			BufferedImage cropped = bounds == null ? fullImg : crop(fullImg, bounds, padding);
-
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			ImageIO.write(cropped, "png", outBytes);
-			String base64Encoded = Base64.getEncoder().encodeToString(outBytes.toByteArray());
-			eval.logEvent(TestEvaluator.TEST_EXECUTE, "get screenshot", obj -> obj
-					.addObject("bounds", RectangleUtils.rectangleJson(bounds))
-					.addValue("img-base64", base64Encoded));
+			ScreenshotFormat format = ScreenshotFormat.current();
+			if (bounds == null && format.isOriginal()) {
+				eval.logEvent(TestEvaluator.TEST_EXECUTE, "get screenshot", obj -> obj
+						.addObject("bounds", RectangleUtils.rectangleJson(bounds))
+						.addValue("img-base64", Base64.getEncoder().encodeToString(bytes)));
+				return cropped;
+			}
+			BufferedImage copy = copy(cropped);
+			ScreenshotWriter.submit(() -> {
+				try {
+					long start = System.nanoTime();
+					String base64Encoded = Base64.getEncoder().encodeToString(format.encode(copy));
+					ScreenshotWriter.recordEncode(System.nanoTime() - start);
+					eval.logEvent(TestEvaluator.TEST_EXECUTE, "get screenshot", obj -> obj
+							.addObject("bounds", RectangleUtils.rectangleJson(bounds))
+							.addValue("img-base64", base64Encoded));
+				} catch (Exception ex) {
+					eval.logException(TestEvaluator.TEST_ERROR, "get screenshot", obj -> obj
+									.addValue("bounds", RectangleUtils.rectangleJson(bounds))
+							, null, ex);
+				}
+			});
 			return cropped;
 		}catch (Exception ex){
 			eval.logException(TestEvaluator.TEST_ERROR, "get screenshot", obj -> obj
@@ -169,12 +219,163 @@ public class Screenshot {
 		return null;
 	}
 
+	/**
+	 * Captures the page or a region of it without logging, for comparing against other images.
+	 * @param bounds region in page coordinates, or null for the window
+	 */
+	public static BufferedImage capture(WebDriver driver, Rectangle bounds) throws IOException {
+		byte[] region = captureRegion(driver, bounds);
+		if (region != null) {
+			return ImageIO.read(new ByteArrayInputStream(region));
+		}
+		BufferedImage fullImg = ImageIO.read(new ByteArrayInputStream(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)));
+		if (bounds == null) {
+			return fullImg;
+		}
+		int x = Math.min(fullImg.getWidth(), Math.max(0, bounds.getX()));
+		int y = Math.min(fullImg.getHeight(), Math.max(0, bounds.getY()));
+		int width = Math.min(fullImg.getWidth() - x, Math.max(0, bounds.getWidth()));
+		int height = Math.min(fullImg.getHeight() - y, Math.max(0, bounds.getHeight()));
+		return fullImg.getSubimage(x, y, width, height);
+	}
+
 	public static BufferedImage crop(BufferedImage fullImg, Rectangle bounds, int...padding) {
 		Rectangle padded = RectangleUtils.pad(bounds, padding);
 		return fullImg.getSubimage(padded.getX(), padded.getY(), padded.getWidth(), padded.getHeight());
 	}
 
 	public static String save(BufferedImage image, String filenamePrefix, boolean formatName) {
+		ScreenshotFormat format = ScreenshotFormat.current();
+		File screenshot = screenshotFile(filenamePrefix, formatName, format);
+		// the caller may keep drawing on the image while it is encoded
+		BufferedImage copy = copy(image);
+		ScreenshotWriter.submit(() -> {
+			byte[] bytes;
+			try {
+				long start = System.nanoTime();
+				bytes = format.encode(copy);
+				ScreenshotWriter.recordEncode(System.nanoTime() - start);
+			} catch (Exception ex) {
+				new TestEvaluator.Now().logException(TestEvaluator.TEST_ERROR, "save screenshot", obj -> obj
+								.addValue("value", "file://" + screenshot.getAbsolutePath())
+						, null, ex);
+				return;
+			}
+			write(screenshot, bytes);
+		});
+		return screenshot.getAbsolutePath();
+	}
+
+	/**
+	 * Waits for screenshots being written in the background.
+	 */
+	public static void flush() {
+		ScreenshotWriter.flush();
+	}
+
+	/**
+	 * Captures a page region in the browser with the DevTools Page.captureScreenshot clip, so only the region is
+	 * transferred and decoded.
+	 * @param bounds region in page coordinates
+	 * @return PNG bytes of the region, or null if the driver can not capture regions
+	 */
+	public static byte[] captureRegion(WebDriver driver, Rectangle bounds, int...padding) {
+		HasCdp cdp = getCdp(driver);
+		if (!NATIVE_CAPTURE || cdp == null || bounds == null) {
+			return null;
+		}
+		int[] pads = RectangleUtils.getPads(padding);
+		int x = Math.max(0, bounds.getX() - pads[LEFT]);
+		int y = Math.max(0, bounds.getY() - pads[TOP]);
+		int width = bounds.getX() + bounds.getWidth() + pads[RIGHT] - x;
+		int height = bounds.getY() + bounds.getHeight() + pads[BOTTOM] - y;
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		Map<String, Object> clip = new HashMap<>();
+		clip.put("x", x);
+		clip.put("y", y);
+		clip.put("width", width);
+		clip.put("height", height);
+		clip.put("scale", 1);
+		Map<String, Object> params = new HashMap<>();
+		params.put("format", "png");
+		params.put("clip", clip);
+		params.put("captureBeyondViewport", true);
+		try {
+			Object data = cdp.executeCdpCommand("Page.captureScreenshot", params).get("data");
+			return data instanceof String ? Base64.getDecoder().decode((String) data) : null;
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	private static HasCdp getCdp(WebDriver driver) {
+		while (driver != null) {
+			if (driver instanceof HasCdp) {
+				return (HasCdp) driver;
+			}
+			driver = driver instanceof WrapsDriver ? ((WrapsDriver) driver).getWrappedDriver() : null;
+		}
+		return null;
+	}
+
+	private static boolean isUnpadded(int...padding) {
+		for (int pad : RectangleUtils.getPads(padding)) {
+			if (pad != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Saves the full resolution PNG of the last screenshot taken on this thread, if it was kept because the
+	 * screenshot format reduced it.  Called when a PageException is created.  The PNG is only kept until the next
+	 * screenshot or the end of the test.
+	 * @return path of the full resolution screenshot, or null if there was none
+	 */
+	public static String saveFullResolution() {
+		FullCapture capture = lastFullCapture.get();
+		if (capture == null) {
+			return null;
+		}
+		lastFullCapture.remove();
+		String name = capture.file.getName();
+		File full = new File(capture.file.getParentFile(), name.substring(0, name.lastIndexOf('.')) + "_full.png");
+		ScreenshotWriter.submit(() -> write(full, capture.png));
+		return full.getAbsolutePath();
+	}
+
+	private static void submitCapture(File screenshot, byte[] png, ScreenshotFormat format) {
+		keepFullCapture(screenshot, png, format);
+		ScreenshotWriter.submit(() -> {
+			byte[] bytes;
+			try {
+				long start = System.nanoTime();
+				bytes = format.convert(png);
+				if (!format.isOriginal()) {
+					ScreenshotWriter.recordEncode(System.nanoTime() - start);
+				}
+			} catch (Exception ex) {
+				new TestEvaluator.Now().logException(TestEvaluator.TEST_ERROR, "save screenshot", obj -> obj
+								.addValue("value", "file://" + screenshot.getAbsolutePath())
+						, null, ex);
+				return;
+			}
+			write(screenshot, bytes);
+		});
+	}
+
+	private static void keepFullCapture(File screenshot, byte[] png, ScreenshotFormat format) {
+		if (format.getKeepFullOnFailure() && !format.isOriginal()) {
+			lastFullCapture.set(new FullCapture(screenshot, png));
+		} else {
+			lastFullCapture.remove();
+		}
+	}
+
+	private static File screenshotFile(String filenamePrefix, boolean formatName, ScreenshotFormat format) {
 		File destFolder = new File(SCREENSHOT_DEST);
 		TestEvaluator.Now eval = new TestEvaluator.Now();
 		if (!destFolder.exists()) {
@@ -184,29 +385,41 @@ public class Screenshot {
 					() -> destFolder.mkdirs(),
 					null, null);
 		}
-		File screenshot;
 		if(formatName){
 			SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss");
 			String date = simpleDateFormat.format(new Date());
-			String filename = String.format("%03d_%s_%s.png", SCREENSHOT_NUMBER++, filenamePrefix, date);
-			screenshot = new File(destFolder, filename);
-		}else{
-			screenshot = new File(destFolder, filenamePrefix+".png");
+			String filename = String.format("%03d_%s_%s.%s", nextScreenshotNumber(), filenamePrefix, date, format.getExtension());
+			return new File(destFolder, filename);
 		}
-		try {
-			ImageIO.write(image, "png", screenshot);
-			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-			ImageIO.write(image, "png", outBytes);
-			String base64Encoded = Base64.getEncoder().encodeToString(outBytes.toByteArray());
-			eval.logEvent(TestEvaluator.TEST_EXECUTE, "save screenshot", obj -> obj
-					.addValue("value", "file://" + screenshot.getAbsolutePath())
-					.addValue("img-base64", base64Encoded));
+		return new File(destFolder, filenamePrefix + "." + format.getExtension());
+	}
 
-		}catch (Exception ex){
+	private static synchronized int nextScreenshotNumber() {
+		return SCREENSHOT_NUMBER++;
+	}
+
+	private static void write(File screenshot, byte[] bytes) {
+		TestEvaluator.Now eval = new TestEvaluator.Now();
+		try (FileOutputStream fos = new FileOutputStream(screenshot)) {
+			fos.write(bytes);
+		} catch (IOException ex) {
 			eval.logException(TestEvaluator.TEST_ERROR, "save screenshot", obj -> obj
 							.addValue("value", "file://" + screenshot.getAbsolutePath())
 					, null, ex);
+			return;
 		}
-		return screenshot.getAbsolutePath();
+		String base64Encoded = Base64.getEncoder().encodeToString(bytes);
+		eval.logEvent(TestEvaluator.TEST_EXECUTE, "save screenshot", obj -> obj
+				.addValue("value", "file://" + screenshot.getAbsolutePath())
+				.addValue("img-base64", base64Encoded));
+	}
+
+	private static BufferedImage copy(BufferedImage image) {
+		BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(),
+				image.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_ARGB : image.getType());
+		Graphics2D g = copy.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return copy;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.core.utils.TestHooks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers the last automatically named screenshot for each driver, so a screenshot of a page that has not changed
+ * can reference the earlier file instead of being captured, encoded and written again.
+ * <p>
+ * By default every screenshot is captured and its bytes are hashed and compared with the previous capture.  With
+ * BROWSER_FINGERPRINT set, a page is also unchanged when a fingerprint computed in the browser (url, scroll position,
+ * window size, a hash of the DOM and form values) matches the previous one, in which case the capture is skipped.
+ * The fingerprint can not see canvas, video or css animation changes.
+ * <p>
+ * Screenshots are only reused within a test: the remembered captures are cleared at the end of each test (see
+ * TestHooks) and when the browser is closed.  A remembered screenshot whose file has been deleted is not reused.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ScreenshotDedup {
+	public static boolean ENABLED = true;
+	public static boolean BROWSER_FINGERPRINT = false;
+
+	private final static String FINGERPRINT_SCRIPT =
+			"var h = 0, i, s = document.documentElement ? document.documentElement.outerHTML : '';"
+			+ "var fields = document.querySelectorAll('input, textarea, select');"
+			+ "for (i = 0; i < fields.length; i++) { s += '|' + fields[i].value + (fields[i].checked ? '1' : '0'); }"
+			+ "if (document.activeElement) { s += '|' + document.activeElement.tagName + document.activeElement.id; }"
+			+ "for (i = 0; i < s.length; i++) { h = (h * 31 + s.charCodeAt(i)) | 0; }"
+			+ "return [location.href, window.pageXOffset, window.pageYOffset, window.innerWidth, window.innerHeight, s.length, h].join('|');";
+
+	private final static Map<WebDriver, Capture> lastCaptures = Collections.synchronizedMap(new WeakHashMap<>());
+
+	static {
+		TestHooks.onTestEnd(ScreenshotDedup::clear);
+	}
+
+	private static class Capture {
+		private final String key;
+		private final String fingerprint;
+		private final long hash;
+		private final String path;
+
+		private Capture(String key, String fingerprint, long hash, String path) {
+			this.key = key;
+			this.fingerprint = fingerprint;
+			this.hash = hash;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * @return fingerprint of the current page state, or null if it can not be computed
+	 */
+	public static String fingerprint(WebDriver driver) {
+		if (!ENABLED || !BROWSER_FINGERPRINT || !(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			Object result = ((JavascriptExecutor) driver).executeScript(FINGERPRINT_SCRIPT);
+			return result instanceof String ? (String) result : null;
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	public static long hash(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return crc.getValue() | ((long) bytes.length << 32);
+	}
+
+	/**
+	 * @param key         what was captured, such as the window or a region
+	 * @param fingerprint page fingerprint, or null
+	 * @param hash        hash of the captured bytes, or 0 if not captured yet
+	 * @return path of the previous screenshot if the page has not changed, otherwise null
+	 */
+	public static String previous(WebDriver driver, String key, String fingerprint, long hash) {
+		if (!ENABLED) {
+			return null;
+		}
+		Capture last = lastCaptures.get(driver);
+		if (last == null || !last.key.equals(key)) {
+			return null;
+		}
+		if (!(fingerprint != null && fingerprint.equals(last.fingerprint)) && !(hash != 0 && hash == last.hash)) {
+			return null;
+		}
+		// a file still being written does not exist yet, a missing file with nothing pending was deleted
+		if (ScreenshotWriter.getQueueDepth() == 0 && !new File(last.path).exists()) {
+			lastCaptures.remove(driver);
+			return null;
+		}
+		return last.path;
+	}
+
+	public static void record(WebDriver driver, String key, String fingerprint, long hash, String path) {
+		if (ENABLED) {
+			lastCaptures.put(driver, new Capture(key, fingerprint, hash, path));
+		}
+	}
+
+	public static void reset(WebDriver driver) {
+		lastCaptures.remove(driver);
+	}
+
+	/**
+	 * Stops reusing a screenshot, such as one that is about to be deleted.
+	 */
+	public static void forget(String path) {
+		synchronized (lastCaptures) {
+			lastCaptures.values().removeIf(capture -> capture.path.equals(path));
+		}
+	}
+
+	/**
+	 * Forgets the screenshots of every driver.  Called at the end of each test.
+	 */
+	public static void clear() {
+		lastCaptures.clear();
+	}
+}
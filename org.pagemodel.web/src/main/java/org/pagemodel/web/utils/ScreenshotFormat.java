@@ -0,0 +1,202 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+
+/**
+ * Format policy for saved screenshots: image format and quality, optional downscaling to a maximum width and height,
+ * and whether the full resolution capture is kept in memory to be saved if the test fails.
+ * <p>
+ * The default is full resolution PNG.  A policy can be forced for a block of code with withFormat, as LocationGroup
+ * does to keep documentation screenshots lossless.  WebP requires an ImageIO WebP plugin on the classpath; formats
+ * without an ImageIO writer are saved as PNG.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ScreenshotFormat {
+	public final static ScreenshotFormat LOSSLESS = new ScreenshotFormat("png", 1.0f, 0, false);
+	public static ScreenshotFormat DEFAULT = LOSSLESS;
+
+	private final static ThreadLocal<ScreenshotFormat> forced = new ThreadLocal<>();
+
+	private final String format;
+	private final float quality;
+	private final int maxDimension;
+	private final boolean keepFullOnFailure;
+
+	protected ScreenshotFormat(String format, float quality, int maxDimension, boolean keepFullOnFailure) {
+		this.format = ImageIO.getImageWritersByFormatName(format).hasNext() ? format : "png";
+		this.quality = quality;
+		this.maxDimension = maxDimension;
+		this.keepFullOnFailure = keepFullOnFailure;
+	}
+
+	public static ScreenshotFormat png() {
+		return LOSSLESS;
+	}
+
+	/**
+	 * @param quality 0.0 (smallest) to 1.0 (best)
+	 */
+	public static ScreenshotFormat jpeg(float quality) {
+		return new ScreenshotFormat("jpeg", quality, 0, false);
+	}
+
+	/**
+	 * @param quality 0.0 (smallest) to 1.0 (best), or 1.0 for lossless
+	 */
+	public static ScreenshotFormat webp(float quality) {
+		return new ScreenshotFormat("webp", quality, 0, false);
+	}
+
+	/**
+	 * @param pixels largest width or height of saved screenshots, or 0 for full resolution
+	 */
+	public ScreenshotFormat maxDimension(int pixels) {
+		return new ScreenshotFormat(format, quality, pixels, keepFullOnFailure);
+	}
+
+	/**
+	 * @param keep keep the last full resolution capture, to be saved as PNG when a PageException is created
+	 */
+	public ScreenshotFormat keepFullOnFailure(boolean keep) {
+		return new ScreenshotFormat(format, quality, maxDimension, keep);
+	}
+
+	/**
+	 * @return the policy forced for the current thread, or DEFAULT
+	 */
+	public static ScreenshotFormat current() {
+		ScreenshotFormat format = forced.get();
+		return format != null ? format : DEFAULT;
+	}
+
+	/**
+	 * Runs code with a screenshot format forced for the current thread.
+	 */
+	public static <T> T withFormat(ScreenshotFormat format, Callable<T> callable) {
+		ScreenshotFormat previous = forced.get();
+		forced.set(format);
+		try {
+			return callable.call();
+		} catch (RuntimeException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		} finally {
+			forced.set(previous);
+		}
+	}
+
+	public String getExtension() {
+		return "jpeg".equals(format) ? "jpg" : format;
+	}
+
+	public boolean getKeepFullOnFailure() {
+		return keepFullOnFailure;
+	}
+
+	/**
+	 * @return true if PNG captures are saved unchanged
+	 */
+	public boolean isOriginal() {
+		return "png".equals(format) && maxDimension <= 0;
+	}
+
+	/**
+	 * @param png image captured by the browser
+	 * @return the image in this format, or the same bytes if isOriginal
+	 */
+	public byte[] convert(byte[] png) throws IOException {
+		if (isOriginal()) {
+			return png;
+		}
+		return encode(ImageIO.read(new ByteArrayInputStream(png)));
+	}
+
+	public byte[] encode(BufferedImage image) throws IOException {
+		image = scale(image);
+		if ("jpeg".equals(format) && image.getColorModel().hasAlpha()) {
+			image = redraw(image, image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+		}
+		ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+		ImageWriter writer = writers.next();
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(outBytes)) {
+			writer.setOutput(out);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (!"png".equals(format) && param.canWriteCompressed()) {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				String[] types = param.getCompressionTypes();
+				boolean lossless = quality >= 1.0f && types != null && contains(types, "Lossless");
+				if (types != null && types.length > 0) {
+					param.setCompressionType(lossless ? "Lossless" : types[0]);
+				}
+				if (!lossless) {
+					param.setCompressionQuality(Math.max(0.0f, Math.min(1.0f, quality)));
+				}
+			}
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return outBytes.toByteArray();
+	}
+
+	protected BufferedImage scale(BufferedImage image) {
+		int largest = Math.max(image.getWidth(), image.getHeight());
+		if (maxDimension <= 0 || largest <= maxDimension) {
+			return image;
+		}
+		double scale = (double) maxDimension / largest;
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		return redraw(image, width, height, image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+	}
+
+	private static BufferedImage redraw(BufferedImage image, int width, int height, int type) {
+		BufferedImage out = new BufferedImage(width, height, type);
+		Graphics2D g = out.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return out;
+	}
+
+	private static boolean contains(String[] values, String value) {
+		for (String val : values) {
+			if (val.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.pagemodel.core.utils.TestHooks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background pipeline for encoding and writing screenshots, so the test thread only waits for the capture itself.
+ * <p>
+ * Tasks run on a small bounded executor.  When the queue is full the task runs on the test thread, which keeps
+ * memory bounded when screenshots are taken faster than they can be written.  Pending screenshots are flushed at the
+ * end of each test (see TestHooks), when the browser is closed, when a PageException is created, and at shutdown, so
+ * their "save screenshot" events are logged within the test that took them.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class ScreenshotWriter {
+	public static boolean ASYNC = true;
+	public static int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	public static int QUEUE_SIZE = 16;
+
+	private final static AtomicInteger pending = new AtomicInteger();
+	private final static AtomicLong encodeNanos = new AtomicLong();
+	private final static AtomicLong encodeCount = new AtomicLong();
+	private final static Object flushLock = new Object();
+	private static ThreadPoolExecutor executor;
+
+	static {
+		TestHooks.onTestEnd(ScreenshotWriter::flush);
+	}
+
+	/**
+	 * Runs a screenshot task in the background, or on the calling thread if ASYNC is false or the queue is full.
+	 */
+	public static void submit(Runnable task) {
+		pending.incrementAndGet();
+		Runnable tracked = () -> {
+			try {
+				task.run();
+			} finally {
+				if (pending.decrementAndGet() == 0) {
+					synchronized (flushLock) {
+						flushLock.notifyAll();
+					}
+				}
+			}
+		};
+		if (!ASYNC) {
+			tracked.run();
+			return;
+		}
+		getExecutor().execute(tracked);
+	}
+
+	/**
+	 * Blocks until all submitted screenshots have been written and logged.
+	 */
+	public static void flush() {
+		synchronized (flushLock) {
+			while (pending.get() > 0) {
+				try {
+					flushLock.wait(100);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records time spent decoding, cropping and encoding one screenshot.
+	 */
+	public static void recordEncode(long nanos) {
+		encodeNanos.addAndGet(nanos);
+		encodeCount.incrementAndGet();
+	}
+
+	/**
+	 * @return number of screenshots submitted and not yet written
+	 */
+	public static int getQueueDepth() {
+		return pending.get();
+	}
+
+	public static long getEncodeCount() {
+		return encodeCount.get();
+	}
+
+	public static long getEncodeTimeMs() {
+		return TimeUnit.NANOSECONDS.toMillis(encodeNanos.get());
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			AtomicInteger threadCount = new AtomicInteger();
+			executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(QUEUE_SIZE),
+					r -> {
+						Thread t = new Thread(r, "pagemodel-screenshot-" + threadCount.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					},
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.allowCoreThreadTimeOut(true);
+			Runtime.getRuntime().addShutdownHook(new Thread(ScreenshotWriter::flush));
+		}
+		return executor;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.UnexpectedTagNameException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and changes the options of a select element with a single script, instead of one WebDriver command per
+ * option as with Selenium's Select.  Selecting an option fires input and change events on the select element when
+ * the selection changes, as a user selection would.
+ * <p>
+ * Errors follow Selenium's Select: NoSuchElementException when no option matches, UnsupportedOperationException
+ * for disabled options or deselecting from a single select.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class SelectScript {
+	public static boolean ENABLED = true;
+
+	public final static String BY_INDEX = "index";
+	public final static String BY_TEXT = "text";
+	public final static String BY_VALUE = "value";
+	private final static String BY_ALL = "all";
+
+	private final static String SELECT_SCRIPT =
+			"var ref = arguments[0], action = arguments[1], by = arguments[2], val = arguments[3];"
+			+ LocatorScript.DOM_FUNCTIONS
+			+ "var sel = pmTarget(ref);"
+			+ "if (sel == null) { return 'missing'; }"
+			+ "if (sel.tagName.toLowerCase() !== 'select') { return 'tag:' + sel.tagName.toLowerCase(); }"
+			+ "var i, opt, out = [];"
+			+ "if (action === 'options') {"
+			+ "  for (i = 0; i < sel.options.length; i++) {"
+			+ "    opt = sel.options[i];"
+			+ "    out.push([opt.text, opt.value, opt.selected]);"
+			+ "  }"
+			+ "  return out;"
+			+ "}"
+			+ "var select = action === 'select';"
+			+ "if (!select && !sel.multiple) { return 'single'; }"
+			+ "var matched = 0, changed = false;"
+			+ "for (i = 0; i < sel.options.length; i++) {"
+			+ "  opt = sel.options[i];"
+			+ "  if (by === 'index' ? i !== val : by === 'value' ? opt.value !== val : by === 'text' ? opt.text !== val : false) { continue; }"
+			+ "  matched++;"
+			+ "  if (select && opt.disabled) { return 'disabled'; }"
+			+ "  if (opt.selected !== select) { opt.selected = select; changed = true; }"
+			+ "  if (select && !sel.multiple) { break; }"
+			+ "}"
+			+ "if (changed) {"
+			+ "  ['input', 'change'].forEach(function(type) {"
+			+ "    var event = document.createEvent('HTMLEvents');"
+			+ "    event.initEvent(type, true, false);"
+			+ "    sel.dispatchEvent(event);"
+			+ "  });"
+			+ "}"
+			+ "return matched > 0 || by === 'all' ? 'ok' : 'none';";
+
+	public static class Option {
+		private final String text;
+		private final String value;
+		private final boolean selected;
+
+		public Option(String text, String value, boolean selected) {
+			this.text = text;
+			this.value = value;
+			this.selected = selected;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public boolean isSelected() {
+			return selected;
+		}
+	}
+
+	public static boolean isSupported(WebDriver driver) {
+		return ENABLED && driver instanceof JavascriptExecutor;
+	}
+
+	/**
+	 * @param target select element argument, from LocatorScript.scriptTarget
+	 * @return text, value and selected state of every option of the select element
+	 */
+	public static List<Option> getOptions(WebDriver driver, Object target) {
+		Object result = run(driver, target, "options", BY_ALL, "");
+		List<Option> options = new ArrayList<>();
+		for (Object obj : (List<?>) result) {
+			List<?> option = (List<?>) obj;
+			options.add(new Option((String) option.get(0), (String) option.get(1), Boolean.TRUE.equals(option.get(2))));
+		}
+		return options;
+	}
+
+	/**
+	 * @param by    BY_INDEX, BY_TEXT or BY_VALUE
+	 * @param value option index, visible text or value
+	 */
+	public static void select(WebDriver driver, Object target, String by, Object value) {
+		check(run(driver, target, "select", by, value), by, value);
+	}
+
+	public static void deselect(WebDriver driver, Object target, String by, Object value) {
+		check(run(driver, target, "deselect", by, value), by, value);
+	}
+
+	public static void deselectAll(WebDriver driver, Object target) {
+		check(run(driver, target, "deselect", BY_ALL, ""), BY_ALL, "");
+	}
+
+	private static Object run(WebDriver driver, Object target, String action, String by, Object value) {
+		Object result = ((JavascriptExecutor) driver).executeScript(SELECT_SCRIPT, target, action, by, value);
+		if ("missing".equals(result)) {
+			throw new NoSuchElementException("Unable to find select element");
+		}
+		if (result instanceof String && ((String) result).startsWith("tag:")) {
+			throw new UnexpectedTagNameException("select", ((String) result).substring(4));
+		}
+		return result;
+	}
+
+	private static void check(Object result, String by, Object value) {
+		if ("none".equals(result)) {
+			throw new NoSuchElementException("Cannot locate option with " + by + ": " + value);
+		} else if ("disabled".equals(result)) {
+			throw new UnsupportedOperationException("You may not select a disabled option");
+		} else if ("single".equals(result)) {
+			throw new UnsupportedOperationException("You may only deselect options of a multi-select");
+		}
+	}
+}
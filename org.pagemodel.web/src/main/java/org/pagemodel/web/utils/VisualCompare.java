@@ -0,0 +1,248 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.Rectangle;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Pixel comparison of a screenshot against a baseline image.
+ * <p>
+ * Images are compared in tiles, in parallel across cores, with loops directly over the int pixel arrays.  A diff
+ * image is only rendered when pixels differ.  Optionally, tiles whose average hashes are within HASH_SKIP_DISTANCE
+ * bits are accepted without comparing pixels, which tolerates anti-aliasing noise but can also hide small changes
+ * such as edited text, so it is disabled by default.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class VisualCompare {
+	public static int TILE_SIZE = 64;
+	public static int HASH_SKIP_DISTANCE = -1;
+	public static boolean PARALLEL = true;
+
+	private final static int DIFF_COLOR = 0xffff0000;
+	private final static int IGNORE_COLOR = 0xff9999ff;
+	private final static ThreadLocal<long[]> CELLS = ThreadLocal.withInitial(() -> new long[64]);
+
+	public static class Result {
+		private final int width;
+		private final int height;
+		private final boolean sizeMatch;
+		private final long diffPixels;
+		private final int diffTiles;
+		private final BufferedImage diffImage;
+
+		public Result(int width, int height, boolean sizeMatch, long diffPixels, int diffTiles, BufferedImage diffImage) {
+			this.width = width;
+			this.height = height;
+			this.sizeMatch = sizeMatch;
+			this.diffPixels = diffPixels;
+			this.diffTiles = diffTiles;
+			this.diffImage = diffImage;
+		}
+
+		public boolean isSizeMatch() {
+			return sizeMatch;
+		}
+
+		public long getDiffPixels() {
+			return diffPixels;
+		}
+
+		public int getDiffTiles() {
+			return diffTiles;
+		}
+
+		/**
+		 * @return baseline image faded, with differing pixels in red, or null if there are no differences
+		 */
+		public BufferedImage getDiffImage() {
+			return diffImage;
+		}
+
+		public double getDiffRatio() {
+			if (!sizeMatch) {
+				return 1.0;
+			}
+			long total = (long) width * height;
+			return total == 0 ? 0.0 : (double) diffPixels / total;
+		}
+	}
+
+	/**
+	 * @param colorTolerance maximum difference allowed in each color channel (0-255) for a pixel to match
+	 * @param ignore         regions to skip, relative to the image origin
+	 */
+	public static Result compare(BufferedImage baseline, BufferedImage actual, int colorTolerance, List<Rectangle> ignore) {
+		int width = baseline.getWidth();
+		int height = baseline.getHeight();
+		if (width != actual.getWidth() || height != actual.getHeight()) {
+			return new Result(width, height, false, (long) width * height, 0, null);
+		}
+		int[] a = pixels(baseline);
+		int[] b = pixels(actual);
+		byte[] mask = ignoreMask(width, height, ignore);
+		int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+		int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+		long[] tileDiffs = new long[tilesX * tilesY];
+		IntStream tiles = IntStream.range(0, tileDiffs.length);
+		if (PARALLEL) {
+			tiles = tiles.parallel();
+		}
+		tiles.forEach(t -> {
+			int x0 = (t % tilesX) * TILE_SIZE;
+			int y0 = (t / tilesX) * TILE_SIZE;
+			int x1 = Math.min(width, x0 + TILE_SIZE);
+			int y1 = Math.min(height, y0 + TILE_SIZE);
+			if (HASH_SKIP_DISTANCE >= 0 && Long.bitCount(tileHash(a, width, x0, y0, x1, y1) ^ tileHash(b, width, x0, y0, x1, y1)) <= HASH_SKIP_DISTANCE) {
+				return;
+			}
+			tileDiffs[t] = compareTile(a, b, mask, width, x0, y0, x1, y1, colorTolerance, null);
+		});
+		long diffPixels = 0;
+		int diffTiles = 0;
+		for (long diff : tileDiffs) {
+			diffPixels += diff;
+			diffTiles += diff > 0 ? 1 : 0;
+		}
+		if (diffPixels == 0) {
+			return new Result(width, height, true, 0, 0, null);
+		}
+		BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] out = ((DataBufferInt) diffImage.getRaster().getDataBuffer()).getData();
+		fade(a, out, mask);
+		for (int t = 0; t < tileDiffs.length; t++) {
+			if (tileDiffs[t] > 0) {
+				int x0 = (t % tilesX) * TILE_SIZE;
+				int y0 = (t / tilesX) * TILE_SIZE;
+				compareTile(a, b, mask, width, x0, y0, Math.min(width, x0 + TILE_SIZE), Math.min(height, y0 + TILE_SIZE), colorTolerance, out);
+			}
+		}
+		return new Result(width, height, true, diffPixels, diffTiles, diffImage);
+	}
+
+	private static long compareTile(int[] a, int[] b, byte[] mask, int width, int x0, int y0, int x1, int y1, int tolerance, int[] out) {
+		long count = 0;
+		for (int y = y0; y < y1; y++) {
+			int row = y * width;
+			for (int i = row + x0, end = row + x1; i < end; i++) {
+				int pa = a[i];
+				int pb = b[i];
+				if (pa == pb || (mask != null && mask[i] != 0)) {
+					continue;
+				}
+				if (Math.abs(((pa >> 16) & 0xff) - ((pb >> 16) & 0xff)) > tolerance
+						|| Math.abs(((pa >> 8) & 0xff) - ((pb >> 8) & 0xff)) > tolerance
+						|| Math.abs((pa & 0xff) - (pb & 0xff)) > tolerance) {
+					count++;
+					if (out != null) {
+						out[i] = DIFF_COLOR;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 64 bit average hash of a tile: one bit per cell of an 8x8 grid, set when the cell is brighter than the tile.
+	 */
+	private static long tileHash(int[] pixels, int width, int x0, int y0, int x1, int y1) {
+		int cellW = Math.max(1, (x1 - x0 + 7) / 8);
+		int cellH = Math.max(1, (y1 - y0 + 7) / 8);
+		long[] cells = CELLS.get();
+		long total = 0;
+		for (int cell = 0; cell < 64; cell++) {
+			int cx0 = x0 + (cell % 8) * cellW;
+			int cy0 = y0 + (cell / 8) * cellH;
+			long sum = 0;
+			for (int y = cy0; y < Math.min(y1, cy0 + cellH); y++) {
+				int row = y * width;
+				for (int x = cx0; x < Math.min(x1, cx0 + cellW); x++) {
+					int p = pixels[row + x];
+					sum += ((p >> 16) & 0xff) + ((p >> 8) & 0xff) + (p & 0xff);
+				}
+			}
+			cells[cell] = sum;
+			total += sum;
+		}
+		long mean = total / 64;
+		long hash = 0;
+		for (int cell = 0; cell < 64; cell++) {
+			if (cells[cell] > mean) {
+				hash |= 1L << cell;
+			}
+		}
+		return hash;
+	}
+
+	private static void fade(int[] pixels, int[] out, byte[] mask) {
+		for (int i = 0; i < pixels.length; i++) {
+			if (mask != null && mask[i] != 0) {
+				out[i] = IGNORE_COLOR;
+				continue;
+			}
+			int p = pixels[i];
+			int gray = 170 + (((p >> 16) & 0xff) + ((p >> 8) & 0xff) + (p & 0xff)) / 9;
+			out[i] = 0xff000000 | (gray << 16) | (gray << 8) | gray;
+		}
+	}
+
+	private static byte[] ignoreMask(int width, int height, List<Rectangle> ignore) {
+		if (ignore == null || ignore.isEmpty()) {
+			return null;
+		}
+		byte[] mask = new byte[width * height];
+		for (Rectangle rect : ignore) {
+			int x0 = Math.max(0, rect.getX());
+			int y0 = Math.max(0, rect.getY());
+			int x1 = Math.min(width, rect.getX() + rect.getWidth());
+			int y1 = Math.min(height, rect.getY() + rect.getHeight());
+			for (int y = y0; y < y1; y++) {
+				for (int x = x0; x < x1; x++) {
+					mask[y * width + x] = 1;
+				}
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * @return the ARGB pixel array backing the image, converting the image first if it is not stored as packed ints
+	 */
+	private static int[] pixels(BufferedImage image) {
+		if ((image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+				&& image.getRaster().getDataBuffer() instanceof DataBufferInt
+				&& image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel
+				&& ((SinglePixelPackedSampleModel) image.getRaster().getSampleModel()).getScanlineStride() == image.getWidth()
+				&& image.getRaster().getSampleModelTranslateX() == 0 && image.getRaster().getSampleModelTranslateY() == 0
+				&& ((DataBufferInt) image.getRaster().getDataBuffer()).getData().length == image.getWidth() * image.getHeight()) {
+			return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		}
+		BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = converted.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return ((DataBufferInt) converted.getRaster().getDataBuffer()).getData();
+	}
+}
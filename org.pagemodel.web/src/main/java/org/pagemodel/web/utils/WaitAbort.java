@@ -0,0 +1,237 @@
+/*
+ * Copyright 2021 Matthew Stevenson <pagemodel.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.pagemodel.web.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.core.utils.json.JsonObjectBuilder;
+import org.pagemodel.web.PageModel;
+import org.pagemodel.web.PageUtils;
+import org.pagemodel.web.WebTestContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Conditions that end a wait early, when the browser has navigated somewhere the wait can no longer succeed, such
+ * as an error page or the login page after the session expired.
+ * <p>
+ * The url and title are read with one script call per poll.  Error page models are checked on the first poll that
+ * fails, so a wait that starts on an error page ends at once, and after that only when the url or title changes,
+ * since checking a model can take several calls.  Error pages registered with registerErrorPage are checked by
+ * every wait.
+ *
+ * @author Matt Stevenson [matt@pagemodel.org]
+ */
+public class WaitAbort {
+	private final static String LOCATION_SCRIPT = "return [window.location.href, document.title];";
+	private final static List<PageCheck> errorPages = new CopyOnWriteArrayList<>();
+
+	protected boolean urlChange = false;
+	protected Pattern urlPattern;
+	protected Pattern titlePattern;
+	protected final List<PageCheck> pages = new ArrayList<>();
+
+	public static class AbortedException extends RuntimeException {
+		public AbortedException(String reason) {
+			super("Wait aborted: " + reason);
+		}
+	}
+
+	/**
+	 * A page model class, and how to create it to check if it is displayed.
+	 */
+	protected static class PageCheck {
+		protected final Class<?> pageClass;
+		protected final Function<WebTestContext, PageModel<?>> makePage;
+
+		protected <T extends PageModel<? super T>> PageCheck(Class<T> pageClass) {
+			this.pageClass = pageClass;
+			this.makePage = testContext -> PageUtils.makeInstance(pageClass, testContext);
+		}
+	}
+
+	/**
+	 * Url and title of the page when the wait started, and when the page models were last checked.
+	 */
+	public static class State {
+		protected final String url;
+		protected final String title;
+		protected String checkedUrl;
+		protected String checkedTitle;
+
+		protected State(String url, String title) {
+			this.url = url;
+			this.title = title;
+		}
+	}
+
+	/**
+	 * Registers a page model that ends every wait when it is displayed after the browser navigates.
+	 */
+	public static <T extends PageModel<? super T>> void registerErrorPage(Class<T> pageClass) {
+		if (errorPages.stream().noneMatch(page -> page.pageClass.equals(pageClass))) {
+			errorPages.add(new PageCheck(pageClass));
+		}
+	}
+
+	public static void clearErrorPages() {
+		errorPages.clear();
+	}
+
+	public WaitAbort onUrlChange() {
+		this.urlChange = true;
+		return this;
+	}
+
+	public WaitAbort onUrlMatches(String regex) {
+		this.urlPattern = Pattern.compile(regex);
+		return this;
+	}
+
+	public WaitAbort onTitleMatches(String regex) {
+		this.titlePattern = Pattern.compile(regex);
+		return this;
+	}
+
+	public <T extends PageModel<? super T>> WaitAbort onPage(Class<T> pageClass) {
+		pages.add(new PageCheck(pageClass));
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return !urlChange && urlPattern == null && titlePattern == null && pages.isEmpty() && errorPages.isEmpty();
+	}
+
+	/**
+	 * @return true if page models are checked, which the browser wait can not do
+	 */
+	public boolean hasPageChecks() {
+		return !pages.isEmpty() || !errorPages.isEmpty();
+	}
+
+	public void addJson(JsonObjectBuilder json) {
+		json.doAdd(o -> {
+			if (urlChange) {
+				o.addValue("abortOnUrlChange", true);
+			}
+			if (urlPattern != null) {
+				o.addValue("abortOnUrl", urlPattern.pattern());
+			}
+			if (titlePattern != null) {
+				o.addValue("abortOnTitle", titlePattern.pattern());
+			}
+			if (!pages.isEmpty()) {
+				o.addValue("abortOnPage", pages.stream().map(page -> page.pageClass.getSimpleName()).collect(Collectors.toList()));
+			}
+		});
+	}
+
+	/**
+	 * @return state of the page when the wait starts, or null if there are no conditions or it can not be read
+	 */
+	public State start(WebDriver driver) {
+		if (isEmpty()) {
+			return null;
+		}
+		List<?> location = location(driver);
+		return location == null ? null : new State((String) location.get(0), (String) location.get(1));
+	}
+
+	/**
+	 * Abort conditions for BrowserWait: [start url, url regex, title regex, start title].  The browser wait ends
+	 * when the url or title changes, and the conditions are then checked with check.  Patterns that do not mean the
+	 * same thing to a javascript RegExp (see BrowserAssert.browserRegex) are left to check.
+	 */
+	public List<Object> browserArgs(State state) {
+		if (state == null) {
+			return null;
+		}
+		return Arrays.asList(state.url,
+				urlPattern == null ? null : BrowserAssert.browserRegex(urlPattern.pattern()),
+				titlePattern == null ? null : BrowserAssert.browserRegex(titlePattern.pattern()),
+				state.title);
+	}
+
+	/**
+	 * @return the reason the wait should end, or null to keep waiting
+	 */
+	public String check(WebTestContext testContext, State state) {
+		if (state == null) {
+			return null;
+		}
+		List<?> location = location(testContext.getDriver());
+		if (location == null) {
+			return null;
+		}
+		String url = (String) location.get(0);
+		String title = (String) location.get(1);
+		if (urlChange && url != null && !url.equals(state.url)) {
+			return "url changed from " + state.url + " to " + url;
+		}
+		if (urlPattern != null && url != null && urlPattern.matcher(url).find()) {
+			return "url " + url + " matches " + urlPattern.pattern();
+		}
+		if (titlePattern != null && title != null && titlePattern.matcher(title).find()) {
+			return "title '" + title + "' matches " + titlePattern.pattern();
+		}
+		if (!hasPageChecks() || (eq(url, state.checkedUrl) && eq(title, state.checkedTitle))) {
+			return null;
+		}
+		state.checkedUrl = url;
+		state.checkedTitle = title;
+		List<PageCheck> models = new ArrayList<>(pages);
+		models.addAll(errorPages);
+		for (PageCheck page : models) {
+			if (isDisplayed(page, testContext)) {
+				return "page " + page.pageClass.getSimpleName() + " displayed at " + url;
+			}
+		}
+		return null;
+	}
+
+	protected boolean isDisplayed(PageCheck page, WebTestContext testContext) {
+		try {
+			return DriverTimeouts.forDriver(testContext.getDriver()).withTimeout(DriverTimeouts.Type.IMPLICIT_WAIT, Duration.ZERO,
+					() -> page.makePage.apply(testContext).modelDisplayed());
+		} catch (Throwable t) {
+			return false;
+		}
+	}
+
+	private static List<?> location(WebDriver driver) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			Object result = ((JavascriptExecutor) driver).executeScript(LOCATION_SCRIPT);
+			return result instanceof List && ((List<?>) result).size() == 2 ? (List<?>) result : null;
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	private static boolean eq(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
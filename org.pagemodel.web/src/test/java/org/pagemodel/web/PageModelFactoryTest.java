@@ -0,0 +1,100 @@
+package org.pagemodel.web;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.pagemodel.core.testers.TestEvaluator;
+import org.pagemodel.web.testers.ClickAction;
+
+import static org.mockito.Mockito.mock;
+
+public class PageModelFactoryTest {
+	private WebTestContext context;
+
+	public static class ReflectedPage extends PageModel.DefaultPageModel<ReflectedPage> {
+		public ReflectedPage(WebTestContext testContext) {
+			super(testContext);
+		}
+	}
+
+	public static class RegisteredPage extends PageModel.DefaultPageModel<RegisteredPage> {
+		static int registeredCount = 0;
+
+		static {
+			PageModelFactory.register(RegisteredPage.class, WebTestContext.class, context -> {
+				registeredCount++;
+				return new RegisteredPage(context);
+			});
+		}
+
+		public RegisteredPage(WebTestContext testContext) {
+			super(testContext);
+		}
+	}
+
+	public static class OtherContextPage extends PageModel.DefaultPageModel<OtherContextPage> {
+		public OtherContextPage(OtherContext testContext) {
+			super(testContext);
+		}
+	}
+
+	public static class OtherContext extends DefaultWebTestContext {
+		public OtherContext(WebDriver driver) {
+			super(driver);
+		}
+	}
+
+	public static class FailingPage extends PageModel.DefaultPageModel<FailingPage> {
+		public FailingPage(WebTestContext testContext) {
+			super(testContext);
+			throw new IllegalStateException("constructor failed");
+		}
+	}
+
+	public static class TestSection extends SectionModel<TestSection, ReflectedPage, ReflectedPage> {
+		public TestSection(ClickAction<ReflectedPage, ?> clickAction, TestEvaluator testEvaluator) {
+			super(clickAction, testEvaluator);
+		}
+	}
+
+	@Before
+	public void setup() {
+		context = new DefaultWebTestContext(mock(WebDriver.class));
+	}
+
+	@Test
+	public void makesPageWithConstructor() {
+		ReflectedPage page = PageModelFactory.makePage(ReflectedPage.class, context);
+		Assert.assertNotNull(page);
+		Assert.assertSame(context, page.getContext());
+		Assert.assertNotSame(page, PageModelFactory.makePage(ReflectedPage.class, context));
+	}
+
+	@Test
+	public void usesRegisteredFactory() {
+		int count = RegisteredPage.registeredCount;
+		Assert.assertNotNull(PageModelFactory.makePage(RegisteredPage.class, context));
+		Assert.assertEquals(count + 1, RegisteredPage.registeredCount);
+	}
+
+	@Test
+	public void noMatchingConstructor() {
+		Assert.assertNull(PageModelFactory.makePage(OtherContextPage.class, context));
+		Assert.assertFalse(PageModelFactory.hasPageFactory(OtherContextPage.class, context.getClass()));
+		Assert.assertNotNull(PageModelFactory.makePage(OtherContextPage.class, new OtherContext(mock(WebDriver.class))));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void constructorExceptionIsThrown() {
+		PageModelFactory.makePage(FailingPage.class, context);
+	}
+
+	@Test
+	public void makesSection() {
+		ReflectedPage page = PageModelFactory.makePage(ReflectedPage.class, context);
+		ClickAction<ReflectedPage, ReflectedPage> clickAction = ClickAction.make(() -> null, page, page.getEvaluator());
+		TestSection section = SectionModel.make(TestSection.class, clickAction, page.getEvaluator());
+		Assert.assertNotNull(section);
+	}
+}
@@ -0,0 +1,72 @@
+package org.pagemodel.web.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+public class BrowserAssertTest {
+
+	@Test
+	public void predicateOp() {
+		Assert.assertEquals(BrowserAssert.CONTAINS, BrowserAssert.predicateOp("contains"));
+		Assert.assertEquals("!" + BrowserAssert.CONTAINS, BrowserAssert.predicateOp("not contains"));
+		Assert.assertEquals(BrowserAssert.MATCHES, BrowserAssert.predicateOp("matches regex"));
+		Assert.assertEquals(BrowserAssert.EMPTY, BrowserAssert.predicateOp("is empty"));
+		Assert.assertEquals("!" + BrowserAssert.EMPTY, BrowserAssert.predicateOp("not empty"));
+		Assert.assertEquals("!" + BrowserAssert.GREATER_THAN, BrowserAssert.predicateOp("not greater than"));
+		Assert.assertNull(BrowserAssert.predicateOp("matches regex group"));
+		Assert.assertNull(BrowserAssert.predicateOp("clickable"));
+	}
+
+	@Test
+	public void predicateArgs() {
+		Assert.assertEquals(Arrays.asList("width", "", "greater than", "50"),
+				BrowserAssert.predicateArgs(BrowserAssert.WIDTH, null, BrowserAssert.GREATER_THAN, 50));
+		Assert.assertEquals(Arrays.asList("attribute", "href", "!equals", "/home"),
+				BrowserAssert.predicateArgs(BrowserAssert.ATTRIBUTE, "href", "!" + BrowserAssert.EQUALS, "/home"));
+	}
+
+	@Test
+	public void portableRegexIsUnchanged() {
+		Assert.assertEquals("abc", BrowserAssert.browserRegex("abc"));
+		Assert.assertEquals("\\d+-\\w*?", BrowserAssert.browserRegex("\\d+-\\w*?"));
+		Assert.assertEquals("(?:a|b){2,3}(c)?", BrowserAssert.browserRegex("(?:a|b){2,3}(c)?"));
+		Assert.assertEquals("^[a-z_\\-]+(?=!)\\.x\\u00e9", BrowserAssert.browserRegex("^[a-z_\\-]+(?=!)\\.x\\u00e9"));
+	}
+
+	@Test
+	public void regexDifferencesAreRewritten() {
+		String[] regexes = {".", "a.*", "\\s+", "\\S", "[\\sx]", "[^a]", "\\D", "\\W\\w", "a$"};
+		String[] inputs = {"", "a", "ab", " ", "\u00A0", "\u0085", "\n", "\t\r", "\uD83D\uDE00", "a\n", "a\r\n", "x \u2003"};
+		for (String regex : regexes) {
+			String js = BrowserAssert.browserRegex(regex);
+			Assert.assertNotNull(regex, js);
+			for (String input : inputs) {
+				Assert.assertEquals(regex + " " + js, input.matches(regex), input.matches(js));
+			}
+		}
+		Assert.assertTrue(BrowserAssert.browserRegex("\\s").contains("\\x0B"));
+		Assert.assertTrue(BrowserAssert.browserRegex(".").contains("\\uD800-\\uDBFF"));
+		Assert.assertTrue(BrowserAssert.browserRegex("[^a]").contains("\\uD800-\\uDBFF"));
+	}
+
+	@Test
+	public void unportableRegexIsRejected() {
+		for (String regex : Arrays.asList("(?<=a)b", "(?i)abc", "(?<name>a)", "(?>a)", "a++", "a*+", "a{2}+", "(a)\\1",
+				"\\bword\\b", "\\p{L}", "\\Qa.b\\E", "\\x{41}", "\\0101", "[a-z&&[^e]]", "[[a]b]", "[\\S]", "[\\b]",
+				"a$\\n", "a]", "a}", "\uD83D\uDE00", "(", "[a")) {
+			Assert.assertNull(regex, BrowserAssert.browserRegex(regex));
+		}
+	}
+
+	@Test
+	public void unportableRegexIsTestedInJava() {
+		Assert.assertNull(BrowserAssert.predicateArgs(BrowserAssert.TEXT, null, BrowserAssert.MATCHES, "(?i)ok"));
+		Assert.assertNull(BrowserAssert.predicateArgs(BrowserAssert.TEXT, null, "!" + BrowserAssert.MATCHES, "\\p{L}+"));
+		Assert.assertEquals(Arrays.asList("text", "", "matches regex", "[ \\t\\n\\x0B\\f\\r]"),
+				BrowserAssert.predicateArgs(BrowserAssert.TEXT, null, BrowserAssert.MATCHES, "\\s"));
+		Assert.assertTrue(Pattern.compile(BrowserAssert.browserRegex("\\S+")).matcher("ok").matches());
+	}
+}
@@ -0,0 +1,108 @@
+package org.pagemodel.web.utils;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.*;
+
+public class DriverTimeoutsTest {
+	private WebDriver driver;
+	private WebDriver.Timeouts timeouts;
+	private DriverTimeouts driverTimeouts;
+
+	@Before
+	public void setup() {
+		driver = mock(WebDriver.class);
+		WebDriver.Options options = mock(WebDriver.Options.class);
+		timeouts = mock(WebDriver.Timeouts.class);
+		when(driver.manage()).thenReturn(options);
+		when(options.timeouts()).thenReturn(timeouts);
+		driverTimeouts = DriverTimeouts.forDriver(driver);
+	}
+
+	@Test
+	public void sameDriverSameManager() {
+		Assert.assertSame(driverTimeouts, DriverTimeouts.forDriver(driver));
+		Assert.assertNotSame(driverTimeouts, DriverTimeouts.forDriver(mock(WebDriver.class)));
+	}
+
+	@Test
+	public void onlySendsChanges() {
+		for (int i = 0; i < 5; i++) {
+			DriverTimeouts.setImplicitWait(driver, Duration.ofMillis(50));
+		}
+		DriverTimeouts.setImplicitWait(driver, Duration.ofSeconds(1));
+		verify(timeouts, times(1)).implicitlyWait(Duration.ofMillis(50));
+		verify(timeouts, times(1)).implicitlyWait(Duration.ofSeconds(1));
+		Assert.assertEquals(2, driverTimeouts.getSentCount(DriverTimeouts.Type.IMPLICIT_WAIT));
+		Assert.assertEquals(4, driverTimeouts.getSuppressedCount(DriverTimeouts.Type.IMPLICIT_WAIT));
+		Assert.assertEquals(0, driverTimeouts.getSentCount(DriverTimeouts.Type.PAGE_LOAD));
+	}
+
+	@Test
+	public void scopedOverrideRestores() {
+		DriverTimeouts.setPageLoadTimeout(driver, Duration.ofSeconds(20));
+		try (DriverTimeouts.Scope scope = driverTimeouts.override(DriverTimeouts.Type.PAGE_LOAD, Duration.ofSeconds(5))) {
+			verify(timeouts).pageLoadTimeout(Duration.ofSeconds(5));
+		}
+		verify(timeouts, times(2)).pageLoadTimeout(Duration.ofSeconds(20));
+		Assert.assertEquals(Duration.ofSeconds(20), driverTimeouts.get(DriverTimeouts.Type.PAGE_LOAD));
+	}
+
+	@Test
+	public void withTimeoutRestoresAfterException() {
+		DriverTimeouts.setPageLoadTimeout(driver, Duration.ofSeconds(20));
+		Assert.assertEquals("done", driverTimeouts.withTimeout(DriverTimeouts.Type.PAGE_LOAD, Duration.ofSeconds(5), () -> "done"));
+		try {
+			driverTimeouts.runWithTimeout(DriverTimeouts.Type.PAGE_LOAD, Duration.ofSeconds(5), () -> {
+				throw new IllegalStateException("failed");
+			});
+			Assert.fail("no exception caught");
+		} catch (IllegalStateException ex) {
+		}
+		verify(timeouts, times(2)).pageLoadTimeout(Duration.ofSeconds(5));
+		Assert.assertEquals(Duration.ofSeconds(20), driverTimeouts.get(DriverTimeouts.Type.PAGE_LOAD));
+	}
+
+	@Test
+	public void scopedOverrideWithSameValueSendsNothing() {
+		DriverTimeouts.setScriptTimeout(driver, Duration.ofSeconds(20));
+		try (DriverTimeouts.Scope scope = driverTimeouts.override(DriverTimeouts.Type.SCRIPT, Duration.ofSeconds(20))) {
+		}
+		verify(timeouts, times(1)).scriptTimeout(any(Duration.class));
+		Assert.assertEquals(2, driverTimeouts.getSuppressedCount());
+	}
+
+	@Test
+	public void unknownValueIsReadOnce() {
+		when(timeouts.getImplicitWaitTimeout()).thenReturn(Duration.ofSeconds(1));
+		try (DriverTimeouts.Scope scope = driverTimeouts.override(DriverTimeouts.Type.IMPLICIT_WAIT, Duration.ZERO)) {
+		}
+		verify(timeouts, times(1)).getImplicitWaitTimeout();
+		verify(timeouts).implicitlyWait(Duration.ZERO);
+		verify(timeouts).implicitlyWait(Duration.ofSeconds(1));
+	}
+
+	@Test
+	public void invalidateResendsValue() {
+		DriverTimeouts.setImplicitWait(driver, Duration.ZERO);
+		driverTimeouts.invalidate();
+		DriverTimeouts.setImplicitWait(driver, Duration.ZERO);
+		verify(timeouts, times(2)).implicitlyWait(Duration.ZERO);
+	}
+
+	@Test
+	public void invalidateTypeKeepsOtherValues() {
+		DriverTimeouts.setImplicitWait(driver, Duration.ZERO);
+		DriverTimeouts.setScriptTimeout(driver, Duration.ofSeconds(30));
+		driverTimeouts.invalidate(DriverTimeouts.Type.SCRIPT);
+		DriverTimeouts.setImplicitWait(driver, Duration.ZERO);
+		DriverTimeouts.setScriptTimeout(driver, Duration.ofSeconds(30));
+		verify(timeouts, times(1)).implicitlyWait(Duration.ZERO);
+		verify(timeouts, times(2)).scriptTimeout(Duration.ofSeconds(30));
+	}
+}
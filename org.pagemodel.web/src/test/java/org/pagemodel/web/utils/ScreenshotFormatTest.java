@@ -0,0 +1,49 @@
+package org.pagemodel.web.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class ScreenshotFormatTest {
+
+	private static byte[] png(int width, int height) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void losslessKeepsCaptureBytes() throws Exception {
+		byte[] png = png(10, 10);
+		Assert.assertSame(png, ScreenshotFormat.LOSSLESS.convert(png));
+		Assert.assertEquals("png", ScreenshotFormat.LOSSLESS.getExtension());
+	}
+
+	@Test
+	public void jpegScaledToMaxDimension() throws Exception {
+		ScreenshotFormat format = ScreenshotFormat.jpeg(0.5f).maxDimension(100);
+		byte[] jpeg = format.convert(png(400, 200));
+		Assert.assertEquals("jpg", format.getExtension());
+		Assert.assertEquals((byte) 0xff, jpeg[0]);
+		Assert.assertEquals((byte) 0xd8, jpeg[1]);
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+		Assert.assertEquals(100, image.getWidth());
+		Assert.assertEquals(50, image.getHeight());
+	}
+
+	@Test
+	public void forcedFormatIsScoped() {
+		ScreenshotFormat previous = ScreenshotFormat.DEFAULT;
+		ScreenshotFormat.DEFAULT = ScreenshotFormat.jpeg(0.8f);
+		try {
+			Assert.assertSame(ScreenshotFormat.LOSSLESS, ScreenshotFormat.withFormat(ScreenshotFormat.LOSSLESS, ScreenshotFormat::current));
+			Assert.assertSame(ScreenshotFormat.DEFAULT, ScreenshotFormat.current());
+		} finally {
+			ScreenshotFormat.DEFAULT = previous;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package org.pagemodel.web.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.pagemodel.core.utils.TestHooks;
+import org.pagemodel.core.utils.ThrowingConsumer;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ScreenshotTest {
+
+	@Test
+	public void capturesRegionWithClip() {
+		WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(HasCdp.class));
+		byte[] png = new byte[]{1, 2, 3};
+		when(((HasCdp) driver).executeCdpCommand(eq("Page.captureScreenshot"), anyMap()))
+				.thenReturn(Collections.singletonMap("data", Base64.getEncoder().encodeToString(png)));
+
+		byte[] region = Screenshot.captureRegion(driver, new Rectangle(10, 20, 30, 40), 5);
+
+		Assert.assertArrayEquals(png, region);
+		verify((HasCdp) driver).executeCdpCommand(eq("Page.captureScreenshot"), argThat(params -> {
+			Map<?, ?> clip = (Map<?, ?>) params.get("clip");
+			return clip.get("x").equals(5) && clip.get("y").equals(15) && clip.get("width").equals(50) && clip.get("height").equals(40);
+		}));
+	}
+
+	@Test
+	public void noRegionCaptureWithoutDevTools() {
+		Assert.assertNull(Screenshot.captureRegion(mock(WebDriver.class), new Rectangle(0, 0, 10, 10)));
+	}
+
+	@Test
+	public void unchangedPageReusesScreenshot() throws Exception {
+		inTempFolder(folder -> {
+			ScreenshotDedup.BROWSER_FINGERPRINT = true;
+			WebDriver driver = screenshotDriver(new byte[]{1, 2, 3});
+			when(((JavascriptExecutor) driver).executeScript(anyString())).thenReturn("page-1", "page-1", "page-2", "page-3");
+
+			String first = Screenshot.takeScreenshot(driver, "first");
+			Assert.assertEquals(first, Screenshot.takeScreenshot(driver, "second"));
+			verify((TakesScreenshot) driver, times(1)).getScreenshotAs(any());
+
+			// page changed but the pixels are the same
+			Assert.assertEquals(first, Screenshot.takeScreenshot(driver, "third"));
+			verify((TakesScreenshot) driver, times(2)).getScreenshotAs(any());
+
+			when(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)).thenReturn(new byte[]{4, 5, 6});
+			Assert.assertNotEquals(first, Screenshot.takeScreenshot(driver, "fourth"));
+			Screenshot.flush();
+			Assert.assertEquals(2, folder.listFiles().length);
+		});
+	}
+
+	@Test
+	public void comparesPixelsWithoutFingerprint() throws Exception {
+		inTempFolder(folder -> {
+			WebDriver driver = screenshotDriver(new byte[]{1, 2, 3});
+			String first = Screenshot.takeScreenshot(driver, "first");
+			Assert.assertEquals(first, Screenshot.takeScreenshot(driver, "second"));
+			verify((TakesScreenshot) driver, times(2)).getScreenshotAs(any());
+			verify((JavascriptExecutor) driver, never()).executeScript(anyString());
+		});
+	}
+
+	@Test
+	public void screenshotsAreNotReusedAcrossTests() throws Exception {
+		inTempFolder(folder -> {
+			WebDriver driver = screenshotDriver(new byte[]{1, 2, 3});
+			String first = Screenshot.takeScreenshot(driver, "first");
+			TestHooks.testEnded();
+			Assert.assertNotEquals(first, Screenshot.takeScreenshot(driver, "second"));
+			Screenshot.flush();
+			Assert.assertEquals(2, folder.listFiles().length);
+		});
+	}
+
+	@Test
+	public void deletedScreenshotIsNotReused() throws Exception {
+		inTempFolder(folder -> {
+			WebDriver driver = screenshotDriver(new byte[]{1, 2, 3});
+			String first = Screenshot.takeScreenshot(driver, "first");
+			Screenshot.flush();
+			Assert.assertTrue(new File(first).delete());
+			String second = Screenshot.takeScreenshot(driver, "second");
+			Assert.assertNotEquals(first, second);
+
+			ScreenshotDedup.forget(second);
+			Assert.assertNotEquals(second, Screenshot.takeScreenshot(driver, "third"));
+		});
+	}
+
+	@Test
+	public void fullResolutionIsOnlyKeptForLastScreenshotOfTest() throws Exception {
+		inTempFolder(folder -> {
+			WebDriver driver = screenshotDriver(new byte[]{1, 2, 3});
+			ScreenshotFormat reduced = ScreenshotFormat.jpeg(0.5f).keepFullOnFailure(true);
+			ScreenshotFormat.withFormat(reduced, () -> Screenshot.takeScreenshot(driver, "reduced", false));
+			TestHooks.testEnded();
+			Assert.assertNull(Screenshot.saveFullResolution());
+
+			ScreenshotFormat.withFormat(reduced, () -> Screenshot.takeScreenshot(driver, "reduced", false));
+			Screenshot.takeScreenshot(driver, "lossless", false);
+			Assert.assertNull(Screenshot.saveFullResolution());
+
+			ScreenshotFormat.withFormat(reduced, () -> Screenshot.takeScreenshot(driver, "reduced", false));
+			Assert.assertTrue(Screenshot.saveFullResolution().endsWith("reduced_full.png"));
+			Assert.assertNull(Screenshot.saveFullResolution());
+		});
+	}
+
+	private static WebDriver screenshotDriver(byte[] png) {
+		WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(TakesScreenshot.class, JavascriptExecutor.class));
+		when(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES)).thenReturn(png);
+		return driver;
+	}
+
+	private static void inTempFolder(ThrowingConsumer<File, Exception> test) throws Exception {
+		String dest = Screenshot.SCREENSHOT_DEST;
+		File folder = Files.createTempDirectory("screenshots").toFile();
+		Screenshot.SCREENSHOT_DEST = folder.getAbsolutePath();
+		try {
+			test.accept(folder);
+		} finally {
+			Screenshot.flush();
+			ScreenshotDedup.clear();
+			ScreenshotDedup.BROWSER_FINGERPRINT = false;
+			for (File file : folder.listFiles()) {
+				file.delete();
+			}
+			folder.delete();
+			Screenshot.SCREENSHOT_DEST = dest;
+		}
+	}
+}
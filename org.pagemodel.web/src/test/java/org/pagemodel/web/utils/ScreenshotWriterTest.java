@@ -0,0 +1,87 @@
+package org.pagemodel.web.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pagemodel.core.utils.TestHooks;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ScreenshotWriterTest {
+	private String dest;
+	private File folder;
+
+	@Before
+	public void setup() throws Exception {
+		dest = Screenshot.SCREENSHOT_DEST;
+		folder = Files.createTempDirectory("screenshots").toFile();
+		Screenshot.SCREENSHOT_DEST = folder.getAbsolutePath();
+	}
+
+	@After
+	public void cleanup() {
+		Screenshot.SCREENSHOT_DEST = dest;
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	@Test
+	public void flushWaitsForPendingTasks() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ScreenshotWriter.submit(() -> {
+			started.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException ex) {
+			}
+		});
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, ScreenshotWriter.getQueueDepth());
+		release.countDown();
+		ScreenshotWriter.flush();
+		Assert.assertEquals(0, ScreenshotWriter.getQueueDepth());
+	}
+
+	@Test
+	public void testEndFlushesPendingTasks() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		boolean[] finished = new boolean[1];
+		ScreenshotWriter.submit(() -> {
+			started.countDown();
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException ex) {
+			}
+			finished[0] = true;
+		});
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		TestHooks.testEnded();
+		Assert.assertTrue(finished[0]);
+		Assert.assertEquals(0, ScreenshotWriter.getQueueDepth());
+	}
+
+	@Test
+	public void saveWritesImageInBackground() throws Exception {
+		BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+		long encoded = ScreenshotWriter.getEncodeCount();
+		String path = Screenshot.save(image, "saved", false);
+		image.setRGB(0, 0, 0xffffff);
+		Screenshot.flush();
+		BufferedImage written = ImageIO.read(new File(path));
+		Assert.assertEquals(20, written.getWidth());
+		Assert.assertEquals(0, written.getRGB(0, 0) & 0xffffff);
+		Assert.assertEquals(encoded + 1, ScreenshotWriter.getEncodeCount());
+	}
+}
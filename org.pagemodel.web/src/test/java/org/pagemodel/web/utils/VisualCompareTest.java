@@ -0,0 +1,81 @@
+package org.pagemodel.web.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.Rectangle;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class VisualCompareTest {
+
+	@After
+	public void reset() {
+		VisualCompare.HASH_SKIP_DISTANCE = -1;
+	}
+
+	private static BufferedImage image(int width, int height, int rgb) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		return image;
+	}
+
+	@Test
+	public void identicalImagesMatch() {
+		VisualCompare.Result result = VisualCompare.compare(image(200, 150, 0x336699), image(200, 150, 0x336699), 0, null);
+		Assert.assertEquals(0, result.getDiffPixels());
+		Assert.assertNull(result.getDiffImage());
+	}
+
+	@Test
+	public void countsDifferencesAcrossTiles() {
+		BufferedImage actual = image(200, 150, 0x336699);
+		for (int x = 60; x < 70; x++) {
+			actual.setRGB(x, 10, 0xff0000);
+		}
+		VisualCompare.Result result = VisualCompare.compare(image(200, 150, 0x336699), actual, 0, null);
+		Assert.assertEquals(10, result.getDiffPixels());
+		Assert.assertEquals(2, result.getDiffTiles());
+		Assert.assertEquals(0xffff0000, result.getDiffImage().getRGB(65, 10));
+		Assert.assertNotEquals(0xffff0000, result.getDiffImage().getRGB(65, 11));
+	}
+
+	@Test
+	public void toleranceAndIgnoredRegions() {
+		BufferedImage actual = image(100, 100, 0x336699);
+		actual.setRGB(1, 1, 0x34679a);
+		actual.setRGB(50, 50, 0xffffff);
+		Assert.assertEquals(0, VisualCompare.compare(image(100, 100, 0x336699), actual, 2,
+				Collections.singletonList(new Rectangle(45, 45, 10, 10))).getDiffPixels());
+		Assert.assertEquals(2, VisualCompare.compare(image(100, 100, 0x336699), actual, 0, Arrays.asList()).getDiffPixels());
+	}
+
+	@Test
+	public void differentSizesDoNotMatch() {
+		VisualCompare.Result result = VisualCompare.compare(image(10, 10, 0), image(10, 11, 0), 0, null);
+		Assert.assertFalse(result.isSizeMatch());
+		Assert.assertEquals(1.0, result.getDiffRatio(), 0.0);
+	}
+
+	@Test
+	public void hashSkipAcceptsSimilarTiles() {
+		BufferedImage baseline = image(64, 64, 0xffffff);
+		BufferedImage actual = image(64, 64, 0xffffff);
+		for (int y = 32; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				baseline.setRGB(x, y, 0);
+				actual.setRGB(x, y, 0);
+			}
+		}
+		actual.setRGB(3, 3, 0xfefefe);
+		Assert.assertEquals(1, VisualCompare.compare(baseline, actual, 0, null).getDiffPixels());
+		VisualCompare.HASH_SKIP_DISTANCE = 0;
+		Assert.assertEquals(0, VisualCompare.compare(baseline, actual, 0, null).getDiffPixels());
+	}
+}